@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.apache.storm.perf.kafka;
+
+import java.util.Random;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.storm.kafka.spout.KafkaSpoutMessageId;
+import org.apache.storm.kafka.spout.internal.OffsetManager;
+
+/**
+ * Measures how fast the Kafka spout's {@link OffsetManager} keeps track of a single partition. Offsets are emitted in order up to
+ * maxUncommittedOffsets ahead of the committed offset, acked out of order within a window, and committed every commitInterval acks, like
+ * the spout does.
+ *
+ * <p>Usage: {@code OffsetManagerPerfTest [numMessages] [maxUncommittedOffsets] [ackReorderWindow] [commitInterval]}
+ */
+public class OffsetManagerPerfTest {
+    public static void main(String[] args) {
+        long numMessages = args.length > 0 ? Long.parseLong(args[0]) : 50_000_000L;
+        int maxUncommittedOffsets = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int ackReorderWindow = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int commitInterval = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+
+        // warm up, then measure
+        run(numMessages / 10, maxUncommittedOffsets, ackReorderWindow, commitInterval);
+        long start = System.nanoTime();
+        run(numMessages, maxUncommittedOffsets, ackReorderWindow, commitInterval);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%,d messages emitted, acked and committed in %,d ms, %,d msgs/sec (maxUncommittedOffsets=%,d, "
+                          + "ackReorderWindow=%,d, commitInterval=%,d)%n",
+                          numMessages, elapsedMs, numMessages * 1000 / Math.max(1, elapsedMs), maxUncommittedOffsets, ackReorderWindow,
+                          commitInterval);
+    }
+
+    private static void run(long numMessages, int maxUncommittedOffsets, int ackReorderWindow, int commitInterval) {
+        TopicPartition tp = new TopicPartition("topic", 0);
+        OffsetManager offsetManager = new OffsetManager(tp, 0);
+        Random random = new Random(42);
+        // the offsets that are emitted but not acked yet, acked in random order once the window is full
+        long[] pending = new long[ackReorderWindow];
+        int numPending = 0;
+        long nextOffset = 0;
+        long acked = 0;
+        while (acked < numMessages) {
+            if (nextOffset < numMessages && numPending < ackReorderWindow
+                && offsetManager.getNumUncommittedOffsets() < maxUncommittedOffsets) {
+                offsetManager.addToEmitMsgs(nextOffset);
+                pending[numPending++] = nextOffset++;
+                continue;
+            }
+            int i = random.nextInt(numPending);
+            offsetManager.addToAckMsgs(new KafkaSpoutMessageId(tp, pending[i]));
+            pending[i] = pending[--numPending];
+            if (++acked % commitInterval == 0 || acked == numMessages) {
+                OffsetAndMetadata nextCommitOffset = offsetManager.findNextCommitOffset("");
+                if (nextCommitOffset != null) {
+                    offsetManager.commit(nextCommitOffset);
+                }
+            }
+        }
+    }
+}
@@ -24,19 +24,22 @@ import org.apache.storm.trident.state.map.IBackingMap;
 import org.apache.storm.trident.state.map.MapState;
 import org.apache.storm.trident.state.map.NonTransactionalMap;
 import org.apache.storm.trident.state.map.OpaqueMap;
+import org.apache.storm.trident.state.map.SharedCachedMap;
 import org.apache.storm.trident.state.map.TransactionalMap;
 
 /**
  * A StateFactory implementation that creates a MapState backed by CassandraBackingMap.
  *
  * <p>The statefactory supports opaque, transactional and non-transactional configurations.
- * Optionally, the backing map can be wrapped in a {@link CachedMap} by specifying {@link #withCache} (off by default).
+ * Optionally, the backing map can be wrapped in a {@link CachedMap} by specifying {@link #withCache} (off by default), or in a
+ * {@link SharedCachedMap} that the tasks in a worker share by specifying {@link #withSharedCache}.
  */
 public class CassandraMapStateFactory implements StateFactory {
 
     private final StateType stateType;
     private final CassandraBackingMap.Options options;
     private int cacheSize;
+    private String sharedCacheName;
     private Map<String, Object> cassandraConfig;
 
     private CassandraMapStateFactory(StateType stateType, CassandraBackingMap.Options options, Map<String, Object> cassandraConfig) {
@@ -62,6 +65,16 @@ public class CassandraMapStateFactory implements StateFactory {
         return this;
     }
 
+    /**
+     * Caches up to {@code cacheSize} values in the worker's {@link SharedCachedMap} with the given name.  The name must be unique to
+     * this state.
+     */
+    public CassandraMapStateFactory withSharedCache(String cacheName, int cacheSize) {
+        this.sharedCacheName = cacheName;
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public State makeState(Map<String, Object> conf, IMetricsContext metrics, int partitionIndex, int numPartitions) {
@@ -69,9 +82,16 @@ public class CassandraMapStateFactory implements StateFactory {
         CassandraBackingMap cassandraBackingMap = new CassandraBackingMap(cassandraConfig, options);
         cassandraBackingMap.prepare();
 
-        IBackingMap backingMap = cacheSize > 0
-            ? new CachedMap<>(cassandraBackingMap, cacheSize)
-            : cassandraBackingMap;
+        IBackingMap backingMap;
+        if (cacheSize <= 0) {
+            backingMap = cassandraBackingMap;
+        } else if (sharedCacheName != null) {
+            SharedCachedMap sharedCachedMap = SharedCachedMap.build(sharedCacheName, cassandraBackingMap, cacheSize);
+            sharedCachedMap.registerMetrics(metrics);
+            backingMap = sharedCachedMap;
+        } else {
+            backingMap = new CachedMap<>(cassandraBackingMap, cacheSize);
+        }
 
         MapState<?> mapState;
 
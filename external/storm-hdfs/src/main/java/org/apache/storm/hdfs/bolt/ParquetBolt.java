@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.hdfs.bolt;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.storm.hdfs.bolt.format.FileNameFormat;
+import org.apache.storm.hdfs.bolt.rotation.FileRotationPolicy;
+import org.apache.storm.hdfs.bolt.sync.SyncPolicy;
+import org.apache.storm.hdfs.common.AbstractHDFSWriter;
+import org.apache.storm.hdfs.common.ParquetHDFSWriter;
+import org.apache.storm.hdfs.common.ParquetRowLog;
+import org.apache.storm.hdfs.common.ParquetTupleWriteSupport;
+import org.apache.storm.hdfs.common.Partitioner;
+import org.apache.storm.hdfs.common.rotation.RotationAction;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.tuple.ITuple;
+import org.apache.storm.tuple.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes tuples to columnar Parquet files, one row per tuple, see {@link ParquetTupleWriteSupport} for how tuple fields map to columns.
+ *
+ * <p>Rows are buffered in memory and compressed a row group at a time, and a Parquet file can only be read once it is closed.  So the
+ * rows are also written to a {@link ParquetRowLog} per file, kept under a hidden directory of the task next to the files, and the tuples
+ * are acked once the sync policy syncs the logs, like with the other bolts.  When the task starts, the logs its previous run left behind
+ * are replayed into their data files.  A {@link org.apache.storm.hdfs.bolt.rotation.FileSizeRotationPolicy} rotates on the compressed
+ * size of the file.
+ *
+ * <p>Every row is written twice, once to the Parquet file and once uncompressed to the log, so an open file costs more space and write
+ * bandwidth than its compressed size until it is closed.
+ */
+public class ParquetBolt extends AbstractHdfsBolt {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParquetBolt.class);
+    private static final String LOG_DIR = ".parquet-logs";
+
+    private String schema;
+    private CompressionCodecName compressionCodec = CompressionCodecName.SNAPPY;
+    private int rowGroupSize = ParquetWriter.DEFAULT_BLOCK_SIZE;
+    private int pageSize = ParquetWriter.DEFAULT_PAGE_SIZE;
+    private transient MessageType messageType;
+    private transient ParquetRowLog rowLog;
+    private transient Path logDir;
+
+    public ParquetBolt withFsUrl(String fsUrl) {
+        this.fsUrl = fsUrl;
+        return this;
+    }
+
+    public ParquetBolt withConfigKey(String configKey) {
+        this.configKey = configKey;
+        return this;
+    }
+
+    public ParquetBolt withFileNameFormat(FileNameFormat fileNameFormat) {
+        this.fileNameFormat = fileNameFormat;
+        return this;
+    }
+
+    public ParquetBolt withSyncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+        return this;
+    }
+
+    public ParquetBolt withRotationPolicy(FileRotationPolicy rotationPolicy) {
+        this.rotationPolicy = rotationPolicy;
+        return this;
+    }
+
+    public ParquetBolt addRotationAction(RotationAction action) {
+        this.rotationActions.add(action);
+        return this;
+    }
+
+    public ParquetBolt withTickTupleIntervalSeconds(int interval) {
+        this.tickTupleInterval = interval;
+        return this;
+    }
+
+    public ParquetBolt withMaxOpenFiles(int maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+        return this;
+    }
+
+    public ParquetBolt withPartitioner(Partitioner partitioner) {
+        this.partitioner = partitioner;
+        return this;
+    }
+
+    /**
+     * Sets the schema of the files, in the Parquet message type syntax, for example
+     * {@code message event { required int64 timestamp; required binary user (UTF8); optional double amount; }}.
+     */
+    public ParquetBolt withSchema(String schema) {
+        this.schema = schema;
+        return this;
+    }
+
+    /**
+     * Sets the codec the pages are compressed with, SNAPPY by default.
+     */
+    public ParquetBolt withCompressionCodec(CompressionCodecName compressionCodec) {
+        this.compressionCodec = compressionCodec;
+        return this;
+    }
+
+    /**
+     * Sets the size of the row groups, which are buffered in memory before they are written.  Every open file buffers a row group, so
+     * this times the maximum number of open files bounds the memory the bolt uses.
+     */
+    public ParquetBolt withRowGroupSize(int rowGroupSize) {
+        this.rowGroupSize = rowGroupSize;
+        return this;
+    }
+
+    public ParquetBolt withPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    @Override
+    protected void doPrepare(Map<String, Object> conf, TopologyContext topologyContext, OutputCollector collector) throws IOException {
+        LOG.info("Preparing Parquet Bolt...");
+        if (this.schema == null) {
+            throw new IllegalStateException("Schema must be specified.");
+        }
+        this.messageType = ParquetTupleWriteSupport.parseSchema(this.schema);
+        this.rowLog = new ParquetRowLog(this.messageType);
+        this.fs = FileSystem.get(URI.create(this.fsUrl), hdfsConfig);
+        this.logDir = new Path(this.fsUrl + this.fileNameFormat.getPath(),
+                               LOG_DIR + "/" + topologyContext.getThisComponentId() + "-" + topologyContext.getThisTaskId());
+        if (this.fs.exists(this.logDir)) {
+            for (FileStatus log : this.fs.listStatus(this.logDir)) {
+                ParquetHDFSWriter.recover(this.fs, log.getPath(), this.rowLog, this::makeParquetWriter);
+            }
+        }
+    }
+
+    @Override
+    protected String getWriterKey(Tuple tuple) {
+        return "CONSTANT";
+    }
+
+    @Override
+    protected AbstractHDFSWriter makeNewWriter(Path path, Tuple tuple) throws IOException {
+        Path logPath = new Path(this.logDir, UUID.randomUUID() + ".log");
+        return new ParquetHDFSWriter(this.rotationPolicy, path, makeParquetWriter(path), this.fs, logPath, this.rowLog);
+    }
+
+    private ParquetWriter<ITuple> makeParquetWriter(Path path) throws IOException {
+        return ParquetTupleWriteSupport.builder(path, this.messageType)
+            .withConf(this.hdfsConfig)
+            .withWriteMode(ParquetFileWriter.Mode.CREATE)
+            .withCompressionCodec(this.compressionCodec)
+            .withRowGroupSize(this.rowGroupSize)
+            .withPageSize(this.pageSize)
+            .build();
+    }
+}
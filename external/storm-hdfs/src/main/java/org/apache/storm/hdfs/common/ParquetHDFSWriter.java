@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.hdfs.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.storm.hdfs.bolt.rotation.FileRotationPolicy;
+import org.apache.storm.tuple.ITuple;
+import org.apache.storm.tuple.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes tuples to a Parquet file.  The rows are buffered in memory until a row group is full, so a Parquet file is only readable once
+ * it is closed, and the offset passed to the rotation policy is the compressed size of the file, including the buffered row group.
+ *
+ * <p>The rows are also appended to a {@link ParquetRowLog}, which starts with the path of the data file and is synced on every sync, so
+ * the rows are durable once {@link #sync()} returns.  The log is deleted when the file is closed, and a log that is left behind is
+ * replayed into its data file by {@link #recover(FileSystem, Path, ParquetRowLog, ParquetWriterFactory)}.
+ */
+@SuppressWarnings("checkstyle:AbbreviationAsWordInName")
+public class ParquetHDFSWriter extends AbstractHDFSWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParquetHDFSWriter.class);
+
+    private final ParquetWriter<ITuple> writer;
+    private final FileSystem fs;
+    private final Path logPath;
+    private final FSDataOutputStream logOut;
+    private final DataOutputStream log;
+    private final ParquetRowLog rowLog;
+
+    public ParquetHDFSWriter(FileRotationPolicy policy, Path path, ParquetWriter<ITuple> writer, FileSystem fs, Path logPath,
+                             ParquetRowLog rowLog) throws IOException {
+        super(policy, path);
+        this.writer = writer;
+        this.fs = fs;
+        this.logPath = logPath;
+        this.logOut = fs.create(logPath);
+        this.log = new DataOutputStream(new BufferedOutputStream(this.logOut));
+        this.log.writeUTF(path.toString());
+        this.rowLog = rowLog;
+    }
+
+    /**
+     * Rewrites the data file of a log that was left behind from the rows in the log, unless the file was closed, and deletes the log.
+     * The rows after the last sync may be recovered too, as long as they were written in full.
+     */
+    public static void recover(FileSystem fs, Path logPath, ParquetRowLog rowLog, ParquetWriterFactory writerFactory) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(fs.open(logPath)))) {
+            Path dataPath = new Path(in.readUTF());
+            if (!ParquetRowLog.isClosed(fs, dataPath)) {
+                fs.delete(dataPath, false);
+                long rows = 0;
+                try (ParquetWriter<ITuple> writer = writerFactory.create(dataPath)) {
+                    while (true) {
+                        ITuple row;
+                        try {
+                            row = rowLog.read(in);
+                        } catch (EOFException e) {
+                            break;
+                        }
+                        writer.write(row);
+                        rows++;
+                    }
+                }
+                LOG.info("Recovered {} rows of {} from {}", rows, dataPath, logPath);
+            }
+        } catch (EOFException e) {
+            LOG.info("Log {} ends before the path of its data file, nothing to recover", logPath);
+        }
+        fs.delete(logPath, false);
+    }
+
+    @Override
+    protected void doWrite(Tuple tuple) throws IOException {
+        writer.write(tuple);
+        rowLog.write(log, tuple);
+        this.offset = writer.getDataSize();
+    }
+
+    @Override
+    protected void doSync() throws IOException {
+        log.flush();
+        ParquetRowLog.sync(logOut);
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        writer.close();
+        log.close();
+        fs.delete(logPath, false);
+    }
+
+    /**
+     * Opens a Parquet writer for a data file.
+     */
+    public interface ParquetWriterFactory {
+        ParquetWriter<ITuple> create(Path path) throws IOException;
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.hdfs.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.client.HdfsDataOutputStream;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+import org.apache.storm.trident.tuple.TridentTupleView;
+import org.apache.storm.tuple.Fields;
+import org.apache.storm.tuple.ITuple;
+
+/**
+ * The write-ahead log of the rows of a Parquet file.  A Parquet file can only be read once it is closed, so its rows are also appended
+ * to a log, which is synced to make them durable, and replayed into a new file if the writer dies before the file is closed.
+ *
+ * <p>Each column of a row is logged as a flag telling whether it has a value, followed by the value: BOOLEAN, INT32, INT64, FLOAT and
+ * DOUBLE values in their binary form and the other columns as their length and bytes, see {@link ParquetTupleWriteSupport}.
+ */
+public class ParquetRowLog {
+    private final List<Type> columns;
+    private final TridentTupleView.FreshOutputFactory tupleFactory;
+
+    public ParquetRowLog(MessageType schema) {
+        this.columns = schema.getFields();
+        List<String> columnNames = new ArrayList<>(columns.size());
+        for (Type column : columns) {
+            columnNames.add(column.getName());
+        }
+        this.tupleFactory = new TridentTupleView.FreshOutputFactory(new Fields(columnNames));
+    }
+
+    /**
+     * Appends the row of the tuple to the log.
+     */
+    public void write(DataOutput log, ITuple tuple) throws IOException {
+        for (Type column : columns) {
+            String name = column.getName();
+            Object value = tuple.contains(name) ? tuple.getValueByField(name) : null;
+            log.writeBoolean(value != null);
+            if (value == null) {
+                continue;
+            }
+            switch (column.asPrimitiveType().getPrimitiveTypeName()) {
+                case BOOLEAN:
+                    log.writeBoolean((Boolean) value);
+                    break;
+                case INT32:
+                    log.writeInt(((Number) value).intValue());
+                    break;
+                case INT64:
+                    log.writeLong(((Number) value).longValue());
+                    break;
+                case FLOAT:
+                    log.writeFloat(((Number) value).floatValue());
+                    break;
+                case DOUBLE:
+                    log.writeDouble(((Number) value).doubleValue());
+                    break;
+                default:
+                    byte[] bytes = value instanceof byte[] ? (byte[]) value : value.toString().getBytes(StandardCharsets.UTF_8);
+                    log.writeInt(bytes.length);
+                    log.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Reads the next row of the log as a tuple with a field per column.
+     *
+     * @throws java.io.EOFException if the log ends before the row does
+     */
+    public ITuple read(DataInput in) throws IOException {
+        List<Object> values = new ArrayList<>(columns.size());
+        for (Type column : columns) {
+            if (!in.readBoolean()) {
+                values.add(null);
+                continue;
+            }
+            switch (column.asPrimitiveType().getPrimitiveTypeName()) {
+                case BOOLEAN:
+                    values.add(in.readBoolean());
+                    break;
+                case INT32:
+                    values.add(in.readInt());
+                    break;
+                case INT64:
+                    values.add(in.readLong());
+                    break;
+                case FLOAT:
+                    values.add(in.readFloat());
+                    break;
+                case DOUBLE:
+                    values.add(in.readDouble());
+                    break;
+                default:
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    values.add(bytes);
+            }
+        }
+        return tupleFactory.create(values);
+    }
+
+    /**
+     * Makes what was written to the log durable.  Any buffer in front of the stream must be flushed first.
+     */
+    public static void sync(FSDataOutputStream logOut) throws IOException {
+        if (logOut instanceof HdfsDataOutputStream) {
+            ((HdfsDataOutputStream) logOut).hsync(EnumSet.of(HdfsDataOutputStream.SyncFlag.UPDATE_LENGTH));
+        } else {
+            logOut.hsync();
+        }
+    }
+
+    /**
+     * Returns whether the Parquet file exists and was closed, which is when it ends with the Parquet magic bytes.
+     */
+    public static boolean isClosed(FileSystem fs, Path dataPath) throws IOException {
+        if (!fs.exists(dataPath)) {
+            return false;
+        }
+        long length = fs.getFileStatus(dataPath).getLen();
+        byte[] magic = new byte[ParquetFileWriter.MAGIC.length];
+        if (length < 2 * magic.length) {
+            return false;
+        }
+        try (FSDataInputStream in = fs.open(dataPath)) {
+            in.readFully(length - magic.length, magic);
+        }
+        return Arrays.equals(magic, ParquetFileWriter.MAGIC);
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.hdfs.common;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.apache.storm.tuple.ITuple;
+
+/**
+ * Writes tuples as the rows of a Parquet file.
+ *
+ * <p>The schema must be flat: every column is a primitive, non repeated field that is filled from the tuple field with the same name.
+ * Columns of type BOOLEAN, INT32, INT64, FLOAT and DOUBLE take a Boolean or a Number, BINARY and FIXED_LEN_BYTE_ARRAY columns take a
+ * byte[] or anything else, which is written as the UTF-8 bytes of its string form.  A tuple that does not have a field, or has a null
+ * value for it, leaves an optional column empty.
+ */
+public class ParquetTupleWriteSupport extends WriteSupport<ITuple> {
+    private final MessageType schema;
+    private final List<Type> columns;
+    private final Object[] values;
+    private RecordConsumer recordConsumer;
+
+    public ParquetTupleWriteSupport(MessageType schema) {
+        for (Type column : schema.getFields()) {
+            if (!column.isPrimitive() || column.isRepetition(Type.Repetition.REPEATED)) {
+                throw new IllegalArgumentException("Only flat schemas with primitive, non repeated columns are supported, but got "
+                                                   + column);
+            }
+            if (column.asPrimitiveType().getPrimitiveTypeName() == PrimitiveType.PrimitiveTypeName.INT96) {
+                throw new IllegalArgumentException("INT96 columns are not supported, but got " + column);
+            }
+        }
+        this.schema = schema;
+        this.columns = schema.getFields();
+        this.values = new Object[columns.size()];
+    }
+
+    /**
+     * Parses and validates a schema in the Parquet message type syntax, for example
+     * {@code message event { required int64 timestamp; required binary user (UTF8); optional double amount; }}.
+     */
+    public static MessageType parseSchema(String schema) {
+        MessageType messageType = MessageTypeParser.parseMessageType(schema);
+        new ParquetTupleWriteSupport(messageType);
+        return messageType;
+    }
+
+    public static Builder builder(Path path, MessageType schema) {
+        return new Builder(path, schema);
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(schema, Collections.<String, String>emptyMap());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.recordConsumer = recordConsumer;
+    }
+
+    @Override
+    public void write(ITuple tuple) {
+        // look up every value before starting the row, so a missing required value does not leave half a row behind
+        for (int i = 0; i < columns.size(); i++) {
+            Type column = columns.get(i);
+            String name = column.getName();
+            values[i] = tuple.contains(name) ? tuple.getValueByField(name) : null;
+            if (values[i] == null && column.isRepetition(Type.Repetition.REQUIRED)) {
+                throw new IllegalArgumentException("No value for required column " + name + " in " + tuple);
+            }
+        }
+        recordConsumer.startMessage();
+        for (int i = 0; i < columns.size(); i++) {
+            if (values[i] != null) {
+                String name = columns.get(i).getName();
+                recordConsumer.startField(name, i);
+                writeValue(columns.get(i).asPrimitiveType().getPrimitiveTypeName(), values[i]);
+                recordConsumer.endField(name, i);
+                values[i] = null;
+            }
+        }
+        recordConsumer.endMessage();
+    }
+
+    private void writeValue(PrimitiveType.PrimitiveTypeName type, Object value) {
+        switch (type) {
+            case BOOLEAN:
+                recordConsumer.addBoolean((Boolean) value);
+                break;
+            case INT32:
+                recordConsumer.addInteger(((Number) value).intValue());
+                break;
+            case INT64:
+                recordConsumer.addLong(((Number) value).longValue());
+                break;
+            case FLOAT:
+                recordConsumer.addFloat(((Number) value).floatValue());
+                break;
+            case DOUBLE:
+                recordConsumer.addDouble(((Number) value).doubleValue());
+                break;
+            case BINARY:
+            case FIXED_LEN_BYTE_ARRAY:
+                if (value instanceof byte[]) {
+                    recordConsumer.addBinary(Binary.fromConstantByteArray((byte[]) value));
+                } else {
+                    recordConsumer.addBinary(Binary.fromString(value.toString()));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported column type " + type);
+        }
+    }
+
+    public static class Builder extends ParquetWriter.Builder<ITuple, Builder> {
+        private final MessageType schema;
+
+        private Builder(Path path, MessageType schema) {
+            super(path);
+            this.schema = schema;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<ITuple> getWriteSupport(Configuration conf) {
+            return new ParquetTupleWriteSupport(schema);
+        }
+    }
+}
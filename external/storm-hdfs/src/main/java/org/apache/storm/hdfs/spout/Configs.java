@@ -125,6 +125,8 @@ public class Configs implements Validated {
     public static final int DEFAULT_COMMIT_FREQ_SEC = 10;
     public static final int DEFAULT_MAX_OUTSTANDING = 10000;
     public static final int DEFAULT_LOCK_TIMEOUT = 5 * 60; // 5 min
+    public static final int DEFAULT_MAX_OPEN_FILES = 1;
+    public static final int DEFAULT_PREFETCH_FILE_COUNT = 0;
     @IsMapEntryType(keyType = String.class, valueType = String.class)
     public static final String DEFAULT_HDFS_CONFIG_KEY = "hdfs.config";
 
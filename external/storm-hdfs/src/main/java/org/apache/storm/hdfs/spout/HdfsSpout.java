@@ -12,11 +12,15 @@
 
 package org.apache.storm.hdfs.spout;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
@@ -41,8 +45,10 @@ public class HdfsSpout extends BaseRichSpout {
 
     // other members
     private static final Logger LOG = LoggerFactory.getLogger(HdfsSpout.class);
+    private static final long PREFETCH_IDLE_MS = 1000;
     private final AtomicBoolean commitTimeElapsed = new AtomicBoolean(false);
-    HashMap<MessageId, List<Object>> inflight = new HashMap<>();
+    // the files this spout holds the locks of, in the order they were picked, keyed by path
+    LinkedHashMap<String, OpenFile> openFiles = new LinkedHashMap<>();
     LinkedBlockingQueue<HdfsUtils.Pair<MessageId, List<Object>>> retryList = new LinkedBlockingQueue<>();
     HdfsUtils.Pair<Path, FileLock.LogEntry> lastExpiredLock = null;
     // user configurable
@@ -61,24 +67,25 @@ public class HdfsSpout extends BaseRichSpout {
     private int commitFrequencySec = Configs.DEFAULT_COMMIT_FREQ_SEC;
     private int maxOutstanding = Configs.DEFAULT_MAX_OUTSTANDING;
     private int lockTimeoutSec = Configs.DEFAULT_LOCK_TIMEOUT;
+    private int maxOpenFiles = Configs.DEFAULT_MAX_OPEN_FILES;
+    private int prefetchFileCount = Configs.DEFAULT_PREFETCH_FILE_COUNT;
     private boolean clocksInSync = true;
     private String inprogressSuffix = ".inprogress"; // not configurable to prevent change between topology restarts
     private String ignoreSuffix = ".ignore";
     private String outputStreamName = null;
-    private ProgressTracker tracker = null;
     private FileSystem hdfs;
-    private FileReader reader;
     private SpoutOutputCollector collector;
     private Configuration hdfsConfig;
     private Map<String, Object> conf = null;
-    private FileLock lock;
     private String spoutId = null;
     private long lastExpiredLockTime = 0;
     private long tupleCounter = 0;
     private boolean ackEnabled = false;
     private int acksSinceLastCommit = 0;
     private Timer commitTimer;
-    private boolean fileReadCompletely = true;
+    private FilePrefetcher prefetcher;
+    private Histogram fileOpenTime;
+    private Histogram fileReadRate;
 
     private String configKey = Configs.DEFAULT_HDFS_CONFIG_KEY; // key for hdfs Kerberos configs
 
@@ -188,6 +195,24 @@ public class HdfsSpout extends BaseRichSpout {
         return this;
     }
 
+    /**
+     * Sets how many files the spout holds at the same time.  The spout reads one file at a time, but with more than one file it goes on
+     * to read the next file while the tuples of the files it has read are waiting to be acked, instead of waiting for the acks.
+     */
+    public HdfsSpout setMaxOpenFiles(int maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+        return this;
+    }
+
+    /**
+     * Sets how many files a background thread locks and opens ahead of the spout, so the spout does not wait on the file system to start
+     * reading the next file.  0, the default, disables it.
+     */
+    public HdfsSpout setPrefetchFileCount(int prefetchFileCount) {
+        this.prefetchFileCount = prefetchFileCount;
+        return this;
+    }
+
     public HdfsSpout setClocksInSync(boolean clocksInSync) {
         this.clocksInSync = clocksInSync;
         return this;
@@ -241,7 +266,7 @@ public class HdfsSpout extends BaseRichSpout {
             return;
         }
 
-        if (ackEnabled && tracker.size() >= maxOutstanding) {
+        if (ackEnabled && getOutstandingCount() >= maxOutstanding) {
             LOG.warn("Waiting for more ACKs before generating new tuples. "
                      + "Progress tracker size has reached limit {}, SpoutID {}",
                      maxOutstanding, spoutId);
@@ -251,52 +276,40 @@ public class HdfsSpout extends BaseRichSpout {
 
         // 2) If no failed tuples to be retried, then send tuples from hdfs
         while (true) {
+            // 3) Select a file that is not read completely, opening a new one if there is none
+            OpenFile file = getFileToRead();
+            if (file == null) {
+                return;
+            }
             try {
-                // 3) Select a new file if one is not open already
-                boolean newReader = false;
-                if (reader == null) {
-                    reader = pickNextFile();
-                    if (reader == null) {
-                        LOG.debug("Currently no new files to process under : " + sourceDirPath);
-                        return;
-                    } else {
-                        fileReadCompletely = false;
-                        newReader = true;
-                    }
-                }
-                if (fileReadCompletely) { // wait for more ACKs before proceeding
-                    return;
-                }
                 // 4) Read record from file, emit to collector and record progress
-                List<Object> tuple = reader.next();
+                List<Object> tuple = file.reader.next();
                 if (tuple != null) {
-                    fileReadCompletely = false;
                     ++tupleCounter;
-                    MessageId msgId = new MessageId(tupleCounter, reader.getFilePath(), reader.getFileOffset());
+                    ++file.recordsRead;
+                    MessageId msgId = new MessageId(tupleCounter, file.reader.getFilePath(), file.reader.getFileOffset());
                     emitData(tuple, msgId);
 
                     if (!ackEnabled) {
                         ++acksSinceLastCommit; // assume message is immediately ACKed in non-ack mode
-                        commitProgress(reader.getFileOffset());
-                    } else {
-                        commitProgress(tracker.getCommitPosition());
                     }
+                    commitProgress();
                     return;
                 } else {
-                    fileReadCompletely = true;
-                    // if newReader is true and tuple is null then it is an empty reader
-                    if (!ackEnabled || newReader) {
-                        markFileAsDone(reader.getFilePath());
+                    markFileAsReadCompletely(file);
+                    // if nothing is in flight then all of the file is ACKed, or it is empty
+                    if (!ackEnabled || file.inflight.isEmpty()) {
+                        markFileAsDone(file);
                     }
                 }
             } catch (IOException e) {
-                LOG.error("I/O Error processing at file location " + getFileProgress(reader), e);
+                LOG.error("I/O Error processing at file location " + getFileProgress(file.reader), e);
                 // don't emit anything .. allow configured spout wait strategy to kick in
                 return;
             } catch (ParseException e) {
-                LOG.error("Parsing error when processing at file location " + getFileProgress(reader)
+                LOG.error("Parsing error when processing at file location " + getFileProgress(file.reader)
                           + ". Skipping remainder of file.", e);
-                markFileAsBad(reader.getFilePath());
+                markFileAsBad(file);
                 // Note: We don't return from this method on ParseException to avoid triggering the
                 // spout wait strategy (due to no emits). Instead we go back into the loop and
                 // generate a tuple from next file
@@ -304,22 +317,59 @@ public class HdfsSpout extends BaseRichSpout {
         } // while
     }
 
-    // will commit progress into lock file if commit threshold is reached
-    private void commitProgress(FileOffset position) {
-        if (position == null) {
+    /**
+     * Returns the first open file that is not read completely.  If all of them are, and fewer than maxOpenFiles are open, opens the next
+     * file.  Returns null if there is nothing to read right now.
+     */
+    private OpenFile getFileToRead() {
+        for (OpenFile file : openFiles.values()) {
+            if (!file.readCompletely) {
+                return file;
+            }
+        }
+        if (openFiles.size() >= maxOpenFiles) { // wait for more ACKs before proceeding
+            return null;
+        }
+        OpenFile file = prefetcher != null ? prefetcher.poll() : pickNextFile();
+        if (file == null) {
+            LOG.debug("Currently no new files to process under : " + sourceDirPath);
+            return null;
+        }
+        file.readStartTime = System.currentTimeMillis();
+        openFiles.put(file.reader.getFilePath().toString(), file);
+        return file;
+    }
+
+    private int getOutstandingCount() {
+        int count = 0;
+        for (OpenFile file : openFiles.values()) {
+            count += file.tracker.size();
+        }
+        return count;
+    }
+
+    // will commit progress of the open files into their lock files if commit threshold is reached
+    private void commitProgress() {
+        if (openFiles.isEmpty() || !canCommitNow()) {
             return;
         }
-        if (lock != null && canCommitNow()) {
-            try {
-                String pos = position.toString();
-                lock.heartbeat(pos);
-                LOG.debug("{} Committed progress. {}", spoutId, pos);
-                acksSinceLastCommit = 0;
-                commitTimeElapsed.set(false);
-                setupCommitElapseTimer();
-            } catch (IOException e) {
-                LOG.error("Unable to commit progress Will retry later. Spout ID = " + spoutId, e);
+        try {
+            for (OpenFile file : openFiles.values()) {
+                FileOffset position = ackEnabled ? file.tracker.getCommitPosition() : file.reader.getFileOffset();
+                if (position == null && file.recordsRead == 0) {
+                    position = file.reader.getFileOffset(); // nothing read from the file yet, keep its lock alive
+                }
+                if (position != null) {
+                    String pos = position.toString();
+                    file.lock.heartbeat(pos);
+                    LOG.debug("{} Committed progress. {}", spoutId, pos);
+                }
             }
+            acksSinceLastCommit = 0;
+            commitTimeElapsed.set(false);
+            setupCommitElapseTimer();
+        } catch (IOException e) {
+            LOG.error("Unable to commit progress Will retry later. Spout ID = " + spoutId, e);
         }
     }
 
@@ -336,43 +386,51 @@ public class HdfsSpout extends BaseRichSpout {
         commitTimer.schedule(timerTask, commitFrequencySec * 1000);
     }
 
-    private void markFileAsDone(Path filePath) {
+    private void markFileAsReadCompletely(OpenFile file) {
+        file.readCompletely = true;
+        long elapsedMs = Math.max(1, System.currentTimeMillis() - file.readStartTime);
+        long recordsPerSec = file.recordsRead * 1000 / elapsedMs;
+        fileReadRate.update(recordsPerSec);
+        LOG.info("Read {} records from {} in {} ms ({} records/sec). Spout Id = {}",
+                 file.recordsRead, file.reader.getFilePath(), elapsedMs, recordsPerSec, spoutId);
+    }
+
+    private void markFileAsDone(OpenFile file) {
+        Path filePath = file.reader.getFilePath();
         try {
-            Path newFile = renameCompletedFile(reader.getFilePath());
+            Path newFile = renameCompletedFile(filePath);
             LOG.info("Completed processing {}. Spout Id = {}", newFile, spoutId);
         } catch (IOException e) {
             LOG.error("Unable to archive completed file" + filePath + " Spout ID " + spoutId, e);
         }
-        closeReaderAndResetTrackers();
+        closeFile(file);
     }
 
-    private void markFileAsBad(Path file) {
-        String fileName = file.toString();
+    private void markFileAsBad(OpenFile file) {
+        String fileName = file.reader.getFilePath().toString();
         String fileNameMinusSuffix = fileName.substring(0, fileName.indexOf(inprogressSuffix));
         String originalName = new Path(fileNameMinusSuffix).getName();
         Path newFile = new Path(badFilesDirPath + Path.SEPARATOR + originalName);
 
-        LOG.info("Moving bad file {} to {}. Processed it till offset {}. SpoutID= {}", originalName, newFile, tracker.getCommitPosition(),
-                 spoutId);
+        LOG.info("Moving bad file {} to {}. Processed it till offset {}. SpoutID= {}", originalName, newFile,
+                 file.tracker.getCommitPosition(), spoutId);
         try {
-            if (!hdfs.rename(file, newFile)) { // seems this can fail by returning false or throwing exception
-                throw new IOException("Move failed for bad file: " + file); // convert false ret value to exception
+            if (!hdfs.rename(file.reader.getFilePath(), newFile)) { // seems this can fail by returning false or throwing exception
+                throw new IOException("Move failed for bad file: " + fileName); // convert false ret value to exception
             }
         } catch (IOException e) {
-            LOG.warn("Error moving bad file: " + file + " to destination " + newFile + " SpoutId =" + spoutId, e);
+            LOG.warn("Error moving bad file: " + fileName + " to destination " + newFile + " SpoutId =" + spoutId, e);
         }
-        closeReaderAndResetTrackers();
+        closeFile(file);
     }
 
-    private void closeReaderAndResetTrackers() {
-        inflight.clear();
-        tracker.offsets.clear();
-        retryList.clear();
+    private void closeFile(OpenFile file) {
+        String fullPath = file.reader.getFilePath().toString();
+        openFiles.remove(fullPath);
+        retryList.removeIf(pair -> pair.getKey().fullPath.equals(fullPath));
 
-        reader.close();
-        reader = null;
-        releaseLockAndLog(lock, spoutId);
-        lock = null;
+        file.reader.close();
+        releaseLockAndLog(file.lock, spoutId);
     }
 
     protected void emitData(List<Object> tuple, MessageId id) {
@@ -384,7 +442,10 @@ public class HdfsSpout extends BaseRichSpout {
             collector.emit(outputStreamName, tuple, id);
         }
 
-        inflight.put(id, tuple);
+        OpenFile file = openFiles.get(id.fullPath);
+        if (file != null) {
+            file.inflight.put(id, tuple);
+        }
     }
 
     @SuppressWarnings("deprecation")
@@ -393,7 +454,6 @@ public class HdfsSpout extends BaseRichSpout {
         LOG.info("Opening HDFS Spout");
         this.conf = conf;
         this.commitTimer = new Timer(context.getThisTaskId() + "-commit-timer", true);
-        this.tracker = new ProgressTracker();
         this.hdfsConfig = new Configuration();
         this.collector = collector;
 
@@ -527,11 +587,23 @@ public class HdfsSpout extends BaseRichSpout {
 
         // setup timer for commit elapse time tracking
         setupCommitElapseTimer();
+
+        this.fileOpenTime = context.registerHistogram("hdfsSpoutFileOpenMs");
+        this.fileReadRate = context.registerHistogram("hdfsSpoutFileReadRecordsPerSec");
+        context.registerGauge("hdfsSpoutOpenFiles", (Gauge<Integer>) () -> openFiles.size());
+
+        if (prefetchFileCount > 0) {
+            this.prefetcher = new FilePrefetcher(context.getThisTaskId() + "-file-prefetcher");
+            context.registerGauge("hdfsSpoutPrefetchedFiles", (Gauge<Integer>) prefetcher::size);
+        }
     }
 
     @Override
     public void close() {
         this.commitTimer.cancel();
+        if (this.prefetcher != null) {
+            this.prefetcher.close();
+        }
     }
 
     private String getDefaultLockDir(Path sourceDirPath) {
@@ -545,13 +617,15 @@ public class HdfsSpout extends BaseRichSpout {
             return;
         }
         MessageId id = (MessageId) msgId;
-        inflight.remove(id);
-        ++acksSinceLastCommit;
-        tracker.recordAckedOffset(id.offset);
-        commitProgress(tracker.getCommitPosition());
-        if (fileReadCompletely && inflight.isEmpty()) {
-            markFileAsDone(reader.getFilePath());
-            reader = null;
+        OpenFile file = openFiles.get(id.fullPath);
+        if (file != null) { // else the file was moved to the bad files dir
+            file.inflight.remove(id);
+            ++acksSinceLastCommit;
+            file.tracker.recordAckedOffset(id.offset);
+            commitProgress();
+            if (file.readCompletely && file.inflight.isEmpty()) {
+                markFileAsDone(file);
+            }
         }
         super.ack(msgId);
     }
@@ -569,21 +643,27 @@ public class HdfsSpout extends BaseRichSpout {
         LOG.trace("Fail received for msg id {} on spout {}", msgId, spoutId);
         super.fail(msgId);
         if (ackEnabled) {
-            HdfsUtils.Pair<MessageId, List<Object>> item = HdfsUtils.Pair.of(msgId, inflight.remove(msgId));
-            retryList.add(item);
+            MessageId id = (MessageId) msgId;
+            OpenFile file = openFiles.get(id.fullPath);
+            if (file != null) {
+                // it stays in flight until it is ACKed, so that the file is not archived while the tuple waits to be retried
+                HdfsUtils.Pair<MessageId, List<Object>> item = HdfsUtils.Pair.of(id, file.inflight.get(id));
+                retryList.add(item);
+            }
         }
     }
 
-    private FileReader pickNextFile() {
+    private OpenFile pickNextFile() {
+        long start = System.currentTimeMillis();
         try {
             // 1) If there are any abandoned files, pick oldest one
-            lock = getOldestExpiredLock();
+            FileLock lock = getOldestExpiredLock();
             if (lock != null) {
                 LOG.debug("Spout {} now took over ownership of abandoned FileLock {}", spoutId, lock.getLockFile());
                 Path file = getFileForLockFile(lock.getLockFile(), sourceDirPath);
                 String resumeFromOffset = lock.getLastLogEntry().fileOffset;
                 LOG.info("Resuming processing of abandoned file : {}", file);
-                return createFileReader(file, resumeFromOffset);
+                return openedFile(createFileReader(file, resumeFromOffset), lock, start);
             }
 
             // 2) If no abandoned files, then pick oldest file in sourceDirPath, lock it and rename it
@@ -605,7 +685,7 @@ public class HdfsSpout extends BaseRichSpout {
                     Path newFile = renameToInProgressFile(file);
                     FileReader result = createFileReader(newFile);
                     LOG.info("Processing : {} ", file);
-                    return result;
+                    return openedFile(result, lock, start);
                 } catch (Exception e) {
                     LOG.error("Skipping file " + file, e);
                     releaseLockAndLog(lock, spoutId);
@@ -620,6 +700,11 @@ public class HdfsSpout extends BaseRichSpout {
         }
     }
 
+    private OpenFile openedFile(FileReader reader, FileLock lock, long openStartTime) {
+        fileOpenTime.update(System.currentTimeMillis() - openStartTime);
+        return new OpenFile(reader, lock);
+    }
+
     /**
      * If clocks in sync, then acquires the oldest expired lock Else, on first call, just remembers the oldest expired lock, on next call
      * check if the lock is updated. if not updated then acquires the lock
@@ -816,6 +901,108 @@ public class HdfsSpout extends BaseRichSpout {
         }
     }
 
+    /**
+     * A file the spout holds the lock of, with the progress of reading and acking it.
+     */
+    static class OpenFile {
+        final FileReader reader;
+        final FileLock lock;
+        final ProgressTracker tracker = new ProgressTracker();
+        final HashMap<MessageId, List<Object>> inflight = new HashMap<>();
+        boolean readCompletely = false;
+        long recordsRead = 0;
+        long readStartTime;
+        long lastHeartbeatTime = System.currentTimeMillis();
+
+        OpenFile(FileReader reader, FileLock lock) {
+            this.reader = reader;
+            this.lock = lock;
+        }
+    }
+
+    /**
+     * Locks and opens the next files on a background thread, up to prefetchFileCount files ahead of the spout.  The locks of the files
+     * that wait for the spout are heartbeated, so that they do not become stale.
+     */
+    private class FilePrefetcher implements Runnable {
+        private final ArrayDeque<OpenFile> files = new ArrayDeque<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        FilePrefetcher(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    heartbeatWaitingFiles();
+                    OpenFile file = size() < prefetchFileCount ? pickNextFile() : null;
+                    synchronized (this) {
+                        if (file != null) {
+                            files.add(file);
+                        } else if (running) {
+                            wait(PREFETCH_IDLE_MS);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    LOG.error("Unable to prefetch the next file under " + sourceDirPath + " SpoutId = " + spoutId, e);
+                }
+            }
+        }
+
+        private synchronized void heartbeatWaitingFiles() {
+            long now = System.currentTimeMillis();
+            for (OpenFile file : files) {
+                if (now - file.lastHeartbeatTime >= lockTimeoutSec * 1000L / 2) {
+                    try {
+                        file.lock.heartbeat(file.reader.getFileOffset().toString());
+                        file.lastHeartbeatTime = now;
+                    } catch (IOException e) {
+                        LOG.error("Unable to heartbeat lock of prefetched file " + file.reader.getFilePath() + " SpoutId = " + spoutId, e);
+                    }
+                }
+            }
+        }
+
+        synchronized OpenFile poll() {
+            OpenFile file = files.poll();
+            if (file != null) {
+                notifyAll();
+            }
+            return file;
+        }
+
+        synchronized int size() {
+            return files.size();
+        }
+
+        /**
+         * Stops prefetching. The locks of the files that were not handed to the spout are left to expire, like the locks of the files the
+         * spout has open, so that another spout takes them over.
+         */
+        void close() {
+            running = false;
+            thread.interrupt();
+            try {
+                thread.join(PREFETCH_IDLE_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                for (OpenFile file : files) {
+                    file.reader.close();
+                }
+                files.clear();
+            }
+        }
+    }
+
     private static class RenameException extends IOException {
 
         public final Path oldFile;
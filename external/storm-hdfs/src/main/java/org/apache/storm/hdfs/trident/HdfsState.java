@@ -18,8 +18,10 @@
 
 package org.apache.storm.hdfs.trident;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
@@ -38,7 +40,13 @@ import org.apache.hadoop.hdfs.client.HdfsDataOutputStream;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
 import org.apache.storm.Config;
+import org.apache.storm.hdfs.common.ParquetRowLog;
+import org.apache.storm.hdfs.common.ParquetTupleWriteSupport;
 import org.apache.storm.hdfs.common.rotation.RotationAction;
 import org.apache.storm.hdfs.security.HdfsSecurityUtil;
 import org.apache.storm.hdfs.trident.format.FileNameFormat;
@@ -52,6 +60,7 @@ import org.apache.storm.topology.FailedException;
 import org.apache.storm.trident.operation.TridentCollector;
 import org.apache.storm.trident.state.State;
 import org.apache.storm.trident.tuple.TridentTuple;
+import org.apache.storm.tuple.ITuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,6 +70,7 @@ public class HdfsState implements State {
     private Options options;
     private volatile TxnRecord lastSeenTxn;
     private Path indexFilePath;
+    private boolean resumed;
 
 
     HdfsState(Options options) {
@@ -160,7 +170,10 @@ public class HdfsState implements State {
             long start = System.currentTimeMillis();
             options.recover(lastSeenTxn.dataFilePath, lastSeenTxn.offset);
             LOG.info("Recovery took {} ms.", System.currentTimeMillis() - start);
+        } else if (!resumed) {
+            options.resume(lastSeenTxn.dataFilePath);
         }
+        resumed = true;
         updateIndex(txId);
     }
 
@@ -216,6 +229,15 @@ public class HdfsState implements State {
 
         abstract void doRecover(Path srcPath, long numberOfBytes) throws Exception;
 
+        /**
+         * Returns the number of bytes to recover from the data file of the last transaction before the state was prepared, when the
+         * first transaction after that is not a replay, or -1 if the file is usable as it is.  Only formats whose files cannot be read
+         * until they are closed need to recover it.
+         */
+        long getBytesToRecoverOnResume(Path srcPath) throws IOException {
+            return -1;
+        }
+
         protected void rotateOutputFile(boolean doRotateAction) throws IOException {
             LOG.info("Rotating output file...");
             @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
@@ -275,6 +297,19 @@ public class HdfsState implements State {
             rotationPolicy.start();
         }
 
+        private void resume(String srcFile) {
+            long numberOfBytes;
+            try {
+                numberOfBytes = getBytesToRecoverOnResume(new Path(srcFile));
+            } catch (IOException e) {
+                LOG.warn("Recovery failed.", e);
+                throw new RuntimeException(e);
+            }
+            if (numberOfBytes >= 0) {
+                recover(srcFile, numberOfBytes);
+            }
+        }
+
         /**
          * Recovers nBytes from srcFile to the new file created by calling rotateOutputFile and then deletes the srcFile.
          */
@@ -532,6 +567,189 @@ public class HdfsState implements State {
 
     }
 
+    /**
+     * Writes the tuples to columnar Parquet files, see {@link ParquetTupleWriteSupport} for how tuple fields map to columns.
+     *
+     * <p>A Parquet file can only be read once it is closed, so next to every data file there is a hidden log of the rows in it, which is
+     * synced on every commit and is what the recovery copies from.  The log is deleted once the data file is closed and no longer needed
+     * for recovery.  A {@link FileSizeRotationPolicy} rotates on the compressed size of the data file.
+     */
+    public static class ParquetFileOptions extends Options {
+        private String schema;
+        private CompressionCodecName compressionCodec = CompressionCodecName.SNAPPY;
+        private int rowGroupSize = ParquetWriter.DEFAULT_BLOCK_SIZE;
+        private int pageSize = ParquetWriter.DEFAULT_PAGE_SIZE;
+        private transient MessageType messageType;
+        private transient ParquetRowLog rowLog;
+        private transient ParquetWriter<ITuple> writer;
+        private transient Path path;
+        private transient FSDataOutputStream logOut;
+        private transient DataOutputStream log;
+        private transient List<Path> closedLogs;
+
+        public ParquetFileOptions withFsUrl(String fsUrl) {
+            this.fsUrl = fsUrl;
+            return this;
+        }
+
+        public ParquetFileOptions withConfigKey(String configKey) {
+            this.configKey = configKey;
+            return this;
+        }
+
+        public ParquetFileOptions withFileNameFormat(FileNameFormat fileNameFormat) {
+            this.fileNameFormat = fileNameFormat;
+            return this;
+        }
+
+        public ParquetFileOptions withRotationPolicy(FileRotationPolicy rotationPolicy) {
+            this.rotationPolicy = rotationPolicy;
+            return this;
+        }
+
+        public ParquetFileOptions addRotationAction(RotationAction action) {
+            this.rotationActions.add(action);
+            return this;
+        }
+
+        /**
+         * Sets the schema of the files, in the Parquet message type syntax, for example
+         * {@code message event { required int64 timestamp; required binary user (UTF8); optional double amount; }}.
+         */
+        public ParquetFileOptions withSchema(String schema) {
+            this.schema = schema;
+            return this;
+        }
+
+        /**
+         * Sets the codec the pages are compressed with, SNAPPY by default.
+         */
+        public ParquetFileOptions withCompressionCodec(CompressionCodecName compressionCodec) {
+            this.compressionCodec = compressionCodec;
+            return this;
+        }
+
+        /**
+         * Sets the size of the row groups, which are buffered in memory before they are written.
+         */
+        public ParquetFileOptions withRowGroupSize(int rowGroupSize) {
+            this.rowGroupSize = rowGroupSize;
+            return this;
+        }
+
+        public ParquetFileOptions withPageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        @Override
+        void doPrepare(Map<String, Object> conf, int partitionIndex, int numPartitions) throws IOException {
+            LOG.info("Preparing Parquet File State...");
+            if (this.schema == null) {
+                throw new IllegalStateException("Schema must be specified.");
+            }
+            this.messageType = ParquetTupleWriteSupport.parseSchema(this.schema);
+            this.rowLog = new ParquetRowLog(this.messageType);
+            this.closedLogs = new ArrayList<>();
+            this.fs = FileSystem.get(URI.create(this.fsUrl), hdfsConfig);
+        }
+
+        @Override
+        public long getCurrentOffset() throws IOException {
+            this.log.flush();
+            return this.logOut.getPos();
+        }
+
+        @Override
+        public void doCommit(Long txId) throws IOException {
+            // the index no longer points to the files these logs belong to
+            for (Path closedLog : this.closedLogs) {
+                this.fs.delete(closedLog, false);
+            }
+            this.closedLogs.clear();
+
+            if (this.rotationPolicy.mark(this.writer.getDataSize())) {
+                rotateOutputFile();
+                this.rotationPolicy.reset();
+            } else {
+                this.log.flush();
+                ParquetRowLog.sync(this.logOut);
+            }
+        }
+
+        @Override
+        long getBytesToRecoverOnResume(Path srcPath) throws IOException {
+            Path srcLog = logPath(srcPath);
+            if (srcPath.equals(this.path) || !this.fs.exists(srcLog)) {
+                return -1;
+            }
+            if (ParquetRowLog.isClosed(this.fs, srcPath)) {
+                this.fs.delete(srcLog, false);
+                return -1;
+            }
+            long length = this.fs.getFileStatus(srcLog).getLen();
+            if (length == 0) {
+                // nothing to copy, so doRecover will not get to delete the log
+                this.fs.delete(srcLog, false);
+            }
+            return length;
+        }
+
+        @Override
+        void doRecover(Path srcPath, long numberOfBytes) throws IOException {
+            Path srcLog = logPath(srcPath);
+            try (FSDataInputStream in = this.fs.open(srcLog)) {
+                while (in.getPos() < numberOfBytes) {
+                    write(this.rowLog.read(in));
+                }
+            }
+            this.fs.delete(srcLog, false);
+        }
+
+        @Override
+        void closeOutputFile() throws IOException {
+            this.writer.close();
+            this.log.close();
+            this.closedLogs.add(logPath(this.path));
+        }
+
+        @Override
+        Path createOutputFile() throws IOException {
+            Path p = new Path(this.fsUrl + this.fileNameFormat.getPath(),
+                              this.fileNameFormat.getName(this.rotation, System.currentTimeMillis()));
+            this.writer = ParquetTupleWriteSupport.builder(p, this.messageType)
+                .withConf(this.hdfsConfig)
+                .withWriteMode(ParquetFileWriter.Mode.CREATE)
+                .withCompressionCodec(this.compressionCodec)
+                .withRowGroupSize(this.rowGroupSize)
+                .withPageSize(this.pageSize)
+                .build();
+            this.logOut = this.fs.create(logPath(p));
+            this.log = new DataOutputStream(new BufferedOutputStream(this.logOut));
+            this.path = p;
+            return p;
+        }
+
+        @Override
+        public void execute(List<TridentTuple> tuples) throws IOException {
+            for (TridentTuple tuple : tuples) {
+                write(tuple);
+            }
+        }
+
+        private void write(ITuple tuple) throws IOException {
+            this.writer.write(tuple);
+            this.rowLog.write(this.log, tuple);
+        }
+
+        /**
+         * Returns the hidden file next to a data file that logs its rows.
+         */
+        private static Path logPath(Path dataPath) {
+            return new Path(dataPath.getParent(), "." + dataPath.getName() + ".log");
+        }
+    }
+
     /**
      * TxnRecord [txnid, data_file_path, data_file_offset].
      *
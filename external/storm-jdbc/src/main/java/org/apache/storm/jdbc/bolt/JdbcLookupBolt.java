@@ -12,27 +12,76 @@
 
 package org.apache.storm.jdbc.bolt;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.apache.storm.jdbc.common.Column;
 import org.apache.storm.jdbc.common.ConnectionProvider;
 import org.apache.storm.jdbc.mapper.JdbcLookupMapper;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.TupleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Basic bolt for querying from any database.
+ *
+ * <p>By default every tuple is looked up with a query on the executor thread. {@link #withAsyncLookups(int)} moves the queries to a pool
+ * of threads instead, see there.
  */
 public class JdbcLookupBolt extends AbstractJdbcBolt {
     private static final Logger LOG = LoggerFactory.getLogger(JdbcLookupBolt.class);
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_FLUSH_INTERVAL_SECS = 1;
+    private static final long DEFAULT_CACHE_MAX_SIZE = 10000;
 
     private String selectQuery;
 
     private JdbcLookupMapper jdbcLookupMapper;
 
+    private int asyncThreads = 0;
+    private String batchSelectQuery;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int flushIntervalSecs = DEFAULT_FLUSH_INTERVAL_SECS;
+    private int cacheTtlSecs = 0;
+    private long cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+    private boolean orderedEmits = true;
+
+    // the state of async lookups, only touched by the executor thread except for completedQueries
+    private transient ExecutorService queryPool;
+    private transient Cache<LookupKey, List<List<Column>>> cache;
+    // the lookups waiting for each key that is queued or being queried
+    private transient Map<LookupKey, List<Lookup>> waitingLookups;
+    private transient List<LookupKey> queuedKeys;
+    // the lookups to emit, all the lookups in the order their tuples came if the emits are ordered, else the completed ones
+    private transient ArrayDeque<Lookup> lookupsToEmit;
+    private transient int pendingTuples;
+    private transient ConcurrentLinkedQueue<CompletedQuery> completedQueries;
+    private transient int runningQueries;
+    private transient Histogram queryLatency;
+    private transient Histogram queryKeys;
+    private transient Counter cacheHits;
+
     public JdbcLookupBolt(ConnectionProvider connectionProvider, String selectQuery, JdbcLookupMapper jdbcLookupMapper) {
         super(connectionProvider);
 
@@ -48,8 +97,134 @@ public class JdbcLookupBolt extends AbstractJdbcBolt {
         return this;
     }
 
+    /**
+     * Runs the lookup queries on a pool of this many threads, so that the executor thread does not wait on the database. Tuples that look
+     * up the same key while it is being queried share the query. The results are emitted and the tuples acked on the executor thread,
+     * when the next tuple comes or on a tick every {@link #withFlushIntervalSecs(int) flush interval}.
+     *
+     * <p>While all the threads are busy, the keys of new tuples are queued and looked up together once a thread is free, with the
+     * {@link #withBatchSelectQuery(String) batch select query} if there is one.
+     *
+     * @param asyncThreads the number of query threads, the default of 0 looks up each tuple on the executor thread
+     * @return this
+     */
+    public JdbcLookupBolt withAsyncLookups(int asyncThreads) {
+        this.asyncThreads = asyncThreads;
+        return this;
+    }
+
+    /**
+     * Sets the query that looks up a number of keys at once, when looking up asynchronously. It has a single {@code ?} that stands for the
+     * list of keys, e.g. {@code select user_id, user_name from user where user_id in (?)}, and it must select the key column, so that the
+     * rows can be matched to the keys. Only lookups with a single query column are batched, the others use the select query.
+     *
+     * @param batchSelectQuery the query
+     * @return this
+     */
+    public JdbcLookupBolt withBatchSelectQuery(String batchSelectQuery) {
+        Validate.isTrue(StringUtils.countMatches(batchSelectQuery, "?") == 1, "The batch select query must have exactly one ?");
+        this.batchSelectQuery = batchSelectQuery;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of keys looked up by a single batch select query. The default is 100.
+     *
+     * @param batchSize the maximum number of keys in a query
+     * @return this
+     */
+    public JdbcLookupBolt withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets how often the results of async lookups are emitted when no tuples come in. The default is 1 second.
+     *
+     * @param flushIntervalSecs the flush interval in seconds
+     * @return this
+     */
+    public JdbcLookupBolt withFlushIntervalSecs(int flushIntervalSecs) {
+        this.flushIntervalSecs = flushIntervalSecs;
+        return this;
+    }
+
+    /**
+     * Caches the rows found for a key for this long, when looking up asynchronously. The default of 0 does not cache.
+     *
+     * @param cacheTtlSecs the time to keep the rows of a key, in seconds
+     * @return this
+     */
+    public JdbcLookupBolt withCacheTtlSecs(int cacheTtlSecs) {
+        this.cacheTtlSecs = cacheTtlSecs;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of keys in the cache. The default is 10000.
+     *
+     * @param cacheMaxSize the maximum number of keys
+     * @return this
+     */
+    public JdbcLookupBolt withCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+        return this;
+    }
+
+    /**
+     * Sets whether async lookups are emitted in the order their tuples came, which is the default, or as soon as their rows are found.
+     *
+     * @param orderedEmits true to keep the order of the tuples
+     * @return this
+     */
+    public JdbcLookupBolt withOrderedEmits(boolean orderedEmits) {
+        this.orderedEmits = orderedEmits;
+        return this;
+    }
+
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        if (asyncThreads > 0) {
+            return TupleUtils.putTickFrequencyIntoComponentConfig(super.getComponentConfiguration(), flushIntervalSecs);
+        }
+        return super.getComponentConfiguration();
+    }
+
+    @Override
+    public void prepare(Map<String, Object> map, TopologyContext topologyContext, OutputCollector outputCollector) {
+        super.prepare(map, topologyContext, outputCollector);
+
+        if (asyncThreads > 0) {
+            this.queryPool = Executors.newFixedThreadPool(asyncThreads, r -> {
+                Thread thread = new Thread(r, topologyContext.getThisComponentId() + "-" + topologyContext.getThisTaskId() + "-lookup");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (cacheTtlSecs > 0) {
+                this.cache = CacheBuilder.newBuilder()
+                                         .expireAfterWrite(cacheTtlSecs, TimeUnit.SECONDS)
+                                         .maximumSize(cacheMaxSize)
+                                         .build();
+            }
+            this.waitingLookups = new HashMap<>();
+            this.queuedKeys = new ArrayList<>();
+            this.lookupsToEmit = new ArrayDeque<>();
+            this.pendingTuples = 0;
+            this.completedQueries = new ConcurrentLinkedQueue<>();
+            this.runningQueries = 0;
+            this.queryLatency = topologyContext.registerHistogram("jdbcLookupQueryLatencyMs");
+            this.queryKeys = topologyContext.registerHistogram("jdbcLookupQueryKeys");
+            this.cacheHits = topologyContext.registerCounter("jdbcLookupCacheHits");
+            topologyContext.registerGauge("jdbcLookupPendingTuples", (Gauge<Integer>) () -> pendingTuples);
+        }
+    }
+
     @Override
     protected void process(Tuple tuple) {
+        if (asyncThreads > 0) {
+            processAsync(tuple);
+            return;
+        }
         try {
             List<Column> columns = jdbcLookupMapper.getColumns(tuple);
             List<List<Column>> result = jdbcClient.select(this.selectQuery, columns);
@@ -69,8 +244,276 @@ public class JdbcLookupBolt extends AbstractJdbcBolt {
         }
     }
 
+    @Override
+    protected void onTickTuple(Tuple tuple) {
+        if (asyncThreads > 0) {
+            completeQueries();
+            runQueuedKeys();
+        }
+    }
+
+    private void processAsync(Tuple tuple) {
+        Lookup lookup = new Lookup(tuple);
+        pendingTuples++;
+        if (orderedEmits) {
+            lookupsToEmit.add(lookup);
+        }
+        try {
+            LookupKey key = new LookupKey(jdbcLookupMapper.getColumns(tuple));
+            List<List<Column>> cachedRows = cache != null ? cache.getIfPresent(key) : null;
+            if (cachedRows != null) {
+                cacheHits.inc();
+                complete(lookup, cachedRows, null);
+            } else {
+                List<Lookup> waiting = waitingLookups.get(key);
+                if (waiting == null) {
+                    waiting = new ArrayList<>();
+                    waitingLookups.put(key, waiting);
+                    queuedKeys.add(key);
+                }
+                waiting.add(lookup);
+            }
+        } catch (Exception e) {
+            this.collector.reportError(e);
+            complete(lookup, null, e);
+        }
+
+        completeQueries();
+        if (queuedKeys.size() >= batchSize || runningQueries < asyncThreads) {
+            runQueuedKeys();
+        }
+    }
+
+    /*
+     * Hands the queued keys to the query threads. Without a batch select query every key is a query of its own. With one, the keys are
+     * queued while all the threads are busy, unless there are batchSize of them, and each query looks up at most batchSize keys.
+     */
+    private void runQueuedKeys() {
+        if (batchSelectQuery == null) {
+            for (LookupKey key : queuedKeys) {
+                runQuery(Collections.singletonList(key));
+            }
+            queuedKeys.clear();
+            return;
+        }
+        while (!queuedKeys.isEmpty() && (runningQueries < asyncThreads || queuedKeys.size() >= batchSize)) {
+            int count = Math.min(queuedKeys.size(), batchSize);
+            List<LookupKey> keys = new ArrayList<>(queuedKeys.subList(0, count));
+            queuedKeys.subList(0, count).clear();
+            runQuery(keys);
+        }
+    }
+
+    private void runQuery(List<LookupKey> keys) {
+        runningQueries++;
+        queryPool.execute(() -> completedQueries.add(query(keys)));
+    }
+
+    /*
+     * Runs on a query thread.
+     */
+    private CompletedQuery query(List<LookupKey> keys) {
+        long start = System.nanoTime();
+        Map<LookupKey, List<List<Column>>> rows = new HashMap<>();
+        try {
+            List<LookupKey> batchKeys = new ArrayList<>();
+            for (LookupKey key : keys) {
+                if (key.columns.size() == 1 && keys.size() > 1) {
+                    batchKeys.add(key);
+                } else {
+                    rows.put(key, jdbcClient.select(selectQuery, key.columns));
+                }
+            }
+            if (!batchKeys.isEmpty()) {
+                rows.putAll(batchSelect(batchKeys));
+            }
+            return new CompletedQuery(keys, rows, null, System.nanoTime() - start);
+        } catch (Exception e) {
+            return new CompletedQuery(keys, rows, e, System.nanoTime() - start);
+        }
+    }
+
+    private Map<LookupKey, List<List<Column>>> batchSelect(List<LookupKey> keys) {
+        List<Column> params = new ArrayList<>(keys.size());
+        Map<LookupKey, List<List<Column>>> rows = new HashMap<>();
+        for (LookupKey key : keys) {
+            params.add(key.columns.get(0));
+            rows.put(key, new ArrayList<>());
+        }
+        String query = batchSelectQuery.replace("?", StringUtils.chop(StringUtils.repeat("?,", keys.size())));
+        String keyColumn = params.get(0).getColumnName();
+        List<List<Column>> result = jdbcClient.select(query, params);
+        if (result != null) {
+            for (List<Column> row : result) {
+                Column rowKey = null;
+                for (Column column : row) {
+                    if (column.getColumnName().equalsIgnoreCase(keyColumn)) {
+                        rowKey = column;
+                        break;
+                    }
+                }
+                if (rowKey == null) {
+                    throw new IllegalArgumentException("The batch select query does not select the key column " + keyColumn);
+                }
+                List<List<Column>> keyRows = rows.get(new LookupKey(Collections.singletonList(rowKey)));
+                if (keyRows != null) {
+                    keyRows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /*
+     * Completes the lookups of the queries the query threads are done with, then emits and acks what can be.
+     */
+    private void completeQueries() {
+        CompletedQuery completed;
+        while ((completed = completedQueries.poll()) != null) {
+            runningQueries--;
+            queryLatency.update(TimeUnit.NANOSECONDS.toMillis(completed.durationNanos));
+            queryKeys.update(completed.keys.size());
+            if (completed.error != null) {
+                collector.reportError(completed.error);
+            }
+            for (LookupKey key : completed.keys) {
+                List<List<Column>> rows = completed.rows.get(key);
+                Exception error = rows == null ? completed.error : null;
+                if (rows != null && cache != null) {
+                    cache.put(key, rows);
+                }
+                for (Lookup lookup : waitingLookups.remove(key)) {
+                    complete(lookup, rows, error);
+                }
+            }
+        }
+        emitCompletedLookups();
+    }
+
+    private void complete(Lookup lookup, List<List<Column>> rows, Exception error) {
+        lookup.complete(rows, error);
+        if (!orderedEmits) {
+            lookupsToEmit.add(lookup);
+        }
+    }
+
+    private void emitCompletedLookups() {
+        while (!lookupsToEmit.isEmpty() && lookupsToEmit.peek().done) {
+            emit(lookupsToEmit.poll());
+        }
+    }
+
+    private void emit(Lookup lookup) {
+        pendingTuples--;
+        if (lookup.error != null) {
+            // reported when the lookup failed
+            this.collector.fail(lookup.tuple);
+            return;
+        }
+        try {
+            if (lookup.rows != null) {
+                for (List<Column> row : lookup.rows) {
+                    List<Values> values = jdbcLookupMapper.toTuple(lookup.tuple, row);
+                    for (Values value : values) {
+                        collector.emit(lookup.tuple, value);
+                    }
+                }
+            }
+            this.collector.ack(lookup.tuple);
+        } catch (Exception e) {
+            this.collector.reportError(e);
+            this.collector.fail(lookup.tuple);
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        if (queryPool != null) {
+            queryPool.shutdownNow();
+        }
+        super.cleanup();
+    }
+
     @Override
     public void declareOutputFields(OutputFieldsDeclarer outputFieldsDeclarer) {
         jdbcLookupMapper.declareOutputFields(outputFieldsDeclarer);
     }
+
+    /**
+     * The tuple of an async lookup, and the rows found for it once its key is looked up.
+     */
+    private static class Lookup {
+        private final Tuple tuple;
+        private List<List<Column>> rows;
+        private Exception error;
+        private boolean done;
+
+        Lookup(Tuple tuple) {
+            this.tuple = tuple;
+        }
+
+        void complete(List<List<Column>> rows, Exception error) {
+            this.rows = rows;
+            this.error = error;
+            this.done = true;
+        }
+    }
+
+    /**
+     * The query columns of a lookup. Keys are equal if their values are, so that numbers of different types that the database returns for
+     * a key column match the query parameter.
+     */
+    private static class LookupKey {
+        private final List<Column> columns;
+        private final List<Object> values;
+
+        LookupKey(List<Column> columns) {
+            this.columns = columns;
+            this.values = new ArrayList<>(columns.size());
+            for (Column column : columns) {
+                values.add(normalize(column.getVal()));
+            }
+        }
+
+        private static Object normalize(Object value) {
+            if (value instanceof byte[]) {
+                return ByteBuffer.wrap((byte[]) value);
+            }
+            if (value instanceof Number) {
+                try {
+                    return new BigDecimal(value.toString()).stripTrailingZeros();
+                } catch (NumberFormatException e) {
+                    return value;
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LookupKey && values.equals(((LookupKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return values.hashCode();
+        }
+    }
+
+    /**
+     * The rows a query thread found for its keys, or the error it failed with.
+     */
+    private static class CompletedQuery {
+        private final List<LookupKey> keys;
+        private final Map<LookupKey, List<List<Column>>> rows;
+        private final Exception error;
+        private final long durationNanos;
+
+        CompletedQuery(List<LookupKey> keys, Map<LookupKey, List<List<Column>>> rows, Exception error, long durationNanos) {
+            this.keys = keys;
+            this.rows = rows;
+            this.error = error;
+            this.durationNanos = durationNanos;
+        }
+    }
 }
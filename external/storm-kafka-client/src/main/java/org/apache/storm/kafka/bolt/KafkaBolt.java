@@ -18,10 +18,15 @@
 
 package org.apache.storm.kafka.bolt;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
@@ -36,6 +41,7 @@ import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.topology.base.BaseTickTupleAwareRichBolt;
 import org.apache.storm.tuple.Tuple;
+import org.apache.storm.utils.TupleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +64,7 @@ public class KafkaBolt<K, V> extends BaseTickTupleAwareRichBolt {
     private static final Logger LOG = LoggerFactory.getLogger(KafkaBolt.class);
 
     public static final String TOPIC = "topic";
+    private static final int DEFAULT_FLUSH_INTERVAL_SECS = 1;
 
     private Producer<K, V> producer;
     private OutputCollector collector;
@@ -73,6 +80,18 @@ public class KafkaBolt<K, V> extends BaseTickTupleAwareRichBolt {
      * {@see KafkaBolt#setAsync(boolean)} for more details on this. 
      */
     private boolean async = true;
+    /**
+     * {@see KafkaBolt#withBatchSize(int)} for more details on this.
+     */
+    private int batchSize = 0;
+    private int flushIntervalSecs = DEFAULT_FLUSH_INTERVAL_SECS;
+    // The tuples sent since the last flush, and the results of their sends, when batching
+    private transient List<Tuple> batchTuples;
+    private transient List<Future<RecordMetadata>> batchResults;
+    // The size of batchTuples, for the gauge that is read by the metrics thread
+    private transient volatile int inFlightTuples;
+    private transient long batchStartNanos;
+    private transient Histogram batchSendLatency;
 
     public KafkaBolt() {}
 
@@ -110,6 +129,38 @@ public class KafkaBolt<K, V> extends BaseTickTupleAwareRichBolt {
         return this;
     }
 
+    /**
+     * Sends the tuples in batches of this size, or every {@link #withFlushIntervalSecs(int) flush interval} if that is sooner, and acks
+     * or fails all the tuples of a batch on the executor thread once the producer is flushed. This saves creating a callback for every
+     * record and acking from the producer's I/O thread. A user defined callback is still called for every record. The default of 0 sends
+     * each tuple as it comes, see {@link #setAsync(boolean)}. A {@link #setFireAndForget(boolean) fire and forget} bolt does not batch,
+     * since it acks each tuple as soon as it is handed to the producer.
+     * @param batchSize the number of tuples in a batch
+     * @return this
+     */
+    public KafkaBolt<K, V> withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets how often a batch is flushed if it does not fill up, when batching. The default is 1 second.
+     * @param flushIntervalSecs the flush interval in seconds
+     * @return this
+     */
+    public KafkaBolt<K, V> withFlushIntervalSecs(int flushIntervalSecs) {
+        this.flushIntervalSecs = flushIntervalSecs;
+        return this;
+    }
+
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        if (isBatching()) {
+            return TupleUtils.putTickFrequencyIntoComponentConfig(super.getComponentConfiguration(), flushIntervalSecs);
+        }
+        return super.getComponentConfiguration();
+    }
+
     @Override
     public void prepare(Map<String, Object> topoConf, TopologyContext context, OutputCollector collector) {
         LOG.info("Preparing bolt with configuration {}", this);
@@ -136,6 +187,13 @@ public class KafkaBolt<K, V> extends BaseTickTupleAwareRichBolt {
 
         producer = mkProducer(boltSpecifiedProperties);
         this.collector = collector;
+
+        if (isBatching()) {
+            batchTuples = new ArrayList<>(batchSize);
+            batchResults = new ArrayList<>(batchSize);
+            batchSendLatency = context.registerHistogram("kafkaBatchSendLatencyMs");
+            context.registerGauge("kafkaInFlightTuples", (Gauge<Integer>) () -> inFlightTuples);
+        }
     }
     
     /**
@@ -167,6 +225,50 @@ public class KafkaBolt<K, V> extends BaseTickTupleAwareRichBolt {
         };
     }
 
+    @Override
+    protected void onTickTuple(final Tuple tuple) {
+        if (isBatching()) {
+            flushBatch();
+        }
+    }
+
+    private boolean isBatching() {
+        return batchSize > 0 && !fireAndForget;
+    }
+
+    /**
+     * Flushes the producer, and acks the tuples of the batch that were sent and fails the others.
+     */
+    private void flushBatch() {
+        if (batchTuples.isEmpty()) {
+            return;
+        }
+        try {
+            producer.flush();
+        } catch (Exception ex) {
+            // the results of the sends tell which tuples made it
+            LOG.warn("Failed to flush the producer", ex);
+        }
+        for (int i = 0; i < batchTuples.size(); i++) {
+            Tuple tuple = batchTuples.get(i);
+            try {
+                batchResults.get(i).get();
+                collector.ack(tuple);
+            } catch (ExecutionException err) {
+                collector.reportError(err.getCause());
+                collector.fail(tuple);
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+                collector.fail(tuple);
+            }
+        }
+        batchSendLatency.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStartNanos));
+        LOG.debug("Flushed a batch of {} tuples", batchTuples.size());
+        batchTuples.clear();
+        batchResults.clear();
+        inFlightTuples = 0;
+    }
+
     @Override
     protected void process(final Tuple input) {
         K key = null;
@@ -176,7 +278,17 @@ public class KafkaBolt<K, V> extends BaseTickTupleAwareRichBolt {
             key = mapper.getKeyFromTuple(input);
             message = mapper.getMessageFromTuple(input);
             topic = topicSelector.getTopic(input);
-            if (topic != null) {
+            if (topic != null && isBatching()) {
+                if (batchTuples.isEmpty()) {
+                    batchStartNanos = System.nanoTime();
+                }
+                batchResults.add(producer.send(new ProducerRecord<>(topic, key, message), providedCallback));
+                batchTuples.add(input);
+                inFlightTuples = batchTuples.size();
+                if (batchTuples.size() >= batchSize) {
+                    flushBatch();
+                }
+            } else if (topic != null) {
                 Callback callback = null;
 
                 if (!fireAndForget && async) {
@@ -242,6 +354,7 @@ public class KafkaBolt<K, V> extends BaseTickTupleAwareRichBolt {
             + " topicSelector: " + topicSelector
             + " fireAndForget: " + fireAndForget 
             + " async: " + async 
+            + " batchSize: " + batchSize
             + " proerties: " + boltSpecifiedProperties;
     }
 }
@@ -0,0 +1,277 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.storm.kafka.bolt;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.storm.kafka.bolt.mapper.FieldNameBasedTupleToKafkaMapper;
+import org.apache.storm.kafka.bolt.mapper.TupleToKafkaMapper;
+import org.apache.storm.kafka.bolt.selector.DefaultTopicSelector;
+import org.apache.storm.kafka.bolt.selector.KafkaTopicSelector;
+import org.apache.storm.state.KeyValueState;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.base.BaseStatefulBolt;
+import org.apache.storm.tuple.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stateful bolt that sends Tuple data to Kafka with a transactional producer, with one Kafka transaction per Storm checkpoint. A
+ * consumer that reads with isolation.level=read_committed sees the records of a tuple when the checkpoint that acks the tuple commits,
+ * and never those of a checkpoint that rolls back. Use it in a topology built with checkpointing, see
+ * {@link org.apache.storm.topology.TopologyBuilder#setBolt(String, org.apache.storm.topology.IStatefulBolt, Number)}.
+ * <p/>
+ * When a checkpoint is prepared the producer is flushed. If all the records were written their tuples are acked, which makes them part of
+ * the checkpoint, otherwise the transaction is aborted and all its tuples are failed to be replayed. The transaction is committed when
+ * the checkpoint commits, and aborted when it rolls back. The records of tuples that come between the prepare and the commit of a
+ * checkpoint belong to the next checkpoint, so they are only sent once the transaction is committed.
+ * <p/>
+ * The transactional.id of the producer is the configured prefix followed by the component id and the task index, so that a restarted
+ * task fences the producer of the task it replaces, and the transaction that task left open is aborted.
+ * <p/>
+ * The output is at least once, not exactly once: the Kafka transaction is committed before the state of the checkpoint, and the tuples
+ * are only acked once the state is committed. If the worker dies or the state fails to commit in between, the tuples time out and are
+ * replayed in a later checkpoint, and their records are written again in its transaction. The checkpoint's txid cannot tell these
+ * records apart, so a consumer that must see each record once has to deduplicate them, e.g. by a key in the record.
+ */
+public class TransactionalKafkaBolt<K, V> extends BaseStatefulBolt<KeyValueState<String, Long>> {
+    private static final long serialVersionUID = 2797454402271542216L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionalKafkaBolt.class);
+
+    private TupleToKafkaMapper<K, V> mapper;
+    private KafkaTopicSelector topicSelector;
+    private Properties boltSpecifiedProperties = new Properties();
+    private String transactionalIdPrefix = "storm";
+
+    private transient Producer<K, V> producer;
+    private transient OutputCollector collector;
+    // The tuples sent in the open transaction, and the results of their sends
+    private transient List<Tuple> sentTuples;
+    private transient List<Future<RecordMetadata>> sendResults;
+    // The tuples that came after the checkpoint was prepared, sent after it commits
+    private transient List<Tuple> deferredTuples;
+    // The number of sent and deferred tuples, for the gauge that is read by the metrics thread
+    private transient volatile int inFlightTuples;
+    private transient boolean prepared;
+    private transient long transactionStartNanos;
+    private transient Histogram batchSendLatency;
+
+    public TransactionalKafkaBolt<K, V> withTupleToKafkaMapper(TupleToKafkaMapper<K, V> mapper) {
+        this.mapper = mapper;
+        return this;
+    }
+
+    /**
+     * Set the messages to be published to a single topic.
+     * @param topic the topic to publish to
+     * @return this
+     */
+    public TransactionalKafkaBolt<K, V> withTopicSelector(String topic) {
+        return withTopicSelector(new DefaultTopicSelector(topic));
+    }
+
+    public TransactionalKafkaBolt<K, V> withTopicSelector(KafkaTopicSelector selector) {
+        this.topicSelector = selector;
+        return this;
+    }
+
+    public TransactionalKafkaBolt<K, V> withProducerProperties(Properties producerProperties) {
+        this.boltSpecifiedProperties = producerProperties;
+        return this;
+    }
+
+    /**
+     * Sets the prefix of the producer's transactional.id, which must be unique to this bolt among the producers writing to the cluster.
+     * The default is "storm".
+     * @param transactionalIdPrefix the prefix
+     * @return this
+     */
+    public TransactionalKafkaBolt<K, V> withTransactionalIdPrefix(String transactionalIdPrefix) {
+        this.transactionalIdPrefix = transactionalIdPrefix;
+        return this;
+    }
+
+    @Override
+    public void prepare(Map<String, Object> topoConf, TopologyContext context, OutputCollector collector) {
+        LOG.info("Preparing bolt with configuration {}", this);
+        if (mapper == null) {
+            LOG.info("Mapper not specified. Setting default mapper to {}", FieldNameBasedTupleToKafkaMapper.class.getSimpleName());
+            this.mapper = new FieldNameBasedTupleToKafkaMapper<K, V>();
+        }
+        if (topicSelector == null) {
+            if (topoConf.containsKey(KafkaBolt.TOPIC)) {
+                this.topicSelector = new DefaultTopicSelector((String) topoConf.get(KafkaBolt.TOPIC));
+            } else {
+                throw new IllegalStateException("topic should be specified in bolt's configuration");
+            }
+        }
+
+        Properties props = new Properties();
+        props.putAll(boltSpecifiedProperties);
+        props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG,
+            transactionalIdPrefix + "-" + context.getThisComponentId() + "-" + context.getThisTaskIndex());
+        producer = mkProducer(props);
+        producer.initTransactions();
+        producer.beginTransaction();
+        transactionStartNanos = System.nanoTime();
+
+        this.collector = collector;
+        sentTuples = new ArrayList<>();
+        sendResults = new ArrayList<>();
+        deferredTuples = new ArrayList<>();
+        batchSendLatency = context.registerHistogram("kafkaBatchSendLatencyMs");
+        context.registerGauge("kafkaInFlightTuples", (Gauge<Integer>) () -> inFlightTuples);
+    }
+
+    /**
+     * Intended to be overridden for tests.  Make the producer with the given props
+     */
+    protected Producer<K, V> mkProducer(Properties props) {
+        return new KafkaProducer<>(props);
+    }
+
+    @Override
+    public void initState(KeyValueState<String, Long> state) {
+        // nothing is kept, the replayed tuples of a checkpoint whose Kafka transaction committed are written again
+    }
+
+    @Override
+    public void execute(Tuple input) {
+        if (prepared) {
+            deferredTuples.add(input);
+        } else {
+            send(input);
+        }
+        updateInFlightTuples();
+    }
+
+    private void send(Tuple input) {
+        try {
+            String topic = topicSelector.getTopic(input);
+            if (topic != null) {
+                K key = mapper.getKeyFromTuple(input);
+                V message = mapper.getMessageFromTuple(input);
+                sendResults.add(producer.send(new ProducerRecord<>(topic, key, message)));
+                sentTuples.add(input);
+            } else {
+                LOG.warn("skipping tuple {}, topic selector returned null.", input);
+                collector.ack(input);
+            }
+        } catch (Exception ex) {
+            collector.reportError(ex);
+            collector.fail(input);
+        }
+    }
+
+    @Override
+    public void prePrepare(long txid) {
+        producer.flush();
+        Exception error = null;
+        for (Future<RecordMetadata> result : sendResults) {
+            try {
+                result.get();
+            } catch (ExecutionException | InterruptedException ex) {
+                error = ex;
+                break;
+            }
+        }
+        if (error == null) {
+            for (Tuple tuple : sentTuples) {
+                collector.ack(tuple);
+            }
+        } else {
+            LOG.warn("Failed to send the records for txid {}, aborting the transaction and failing its {} tuples", txid, sentTuples.size(),
+                error);
+            collector.reportError(error);
+            producer.abortTransaction();
+            failAll(sentTuples);
+            producer.beginTransaction();
+        }
+        sentTuples.clear();
+        sendResults.clear();
+        prepared = true;
+        updateInFlightTuples();
+    }
+
+    @Override
+    public void preCommit(long txid) {
+        producer.commitTransaction();
+        batchSendLatency.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - transactionStartNanos));
+        LOG.debug("Committed the Kafka transaction for txid {}", txid);
+        producer.beginTransaction();
+        transactionStartNanos = System.nanoTime();
+        prepared = false;
+        for (Tuple tuple : deferredTuples) {
+            send(tuple);
+        }
+        deferredTuples.clear();
+        updateInFlightTuples();
+    }
+
+    @Override
+    public void preRollback() {
+        LOG.debug("Rolling back, aborting the Kafka transaction");
+        producer.abortTransaction();
+        producer.beginTransaction();
+        transactionStartNanos = System.nanoTime();
+        prepared = false;
+        sendResults.clear();
+        failAll(sentTuples);
+        failAll(deferredTuples);
+        updateInFlightTuples();
+    }
+
+    private void updateInFlightTuples() {
+        inFlightTuples = sentTuples.size() + deferredTuples.size();
+    }
+
+    private void failAll(List<Tuple> tuples) {
+        for (Tuple tuple : tuples) {
+            collector.fail(tuple);
+        }
+        tuples.clear();
+    }
+
+    @Override
+    public void cleanup() {
+        producer.close();
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionalKafkaBolt: {mapper: " + mapper
+            + " topicSelector: " + topicSelector
+            + " transactionalIdPrefix: " + transactionalIdPrefix
+            + " properties: " + boltSpecifiedProperties;
+    }
+}
@@ -52,6 +52,7 @@ import org.apache.storm.kafka.spout.internal.CommitMetadataManager;
 import org.apache.storm.kafka.spout.internal.ConsumerFactory;
 import org.apache.storm.kafka.spout.internal.ConsumerFactoryDefault;
 import org.apache.storm.kafka.spout.internal.OffsetManager;
+import org.apache.storm.kafka.spout.internal.RecordPrefetcher;
 import org.apache.storm.kafka.spout.internal.Timer;
 import org.apache.storm.kafka.spout.metrics.KafkaOffsetMetric;
 import org.apache.storm.kafka.spout.subscription.TopicAssigner;
@@ -104,6 +105,10 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
     private transient CommitMetadataManager commitMetadataManager;
     private transient KafkaOffsetMetric<K, V> kafkaOffsetMetric;
     private transient KafkaSpoutConsumerRebalanceListener rebalanceListener;
+    // Polls on a thread of its own if prefetching is on, null otherwise. The consumer must then only be used through withConsumer.
+    private transient RecordPrefetcher<K, V> prefetcher;
+    // The partitions assigned to the consumer, kept here so the spout does not need the consumer to get them when prefetching
+    private transient Set<TopicPartition> assignedPartitions;
 
     public KafkaSpout(KafkaSpoutConfig<K, V> kafkaSpoutConfig) {
         this(kafkaSpoutConfig, new ConsumerFactoryDefault<>(), new TopicAssigner());
@@ -145,6 +150,12 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
         rebalanceListener = new KafkaSpoutConsumerRebalanceListener();
 
         consumer = kafkaConsumerFactory.createConsumer(kafkaSpoutConfig.getKafkaProps());
+        assignedPartitions = Collections.emptySet();
+        if (kafkaSpoutConfig.getPrefetchBufferSize() > 0) {
+            prefetcher = new RecordPrefetcher<>(consumer, kafkaSpoutConfig.getPollTimeoutMs(), kafkaSpoutConfig.getPrefetchBufferSize(),
+                "kafka-spout-prefetch-" + context.getThisComponentId() + "-" + context.getThisTaskId());
+            prefetcher.start();
+        }
 
         tupleListener.open(conf, context);
         if (canRegisterMetrics()) {
@@ -156,7 +167,16 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
 
     private void registerMetric() {
         LOG.info("Registering Spout Metrics");
-        kafkaOffsetMetric = new KafkaOffsetMetric<>(() -> Collections.unmodifiableMap(offsetManagers), () -> consumer);
+        if (prefetcher == null) {
+            kafkaOffsetMetric = new KafkaOffsetMetric<>(() -> Collections.unmodifiableMap(offsetManagers), () -> consumer);
+        } else {
+            kafkaOffsetMetric = new KafkaOffsetMetric<K, V>(() -> Collections.unmodifiableMap(offsetManagers), () -> consumer) {
+                @Override
+                public Object getValueAndReset() {
+                    return prefetcher.callWithConsumer(super::getValueAndReset);
+                }
+            };
+        }
         context.registerMetric("kafkaOffset", kafkaOffsetMetric, kafkaSpoutConfig.getMetricsTimeBucketSizeInSecs());
     }
 
@@ -174,6 +194,17 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
         return kafkaSpoutConfig.getProcessingGuarantee() == KafkaSpoutConfig.ProcessingGuarantee.AT_LEAST_ONCE;
     }
 
+    /**
+     * Runs the action with exclusive use of the consumer, which is shared with the prefetch thread if prefetching is on.
+     */
+    private void withConsumer(Runnable action) {
+        if (prefetcher == null) {
+            action.run();
+        } else {
+            prefetcher.runWithConsumer(action);
+        }
+    }
+
     // =========== Consumer Rebalance Listener - On the same thread as the caller ===========
     private class KafkaSpoutConsumerRebalanceListener implements ConsumerRebalanceListener {
 
@@ -213,6 +244,10 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
                 emitted.removeIf(msgId -> !partitions.contains(msgId.getTopicPartition()));
             }
             waitingToEmit.keySet().retainAll(partitions);
+            if (prefetcher != null) {
+                prefetcher.retainAll(partitions);
+            }
+            assignedPartitions = new HashSet<>(partitions);
 
             Set<TopicPartition> newPartitions = new HashSet<>(partitions);
             // If this partition was previously assigned to this spout,
@@ -274,24 +309,27 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
     public void nextTuple() {
         try {
             if (refreshAssignmentTimer.isExpiredResetOnTrue()) {
-                refreshAssignment();
+                withConsumer(this::refreshAssignment);
             }
 
             if (commitTimer != null && commitTimer.isExpiredResetOnTrue()) {
                 if (isAtLeastOnceProcessing()) {
-                    commitOffsetsForAckedTuples();
+                    withConsumer(this::commitOffsetsForAckedTuples);
                 } else if (kafkaSpoutConfig.getProcessingGuarantee() == ProcessingGuarantee.NO_GUARANTEE) {
-                    Map<TopicPartition, OffsetAndMetadata> offsetsToCommit =
-                        createFetchedOffsetsMetadata(consumer.assignment());
-                    consumer.commitAsync(offsetsToCommit, null);
-                    LOG.debug("Committed offsets {} to Kafka", offsetsToCommit);
+                    withConsumer(() -> {
+                        Map<TopicPartition, OffsetAndMetadata> offsetsToCommit =
+                            createFetchedOffsetsMetadata(consumer.assignment());
+                        consumer.commitAsync(offsetsToCommit, null);
+                        LOG.debug("Committed offsets {} to Kafka", offsetsToCommit);
+                    });
                 }
             }
 
             PollablePartitionsInfo pollablePartitionsInfo = getPollablePartitionsInfo();
             if (pollablePartitionsInfo.shouldPoll()) {
                 try {
-                    setWaitingToEmit(pollKafkaBroker(pollablePartitionsInfo));
+                    setWaitingToEmit(prefetcher == null
+                        ? pollKafkaBroker(pollablePartitionsInfo) : takePrefetchedRecords(pollablePartitionsInfo));
                 } catch (RetriableException e) {
                     LOG.error("Failed to poll from kafka.", e);
                 }
@@ -315,7 +353,7 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
             return new PollablePartitionsInfo(Collections.emptySet(), Collections.emptyMap());
         }
 
-        Set<TopicPartition> assignment = consumer.assignment();
+        Set<TopicPartition> assignment = prefetcher == null ? consumer.assignment() : assignedPartitions;
         if (!isAtLeastOnceProcessing()) {
             return new PollablePartitionsInfo(assignment, Collections.emptyMap());
         }
@@ -380,6 +418,28 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
         }
     }
 
+    private ConsumerRecords<K, V> takePrefetchedRecords(PollablePartitionsInfo pollablePartitionsInfo) {
+        Map<TopicPartition, Long> retriableOffsets = pollablePartitionsInfo.pollableEarliestRetriableOffsets;
+        if (!retriableOffsets.isEmpty()) {
+            //Only seek back if the prefetched records are past the earliest retriable message, they are dropped when seeking
+            prefetcher.runWithConsumer(() -> retriableOffsets.forEach(prefetcher::seekIfAhead));
+        }
+        prefetcher.setPollablePartitions(pollablePartitionsInfo.pollablePartitions);
+        final ConsumerRecords<K, V> consumerRecords = prefetcher.drain(pollablePartitionsInfo.pollablePartitions);
+        ackRetriableOffsetsIfCompactedAway(retriableOffsets, consumerRecords);
+        LOG.debug("Took [{}] prefetched records", consumerRecords.count());
+        if (kafkaSpoutConfig.getProcessingGuarantee() == KafkaSpoutConfig.ProcessingGuarantee.AT_MOST_ONCE && !consumerRecords.isEmpty()) {
+            //Commit the position, which is past the prefetched records, before emitting them to ensure delivery is at-most-once.
+            prefetcher.runWithConsumer(() -> {
+                Map<TopicPartition, OffsetAndMetadata> offsetsToCommit =
+                    createFetchedOffsetsMetadata(consumer.assignment());
+                consumer.commitSync(offsetsToCommit);
+                LOG.debug("Committed offsets {} to Kafka", offsetsToCommit);
+            });
+        }
+        return consumerRecords;
+    }
+
     private void doSeekRetriableTopicPartitions(Map<TopicPartition, Long> pollableEarliestRetriableOffsets) {
         for (Entry<TopicPartition, Long> retriableTopicPartitionAndOffset : pollableEarliestRetriableOffsets.entrySet()) {
             //Seek directly to the earliest retriable message for each retriable topic partition
@@ -543,6 +603,9 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
                         .filter(record -> record.offset() >= committedOffset)
                         .collect(Collectors.toCollection(LinkedList::new)));
                 }
+                if (prefetcher != null) {
+                    prefetcher.dropBelow(tp, committedOffset);
+                }
 
                 final OffsetManager offsetManager = offsetManagers.get(tp);
                 offsetManager.commit(tpOffset.getValue());
@@ -620,7 +683,7 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
     @Override
     public void activate() {
         try {
-            refreshAssignment();
+            withConsumer(this::refreshAssignment);
         } catch (InterruptException e) {
             throwKafkaConsumerInterruptedException();
         }
@@ -638,7 +701,7 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
     @Override
     public void deactivate() {
         try {
-            commitIfNecessary();
+            withConsumer(this::commitIfNecessary);
         } catch (InterruptException e) {
             throwKafkaConsumerInterruptedException();
         }
@@ -661,6 +724,10 @@ public class KafkaSpout<K, V> extends BaseRichSpout {
 
     private void shutdown() {
         try {
+            if (prefetcher != null) {
+                //The spout has the consumer to itself from here on
+                prefetcher.close();
+            }
             commitIfNecessary();
         } finally {
             //remove resources
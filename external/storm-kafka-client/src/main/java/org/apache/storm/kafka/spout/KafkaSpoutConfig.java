@@ -57,6 +57,8 @@ public class KafkaSpoutConfig<K, V> extends CommonKafkaSpoutConfig<K, V> {
 
     public static final int DEFAULT_METRICS_TIME_BUCKET_SIZE_SECONDS = 60;
 
+    public static final int DEFAULT_PREFETCH_BUFFER_SIZE = 0;
+
     // Kafka spout configuration
     private final long offsetCommitPeriodMs;
     private final int maxUncommittedOffsets;
@@ -66,6 +68,7 @@ public class KafkaSpoutConfig<K, V> extends CommonKafkaSpoutConfig<K, V> {
     private final ProcessingGuarantee processingGuarantee;
     private final boolean tupleTrackingEnforced;
     private final int metricsTimeBucketSizeInSecs;
+    private final int prefetchBufferSize;
 
     /**
      * Creates a new KafkaSpoutConfig using a Builder.
@@ -82,6 +85,7 @@ public class KafkaSpoutConfig<K, V> extends CommonKafkaSpoutConfig<K, V> {
         this.processingGuarantee = builder.processingGuarantee;
         this.tupleTrackingEnforced = builder.tupleTrackingEnforced;
         this.metricsTimeBucketSizeInSecs = builder.metricsTimeBucketSizeInSecs;
+        this.prefetchBufferSize = builder.prefetchBufferSize;
     }
 
     /**
@@ -122,6 +126,7 @@ public class KafkaSpoutConfig<K, V> extends CommonKafkaSpoutConfig<K, V> {
         private ProcessingGuarantee processingGuarantee = DEFAULT_PROCESSING_GUARANTEE;
         private boolean tupleTrackingEnforced = false;
         private int metricsTimeBucketSizeInSecs = DEFAULT_METRICS_TIME_BUCKET_SIZE_SECONDS;
+        private int prefetchBufferSize = DEFAULT_PREFETCH_BUFFER_SIZE;
 
         public Builder(String bootstrapServers, String... topics) {
             super(bootstrapServers, topics);
@@ -217,6 +222,21 @@ public class KafkaSpoutConfig<K, V> extends CommonKafkaSpoutConfig<K, V> {
             return this;
         }
 
+        /**
+         * Makes the spout poll Kafka on a thread of its own, which buffers up to about this many records per partition for the spout to
+         * emit. The executor thread then no longer waits for fetches or for records to be deserialized, and only takes the consumer to
+         * commit, retry or refresh the assignment. A partition is polled again once its buffered records are below the limit, so the
+         * buffer can exceed it by up to max.poll.records - 1. Records that are buffered count towards
+         * {@link #setMaxUncommittedOffsets(int)} only once they are emitted. The default is {@link #DEFAULT_PREFETCH_BUFFER_SIZE}, which
+         * turns prefetching off and polls on the executor thread.
+         *
+         * @param prefetchBufferSize The number of records per partition to buffer, or 0 to poll on the executor thread
+         */
+        public Builder<K, V> setPrefetchBufferSize(int prefetchBufferSize) {
+            this.prefetchBufferSize = prefetchBufferSize;
+            return this;
+        }
+
         /**
          * Specifies which processing guarantee the spout should offer. Refer to the documentation for {@link ProcessingGuarantee}.
          *
@@ -368,6 +388,10 @@ public class KafkaSpoutConfig<K, V> extends CommonKafkaSpoutConfig<K, V> {
         return metricsTimeBucketSizeInSecs;
     }
 
+    public int getPrefetchBufferSize() {
+        return prefetchBufferSize;
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
@@ -379,6 +403,7 @@ public class KafkaSpoutConfig<K, V> extends CommonKafkaSpoutConfig<K, V> {
             .append("emitNullTuples", emitNullTuples)
             .append("tupleTrackingEnforced", tupleTrackingEnforced)
             .append("metricsTimeBucketSizeInSecs", metricsTimeBucketSizeInSecs)
+            .append("prefetchBufferSize", prefetchBufferSize)
             .toString();
     }
 }
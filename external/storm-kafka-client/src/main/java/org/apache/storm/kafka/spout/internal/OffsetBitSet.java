@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.apache.storm.kafka.spout.internal;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * A set of offsets, kept as bitmaps over fixed size pages of the offset range. Adding or looking up an offset flips or tests a bit, and
+ * runs of consecutive offsets are found a word at a time. Only the pages that hold offsets are kept, so the gaps in compacted topics cost
+ * nothing. This class is not thread safe.
+ */
+final class OffsetBitSet {
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int WORDS_PER_PAGE = PAGE_SIZE / Long.SIZE;
+
+    private final NavigableMap<Long, long[]> pages = new TreeMap<>();
+    // Most adds and lookups hit the page of the previous one, this saves the map lookup for them
+    private long lastPageIndex = -1;
+    private long[] lastPage;
+    private int size;
+
+    private static long pageStart(long pageIndex) {
+        return pageIndex << PAGE_SHIFT;
+    }
+
+    private static int bitInPage(long offset) {
+        return (int) (offset & (PAGE_SIZE - 1));
+    }
+
+    /**
+     * Adds an offset.
+     *
+     * @return true if the offset was not in the set
+     */
+    boolean add(long offset) {
+        long[] page = page(offset >>> PAGE_SHIFT, true);
+        int bit = bitInPage(offset);
+        long mask = 1L << bit;
+        if ((page[bit >>> 6] & mask) != 0) {
+            return false;
+        }
+        page[bit >>> 6] |= mask;
+        size++;
+        return true;
+    }
+
+    boolean contains(long offset) {
+        long[] page = page(offset >>> PAGE_SHIFT, false);
+        int bit = bitInPage(offset);
+        return page != null && (page[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the smallest offset in the set that is greater than or equal to the given offset.
+     *
+     * @return the offset, or -1 if there is none
+     */
+    long nextSetBit(long from) {
+        for (Map.Entry<Long, long[]> entry : pages.tailMap(from >>> PAGE_SHIFT, true).entrySet()) {
+            long start = pageStart(entry.getKey());
+            long[] page = entry.getValue();
+            int bit = from > start ? bitInPage(from) : 0;
+            int word = bit >>> 6;
+            long bits = page[word] & (-1L << bit);
+            while (true) {
+                if (bits != 0) {
+                    return start + word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                }
+                if (++word == WORDS_PER_PAGE) {
+                    break;
+                }
+                bits = page[word];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the smallest offset that is not in the set and is greater than or equal to the given offset.
+     */
+    long nextClearBit(long from) {
+        long pageIndex = from >>> PAGE_SHIFT;
+        int bit = bitInPage(from);
+        while (true) {
+            long[] page = page(pageIndex, false);
+            if (page == null) {
+                return Math.max(from, pageStart(pageIndex));
+            }
+            int word = bit >>> 6;
+            long bits = ~page[word] & (-1L << bit);
+            while (true) {
+                if (bits != 0) {
+                    return pageStart(pageIndex) + word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                }
+                if (++word == WORDS_PER_PAGE) {
+                    break;
+                }
+                bits = ~page[word];
+            }
+            pageIndex++;
+            bit = 0;
+        }
+    }
+
+    /**
+     * Gets the nth smallest offset in the set, counting from 1.
+     *
+     * @throws NoSuchElementException if the set has fewer offsets
+     */
+    long nth(int n) {
+        if (n < 1 || n > size) {
+            throw new NoSuchElementException("Asked for offset " + n + " of " + size);
+        }
+        int remaining = n;
+        for (Map.Entry<Long, long[]> entry : pages.entrySet()) {
+            long[] page = entry.getValue();
+            for (int word = 0; word < WORDS_PER_PAGE; word++) {
+                int count = Long.bitCount(page[word]);
+                if (remaining > count) {
+                    remaining -= count;
+                    continue;
+                }
+                long bits = page[word];
+                for (int i = 1; i < remaining; i++) {
+                    bits &= bits - 1;
+                }
+                return pageStart(entry.getKey()) + word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        throw new IllegalStateException("The set holds fewer than " + size + " offsets");
+    }
+
+    /**
+     * Removes all offsets smaller than the given offset.
+     *
+     * @return the number of offsets removed
+     */
+    int removeBelow(long offset) {
+        long pageIndex = offset >>> PAGE_SHIFT;
+        int removed = 0;
+        for (Iterator<long[]> iter = pages.headMap(pageIndex, false).values().iterator(); iter.hasNext();) {
+            for (long bits : iter.next()) {
+                removed += Long.bitCount(bits);
+            }
+            iter.remove();
+        }
+        long[] page = pages.get(pageIndex);
+        if (page != null) {
+            int bit = bitInPage(offset);
+            int word = bit >>> 6;
+            for (int i = 0; i < word; i++) {
+                removed += Long.bitCount(page[i]);
+                page[i] = 0;
+            }
+            long below = page[word] & ~(-1L << bit);
+            removed += Long.bitCount(below);
+            page[word] &= ~below;
+        }
+        if (lastPage != null && lastPageIndex < pageIndex) {
+            lastPage = null;
+            lastPageIndex = -1;
+        }
+        size -= removed;
+        return removed;
+    }
+
+    private long[] page(long pageIndex, boolean create) {
+        if (pageIndex == lastPageIndex) {
+            return lastPage;
+        }
+        long[] page = pages.get(pageIndex);
+        if (page == null) {
+            if (!create) {
+                return null;
+            }
+            page = new long[WORDS_PER_PAGE];
+            pages.put(pageIndex, page);
+        }
+        lastPageIndex = pageIndex;
+        lastPage = page;
+        return page;
+    }
+
+    /**
+     * Lists the set as ranges of consecutive offsets, e.g. [3-7, 9, 12-13].
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        long start = nextSetBit(0);
+        while (start >= 0) {
+            long end = nextClearBit(start) - 1;
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(start);
+            if (end > start) {
+                sb.append('-').append(end);
+            }
+            start = nextSetBit(end + 1);
+        }
+        return sb.append(']').toString();
+    }
+}
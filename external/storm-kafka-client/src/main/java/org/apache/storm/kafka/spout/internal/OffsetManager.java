@@ -17,11 +17,7 @@
 package org.apache.storm.kafka.spout.internal;
 
 import com.google.common.annotations.VisibleForTesting;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.NavigableSet;
 import java.util.NoSuchElementException;
-import java.util.TreeSet;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.storm.kafka.spout.KafkaSpoutMessageId;
@@ -29,17 +25,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Manages acked and committed offsets for a TopicPartition. This class is not thread safe
+ * Manages acked and committed offsets for a TopicPartition. The emitted and acked offsets are kept in {@link OffsetBitSet}s, so marking an
+ * offset is a bit flip and finding the next offset to commit skips over runs of acked offsets a word at a time. This class is not thread
+ * safe
  */
 public class OffsetManager {
-    private static final Comparator<KafkaSpoutMessageId> OFFSET_COMPARATOR = new OffsetComparator();
     private static final Logger LOG = LoggerFactory.getLogger(OffsetManager.class);
 
     private final TopicPartition tp;
-    // Emitted Offsets List
-    private final NavigableSet<Long> emittedOffsets = new TreeSet<>();
-    // Acked messages sorted by ascending order of offset
-    private final NavigableSet<KafkaSpoutMessageId> ackedMsgs = new TreeSet<>(OFFSET_COMPARATOR);
+    // Emitted offsets that have not been committed
+    private final OffsetBitSet emittedOffsets = new OffsetBitSet();
+    // Acked offsets that have not been committed
+    private final OffsetBitSet ackedOffsets = new OffsetBitSet();
     // Committed offset, i.e. the offset where processing will resume upon spout restart. Initially it is set to fetchOffset.
     private long committedOffset;
     // True if this OffsetManager has made at least one commit to Kafka
@@ -57,12 +54,12 @@ public class OffsetManager {
         LOG.debug("Instantiated {}", this.toString());
     }
 
-    public void addToAckMsgs(KafkaSpoutMessageId msgId) {          // O(Log N)
-        ackedMsgs.add(msgId);
+    public void addToAckMsgs(KafkaSpoutMessageId msgId) {
+        ackedOffsets.add(msgId.offset());
     }
 
     public void addToEmitMsgs(long offset) {
-        this.emittedOffsets.add(offset);  // O(Log N)
+        this.emittedOffsets.add(offset);
         this.latestEmittedOffset = Math.max(latestEmittedOffset, offset);
     }
     
@@ -80,11 +77,7 @@ public class OffsetManager {
      * @throws NoSuchElementException if the index is out of range
      */
     public long getNthUncommittedOffsetAfterCommittedOffset(int index) {
-        Iterator<Long> offsetIter = emittedOffsets.iterator();
-        for (int i = 0; i < index - 1; i++) {
-            offsetIter.next();
-        }
-        return offsetIter.next();
+        return emittedOffsets.nth(index);
     }
 
     /**
@@ -100,47 +93,50 @@ public class OffsetManager {
      */
     public OffsetAndMetadata findNextCommitOffset(final String commitMetadata) {
         boolean found = false;
-        long currOffset;
         long nextCommitOffset = committedOffset;
 
-        for (KafkaSpoutMessageId currAckedMsg : ackedMsgs) {  // complexity is that of a linear scan on a TreeMap
-            currOffset = currAckedMsg.offset();
-            if (currOffset == nextCommitOffset) {
-                // found the next offset to commit
+        long lowestAckedOffset = ackedOffsets.nextSetBit(0);
+        if (lowestAckedOffset >= 0 && lowestAckedOffset < nextCommitOffset) {
+            throw new IllegalStateException("The offset [" + lowestAckedOffset + "] is below the current nextCommitOffset "
+                + "[" + nextCommitOffset + "] for [" + tp + "]."
+                + " This should not be possible, and likely indicates a bug in the spout's acking or emit logic.");
+        }
+
+        while (true) {
+            // skip over the run of acked offsets starting at nextCommitOffset, if any
+            long endOfAckedRun = ackedOffsets.nextClearBit(nextCommitOffset);
+            if (endOfAckedRun > nextCommitOffset) {
                 found = true;
-                nextCommitOffset = currOffset + 1;
-            } else if (currOffset > nextCommitOffset) {
-                if (emittedOffsets.contains(nextCommitOffset)) {
-                    LOG.debug("topic-partition [{}] has non-sequential offset [{}]."
-                        + " It will be processed in a subsequent batch.", tp, currOffset);
-                    break;
-                } else {
-                    /*
-                        This case will arise in case of non-sequential offset being processed.
-                        So, if the topic doesn't contain offset = nextCommitOffset (possible
-                        if the topic is compacted or deleted), the consumer should jump to
-                        the next logical point in the topic. Next logical offset should be the
-                        first element after nextCommitOffset in the ascending ordered emitted set.
-                     */
-                    LOG.debug("Processed non-sequential offset."
-                        + " The earliest uncommitted offset is no longer part of the topic."
-                        + " Missing offset: [{}], Processed: [{}]", nextCommitOffset, currOffset);
-                    final Long nextEmittedOffset = emittedOffsets.ceiling(nextCommitOffset);
-                    if (nextEmittedOffset != null && currOffset == nextEmittedOffset) {
-                        LOG.debug("Found committable offset: [{}] after missing offset: [{}], skipping to the committable offset",
-                            currOffset, nextCommitOffset);
-                        found = true;
-                        nextCommitOffset = currOffset + 1;
-                    } else {
-                        LOG.debug("Topic-partition [{}] has non-sequential offset [{}]."
-                            + " Next offset to commit should be [{}]", tp, currOffset, nextCommitOffset);
-                        break;
-                    }
-                }
+                nextCommitOffset = endOfAckedRun;
+            }
+
+            long nextAckedOffset = ackedOffsets.nextSetBit(nextCommitOffset);
+            if (nextAckedOffset < 0) {
+                break;
+            }
+            if (emittedOffsets.contains(nextCommitOffset)) {
+                LOG.debug("topic-partition [{}] has non-sequential offset [{}]."
+                    + " It will be processed in a subsequent batch.", tp, nextAckedOffset);
+                break;
+            }
+            /*
+                This case will arise in case of non-sequential offset being processed.
+                So, if the topic doesn't contain offset = nextCommitOffset (possible
+                if the topic is compacted or deleted), the consumer should jump to
+                the next logical point in the topic. Next logical offset should be the
+                first element after nextCommitOffset in the ascending ordered emitted set.
+             */
+            LOG.debug("Processed non-sequential offset."
+                + " The earliest uncommitted offset is no longer part of the topic."
+                + " Missing offset: [{}], Processed: [{}]", nextCommitOffset, nextAckedOffset);
+            if (emittedOffsets.nextSetBit(nextCommitOffset) == nextAckedOffset) {
+                LOG.debug("Found committable offset: [{}] after missing offset: [{}], skipping to the committable offset",
+                    nextAckedOffset, nextCommitOffset);
+                nextCommitOffset = nextAckedOffset;
             } else {
-                throw new IllegalStateException("The offset [" + currOffset + "] is below the current nextCommitOffset "
-                    + "[" + nextCommitOffset + "] for [" + tp + "]."
-                    + " This should not be possible, and likely indicates a bug in the spout's acking or emit logic.");
+                LOG.debug("Topic-partition [{}] has non-sequential offset [{}]."
+                    + " Next offset to commit should be [{}]", tp, nextAckedOffset, nextCommitOffset);
+                break;
             }
         }
 
@@ -170,24 +166,9 @@ public class OffsetManager {
     public long commit(OffsetAndMetadata committedOffsetAndMeta) {
         committed = true;
         final long preCommitCommittedOffset = this.committedOffset;
-        long numCommittedOffsets = 0;
         this.committedOffset = committedOffsetAndMeta.offset();
-        for (Iterator<KafkaSpoutMessageId> iterator = ackedMsgs.iterator(); iterator.hasNext();) {
-            if (iterator.next().offset() < committedOffsetAndMeta.offset()) {
-                iterator.remove();
-                numCommittedOffsets++;
-            } else {
-                break;
-            }
-        }
-
-        for (Iterator<Long> iterator = emittedOffsets.iterator(); iterator.hasNext();) {
-            if (iterator.next() < committedOffsetAndMeta.offset()) {
-                iterator.remove();
-            } else {
-                break;
-            }
-        }
+        final long numCommittedOffsets = ackedOffsets.removeBelow(committedOffset);
+        emittedOffsets.removeBelow(committedOffset);
 
         LOG.trace("{}", this);
         
@@ -208,7 +189,7 @@ public class OffsetManager {
     }
 
     public boolean contains(KafkaSpoutMessageId msgId) {
-        return ackedMsgs.contains(msgId);
+        return ackedOffsets.contains(msgId.offset());
     }
 
     @VisibleForTesting
@@ -230,16 +211,8 @@ public class OffsetManager {
             + "topic-partition=" + tp
             + ", committedOffset=" + committedOffset
             + ", emittedOffsets=" + emittedOffsets
-            + ", ackedMsgs=" + ackedMsgs
+            + ", ackedOffsets=" + ackedOffsets
             + ", latestEmittedOffset=" + latestEmittedOffset
             + '}';
     }
-
-    private static class OffsetComparator implements Comparator<KafkaSpoutMessageId> {
-
-        @Override
-        public int compare(KafkaSpoutMessageId m1, KafkaSpoutMessageId m2) {
-            return m1.offset() < m2.offset() ? -1 : m1.offset() == m2.offset() ? 0 : 1;
-        }
-    }
 }
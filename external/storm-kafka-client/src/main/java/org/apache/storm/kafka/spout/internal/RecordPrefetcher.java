@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.apache.storm.kafka.spout.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Polls a consumer on a thread of its own into a bounded buffer per partition, which the spout drains, so that fetching and deserializing
+ * records does not hold up the executor thread.
+ *
+ * <p>The consumer is shared with the spout thread, which must hold it through {@link #runWithConsumer(Runnable)} for anything other than
+ * draining the buffer. The prefetch thread is woken up from its poll when the spout thread asks for the consumer. The spout thread
+ * decides which partitions may be polled, and it seeks and drops buffered records while it holds the consumer, so the buffered records
+ * of a partition always run up to the consumer's position.
+ */
+public class RecordPrefetcher<K, V> {
+    private static final Logger LOG = LoggerFactory.getLogger(RecordPrefetcher.class);
+
+    private final Consumer<K, V> consumer;
+    private final long pollTimeoutMs;
+    private final int maxBufferedRecords;
+    private final Thread thread;
+    // Held by whichever thread uses the consumer, fair so the prefetch thread cannot keep it from the spout thread
+    private final ReentrantLock consumerLock = new ReentrantLock(true);
+    // Guards the three fields below, so the spout thread only wakes up a poll that is in progress
+    private final Object pollState = new Object();
+    private boolean polling;
+    private boolean wakeupSent;
+    private boolean consumerWanted;
+    // The records polled but not yet drained by the spout. Also notified when the prefetch thread may have something to do.
+    private final Map<TopicPartition, ArrayDeque<ConsumerRecord<K, V>>> buffers = new HashMap<>();
+    private volatile Set<TopicPartition> pollablePartitions = Collections.emptySet();
+    private volatile boolean running = true;
+    private volatile RuntimeException failure;
+
+    /**
+     * Creates a prefetcher, call {@link #start()} to start polling.
+     *
+     * @param consumer The consumer to poll
+     * @param pollTimeoutMs The poll timeout
+     * @param maxBufferedRecords The number of buffered records at which a partition stops being polled
+     * @param threadName The name of the prefetch thread
+     */
+    public RecordPrefetcher(Consumer<K, V> consumer, long pollTimeoutMs, int maxBufferedRecords, String threadName) {
+        this.consumer = consumer;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.maxBufferedRecords = maxBufferedRecords;
+        this.thread = new Thread(this::run, threadName);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Runs the action with exclusive use of the consumer. May be nested.
+     */
+    public void runWithConsumer(Runnable action) {
+        callWithConsumer(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action with exclusive use of the consumer, and returns its result. May be nested.
+     */
+    public <T> T callWithConsumer(Supplier<T> action) {
+        if (!consumerLock.isHeldByCurrentThread()) {
+            synchronized (pollState) {
+                consumerWanted = true;
+                if (polling && !wakeupSent) {
+                    consumer.wakeup();
+                    wakeupSent = true;
+                }
+            }
+            consumerLock.lock();
+            synchronized (pollState) {
+                consumerWanted = false;
+            }
+        } else {
+            consumerLock.lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the partitions the prefetch thread may poll. The others are paused while it polls.
+     */
+    public void setPollablePartitions(Set<TopicPartition> partitions) {
+        pollablePartitions = new HashSet<>(partitions);
+        synchronized (buffers) {
+            buffers.notifyAll();
+        }
+    }
+
+    /**
+     * Takes all the buffered records of the given partitions.
+     */
+    public ConsumerRecords<K, V> drain(Set<TopicPartition> partitions) {
+        RuntimeException e = failure;
+        if (e != null) {
+            throw e;
+        }
+        Map<TopicPartition, List<ConsumerRecord<K, V>>> records = new HashMap<>();
+        synchronized (buffers) {
+            for (TopicPartition tp : partitions) {
+                ArrayDeque<ConsumerRecord<K, V>> buffer = buffers.remove(tp);
+                if (buffer != null && !buffer.isEmpty()) {
+                    records.put(tp, new ArrayList<>(buffer));
+                }
+            }
+            if (!records.isEmpty()) {
+                buffers.notifyAll();
+            }
+        }
+        return new ConsumerRecords<>(records);
+    }
+
+    /**
+     * Seeks to the offset, unless the buffered records or the consumer's position are already at or before it. Drops the buffered
+     * records of the partition if it seeks. The caller must hold the consumer.
+     */
+    public void seekIfAhead(TopicPartition tp, long offset) {
+        Long firstBufferedOffset;
+        synchronized (buffers) {
+            ArrayDeque<ConsumerRecord<K, V>> buffer = buffers.get(tp);
+            firstBufferedOffset = buffer == null || buffer.isEmpty() ? null : buffer.peekFirst().offset();
+        }
+        long nextOffset = firstBufferedOffset != null ? firstBufferedOffset : consumer.position(tp);
+        if (nextOffset > offset) {
+            consumer.seek(tp, offset);
+            synchronized (buffers) {
+                buffers.remove(tp);
+            }
+        }
+    }
+
+    /**
+     * Drops the buffered records of the partition below the offset, e.g. because they were committed.
+     */
+    public void dropBelow(TopicPartition tp, long offset) {
+        synchronized (buffers) {
+            ArrayDeque<ConsumerRecord<K, V>> buffer = buffers.get(tp);
+            while (buffer != null && !buffer.isEmpty() && buffer.peekFirst().offset() < offset) {
+                buffer.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Drops the buffered records of all partitions other than the given ones.
+     */
+    public void retainAll(Collection<TopicPartition> partitions) {
+        synchronized (buffers) {
+            buffers.keySet().retainAll(partitions);
+        }
+    }
+
+    /**
+     * Stops the prefetch thread. The consumer is not closed.
+     */
+    public void close() {
+        running = false;
+        // Taking the consumer wakes the prefetch thread up from its poll
+        runWithConsumer(() -> { });
+        synchronized (buffers) {
+            buffers.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                if (!pollOnce()) {
+                    synchronized (buffers) {
+                        if (running) {
+                            buffers.wait(pollTimeoutMs);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.info("Kafka prefetch thread was interrupted, stopping");
+        } catch (RuntimeException e) {
+            LOG.error("Kafka prefetch thread failed", e);
+            failure = e;
+        }
+    }
+
+    /**
+     * Polls the pollable partitions that are not full, if any.
+     *
+     * @return false if there was nothing to poll
+     */
+    private boolean pollOnce() {
+        consumerLock.lock();
+        try {
+            if (!running) {
+                return true;
+            }
+            Set<TopicPartition> assignment = consumer.assignment();
+            Set<TopicPartition> toPoll = new HashSet<>(pollablePartitions);
+            toPoll.retainAll(assignment);
+            synchronized (buffers) {
+                toPoll.removeIf(tp -> buffers.containsKey(tp) && buffers.get(tp).size() >= maxBufferedRecords);
+            }
+            if (toPoll.isEmpty()) {
+                return false;
+            }
+            synchronized (pollState) {
+                if (consumerWanted) {
+                    return true;
+                }
+                polling = true;
+            }
+
+            Set<TopicPartition> pausedPartitions = new HashSet<>(assignment);
+            pausedPartitions.removeAll(toPoll);
+            ConsumerRecords<K, V> records = ConsumerRecords.empty();
+            boolean wokenUp = false;
+            boolean unusedWakeup;
+            try {
+                consumer.pause(pausedPartitions);
+                records = consumer.poll(pollTimeoutMs);
+            } catch (WakeupException e) {
+                wokenUp = true;
+            } catch (RetriableException e) {
+                LOG.error("Failed to poll from kafka.", e);
+            } finally {
+                synchronized (pollState) {
+                    polling = false;
+                    unusedWakeup = wakeupSent && !wokenUp;
+                    wakeupSent = false;
+                }
+                consumer.resume(pausedPartitions);
+            }
+            if (unusedWakeup) {
+                consumeWakeup(assignment);
+            }
+
+            synchronized (buffers) {
+                for (TopicPartition tp : records.partitions()) {
+                    buffers.computeIfAbsent(tp, partition -> new ArrayDeque<>()).addAll(records.records(tp));
+                }
+            }
+            return true;
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    /**
+     * The spout thread woke the consumer up just as the poll returned. Takes the wakeup here, as otherwise it would interrupt whatever the
+     * spout thread does next with the consumer.
+     */
+    private void consumeWakeup(Set<TopicPartition> assignment) {
+        consumer.pause(assignment);
+        try {
+            consumer.poll(0);
+        } catch (WakeupException e) {
+            LOG.trace("Consumed the wakeup meant for a poll that had already returned");
+        } finally {
+            consumer.resume(assignment);
+        }
+    }
+}
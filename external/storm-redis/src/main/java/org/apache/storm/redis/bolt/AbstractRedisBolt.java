@@ -12,7 +12,12 @@
 
 package org.apache.storm.redis.bolt;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.storm.redis.common.config.JedisClusterConfig;
 import org.apache.storm.redis.common.config.JedisPoolConfig;
 import org.apache.storm.redis.common.container.JedisCommandsContainerBuilder;
@@ -20,7 +25,11 @@ import org.apache.storm.redis.common.container.JedisCommandsInstanceContainer;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.base.BaseTickTupleAwareRichBolt;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.utils.TupleUtils;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 
 /**
  * AbstractRedisBolt class is for users to implement custom bolts which makes interaction with Redis.
@@ -43,6 +52,8 @@ import redis.clients.jedis.JedisCommands;
  *
  */
 public abstract class AbstractRedisBolt extends BaseTickTupleAwareRichBolt {
+    private static final int DEFAULT_FLUSH_INTERVAL_SECS = 1;
+
     protected OutputCollector collector;
 
     private transient JedisCommandsInstanceContainer container;
@@ -50,6 +61,13 @@ public abstract class AbstractRedisBolt extends BaseTickTupleAwareRichBolt {
     private JedisPoolConfig jedisPoolConfig;
     private JedisClusterConfig jedisClusterConfig;
 
+    private int batchSize = 0;
+    private int flushIntervalSecs = DEFAULT_FLUSH_INTERVAL_SECS;
+    // the tuples added since the last flush, when batching
+    private transient List<Tuple> batch;
+    private transient long batchStartNanos;
+    private transient Histogram batchLatency;
+
     /**
      * Constructor for single Redis environment (JedisPool).
      *
@@ -68,6 +86,41 @@ public abstract class AbstractRedisBolt extends BaseTickTupleAwareRichBolt {
         this.jedisClusterConfig = config;
     }
 
+    /**
+     * Sends the commands of this many tuples at once through a Redis pipeline, or every {@link #withFlushIntervalSecs(int) flush interval}
+     * if that is sooner, and acks each tuple once the result of its command returns. This saves a round trip to Redis per tuple. The
+     * default of 0 runs the command of each tuple as it comes.
+     *
+     * <p>Batching needs the bolt to implement {@link RedisBatchProcessor}, and a single Redis ({@link JedisPoolConfig}), since Redis
+     * Cluster does not support pipelining.
+     *
+     * @param batchSize the number of tuples in a batch
+     * @return this
+     */
+    public AbstractRedisBolt withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets how often a batch is flushed if it does not fill up, when batching. The default is 1 second.
+     *
+     * @param flushIntervalSecs the flush interval in seconds
+     * @return this
+     */
+    public AbstractRedisBolt withFlushIntervalSecs(int flushIntervalSecs) {
+        this.flushIntervalSecs = flushIntervalSecs;
+        return this;
+    }
+
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        if (batchSize > 0) {
+            return TupleUtils.putTickFrequencyIntoComponentConfig(super.getComponentConfiguration(), flushIntervalSecs);
+        }
+        return super.getComponentConfiguration();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -83,6 +136,83 @@ public abstract class AbstractRedisBolt extends BaseTickTupleAwareRichBolt {
         } else {
             throw new IllegalArgumentException("Jedis configuration not found");
         }
+
+        if (batchSize > 0) {
+            if (!(this instanceof RedisBatchProcessor)) {
+                throw new IllegalArgumentException(getClass().getName() + " does not support batching, it does not implement "
+                                                   + RedisBatchProcessor.class.getSimpleName());
+            }
+            if (jedisPoolConfig == null) {
+                throw new IllegalArgumentException("Batching needs a single Redis, Redis Cluster does not support pipelining");
+            }
+            this.batch = new ArrayList<>(batchSize);
+            this.batchLatency = topologyContext.registerHistogram("redisBatchLatencyMs");
+            topologyContext.registerGauge("redisBatchedTuples", (Gauge<Integer>) () -> batch.size());
+        }
+    }
+
+    /**
+     * Adds the tuple to the batch when batching, and flushes the batch once it is full.
+     *
+     * @param input the tuple
+     * @return true if the tuple was added to the batch, false if the bolt does not batch and should process the tuple now
+     */
+    protected boolean addToBatch(Tuple input) {
+        if (batchSize <= 0) {
+            return false;
+        }
+        if (batch.isEmpty()) {
+            batchStartNanos = System.nanoTime();
+        }
+        batch.add(input);
+        if (batch.size() >= batchSize) {
+            flushBatch();
+        }
+        return true;
+    }
+
+    @Override
+    protected void onTickTuple(Tuple tuple) {
+        if (batchSize > 0) {
+            flushBatch();
+        }
+    }
+
+    private void flushBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Jedis jedis = null;
+        try {
+            jedis = (Jedis) getInstance();
+            ((RedisBatchProcessor) this).processBatch(jedis.pipelined(), batch);
+        } catch (Exception e) {
+            // nothing is acked before the pipeline is synced
+            collector.reportError(e);
+            for (Tuple input : batch) {
+                collector.fail(input);
+            }
+            if (jedis != null) {
+                // the replies of the failed pipeline may still be unread, so the connection must not be reused as is
+                disconnect(jedis);
+            }
+        } finally {
+            returnInstance(jedis);
+        }
+        batchLatency.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStartNanos));
+        batch.clear();
+    }
+
+    /**
+     * Closes the connection of a Jedis instance, which is returned to the pool afterwards and reconnects the next time it is used.  If the
+     * close fails the connection is marked as broken, and the pool destroys the instance when it is returned.
+     */
+    private static void disconnect(Jedis jedis) {
+        try {
+            jedis.disconnect();
+        } catch (JedisConnectionException e) {
+            // already broken
+        }
     }
 
     /**
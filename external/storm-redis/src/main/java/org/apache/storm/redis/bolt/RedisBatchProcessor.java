@@ -0,0 +1,33 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package org.apache.storm.redis.bolt;
+
+import java.util.List;
+import org.apache.storm.tuple.Tuple;
+import redis.clients.jedis.Pipeline;
+
+/**
+ * Implemented by the {@link AbstractRedisBolt}s that can run the commands of a batch of tuples through a Redis pipeline, which they
+ * must do to be given a {@link AbstractRedisBolt#withBatchSize(int) batch size}.
+ */
+public interface RedisBatchProcessor {
+    /**
+     * Queues the commands of a batch of tuples on the pipeline, syncs it, and then acks (or fails) every tuple according to the result of
+     * its command. A tuple whose command cannot be queued is failed after the sync, along with the tuples whose command failed.
+     *
+     * @param pipeline the pipeline to queue the commands on
+     * @param batch the tuples, in the order they came
+     */
+    void processBatch(Pipeline pipeline, List<Tuple> batch);
+}
@@ -12,6 +12,7 @@
 
 package org.apache.storm.redis.bolt;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.storm.redis.common.config.JedisClusterConfig;
 import org.apache.storm.redis.common.config.JedisPoolConfig;
@@ -21,6 +22,8 @@ import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Tuple;
 import redis.clients.jedis.GeoCoordinate;
 import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 /**
  * Basic bolt for querying from Redis and filters out if key/field doesn't exist.
@@ -37,7 +40,7 @@ import redis.clients.jedis.JedisCommands;
  * <p>Note2: If you want to just query about existence of key regardless of actual data type,
  * specify STRING to data type of RedisFilterMapper.
  */
-public class RedisFilterBolt extends AbstractRedisBolt {
+public class RedisFilterBolt extends AbstractRedisBolt implements RedisBatchProcessor {
     private final RedisFilterMapper filterMapper;
     private final RedisDataTypeDescription.RedisDataType dataType;
     private final String additionalKey;
@@ -82,6 +85,9 @@ public class RedisFilterBolt extends AbstractRedisBolt {
      */
     @Override
     public void process(Tuple input) {
+        if (addToBatch(input)) {
+            return;
+        }
         String key = filterMapper.getKeyFromTuple(input);
 
         boolean found;
@@ -132,6 +138,78 @@ public class RedisFilterBolt extends AbstractRedisBolt {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processBatch(Pipeline pipeline, List<Tuple> batch) {
+        List<Response<?>> responses = new ArrayList<>(batch.size());
+        for (Tuple input : batch) {
+            responses.add(filter(pipeline, filterMapper.getKeyFromTuple(input)));
+        }
+        pipeline.sync();
+
+        for (int i = 0; i < batch.size(); i++) {
+            Tuple input = batch.get(i);
+            try {
+                if (found(responses.get(i).get())) {
+                    collector.emit(input, input.getValues());
+                }
+                collector.ack(input);
+            } catch (Exception e) {
+                this.collector.reportError(e);
+                this.collector.fail(input);
+            }
+        }
+    }
+
+    private Response<?> filter(Pipeline pipeline, String key) {
+        switch (dataType) {
+            case STRING:
+                return pipeline.exists(key);
+
+            case SET:
+                return pipeline.sismember(additionalKey, key);
+
+            case HASH:
+                return pipeline.hexists(additionalKey, key);
+
+            case SORTED_SET:
+                return pipeline.zrank(additionalKey, key);
+
+            case HYPER_LOG_LOG:
+                return pipeline.pfcount(key);
+
+            case GEO:
+                return pipeline.geopos(additionalKey, key);
+
+            default:
+                throw new IllegalArgumentException("Cannot process such data type: " + dataType);
+        }
+    }
+
+    private boolean found(Object result) {
+        switch (dataType) {
+            case STRING:
+            case SET:
+            case HASH:
+                return (Boolean) result;
+
+            case SORTED_SET:
+                return result != null;
+
+            case HYPER_LOG_LOG:
+                return (Long) result > 0;
+
+            case GEO:
+                List<?> geopos = (List<?>) result;
+                return geopos != null && geopos.size() > 0;
+
+            default:
+                throw new IllegalArgumentException("Cannot process such data type: " + dataType);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -12,6 +12,7 @@
 
 package org.apache.storm.redis.bolt;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.storm.redis.common.config.JedisClusterConfig;
 import org.apache.storm.redis.common.config.JedisPoolConfig;
@@ -21,13 +22,15 @@ import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
 import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 /**
  * Basic bolt for querying from Redis and emits response as tuple.
  *
  * <p>Various data types are supported: STRING, LIST, HASH, SET, SORTED_SET, HYPER_LOG_LOG, GEO
  */
-public class RedisLookupBolt extends AbstractRedisBolt {
+public class RedisLookupBolt extends AbstractRedisBolt implements RedisBatchProcessor {
     private final RedisLookupMapper lookupMapper;
     private final RedisDataTypeDescription.RedisDataType dataType;
     private final String additionalKey;
@@ -67,6 +70,9 @@ public class RedisLookupBolt extends AbstractRedisBolt {
      */
     @Override
     public void process(Tuple input) {
+        if (addToBatch(input)) {
+            return;
+        }
         String key = lookupMapper.getKeyFromTuple(input);
         Object lookupValue;
 
@@ -121,6 +127,83 @@ public class RedisLookupBolt extends AbstractRedisBolt {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>STRING and HASH values of the whole batch are looked up with a single MGET or HMGET.
+     */
+    @Override
+    public void processBatch(Pipeline pipeline, List<Tuple> batch) {
+        String[] keys = new String[batch.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = lookupMapper.getKeyFromTuple(batch.get(i));
+        }
+
+        List<?> lookupValues;
+        switch (dataType) {
+            case STRING:
+                Response<List<String>> values = pipeline.mget(keys);
+                pipeline.sync();
+                lookupValues = values.get();
+                break;
+
+            case HASH:
+                Response<List<String>> fieldValues = pipeline.hmget(additionalKey, keys);
+                pipeline.sync();
+                lookupValues = fieldValues.get();
+                break;
+
+            default:
+                List<Response<?>> responses = new ArrayList<>(keys.length);
+                for (String key : keys) {
+                    responses.add(lookup(pipeline, key));
+                }
+                pipeline.sync();
+                lookupValues = responses;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Tuple input = batch.get(i);
+            try {
+                Object lookupValue = lookupValues.get(i);
+                if (lookupValue instanceof Response) {
+                    lookupValue = ((Response<?>) lookupValue).get();
+                }
+                List<Values> values = lookupMapper.toTuple(input, lookupValue);
+                for (Values value : values) {
+                    collector.emit(input, value);
+                }
+
+                collector.ack(input);
+            } catch (Exception e) {
+                this.collector.reportError(e);
+                this.collector.fail(input);
+            }
+        }
+    }
+
+    private Response<?> lookup(Pipeline pipeline, String key) {
+        switch (dataType) {
+            case LIST:
+                return pipeline.lpop(key);
+
+            case SET:
+                return pipeline.scard(key);
+
+            case SORTED_SET:
+                return pipeline.zscore(additionalKey, key);
+
+            case HYPER_LOG_LOG:
+                return pipeline.pfcount(key);
+
+            case GEO:
+                return pipeline.geopos(additionalKey, key);
+
+            default:
+                throw new IllegalArgumentException("Cannot process such data type: " + dataType);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -12,6 +12,8 @@
 
 package org.apache.storm.redis.bolt;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.storm.redis.common.config.JedisClusterConfig;
 import org.apache.storm.redis.common.config.JedisPoolConfig;
 import org.apache.storm.redis.common.mapper.RedisDataTypeDescription;
@@ -19,13 +21,15 @@ import org.apache.storm.redis.common.mapper.RedisStoreMapper;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Tuple;
 import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 /**
  * Basic bolt for writing to Redis.
  *
  * <p>Various data types are supported: STRING, LIST, HASH, SET, SORTED_SET, HYPER_LOG_LOG, GEO
  */
-public class RedisStoreBolt extends AbstractRedisBolt {
+public class RedisStoreBolt extends AbstractRedisBolt implements RedisBatchProcessor {
     private final RedisStoreMapper storeMapper;
     private final RedisDataTypeDescription.RedisDataType dataType;
     private final String additionalKey;
@@ -63,6 +67,9 @@ public class RedisStoreBolt extends AbstractRedisBolt {
      */
     @Override
     public void process(Tuple input) {
+        if (addToBatch(input)) {
+            return;
+        }
         String key = storeMapper.getKeyFromTuple(input);
         String value = storeMapper.getValueFromTuple(input);
 
@@ -119,6 +126,72 @@ public class RedisStoreBolt extends AbstractRedisBolt {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processBatch(Pipeline pipeline, List<Tuple> batch) {
+        List<Object> responses = new ArrayList<>(batch.size());
+        for (Tuple input : batch) {
+            try {
+                responses.add(store(pipeline, storeMapper.getKeyFromTuple(input), storeMapper.getValueFromTuple(input)));
+            } catch (Exception e) {
+                responses.add(e);
+            }
+        }
+        pipeline.sync();
+
+        for (int i = 0; i < batch.size(); i++) {
+            Tuple input = batch.get(i);
+            try {
+                Object response = responses.get(i);
+                if (response instanceof Exception) {
+                    throw (Exception) response;
+                }
+                ((Response<?>) response).get();
+                collector.ack(input);
+            } catch (Exception e) {
+                this.collector.reportError(e);
+                this.collector.fail(input);
+            }
+        }
+    }
+
+    private Response<?> store(Pipeline pipeline, String key, String value) {
+        switch (dataType) {
+            case STRING:
+                return pipeline.set(key, value);
+
+            case LIST:
+                return pipeline.rpush(key, value);
+
+            case HASH:
+                return pipeline.hset(additionalKey, key, value);
+
+            case SET:
+                return pipeline.sadd(key, value);
+
+            case SORTED_SET:
+                return pipeline.zadd(additionalKey, Double.valueOf(value), key);
+
+            case HYPER_LOG_LOG:
+                return pipeline.pfadd(key, value);
+
+            case GEO:
+                String[] array = value.split(":");
+                if (array.length != 2) {
+                    throw new IllegalArgumentException("value structure should be longitude:latitude");
+                }
+
+                double longitude = Double.valueOf(array[0]);
+                double latitude = Double.valueOf(array[1]);
+                return pipeline.geoadd(additionalKey, longitude, latitude, key);
+
+            default:
+                throw new IllegalArgumentException("Cannot process such data type: " + dataType);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
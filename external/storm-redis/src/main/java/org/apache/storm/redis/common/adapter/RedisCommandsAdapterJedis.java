@@ -20,6 +20,7 @@ package org.apache.storm.redis.common.adapter;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import org.apache.storm.redis.common.commands.RedisCommands;
 import redis.clients.jedis.Jedis;
@@ -41,6 +42,11 @@ public class RedisCommandsAdapterJedis implements RedisCommands, Closeable {
         return jedis.hget(key, field);
     }
 
+    @Override
+    public List<byte[]> hmget(byte[] key, byte[]... fields) {
+        return jedis.hmget(key, fields);
+    }
+
     @Override
     public Boolean exists(byte[] key) {
         return jedis.exists(key);
@@ -20,6 +20,7 @@ package org.apache.storm.redis.common.adapter;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import org.apache.storm.redis.common.commands.RedisCommands;
 import redis.clients.jedis.JedisCluster;
@@ -41,6 +42,11 @@ public class RedisCommandsAdapterJedisCluster implements RedisCommands, Closeabl
         return jedisCluster.hget(key, field);
     }
 
+    @Override
+    public List<byte[]> hmget(byte[] key, byte[]... fields) {
+        return jedisCluster.hmget(key, fields);
+    }
+
     @Override
     public Boolean exists(byte[] key) {
         return jedisCluster.exists(key);
@@ -18,6 +18,7 @@
 
 package org.apache.storm.redis.common.commands;
 
+import java.util.List;
 import java.util.Map;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
@@ -45,6 +46,8 @@ public interface RedisCommands {
     // hash
     byte[] hget(byte[] key, byte[] field);
 
+    List<byte[]> hmget(byte[] key, byte[]... fields);
+
     Map<byte[], byte[]> hgetAll(byte[] key);
 
     Map<String, String> hgetAll(String key);
@@ -16,14 +16,17 @@ import com.google.common.collect.Maps;
 import com.google.common.primitives.UnsignedBytes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
 import org.apache.storm.redis.common.commands.RedisCommands;
 import org.apache.storm.redis.common.config.JedisClusterConfig;
 import org.apache.storm.redis.common.config.JedisPoolConfig;
@@ -55,10 +58,12 @@ public class RedisKeyValueState<K, V> implements KeyValueState<K, V> {
 
     private final RedisCommandsInstanceContainer container;
     private ConcurrentNavigableMap<byte[], byte[]> pendingPrepare;
-    private NavigableMap<byte[], byte[]> pendingCommit;
+    // replaced by the thread writing the commit, while the executor reads it
+    private volatile NavigableMap<byte[], byte[]> pendingCommit;
 
     // the key and value of txIds are guaranteed to be converted to UTF-8 encoded String
-    private Map<String, String> txIds;
+    // replaced once the txids are written, which may happen on the thread writing a checkpoint
+    private volatile Map<String, String> txIds;
 
     public RedisKeyValueState(String namespace) {
         this(namespace, new JedisPoolConfig.Builder().build());
@@ -163,6 +168,56 @@ public class RedisKeyValueState<K, V> implements KeyValueState<K, V> {
         return val != null ? val : defaultValue;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The keys that are not pending are looked up with a single HMGET.
+     */
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        LOG.debug("getAll keys '{}'", keys);
+        Map<K, V> values = new HashMap<>();
+        List<K> keysToFetch = new ArrayList<>();
+        List<byte[]> redisKeysToFetch = new ArrayList<>();
+        for (K key : keys) {
+            byte[] redisKey = encoder.encodeKey(key);
+            byte[] redisValue = pendingPrepare.get(redisKey);
+            if (redisValue == null) {
+                redisValue = pendingCommit.get(redisKey);
+            }
+            if (redisValue != null) {
+                putDecoded(values, key, redisValue);
+            } else {
+                keysToFetch.add(key);
+                redisKeysToFetch.add(redisKey);
+            }
+        }
+
+        if (!keysToFetch.isEmpty()) {
+            RedisCommands commands = null;
+            List<byte[]> redisValues;
+            try {
+                commands = container.getInstance();
+                redisValues = commands.hmget(namespace, redisKeysToFetch.toArray(new byte[0][]));
+            } finally {
+                container.returnInstance(commands);
+            }
+            for (int i = 0; i < keysToFetch.size(); i++) {
+                putDecoded(values, keysToFetch.get(i), redisValues.get(i));
+            }
+        }
+        return values;
+    }
+
+    private void putDecoded(Map<K, V> values, K key, byte[] redisValue) {
+        if (redisValue != null) {
+            V value = encoder.decodeValue(redisValue);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+    }
+
     @Override
     public V delete(K key) {
         LOG.debug("delete key '{}'", key);
@@ -182,69 +237,55 @@ public class RedisKeyValueState<K, V> implements KeyValueState<K, V> {
     @Override
     public void prepareCommit(long txid) {
         LOG.debug("prepareCommit txid {}", txid);
+        preparePending(txid).run();
+    }
+
+    @Override
+    public CompletableFuture<Void> prepareCommitAsync(long txid, Executor executor) {
+        LOG.debug("prepareCommitAsync txid {}", txid);
+        return CompletableFuture.runAsync(preparePending(txid), executor);
+    }
+
+    /*
+     * Moves the pending changes to the pending commit and returns the task that writes them.
+     * The task does not touch the maps that are updated by put and delete.
+     */
+    private Runnable preparePending(long txid) {
         validatePrepareTxid(txid);
-        RedisCommands commands = null;
-        try {
-            ConcurrentNavigableMap<byte[], byte[]> currentPending = pendingPrepare;
-            pendingPrepare = createPendingPrepareMap();
-            commands = container.getInstance();
-            if (commands.exists(prepareNamespace)) {
-                LOG.debug("Prepared txn already exists, will merge", txid);
-                for (Map.Entry<byte[], byte[]> e : pendingCommit.entrySet()) {
-                    if (!currentPending.containsKey(e.getKey())) {
-                        currentPending.put(e.getKey(), e.getValue());
-                    }
+        ConcurrentNavigableMap<byte[], byte[]> currentPending = pendingPrepare;
+        pendingPrepare = createPendingPrepareMap();
+        if (!pendingCommit.isEmpty()) {
+            LOG.debug("Prepared txn {} already exists, will merge", txid);
+            for (Map.Entry<byte[], byte[]> e : pendingCommit.entrySet()) {
+                if (!currentPending.containsKey(e.getKey())) {
+                    currentPending.put(e.getKey(), e.getValue());
                 }
             }
-            if (!currentPending.isEmpty()) {
-                commands.hmset(prepareNamespace, currentPending);
-            } else {
-                LOG.debug("Nothing to save for prepareCommit, txid {}.", txid);
-            }
-            txIds.put(PREPARE_TXID_KEY, String.valueOf(txid));
-
-            commands.hmset(txidNamespace, txIds);
-            pendingCommit = Maps.unmodifiableNavigableMap(currentPending);
-        } finally {
-            container.returnInstance(commands);
         }
+        pendingCommit = Maps.unmodifiableNavigableMap(currentPending);
+        Map<String, String> currentTxIds = new HashMap<>(txIds);
+        currentTxIds.put(PREPARE_TXID_KEY, String.valueOf(txid));
+        return () -> {
+            RedisCommands commands = null;
+            try {
+                commands = container.getInstance();
+                if (!currentPending.isEmpty()) {
+                    commands.hmset(prepareNamespace, currentPending);
+                } else {
+                    LOG.debug("Nothing to save for prepareCommit, txid {}.", txid);
+                }
+                commands.hmset(txidNamespace, currentTxIds);
+                txIds = currentTxIds;
+            } finally {
+                container.returnInstance(commands);
+            }
+        };
     }
 
     @Override
     public void commit(long txid) {
         LOG.debug("commit txid {}", txid);
-        validateCommitTxid(txid);
-        RedisCommands commands = null;
-        try {
-            commands = container.getInstance();
-            if (!pendingCommit.isEmpty()) {
-                List<byte[]> keysToDelete = new ArrayList<>();
-                Map<byte[], byte[]> keysToAdd = new HashMap<>();
-                for (Map.Entry<byte[], byte[]> entry : pendingCommit.entrySet()) {
-                    byte[] key = entry.getKey();
-                    byte[] value = entry.getValue();
-                    if (Arrays.equals(encoder.getTombstoneValue(), value)) {
-                        keysToDelete.add(key);
-                    } else {
-                        keysToAdd.put(key, value);
-                    }
-                }
-                if (!keysToAdd.isEmpty()) {
-                    commands.hmset(namespace, keysToAdd);
-                }
-                if (!keysToDelete.isEmpty()) {
-                    commands.hdel(namespace, keysToDelete.toArray(new byte[0][]));
-                }
-            } else {
-                LOG.debug("Nothing to save for commit, txid {}.", txid);
-            }
-            txIds.put(COMMIT_TXID_KEY, String.valueOf(txid));
-            commands.hmset(txidNamespace, txIds);
-            commands.del(prepareNamespace);
-            pendingCommit = EMPTY_PENDING_COMMIT_MAP;
-        } finally {
-            container.returnInstance(commands);
-        }
+        commitPending(txid).run();
     }
 
     @Override
@@ -263,6 +304,56 @@ public class RedisKeyValueState<K, V> implements KeyValueState<K, V> {
         }
     }
 
+    @Override
+    public CompletableFuture<Void> commitAsync(long txid, Executor executor) {
+        LOG.debug("commitAsync txid {}", txid);
+        return CompletableFuture.runAsync(commitPending(txid), executor);
+    }
+
+    /*
+     * Returns the task that writes the pending commit. The pending commit stays visible
+     * to reads until it is written.
+     */
+    private Runnable commitPending(long txid) {
+        validateCommitTxid(txid);
+        NavigableMap<byte[], byte[]> currentCommit = pendingCommit;
+        Map<String, String> currentTxIds = new HashMap<>(txIds);
+        currentTxIds.put(COMMIT_TXID_KEY, String.valueOf(txid));
+        return () -> {
+            RedisCommands commands = null;
+            try {
+                commands = container.getInstance();
+                if (!currentCommit.isEmpty()) {
+                    List<byte[]> keysToDelete = new ArrayList<>();
+                    Map<byte[], byte[]> keysToAdd = new HashMap<>();
+                    for (Map.Entry<byte[], byte[]> entry : currentCommit.entrySet()) {
+                        byte[] key = entry.getKey();
+                        byte[] value = entry.getValue();
+                        if (Arrays.equals(encoder.getTombstoneValue(), value)) {
+                            keysToDelete.add(key);
+                        } else {
+                            keysToAdd.put(key, value);
+                        }
+                    }
+                    if (!keysToAdd.isEmpty()) {
+                        commands.hmset(namespace, keysToAdd);
+                    }
+                    if (!keysToDelete.isEmpty()) {
+                        commands.hdel(namespace, keysToDelete.toArray(new byte[0][]));
+                    }
+                } else {
+                    LOG.debug("Nothing to save for commit, txid {}.", txid);
+                }
+                commands.hmset(txidNamespace, currentTxIds);
+                txIds = currentTxIds;
+                commands.del(prepareNamespace);
+                pendingCommit = EMPTY_PENDING_COMMIT_MAP;
+            } finally {
+                container.returnInstance(commands);
+            }
+        };
+    }
+
     @Override
     public void rollback() {
         LOG.debug("rollback");
@@ -275,15 +366,17 @@ public class RedisKeyValueState<K, V> implements KeyValueState<K, V> {
                 LOG.debug("Nothing to rollback, prepared data is empty");
             }
             Long lastCommittedId = lastCommittedTxid();
+            Map<String, String> currentTxIds = new HashMap<>(txIds);
             if (lastCommittedId != null) {
-                txIds.put(PREPARE_TXID_KEY, String.valueOf(lastCommittedId));
+                currentTxIds.put(PREPARE_TXID_KEY, String.valueOf(lastCommittedId));
             } else {
-                txIds.remove(PREPARE_TXID_KEY);
+                currentTxIds.remove(PREPARE_TXID_KEY);
             }
-            if (!txIds.isEmpty()) {
-                LOG.debug("hmset txidNamespace {}, txIds {}", txidNamespace, txIds);
-                commands.hmset(txidNamespace, txIds);
+            if (!currentTxIds.isEmpty()) {
+                LOG.debug("hmset txidNamespace {}, txIds {}", txidNamespace, currentTxIds);
+                commands.hmset(txidNamespace, currentTxIds);
             }
+            txIds = currentTxIds;
             pendingCommit = EMPTY_PENDING_COMMIT_MAP;
             pendingPrepare = createPendingPrepareMap();
         } finally {
@@ -27,6 +27,11 @@ public class Options<T> implements Serializable {
         new RedisDataTypeDescription(RedisDataTypeDescription.RedisDataType.STRING);
 
     public int localCacheSize = 1000;
+    /**
+     * When set, the local cache is the worker's {@link org.apache.storm.trident.state.map.SharedCachedMap} with this name, shared by the
+     * tasks of the state in the worker, and {@link #localCacheSize} bounds that cache instead of each task's own.
+     */
+    public String sharedCacheName = null;
     public String globalKey = "$REDIS-MAP-STATE-GLOBAL";
     public KeyFactory keyFactory = null;
     public Serializer<T> serializer = null;
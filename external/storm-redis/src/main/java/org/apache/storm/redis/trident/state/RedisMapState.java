@@ -24,9 +24,11 @@ import org.apache.storm.trident.state.StateFactory;
 import org.apache.storm.trident.state.StateType;
 import org.apache.storm.trident.state.TransactionalValue;
 import org.apache.storm.trident.state.map.CachedMap;
+import org.apache.storm.trident.state.map.IBackingMap;
 import org.apache.storm.trident.state.map.MapState;
 import org.apache.storm.trident.state.map.NonTransactionalMap;
 import org.apache.storm.trident.state.map.OpaqueMap;
+import org.apache.storm.trident.state.map.SharedCachedMap;
 import org.apache.storm.trident.state.map.SnapshottableMap;
 import org.apache.storm.trident.state.map.TransactionalMap;
 import org.apache.storm.tuple.Values;
@@ -353,7 +355,14 @@ public class RedisMapState<T> extends AbstractRedisMapState<T> {
                                                 jedisPoolConfig.getPassword(),
                                                 jedisPoolConfig.getDatabase());
             RedisMapState state = new RedisMapState(jedisPool, options, serializer, keyFactory);
-            CachedMap c = new CachedMap(state, options.localCacheSize);
+            IBackingMap c;
+            if (options.sharedCacheName != null) {
+                SharedCachedMap shared = SharedCachedMap.build(options.sharedCacheName, state, options.localCacheSize);
+                shared.registerMetrics(metrics);
+                c = shared;
+            } else {
+                c = new CachedMap(state, options.localCacheSize);
+            }
 
             MapState ms;
             if (type == StateType.NON_TRANSACTIONAL) {
@@ -0,0 +1,528 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package org.apache.storm.rocksdb.state;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.storm.shade.com.google.common.collect.Maps;
+import org.apache.storm.shade.com.google.common.primitives.UnsignedBytes;
+import org.apache.storm.shade.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.storm.shade.org.apache.commons.io.FileUtils;
+import org.apache.storm.state.DefaultStateEncoder;
+import org.apache.storm.state.KeyValueState;
+import org.apache.storm.state.Serializer;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link KeyValueState} that keeps the state in an embedded RocksDB on the local disk of the worker.  Prepared changes are written to
+ * a separate column family and each commit applies them to the state with a single write batch, together with the committed txid.
+ *
+ * <p>The database is also copied to the blob store periodically by {@link RocksDbStateSnapshots}, so that the state can be restored when
+ * the task is scheduled on a host that does not have it, or only has an older version of it.  The state should be closed when it is not
+ * used any more, which takes a last snapshot and closes the database once no other state of this JVM uses it.
+ */
+public class RocksDbKeyValueState<K, V> implements KeyValueState<K, V>, AutoCloseable {
+    public static final int ITERATOR_CHUNK_SIZE = 100;
+    public static final NavigableMap<byte[], byte[]> EMPTY_PENDING_COMMIT_MAP = Maps.unmodifiableNavigableMap(
+        new TreeMap<byte[], byte[]>(UnsignedBytes.lexicographicalComparator()));
+    private static final Logger LOG = LoggerFactory.getLogger(RocksDbKeyValueState.class);
+    private static final byte[] COMMIT_TXID_KEY = "commit".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PREPARE_TXID_KEY = "prepare".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SNAPSHOT_ID_KEY = "snapshot".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PREPARE_COLUMN = "prepare".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TXID_COLUMN = "txid".getBytes(StandardCharsets.UTF_8);
+    //Databases opened by this JVM, a database can only be opened once, e.g. in local mode a restarted worker reuses it.
+    //A database is closed when the last state using it is closed.
+    private static final Map<String, Database> OPEN_DATABASES = new HashMap<>();
+    private static final ScheduledExecutorService SNAPSHOTTER = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("RocksDB State Snapshots").setDaemon(true).build());
+
+    private final File dbDir;
+    private final Database database;
+    private final DefaultStateEncoder<K, V> encoder;
+    private ConcurrentNavigableMap<byte[], byte[]> pendingPrepare;
+    //Replaced by the thread writing the commit, while the executor reads it.
+    private volatile NavigableMap<byte[], byte[]> pendingCommit;
+    private Long committedTxid;
+    private Long preparedTxid;
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    /**
+     * Create a new state, in an existing database or a new one.
+     *
+     * @param dbDir           the directory of the database
+     * @param keySerializer   the serializer of the keys
+     * @param valueSerializer the serializer of the values
+     * @param snapshots       the snapshots of the database in the blob store
+     */
+    public RocksDbKeyValueState(File dbDir, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                RocksDbStateSnapshots snapshots) {
+        this.dbDir = dbDir;
+        this.encoder = new DefaultStateEncoder<>(keySerializer, valueSerializer);
+        this.database = open(dbDir, snapshots);
+        this.pendingPrepare = createPendingPrepareMap();
+        initTxids();
+        initPendingCommit();
+    }
+
+    private static synchronized Database open(File dbDir, RocksDbStateSnapshots snapshots) {
+        String path = dbDir.getAbsolutePath();
+        Database database = OPEN_DATABASES.get(path);
+        if (database == null) {
+            try {
+                if (dbDir.exists()) {
+                    database = new Database(path, snapshots);
+                    String latestId = latestSnapshotId(path, snapshots);
+                    byte[] localId = database.db.get(database.txidColumn, SNAPSHOT_ID_KEY);
+                    if (latestId != null && (localId == null || !latestId.equals(new String(localId, StandardCharsets.UTF_8)))) {
+                        LOG.info("The local state in {} is not the latest snapshot {}, restoring the snapshot", path, latestId);
+                        database.close();
+                        database = null;
+                        FileUtils.deleteDirectory(dbDir);
+                    }
+                }
+                if (database == null) {
+                    String restoredId = snapshots.restore(dbDir);
+                    database = new Database(path, snapshots);
+                    if (restoredId != null) {
+                        database.db.put(database.txidColumn, database.syncWrites, SNAPSHOT_ID_KEY,
+                                        restoredId.getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Could not open RocksDB state in " + path, e);
+            }
+            database.scheduleSnapshots();
+            OPEN_DATABASES.put(path, database);
+        }
+        database.references++;
+        return database;
+    }
+
+    /*
+     * The local database is only checked against the blob store, it can be used as it is when the
+     * blob store cannot be reached.
+     */
+    private static String latestSnapshotId(String path, RocksDbStateSnapshots snapshots) {
+        try {
+            return snapshots.latestId();
+        } catch (Exception e) {
+            LOG.warn("Could not check the local state in {} against the latest snapshot, using the local state", path, e);
+            return null;
+        }
+    }
+
+    private static synchronized void release(Database database) {
+        if (--database.references == 0) {
+            OPEN_DATABASES.remove(database.path);
+            database.close();
+        }
+    }
+
+    /**
+     * Close the state.  The database is closed if no other state of this JVM uses it.
+     */
+    @Override
+    public void close() {
+        LOG.debug("close {}", dbDir);
+        release(database);
+    }
+
+    private void initTxids() {
+        committedTxid = lastId(database, COMMIT_TXID_KEY);
+        preparedTxid = lastId(database, PREPARE_TXID_KEY);
+        LOG.debug("initTxids, committed {}, prepared {}", committedTxid, preparedTxid);
+    }
+
+    private void initPendingCommit() {
+        NavigableMap<byte[], byte[]> pendingCommitMap = new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+        try (RocksIterator it = database.db.newIterator(database.prepareColumn)) {
+            for (it.seekToFirst(); it.isValid(); it.next()) {
+                pendingCommitMap.put(it.key(), it.value());
+            }
+        }
+        if (pendingCommitMap.isEmpty()) {
+            LOG.debug("No previously prepared commits.");
+            pendingCommit = EMPTY_PENDING_COMMIT_MAP;
+        } else {
+            LOG.debug("Loaded previously prepared commit from {}", dbDir);
+            pendingCommit = Maps.unmodifiableNavigableMap(pendingCommitMap);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        LOG.debug("put key '{}', value '{}'", key, value);
+        pendingPrepare.put(encoder.encodeKey(key), encoder.encodeValue(value));
+    }
+
+    @Override
+    public V get(K key) {
+        LOG.debug("get key '{}'", key);
+        byte[] dbKey = encoder.encodeKey(key);
+        byte[] dbValue;
+        if (pendingPrepare.containsKey(dbKey)) {
+            dbValue = pendingPrepare.get(dbKey);
+        } else if (pendingCommit.containsKey(dbKey)) {
+            dbValue = pendingCommit.get(dbKey);
+        } else {
+            try {
+                dbValue = database.db.get(database.dataColumn, dbKey);
+            } catch (RocksDBException e) {
+                throw new RuntimeException("Failed to get key '" + key + "' from " + dbDir, e);
+            }
+        }
+        V value = null;
+        if (dbValue != null) {
+            value = encoder.decodeValue(dbValue);
+        }
+        LOG.debug("Value for key '{}' is '{}'", key, value);
+        return value;
+    }
+
+    @Override
+    public V get(K key, V defaultValue) {
+        V val = get(key);
+        return val != null ? val : defaultValue;
+    }
+
+    @Override
+    public V delete(K key) {
+        LOG.debug("delete key '{}'", key);
+        V curr = get(key);
+        pendingPrepare.put(encoder.encodeKey(key), encoder.getTombstoneValue());
+        return curr;
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new RocksDbKeyValueStateIterator<>(database.db, database.dataColumn, pendingPrepare.entrySet().iterator(),
+                                                  pendingCommit.entrySet().iterator(), ITERATOR_CHUNK_SIZE,
+                                                  encoder.getKeySerializer(), encoder.getValueSerializer());
+    }
+
+    @Override
+    public void prepareCommit(long txid) {
+        LOG.debug("prepareCommit txid {}", txid);
+        preparePending(txid).run();
+    }
+
+    @Override
+    public CompletableFuture<Void> prepareCommitAsync(long txid, Executor executor) {
+        LOG.debug("prepareCommitAsync txid {}", txid);
+        return CompletableFuture.runAsync(preparePending(txid), executor);
+    }
+
+    /*
+     * Moves the pending changes to the pending commit and returns the task that writes them.
+     * The task does not touch the maps that are updated by put and delete.
+     */
+    private Runnable preparePending(long txid) {
+        validatePrepareTxid(txid);
+        ConcurrentNavigableMap<byte[], byte[]> currentPending = pendingPrepare;
+        pendingPrepare = createPendingPrepareMap();
+        //A txid that was already prepared is prepared again, with the changes since then on top.
+        for (Map.Entry<byte[], byte[]> e : pendingCommit.entrySet()) {
+            currentPending.putIfAbsent(e.getKey(), e.getValue());
+        }
+        preparedTxid = txid;
+        pendingCommit = Maps.unmodifiableNavigableMap(currentPending);
+        return () -> {
+            try (WriteBatch batch = new WriteBatch()) {
+                for (Map.Entry<byte[], byte[]> e : currentPending.entrySet()) {
+                    batch.put(database.prepareColumn, e.getKey(), e.getValue());
+                }
+                batch.put(database.txidColumn, PREPARE_TXID_KEY, encodeTxid(txid));
+                database.write(batch);
+            } catch (IOException | RocksDBException e) {
+                throw new RuntimeException("Failed to prepare txid " + txid + " in " + dbDir, e);
+            }
+        };
+    }
+
+    @Override
+    public void commit(long txid) {
+        LOG.debug("commit txid {}", txid);
+        commitPending(txid).run();
+    }
+
+    @Override
+    public void commit() {
+        if (pendingPrepare.isEmpty()) {
+            LOG.debug("Nothing to save for commit");
+            return;
+        }
+        ConcurrentNavigableMap<byte[], byte[]> currentPending = pendingPrepare;
+        pendingPrepare = createPendingPrepareMap();
+        try (WriteBatch batch = new WriteBatch()) {
+            for (Map.Entry<byte[], byte[]> entry : currentPending.entrySet()) {
+                if (Arrays.equals(encoder.getTombstoneValue(), entry.getValue())) {
+                    batch.delete(database.dataColumn, entry.getKey());
+                } else {
+                    batch.put(database.dataColumn, entry.getKey(), entry.getValue());
+                }
+            }
+            database.write(batch);
+        } catch (IOException | RocksDBException e) {
+            throw new RuntimeException("Failed to commit to " + dbDir, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> commitAsync(long txid, Executor executor) {
+        LOG.debug("commitAsync txid {}", txid);
+        return CompletableFuture.runAsync(commitPending(txid), executor);
+    }
+
+    /*
+     * Returns the task that writes the pending commit. The pending commit stays visible
+     * to reads until it is written.
+     */
+    private Runnable commitPending(long txid) {
+        validateCommitTxid(txid);
+        NavigableMap<byte[], byte[]> currentCommit = pendingCommit;
+        committedTxid = txid;
+        return () -> {
+            try (WriteBatch batch = new WriteBatch()) {
+                for (Map.Entry<byte[], byte[]> entry : currentCommit.entrySet()) {
+                    if (Arrays.equals(encoder.getTombstoneValue(), entry.getValue())) {
+                        batch.delete(database.dataColumn, entry.getKey());
+                    } else {
+                        batch.put(database.dataColumn, entry.getKey(), entry.getValue());
+                    }
+                    batch.delete(database.prepareColumn, entry.getKey());
+                }
+                batch.put(database.txidColumn, COMMIT_TXID_KEY, encodeTxid(txid));
+                database.write(batch);
+            } catch (IOException | RocksDBException e) {
+                throw new RuntimeException("Failed to commit txid " + txid + " in " + dbDir, e);
+            }
+            pendingCommit = EMPTY_PENDING_COMMIT_MAP;
+        };
+    }
+
+    @Override
+    public void rollback() {
+        LOG.debug("rollback");
+        List<byte[]> prepared = new ArrayList<>();
+        try (RocksIterator it = database.db.newIterator(database.prepareColumn)) {
+            for (it.seekToFirst(); it.isValid(); it.next()) {
+                prepared.add(it.key());
+            }
+        }
+        try (WriteBatch batch = new WriteBatch()) {
+            for (byte[] key : prepared) {
+                batch.delete(database.prepareColumn, key);
+            }
+            if (committedTxid != null) {
+                batch.put(database.txidColumn, PREPARE_TXID_KEY, encodeTxid(committedTxid));
+            } else {
+                batch.delete(database.txidColumn, PREPARE_TXID_KEY);
+            }
+            database.write(batch);
+        } catch (IOException | RocksDBException e) {
+            throw new RuntimeException("Failed to rollback " + dbDir, e);
+        }
+        preparedTxid = committedTxid;
+        pendingCommit = EMPTY_PENDING_COMMIT_MAP;
+        pendingPrepare = createPendingPrepareMap();
+    }
+
+    /*
+     * Same txid can be prepared again, but the next txid cannot be prepared
+     * when previous one is not committed yet.
+     */
+    private void validatePrepareTxid(long txid) {
+        if (committedTxid != null && txid <= committedTxid) {
+            throw new RuntimeException("Invalid txid '" + txid + "' for prepare. Txid '" + committedTxid
+                                       + "' is already committed");
+        }
+    }
+
+    /*
+     * Same txid can be committed again but the
+     * txid to be committed must be the last prepared one.
+     */
+    private void validateCommitTxid(long txid) {
+        if (committedTxid != null && txid < committedTxid) {
+            throw new RuntimeException("Invalid txid '" + txid + "' txid '" + committedTxid + "' is already committed");
+        }
+        if (preparedTxid != null && txid != preparedTxid) {
+            throw new RuntimeException("Invalid txid '" + txid + "' not same as prepared txid '" + preparedTxid + "'");
+        }
+    }
+
+    private static Long lastId(Database database, byte[] key) {
+        try {
+            byte[] txid = database.db.get(database.txidColumn, key);
+            return txid == null ? null : Long.valueOf(new String(txid, StandardCharsets.UTF_8));
+        } catch (RocksDBException e) {
+            throw new RuntimeException("Failed to read txid from " + database.path, e);
+        }
+    }
+
+    private static byte[] encodeTxid(long txid) {
+        return String.valueOf(txid).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ConcurrentNavigableMap<byte[], byte[]> createPendingPrepareMap() {
+        return new ConcurrentSkipListMap<>(UnsignedBytes.lexicographicalComparator());
+    }
+
+    /**
+     * The handles of an open database.  The committed state is in the default column family.
+     */
+    private static class Database {
+        private final String path;
+        private final RocksDbStateSnapshots snapshots;
+        private final DBOptions options;
+        private final ColumnFamilyOptions columnOptions;
+        private final List<ColumnFamilyHandle> columns = new ArrayList<>();
+        private final RocksDB db;
+        private final ColumnFamilyHandle dataColumn;
+        private final ColumnFamilyHandle prepareColumn;
+        private final ColumnFamilyHandle txidColumn;
+        private final WriteOptions syncWrites;
+        private int references;
+        //Guards the counts of the writes, which are updated by the writing threads and the snapshots
+        private final Object progress = new Object();
+        private long writes;
+        private long snapshotWrites;
+        //When the oldest write that is not in a snapshot was done, or 0 if all writes are in a snapshot
+        private long unsnapshottedSinceMs;
+        private ScheduledFuture<?> snapshotTask;
+        private boolean closed;
+
+        Database(String path, RocksDbStateSnapshots snapshots) throws RocksDBException {
+            this.path = path;
+            this.snapshots = snapshots;
+            options = new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true);
+            columnOptions = new ColumnFamilyOptions();
+            List<ColumnFamilyDescriptor> descriptors = Arrays.asList(
+                new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnOptions),
+                new ColumnFamilyDescriptor(PREPARE_COLUMN, columnOptions),
+                new ColumnFamilyDescriptor(TXID_COLUMN, columnOptions));
+            new File(path).mkdirs();
+            db = RocksDB.open(options, path, descriptors, columns);
+            dataColumn = columns.get(0);
+            prepareColumn = columns.get(1);
+            txidColumn = columns.get(2);
+            syncWrites = new WriteOptions().setSync(true);
+        }
+
+        void scheduleSnapshots() {
+            long intervalMs = snapshots.getIntervalMs();
+            if (intervalMs > 0) {
+                snapshotTask = SNAPSHOTTER.scheduleWithFixedDelay(this::snapshotQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /*
+         * Writes the batch. If the oldest write that is not in a snapshot is older than the max lag
+         * the write only completes once a snapshot has it.
+         */
+        void write(WriteBatch batch) throws IOException, RocksDBException {
+            db.write(syncWrites, batch);
+            long now = System.currentTimeMillis();
+            boolean lagging;
+            synchronized (progress) {
+                writes++;
+                if (unsnapshottedSinceMs == 0) {
+                    unsnapshottedSinceMs = now;
+                }
+                lagging = now - unsnapshottedSinceMs >= snapshots.getMaxLagMs();
+            }
+            if (lagging) {
+                LOG.info("The snapshot of {} lags more than {} ms behind, taking a snapshot before the write completes", path,
+                         snapshots.getMaxLagMs());
+                snapshot();
+            }
+        }
+
+        private void snapshotQuietly() {
+            try {
+                snapshot();
+            } catch (IOException | RocksDBException | RuntimeException e) {
+                LOG.warn("Could not take a snapshot of {}, trying again later", path, e);
+            }
+        }
+
+        /*
+         * Takes a snapshot if there were writes since the last one, and writes its id to the database
+         * once it is published.
+         */
+        synchronized void snapshot() throws IOException, RocksDBException {
+            if (closed) {
+                return;
+            }
+            final long startMs = System.currentTimeMillis();
+            long covered;
+            synchronized (progress) {
+                if (writes == snapshotWrites) {
+                    return;
+                }
+                covered = writes;
+            }
+            String id = snapshots.take(db, new File(path));
+            db.put(txidColumn, syncWrites, SNAPSHOT_ID_KEY, id.getBytes(StandardCharsets.UTF_8));
+            synchronized (progress) {
+                snapshotWrites = covered;
+                unsnapshottedSinceMs = writes == covered ? 0 : startMs;
+            }
+        }
+
+        synchronized void close() {
+            if (snapshotTask != null) {
+                snapshotTask.cancel(false);
+            }
+            snapshotQuietly();
+            closed = true;
+            columns.forEach(ColumnFamilyHandle::close);
+            db.close();
+            syncWrites.close();
+            columnOptions.close();
+            options.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package org.apache.storm.rocksdb.state;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.storm.state.BaseBinaryStateIterator;
+import org.apache.storm.state.DefaultStateEncoder;
+import org.apache.storm.state.Serializer;
+import org.apache.storm.state.StateEncoder;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksIterator;
+
+/**
+ * An iterator over {@link RocksDbKeyValueState}.
+ */
+public class RocksDbKeyValueStateIterator<K, V> extends BaseBinaryStateIterator<K, V> {
+
+    private final RocksDB db;
+    private final ColumnFamilyHandle column;
+    private final int chunkSize;
+    private final StateEncoder<K, V, byte[], byte[]> encoder;
+
+    private Iterator<Map.Entry<byte[], byte[]>> cachedResultIterator;
+    private byte[] lastKey;
+    private boolean endOfData;
+
+    /**
+     * Constructor.
+     *
+     * @param db The database
+     * @param column The column family of the committed state
+     * @param pendingPrepareIterator The iterator of pendingPrepare
+     * @param pendingCommitIterator The iterator of pendingCommit
+     * @param chunkSize The size of chunk to get entries from the database
+     * @param keySerializer The serializer of key
+     * @param valueSerializer The serializer of value
+     */
+    public RocksDbKeyValueStateIterator(RocksDB db, ColumnFamilyHandle column,
+                                        Iterator<Map.Entry<byte[], byte[]>> pendingPrepareIterator,
+                                        Iterator<Map.Entry<byte[], byte[]>> pendingCommitIterator,
+                                        int chunkSize, Serializer<K> keySerializer,
+                                        Serializer<V> valueSerializer) {
+        super(pendingPrepareIterator, pendingCommitIterator);
+        this.db = db;
+        this.column = column;
+        this.chunkSize = chunkSize;
+        this.encoder = new DefaultStateEncoder<K, V>(keySerializer, valueSerializer);
+    }
+
+    @Override
+    protected Iterator<Map.Entry<byte[], byte[]>> loadChunkFromStateStorage() {
+        loadChunkFromRocksDb();
+        return cachedResultIterator;
+    }
+
+    @Override
+    protected boolean isEndOfDataFromStorage() {
+        return (cachedResultIterator == null || !cachedResultIterator.hasNext()) && endOfData;
+    }
+
+    @Override
+    protected K decodeKey(byte[] key) {
+        return encoder.decodeKey(key);
+    }
+
+    @Override
+    protected V decodeValue(byte[] value) {
+        return encoder.decodeValue(value);
+    }
+
+    @Override
+    protected boolean isTombstoneValue(byte[] value) {
+        return Arrays.equals(value, encoder.getTombstoneValue());
+    }
+
+    /*
+     * A native iterator is only held while a chunk is read, so an iterator that is not read to the end does not leak it.
+     */
+    private void loadChunkFromRocksDb() {
+        List<Map.Entry<byte[], byte[]>> result = new ArrayList<>(chunkSize);
+        try (RocksIterator it = db.newIterator(column)) {
+            if (lastKey == null) {
+                it.seekToFirst();
+            } else {
+                it.seek(lastKey);
+                if (it.isValid() && Arrays.equals(it.key(), lastKey)) {
+                    it.next();
+                }
+            }
+            while (it.isValid() && result.size() < chunkSize) {
+                result.add(new AbstractMap.SimpleImmutableEntry<>(it.key(), it.value()));
+                it.next();
+            }
+            endOfData = !it.isValid();
+        }
+        if (!result.isEmpty()) {
+            lastKey = result.get(result.size() - 1).getKey();
+        }
+        cachedResultIterator = result.iterator();
+    }
+
+}
@@ -0,0 +1,275 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package org.apache.storm.rocksdb.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import org.apache.storm.Config;
+import org.apache.storm.blobstore.AtomicOutputStream;
+import org.apache.storm.blobstore.BlobStoreAclHandler;
+import org.apache.storm.blobstore.ClientBlobStore;
+import org.apache.storm.generated.AccessControl;
+import org.apache.storm.generated.AccessControlType;
+import org.apache.storm.generated.KeyAlreadyExistsException;
+import org.apache.storm.generated.KeyNotFoundException;
+import org.apache.storm.generated.SettableBlobMeta;
+import org.apache.storm.shade.org.apache.commons.io.FileUtils;
+import org.apache.storm.utils.Utils;
+import org.rocksdb.Checkpoint;
+import org.rocksdb.RocksDB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental snapshots of a {@link RocksDbKeyValueState} in the blob store (which can be backed by HDFS).  Snapshots are taken in the
+ * background every snapshot interval, if the database changed.  If the oldest change that is not in a snapshot yet gets older than the
+ * max snapshot lag, because snapshots fail or fall behind, the next write takes a snapshot before it completes, so the changes that can
+ * be lost with the local disk are bounded by the max lag.  Taking a snapshot creates a RocksDB checkpoint, which only hard links the files
+ * of the database.  The SST files of RocksDB never change, so only the SST files that are not in the blob store yet are uploaded.  A
+ * snapshot becomes visible when its manifest blob, listing the blobs of all of its files, is written.  Blobs that are not used by the
+ * latest snapshot any more are deleted afterwards.
+ *
+ * <p>Each snapshot has an id, which is written to the database once the snapshot is published.  A local database is only used if it has
+ * the id of the latest snapshot, otherwise the snapshot was published by another instance of the state and it is restored.  The blobs are
+ * only accessible to the user that submitted the topology.
+ */
+public class RocksDbStateSnapshots {
+    private static final Logger LOG = LoggerFactory.getLogger(RocksDbStateSnapshots.class);
+    private static final String ID_PROPERTY = "snapshot.id";
+    private static final String SST_SUFFIX = ".sst";
+
+    private final Map<String, Object> topoConf;
+    private final String keyPrefix;
+    private final long intervalMs;
+    private final long maxLagMs;
+    //Blobs uploaded by this instance get their own keys, another instance may have files with the same names but other contents.
+    private final String session = UUID.randomUUID().toString().substring(0, 8);
+    private ClientBlobStore blobStore;
+    //SST files of the database that are already in the blob store, by file name
+    private Map<String, String> uploadedFiles = new HashMap<>();
+    private Properties published;
+
+    /**
+     * Create snapshots for a state.
+     *
+     * @param topoConf   the topology configuration
+     * @param keyPrefix  the prefix of the keys of the blobs of the snapshots
+     * @param intervalMs how often to take a snapshot in the background, or 0 to only take them when the max lag is reached
+     * @param maxLagMs   how old the oldest change that is not in a snapshot may get before a write waits for a snapshot
+     */
+    public RocksDbStateSnapshots(Map<String, Object> topoConf, String keyPrefix, long intervalMs, long maxLagMs) {
+        this(topoConf, keyPrefix, intervalMs, maxLagMs, null);
+    }
+
+    // package access for unit tests
+    RocksDbStateSnapshots(Map<String, Object> topoConf, String keyPrefix, long intervalMs, long maxLagMs, ClientBlobStore blobStore) {
+        this.topoConf = topoConf;
+        this.keyPrefix = keyPrefix;
+        this.intervalMs = intervalMs;
+        this.maxLagMs = maxLagMs;
+        this.blobStore = blobStore;
+    }
+
+    long getIntervalMs() {
+        return intervalMs;
+    }
+
+    long getMaxLagMs() {
+        return maxLagMs;
+    }
+
+    /**
+     * Get the id of the latest snapshot.
+     *
+     * @return the id, or null if there is no snapshot
+     */
+    synchronized String latestId() throws Exception {
+        Properties manifest = readManifest();
+        return manifest == null ? null : manifest.getProperty(ID_PROPERTY);
+    }
+
+    /**
+     * Restore the latest snapshot, if there is any.
+     *
+     * @param dbDir the directory of the database, which must not exist
+     * @return the id of the restored snapshot, or null if there is no snapshot
+     */
+    synchronized String restore(File dbDir) throws Exception {
+        Properties manifest = readManifest();
+        if (manifest == null) {
+            LOG.info("No snapshot in {}, starting with empty state", manifestKey());
+            return null;
+        }
+        File restoreDir = new File(dbDir.getParentFile(), dbDir.getName() + ".restoring");
+        FileUtils.deleteDirectory(restoreDir);
+        restoreDir.mkdirs();
+        Map<String, String> restoredFiles = new HashMap<>();
+        for (String name : manifest.stringPropertyNames()) {
+            if (ID_PROPERTY.equals(name)) {
+                continue;
+            }
+            String key = manifest.getProperty(name);
+            try (InputStream in = getBlobStore().getBlob(key)) {
+                Files.copy(in, new File(restoreDir, name).toPath());
+            }
+            if (name.endsWith(SST_SUFFIX)) {
+                restoredFiles.put(name, key);
+            }
+        }
+        Files.move(restoreDir.toPath(), dbDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        LOG.info("Restored snapshot {} with {} files into {}", manifest.getProperty(ID_PROPERTY), manifest.size() - 1, dbDir);
+        uploadedFiles = restoredFiles;
+        published = manifest;
+        return manifest.getProperty(ID_PROPERTY);
+    }
+
+    /**
+     * Take a snapshot of the database and publish it.
+     *
+     * @param db    the database
+     * @param dbDir the directory of the database
+     * @return the id of the published snapshot
+     * @throws IOException if the snapshot could not be taken or uploaded
+     */
+    synchronized String take(RocksDB db, File dbDir) throws IOException {
+        String id = UUID.randomUUID().toString();
+        File checkpointDir = new File(dbDir.getParentFile(), dbDir.getName() + ".snapshot-" + id);
+        try (Checkpoint checkpoint = Checkpoint.create(db)) {
+            FileUtils.deleteDirectory(checkpointDir);
+            checkpoint.createCheckpoint(checkpointDir.getAbsolutePath());
+            upload(checkpointDir, id);
+            return id;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Could not take snapshot " + id + " of " + dbDir + " in " + manifestKey(), e);
+        } finally {
+            FileUtils.deleteQuietly(checkpointDir);
+        }
+    }
+
+    private void upload(File checkpointDir, String id) throws Exception {
+        Properties manifest = new Properties();
+        manifest.setProperty(ID_PROPERTY, id);
+        Map<String, String> files = new HashMap<>();
+        int uploaded = 0;
+        for (File file : checkpointDir.listFiles()) {
+            String name = file.getName();
+            String key = name.endsWith(SST_SUFFIX) ? uploadedFiles.get(name) : null;
+            if (key == null) {
+                key = keyPrefix + "-" + session + "-" + (name.endsWith(SST_SUFFIX) ? "" : id + "-") + name;
+                try (InputStream in = Files.newInputStream(file.toPath())) {
+                    writeBlob(key, in);
+                }
+                uploaded++;
+            }
+            manifest.setProperty(name, key);
+            if (name.endsWith(SST_SUFFIX)) {
+                files.put(name, key);
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        manifest.store(bytes, null);
+        writeBlob(manifestKey(), new ByteArrayInputStream(bytes.toByteArray()));
+        LOG.debug("Published snapshot {} to {}, uploaded {} of {} files", id, manifestKey(), uploaded, manifest.size() - 1);
+
+        if (published != null) {
+            Set<String> unused = new HashSet<>();
+            for (String name : published.stringPropertyNames()) {
+                unused.add(published.getProperty(name));
+            }
+            for (String name : manifest.stringPropertyNames()) {
+                unused.remove(manifest.getProperty(name));
+            }
+            unused.remove(published.getProperty(ID_PROPERTY));
+            for (String key : unused) {
+                try {
+                    getBlobStore().deleteBlob(key);
+                } catch (KeyNotFoundException e) {
+                    LOG.debug("Blob {} is already deleted", key);
+                }
+            }
+        }
+        uploadedFiles = files;
+        published = manifest;
+    }
+
+    private Properties readManifest() throws Exception {
+        try (InputStream in = getBlobStore().getBlob(manifestKey())) {
+            Properties manifest = new Properties();
+            manifest.load(in);
+            return manifest;
+        } catch (KeyNotFoundException e) {
+            return null;
+        }
+    }
+
+    private void writeBlob(String key, InputStream in) throws Exception {
+        AtomicOutputStream out;
+        try {
+            out = getBlobStore().createBlob(key, new SettableBlobMeta(acl()));
+        } catch (KeyAlreadyExistsException e) {
+            out = getBlobStore().updateBlob(key);
+        }
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            out.close();
+        } catch (IOException e) {
+            out.cancel();
+            throw e;
+        }
+    }
+
+    /*
+     * The state of the topology is only for the user that submitted it. If the user is not known the
+     * blob store fills in the user of the worker.
+     */
+    private List<AccessControl> acl() {
+        AccessControl owner = new AccessControl(AccessControlType.USER,
+                                                BlobStoreAclHandler.READ | BlobStoreAclHandler.WRITE | BlobStoreAclHandler.ADMIN);
+        String user = (String) topoConf.get(Config.TOPOLOGY_SUBMITTER_USER);
+        if (user != null) {
+            owner.set_name(user);
+        }
+        return Collections.singletonList(owner);
+    }
+
+    private String manifestKey() {
+        return keyPrefix + "-snapshot";
+    }
+
+    private synchronized ClientBlobStore getBlobStore() {
+        if (blobStore == null) {
+            blobStore = Utils.getClientBlobStore(topoConf);
+        }
+        return blobStore;
+    }
+}
@@ -0,0 +1,312 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.rocksdb.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.storm.blobstore.AtomicOutputStream;
+import org.apache.storm.blobstore.ClientBlobStore;
+import org.apache.storm.blobstore.InputStreamWithMeta;
+import org.apache.storm.generated.KeyAlreadyExistsException;
+import org.apache.storm.generated.KeyNotFoundException;
+import org.apache.storm.generated.ReadableBlobMeta;
+import org.apache.storm.generated.SettableBlobMeta;
+import org.apache.storm.state.Serializer;
+import org.apache.storm.utils.NimbusClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RocksDbKeyValueStateTest {
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryBlobStore blobStore = new InMemoryBlobStore();
+
+    @Test
+    public void testRestoreOnNewHost() {
+        try (RocksDbKeyValueState<String, String> state = newState("host1")) {
+            state.put("a", "1");
+            state.prepareCommit(1);
+            state.commit(1);
+        }
+        try (RocksDbKeyValueState<String, String> state = newState("host2")) {
+            assertEquals("1", state.get("a"));
+        }
+    }
+
+    @Test
+    public void testPreparedChangesAreRestored() {
+        try (RocksDbKeyValueState<String, String> state = newState("host1")) {
+            state.put("a", "1");
+            state.prepareCommit(1);
+        }
+        try (RocksDbKeyValueState<String, String> state = newState("host2")) {
+            assertEquals("1", state.get("a"));
+            state.commit(1);
+            assertEquals("1", state.get("a"));
+        }
+    }
+
+    @Test
+    public void testStaleLocalStateIsReplaced() {
+        try (RocksDbKeyValueState<String, String> state = newState("host1")) {
+            state.put("a", "1");
+            state.put("b", "1");
+            state.prepareCommit(1);
+            state.commit(1);
+        }
+        try (RocksDbKeyValueState<String, String> state = newState("host2")) {
+            state.put("a", "2");
+            state.delete("b");
+            state.prepareCommit(2);
+            state.commit(2);
+        }
+        try (RocksDbKeyValueState<String, String> state = newState("host1")) {
+            assertEquals("2", state.get("a"));
+            assertNull(state.get("b"));
+        }
+    }
+
+    @Test
+    public void testRolledBackChangesAreNotRestored() {
+        try (RocksDbKeyValueState<String, String> state = newState("host1")) {
+            state.put("a", "1");
+            state.prepareCommit(1);
+            state.rollback();
+        }
+        try (RocksDbKeyValueState<String, String> state = newState("host2")) {
+            assertNull(state.get("a"));
+        }
+    }
+
+    @Test
+    public void testDatabaseIsSharedUntilClosed() {
+        try (RocksDbKeyValueState<String, String> first = newState("host1")) {
+            try (RocksDbKeyValueState<String, String> second = newState("host1")) {
+                second.put("a", "1");
+                second.prepareCommit(1);
+                second.commit(1);
+            }
+            assertEquals("1", first.get("a"));
+        }
+        //the database was closed, so it can be opened again
+        try (RocksDbKeyValueState<String, String> state = newState("host1")) {
+            assertEquals("1", state.get("a"));
+        }
+    }
+
+    @Test
+    public void testSnapshotsAreTakenWhenLagging() {
+        try (RocksDbKeyValueState<String, String> state = newState("host1", Long.MAX_VALUE)) {
+            state.put("a", "1");
+            state.prepareCommit(1);
+            state.commit(1);
+            try (RocksDbKeyValueState<String, String> other = newState("host2")) {
+                assertNull(other.get("a"));
+            }
+        }
+        try (RocksDbKeyValueState<String, String> state = newState("host1", 0)) {
+            state.put("a", "2");
+            state.prepareCommit(2);
+            state.commit(2);
+            try (RocksDbKeyValueState<String, String> other = newState("host3")) {
+                assertEquals("2", other.get("a"));
+            }
+        }
+    }
+
+    @Test
+    public void testLocalStateIsUsedWithoutBlobStore() {
+        try (RocksDbKeyValueState<String, String> state = newState("host1")) {
+            state.put("a", "1");
+            state.prepareCommit(1);
+            state.commit(1);
+        }
+        blobStore.unreachable = true;
+        try (RocksDbKeyValueState<String, String> state = newState("host1")) {
+            assertEquals("1", state.get("a"));
+        }
+    }
+
+    private RocksDbKeyValueState<String, String> newState(String host) {
+        return newState(host, Long.MAX_VALUE);
+    }
+
+    private RocksDbKeyValueState<String, String> newState(String host, long maxLagMs) {
+        File dbDir = tempDir.resolve(host).resolve("state").toFile();
+        return new RocksDbKeyValueState<>(dbDir, new StringSerializer(), new StringSerializer(),
+                                          new RocksDbStateSnapshots(Collections.emptyMap(), "state", 0, maxLagMs, blobStore));
+    }
+
+    private static class StringSerializer implements Serializer<String> {
+        @Override
+        public byte[] serialize(String obj) {
+            return obj.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(byte[] b) {
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class InMemoryBlobStore extends ClientBlobStore {
+        private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+        private volatile boolean unreachable;
+
+        @Override
+        public void prepare(Map<String, Object> conf) {
+        }
+
+        @Override
+        protected AtomicOutputStream createBlobToExtend(String key, SettableBlobMeta meta) throws KeyAlreadyExistsException {
+            if (blobs.containsKey(key)) {
+                throw new KeyAlreadyExistsException(key);
+            }
+            return new BlobOutputStream(key);
+        }
+
+        @Override
+        public AtomicOutputStream updateBlob(String key) throws KeyNotFoundException {
+            if (!blobs.containsKey(key)) {
+                throw new KeyNotFoundException(key);
+            }
+            return new BlobOutputStream(key);
+        }
+
+        @Override
+        public ReadableBlobMeta getBlobMeta(String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isRemoteBlobExists(String blobKey) {
+            return blobs.containsKey(blobKey);
+        }
+
+        @Override
+        protected void setBlobMetaToExtend(String key, SettableBlobMeta meta) {
+        }
+
+        @Override
+        public void deleteBlob(String key) throws KeyNotFoundException {
+            if (blobs.remove(key) == null) {
+                throw new KeyNotFoundException(key);
+            }
+        }
+
+        @Override
+        public InputStreamWithMeta getBlob(String key) throws KeyNotFoundException {
+            if (unreachable) {
+                throw new RuntimeException("Connection refused");
+            }
+            byte[] blob = blobs.get(key);
+            if (blob == null) {
+                throw new KeyNotFoundException(key);
+            }
+            ByteArrayInputStream in = new ByteArrayInputStream(blob);
+            return new InputStreamWithMeta() {
+                @Override
+                public long getVersion() {
+                    return 0;
+                }
+
+                @Override
+                public long getFileLength() {
+                    return blob.length;
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+            };
+        }
+
+        @Override
+        public Iterator<String> listKeys() {
+            return blobs.keySet().iterator();
+        }
+
+        @Override
+        public int getBlobReplication(String key) {
+            return 1;
+        }
+
+        @Override
+        public int updateBlobReplication(String key, int replication) {
+            return 1;
+        }
+
+        @Override
+        public boolean setClient(Map<String, Object> conf, NimbusClient client) {
+            return true;
+        }
+
+        @Override
+        public void createStateInZookeeper(String key) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public long getRemoteBlobstoreUpdateTime() {
+            return 0;
+        }
+
+        private class BlobOutputStream extends AtomicOutputStream {
+            private final String key;
+            private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            BlobOutputStream(String key) {
+                this.key = key;
+            }
+
+            @Override
+            public void write(int b) {
+                bytes.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                blobs.put(key, bytes.toByteArray());
+            }
+
+            @Override
+            public void cancel() throws IOException {
+            }
+        }
+    }
+}
@@ -310,6 +310,41 @@ public class Config extends HashMap<String, Object> {
     @IsInteger
     @IsPositiveNumber
     public static final String TOPOLOGY_STATE_CHECKPOINT_INTERVAL = "topology.state.checkpoint.interval.ms";
+    /**
+     * A local directory where persistent windowed bolts keep the tuples of their windows serialized, in memory mapped segments, instead
+     * of on the heap. Segments of windows that are not used are paged out to this directory, and checkpoints copy the serialized tuples
+     * without serializing them again. By default the tuples are kept on the heap.
+     */
+    @IsString
+    public static final String TOPOLOGY_STATE_WINDOW_SEGMENTS_DIR = "topology.state.window.segments.dir";
+    /**
+     * Whether stateful bolts persist their state in the background. The bolt keeps processing tuples while the changes captured at a
+     * checkpoint are written, and the checkpoint is acknowledged once the write completes. The state must implement the asynchronous
+     * prepare and commit, else the checkpoints are still done synchronously.
+     *
+     * <p>A pending write is picked up when the bolt gets its next tuple, so this is meant to be set in the component configuration of
+     * the stateful bolt, in which case tick tuples are enabled for it if they are not. When it is only set in the topology
+     * configuration, {@link #TOPOLOGY_TICK_TUPLE_FREQ_SECS} must be set as well.
+     */
+    @IsBoolean
+    public static final String TOPOLOGY_STATE_CHECKPOINT_ASYNC = "topology.state.checkpoint.async";
+    /**
+     * The maximum number of keys for which a task of a streams topology keeps partial aggregates, when aggregating or reducing by key
+     * outside of a window with {@link org.apache.storm.streams.StreamBuilder#setLocalAggregation(boolean)} set. The values are aggregated
+     * by key within the task before they are partitioned by key, and the partial aggregates are sent downstream when this many keys are
+     * buffered. Set to 1 to send each value downstream as it arrives.
+     */
+    @IsInteger
+    @IsPositiveNumber
+    public static final String TOPOLOGY_STREAMS_LOCAL_AGGREGATION_MAX_KEYS = "topology.streams.local.aggregation.max.keys";
+    /**
+     * The maximum time (in millis) for which a task of a streams topology holds on to partial aggregates before sending them downstream,
+     * see {@link #TOPOLOGY_STREAMS_LOCAL_AGGREGATION_MAX_KEYS}. The input tuples are acked once the partial aggregates are sent, so this
+     * must be well below {@link #TOPOLOGY_MESSAGE_TIMEOUT_SECS}.
+     */
+    @IsInteger
+    @IsPositiveNumber
+    public static final String TOPOLOGY_STREAMS_LOCAL_AGGREGATION_INTERVAL_MS = "topology.streams.local.aggregation.interval.ms";
     /**
      * A per topology config that specifies the maximum amount of memory a worker can use for that specific topology.
      */
@@ -771,6 +806,18 @@ public class Config extends HashMap<String, Object> {
     @IsInteger
     @IsPositiveNumber
     public static final String TOPOLOGY_TRIDENT_BATCH_EMIT_INTERVAL_MILLIS = "topology.trident.batch.emit.interval.millis";
+    /**
+     * The maximum number of batches of a Trident topology that are processed and wait for the earlier batches to commit.  While this
+     * many are waiting, no new batch is started.  This only delays the next batch, it does not make it bigger by itself: the commits
+     * only cover more tuples each when the spout's emitter sizes its batches by the backlog, e.g. emits all the data that arrived since
+     * the previous batch.  With emitters that emit a fixed number of tuples per batch, or that are bound by a poll limit such as the
+     * Kafka consumer's max.poll.records, the batches stay the same size and the topology just starts fewer of them.  The batches keep
+     * being processed while an earlier batch commits, up to {@link #TOPOLOGY_MAX_SPOUT_PENDING} batches.  If null (which is default),
+     * only {@link #TOPOLOGY_MAX_SPOUT_PENDING} applies.
+     */
+    @IsInteger
+    @IsPositiveNumber
+    public static final String TOPOLOGY_TRIDENT_BATCH_MAX_AWAITING_COMMIT = "topology.trident.batch.max.awaiting.commit";
     /**
      * Maximum number of tuples that can be stored inmemory cache in windowing operators for fast access without fetching them from store.
      */
@@ -853,6 +900,15 @@ public class Config extends HashMap<String, Object> {
     @IsInteger
     @IsPositiveNumber
     public static final String TRANSACTIONAL_ZOOKEEPER_PORT = "transactional.zookeeper.port";
+    /**
+     * The {@link org.apache.storm.trident.topology.state.TransactionalStateStore} in which Trident keeps the current transaction and
+     * attempts of the coordinators and the metadata of the spouts, written for each batch.  If null (which is default), they are kept in
+     * zookeeper, see {@link #TRANSACTIONAL_ZOOKEEPER_ROOT}.
+     * {@link org.apache.storm.trident.topology.state.BatchingZkTransactionalStateStore} writes to zookeeper in the background, batching
+     * and coalescing the writes, and only waits for them when a transaction commits.  Use it with opaque spouts only.
+     */
+    @IsString
+    public static final String TRANSACTIONAL_STATE_STORE = "transactional.state.store";
     /**
      * The user as which the nimbus client should be acquired to perform the operation.
      */
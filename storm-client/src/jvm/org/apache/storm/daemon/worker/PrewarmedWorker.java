@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.storm.daemon.worker;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.storm.shade.org.apache.commons.io.FileUtils;
+import org.apache.storm.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A worker JVM that is started ahead of time by the supervisor, with the exact command line the real worker would get.  It loads the
+ * storm and topology classes and then waits until the supervisor releases it, at which point it runs the real worker main.  This takes JVM
+ * start up and class loading out of the time it takes to relaunch a worker.
+ *
+ * <p>While it waits it logs to its own directory, given as a sub directory in {@code logfile.name}, so it does not write into the logs of
+ * the worker that still runs on the port.  Once released it switches over to the worker's log.
+ *
+ * <p>Usage: {@code PrewarmedWorker <pidsDir> <releaseFile> <topologyJar> <workerMain> [workerArgs...]}
+ */
+public class PrewarmedWorker {
+    private static final Logger LOG = LoggerFactory.getLogger(PrewarmedWorker.class);
+    private static final long RELEASE_POLL_MS = 50;
+    private static final String LOGFILE_NAME = "logfile.name";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Expected: <pidsDir> <releaseFile> <topologyJar> <workerMain> [workerArgs...], but got "
+                                               + Arrays.toString(args));
+        }
+        final File pidsDir = new File(args[0]);
+        final File releaseFile = new File(args[1]);
+        final String topologyJar = args[2];
+        final String workerMain = args[3];
+        final String[] workerArgs = Arrays.copyOfRange(args, 4, args.length);
+
+        //Register the pid right away so the supervisor can kill us before we are released.
+        FileUtils.touch(new File(pidsDir, Utils.processPid()));
+
+        ClassLoader loader = PrewarmedWorker.class.getClassLoader();
+        int loaded = WorkerClassPreloader.preload(workerMain, topologyJar, loader, true);
+        LOG.info("Pre-started worker loaded {} topology classes, waiting to be released", loaded);
+
+        while (!releaseFile.exists()) {
+            if (!pidsDir.exists()) {
+                //The supervisor gave up on us, nothing will ever release this JVM.
+                LOG.info("{} is gone, exiting", pidsDir);
+                System.exit(0);
+            }
+            Thread.sleep(RELEASE_POLL_MS);
+        }
+
+        String logFile = System.getProperty(LOGFILE_NAME);
+        if (logFile != null && logFile.contains("/")) {
+            LOG.info("Released, logging to the worker log from now on");
+            System.setProperty(LOGFILE_NAME, logFile.substring(logFile.lastIndexOf('/') + 1));
+            ((LoggerContext) LogManager.getContext(false)).reconfigure();
+        }
+        LOG.info("Released, running {}", workerMain);
+        Method mainMethod = Class.forName(workerMain, false, loader).getMethod("main", String[].class);
+        mainMethod.invoke(null, (Object) workerArgs);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.storm.daemon.worker;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.apache.storm.utils.ConfigUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the classes a worker is going to need, without running it.  The supervisor runs this with the worker classpath to train a class
+ * data sharing archive for the topology, and {@link PrewarmedWorker} uses it to load classes before it is released.
+ *
+ * <p>Usage: {@code WorkerClassPreloader <workerMain> <topologyJar>}
+ */
+public class WorkerClassPreloader {
+    private static final Logger LOG = LoggerFactory.getLogger(WorkerClassPreloader.class);
+    private static final String STORM_PACKAGE = "org/apache/storm/";
+    private static final String SHADED_PACKAGE = "org/apache/storm/shade/";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Expected: <workerMain> <topologyJar>");
+        }
+        int loaded = preload(args[0], args[1], WorkerClassPreloader.class.getClassLoader(), false);
+        LOG.info("Loaded {} topology classes", loaded);
+    }
+
+    /**
+     * Load the worker main class, the storm config and all of the classes in the topology jar.  Classes are loaded without being
+     * initialized, because static initializers may have side effects that must only happen once the worker really runs, and a failed
+     * initializer would leave the class unusable for the rest of the JVM's life.
+     *
+     * @param workerMain  the worker main class
+     * @param topologyJar the path to the topology jar
+     * @param loader      the class loader to load the classes with
+     * @param warmStorm   if true also load the storm classes from the jar the worker main comes from
+     * @return the number of topology classes that were loaded
+     * @throws ClassNotFoundException if the worker main class is not on the classpath
+     */
+    public static int preload(String workerMain, String topologyJar, ClassLoader loader, boolean warmStorm) throws ClassNotFoundException {
+        Class<?> main = Class.forName(workerMain, false, loader);
+        ConfigUtils.readStormConfig();
+        if (warmStorm) {
+            String stormJar = jarOf(main);
+            if (stormJar != null) {
+                int loaded = preloadClasses(stormJar, STORM_PACKAGE, loader);
+                LOG.info("Loaded {} storm classes from {}", loaded, stormJar);
+            }
+        }
+        return preloadClasses(topologyJar, "", loader);
+    }
+
+    private static String jarOf(Class<?> clazz) {
+        try {
+            CodeSource code = clazz.getProtectionDomain().getCodeSource();
+            if (code == null || code.getLocation() == null) {
+                return null;
+            }
+            String path = new File(code.getLocation().toURI()).getPath();
+            //When running out of a build directory there is no jar to walk
+            return path.endsWith(".jar") ? path : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            LOG.debug("Could not find the jar of {}", clazz, e);
+            return null;
+        }
+    }
+
+    private static int preloadClasses(String jarPath, String prefix, ClassLoader loader) {
+        int loaded = 0;
+        try (JarFile jar = new JarFile(jarPath)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.endsWith(".class") || name.contains("-") || !name.startsWith(prefix) || name.startsWith(SHADED_PACKAGE)) {
+                    //Skip resources as well as module-info, package-info and multi-release versions.  Shaded dependencies are only
+                    //loaded when storm needs them, their static initializers can start threads or open connections.
+                    continue;
+                }
+                try {
+                    Class.forName(name.substring(0, name.length() - ".class".length()).replace('/', '.'), false, loader);
+                    loaded++;
+                } catch (Throwable e) {
+                    //Optional dependencies may be missing, the worker would only fail if it actually used the class.
+                    LOG.debug("Could not preload {}", name, e);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not read {} to preload classes", jarPath, e);
+        }
+        return loaded;
+    }
+}
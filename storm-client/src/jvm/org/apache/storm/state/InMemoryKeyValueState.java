@@ -12,25 +12,34 @@
 
 package org.apache.storm.state;
 
+import java.util.AbstractMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * An in-memory implementation of the {@link State}.
+ *
+ * <p>There is a single copy of the map.  The committed and prepared states are kept as undo logs, with the value each changed key had
+ * before it was first changed, so preparing, committing and rolling back take time in the number of keys that changed instead of the
+ * size of the map.
  */
 public class InMemoryKeyValueState<K, V> implements KeyValueState<K, V> {
     private static final Logger LOG = LoggerFactory.getLogger(InMemoryKeyValueState.class);
-    private static final long DEFAULT_TXID = -1;
-    private TxIdState<K, V> commitedState;
-    private TxIdState<K, V> preparedState;
-    private Map<K, V> state = new ConcurrentHashMap<>();
+    private final Map<K, V> state = new ConcurrentHashMap<>();
+    // the values of the keys changed since the last prepare (or commit), takes the state back to the prepared state
+    private Map<K, Optional<V>> changedSincePrepare = new ConcurrentHashMap<>();
+    // the values of the keys changed between the last commit and the prepare, takes the prepared state back to the committed state
+    private Map<K, Optional<V>> changedBeforePrepare = new ConcurrentHashMap<>();
+    private Long preparedTxid;
 
     @Override
     public void put(K key, V value) {
-        state.put(key, value);
+        V prev = state.put(key, value);
+        changedSincePrepare.putIfAbsent(key, Optional.ofNullable(prev));
     }
 
     @Override
@@ -46,74 +55,99 @@ public class InMemoryKeyValueState<K, V> implements KeyValueState<K, V> {
 
     @Override
     public V delete(K key) {
-        return state.remove(key);
+        V prev = state.remove(key);
+        if (prev != null) {
+            changedSincePrepare.putIfAbsent(key, Optional.of(prev));
+        }
+        return prev;
     }
 
     @Override
     public Iterator<Map.Entry<K, V>> iterator() {
-        return state.entrySet().iterator();
+        Iterator<Map.Entry<K, V>> it = state.entrySet().iterator();
+        return new Iterator<Map.Entry<K, V>>() {
+            private Map.Entry<K, V> last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                last = it.next();
+                // changes go through put, so they are tracked
+                return new AbstractMap.SimpleImmutableEntry<>(last);
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                changedSincePrepare.putIfAbsent(last.getKey(), Optional.of(last.getValue()));
+            }
+        };
     }
 
     @Override
     public void commit() {
-        commitedState = new TxIdState<>(DEFAULT_TXID, new ConcurrentHashMap<>(state));
+        changedSincePrepare = new ConcurrentHashMap<>();
+        changedBeforePrepare = new ConcurrentHashMap<>();
     }
 
     @Override
     public void commit(long txid) {
         LOG.debug("commit, txid {}", txid);
-        if (preparedState != null && txid == preparedState.txid) {
-            commitedState = preparedState;
-            preparedState = null;
+        if (preparedTxid != null && txid == preparedTxid) {
+            changedBeforePrepare = new ConcurrentHashMap<>();
+            preparedTxid = null;
         } else {
             throw new RuntimeException("Invalid prepared state for commit, "
-                    + "preparedState " + preparedState + " txid " + txid);
+                    + "preparedTxid " + preparedTxid + " txid " + txid);
         }
     }
 
     @Override
     public void prepareCommit(long txid) {
         LOG.debug("prepare commit, txid {}", txid);
-        if (preparedState != null && txid > preparedState.txid) {
+        if (preparedTxid != null && txid > preparedTxid) {
             throw new RuntimeException("Cannot prepare a new txn while there is a pending txn");
         }
-        preparedState = new TxIdState<>(txid, new ConcurrentHashMap<K, V>(state));
+        // when the same txn is prepared again, the values from before the first prepare are the committed ones
+        for (Map.Entry<K, Optional<V>> entry : changedSincePrepare.entrySet()) {
+            changedBeforePrepare.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        changedSincePrepare = new ConcurrentHashMap<>();
+        preparedTxid = txid;
     }
 
     @Override
     public void rollback() {
-        preparedState = null;
-        if (commitedState != null) {
-            state = commitedState.state;
-        } else {
-            state = new ConcurrentHashMap<>();
+        LOG.debug("rollback, {} changed keys since prepare, {} prepared changed keys",
+                  changedSincePrepare.size(), changedBeforePrepare.size());
+        undo(changedSincePrepare);
+        undo(changedBeforePrepare);
+        changedSincePrepare = new ConcurrentHashMap<>();
+        changedBeforePrepare = new ConcurrentHashMap<>();
+        preparedTxid = null;
+    }
+
+    private void undo(Map<K, Optional<V>> changes) {
+        for (Map.Entry<K, Optional<V>> entry : changes.entrySet()) {
+            if (entry.getValue().isPresent()) {
+                state.put(entry.getKey(), entry.getValue().get());
+            } else {
+                state.remove(entry.getKey());
+            }
         }
     }
 
     @Override
     public String toString() {
         return "InMemoryKeyValueState{"
-                + "commitedState=" + commitedState
-                + ", preparedState=" + preparedState
+                + "preparedTxid=" + preparedTxid
+                + ", changedSincePrepare=" + changedSincePrepare.keySet()
+                + ", changedBeforePrepare=" + changedBeforePrepare.keySet()
                 + ", state=" + state
                 + '}';
     }
-
-    private static class TxIdState<K, V> {
-        private long txid;
-        private Map<K, V> state;
-
-        TxIdState(long txid, Map<K, V> state) {
-            this.txid = txid;
-            this.state = state;
-        }
-
-        @Override
-        public String toString() {
-            return "TxIdState{"
-                    + "txid=" + txid
-                    + ", state=" + state
-                    + '}';
-        }
-    }
 }
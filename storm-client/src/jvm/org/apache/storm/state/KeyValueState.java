@@ -12,6 +12,8 @@
 
 package org.apache.storm.state;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -43,6 +45,25 @@ public interface KeyValueState<K, V> extends State, Iterable<Map.Entry<K, V>> {
      */
     V get(K key, V defaultValue);
 
+    /**
+     * Returns the values mapped to the keys. Keys with no mapping are left out of the returned map.
+     *
+     * <p>The default implementation looks up the keys one by one, states backed by a remote store look them up together.
+     *
+     * @param keys the keys
+     * @return the values mapped to the keys
+     */
+    default Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> values = new HashMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     /**
      * Deletes the value mapped to the key, if there is any.
      *
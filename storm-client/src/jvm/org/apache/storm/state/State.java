@@ -12,6 +12,8 @@
 
 package org.apache.storm.state;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import org.apache.storm.topology.IStatefulBolt;
 
 /**
@@ -45,4 +47,34 @@ public interface State {
      * Rollback a prepared transaction to the previously committed state.
      */
     void rollback();
+
+    /**
+     * Asynchronous version of {@link #prepareCommit(long)}. The changes made so far are captured before this method returns, and only
+     * they are part of the prepared transaction; the writes may be done later by the given executor. The state can be read and updated
+     * while the returned future is not done, but prepare, commit and rollback must not be invoked again until it is.
+     *
+     * <p>The default implementation prepares synchronously.
+     *
+     * @param txid     the transaction id
+     * @param executor the executor to run the writes on
+     * @return a future that is completed once the prepared state is persisted
+     */
+    default CompletableFuture<Void> prepareCommitAsync(long txid, Executor executor) {
+        prepareCommit(txid);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Asynchronous version of {@link #commit(long)}, with the same contract as {@link #prepareCommitAsync(long, Executor)}.
+     *
+     * <p>The default implementation commits synchronously.
+     *
+     * @param txid     the transaction id
+     * @param executor the executor to run the writes on
+     * @return a future that is completed once the committed state is persisted
+     */
+    default CompletableFuture<Void> commitAsync(long txid, Executor executor) {
+        commit(txid);
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.streams;
+
+import static org.apache.storm.topology.base.BaseWindowedBolt.Count;
+import static org.apache.storm.topology.base.BaseWindowedBolt.Duration;
+
+import java.io.Serializable;
+
+/**
+ * Specifies how long the values of a keyed stream join are retained, so that they can be joined with the values from the other stream
+ * that arrive later. The values are indexed by key on both sides of the join, so that each new value is only joined with the values
+ * having the same key.
+ */
+public final class JoinRetention implements Serializable {
+    private final int count;
+    private final long durationMs;
+    private final boolean persistent;
+
+    private JoinRetention(int count, long durationMs, boolean persistent) {
+        this.count = count;
+        this.durationMs = durationMs;
+        this.persistent = persistent;
+    }
+
+    /**
+     * Retains the last {@code count} values of each key, on each side of the join.
+     *
+     * @param count the number of values to retain per key
+     */
+    public static JoinRetention of(Count count) {
+        if (count.value <= 0) {
+            throw new IllegalArgumentException("Retention count should be positive, but was " + count.value);
+        }
+        return new JoinRetention(count.value, 0, false);
+    }
+
+    /**
+     * Retains the values for the given duration of processing time.
+     *
+     * @param duration the time duration to retain the values for
+     */
+    public static JoinRetention of(Duration duration) {
+        if (duration.value <= 0) {
+            throw new IllegalArgumentException("Retention duration should be positive, but was " + duration.value);
+        }
+        return new JoinRetention(0, duration.value, false);
+    }
+
+    /**
+     * Keeps the retained values in a {@link org.apache.storm.state.KeyValueState} instead of in memory. This internally uses {@link
+     * org.apache.storm.topology.IStatefulBolt} to save the state, use {@link org.apache.storm.Config#TOPOLOGY_STATE_PROVIDER} to choose the
+     * state implementation.
+     *
+     * @return the retention backed by state
+     */
+    public JoinRetention persistent() {
+        return new JoinRetention(count, durationMs, true);
+    }
+
+    /**
+     * Returns the number of values to retain per key, or zero if it is not bounded by count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of milliseconds to retain the values for, or zero if it is not bounded by time.
+     */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    @Override
+    public String toString() {
+        return "JoinRetention{"
+               + "count=" + count
+               + ", durationMs=" + durationMs
+               + ", persistent=" + persistent
+               + '}';
+    }
+}
@@ -33,9 +33,13 @@ import org.apache.storm.streams.processors.AggregateByKeyProcessor;
 import org.apache.storm.streams.processors.CoGroupByKeyProcessor;
 import org.apache.storm.streams.processors.FlatMapValuesProcessor;
 import org.apache.storm.streams.processors.JoinProcessor;
+import org.apache.storm.streams.processors.KeyedJoinProcessor;
+import org.apache.storm.streams.processors.LocalAggregateByKeyProcessor;
 import org.apache.storm.streams.processors.MapValuesProcessor;
 import org.apache.storm.streams.processors.MergeAggregateByKeyProcessor;
+import org.apache.storm.streams.processors.Processor;
 import org.apache.storm.streams.processors.ReduceByKeyProcessor;
+import org.apache.storm.streams.processors.StatefulKeyedJoinProcessor;
 import org.apache.storm.streams.processors.UpdateStateByKeyProcessor;
 import org.apache.storm.streams.windowing.Window;
 import org.apache.storm.tuple.Fields;
@@ -205,7 +209,34 @@ public class PairStream<K, V> extends Stream<Pair<K, V>> {
                         otherStream.partitionByKey(),
                         valueJoiner,
                         JoinProcessor.JoinType.INNER,
-                        JoinProcessor.JoinType.INNER);
+                        JoinProcessor.JoinType.INNER,
+                        null);
+    }
+
+    /**
+     * Join the values of this stream with the values having the same key from the other stream, as the values arrive.
+     * The values of both streams are retained in per-key indexes as per the given {@link JoinRetention}, and each new value is joined
+     * with the retained values having the same key from the other stream.
+     * <p>
+     * Note: The parallelism of this stream is carried forward to the joined stream.
+     * </p>
+     *
+     * @param otherStream the other stream
+     * @param valueJoiner the {@link ValueJoiner}
+     * @param retention   how long the values are retained for joining
+     * @param <R>         the type of the values resulting from the join
+     * @param <V1>        the type of the values in the other stream
+     * @return the new stream
+     */
+    public <R, V1> PairStream<K, R> join(PairStream<K, V1> otherStream,
+            ValueJoiner<? super V, ? super V1, ? extends R> valueJoiner, JoinRetention retention) {
+        return partitionByKey()
+                .joinPartition(
+                        otherStream.partitionByKey(),
+                        valueJoiner,
+                        JoinProcessor.JoinType.INNER,
+                        JoinProcessor.JoinType.INNER,
+                        retention);
     }
 
     /**
@@ -241,7 +272,34 @@ public class PairStream<K, V> extends Stream<Pair<K, V>> {
                         otherStream.partitionByKey(),
                         valueJoiner,
                         JoinProcessor.JoinType.OUTER,
-                        JoinProcessor.JoinType.INNER);
+                        JoinProcessor.JoinType.INNER,
+                        null);
+    }
+
+    /**
+     * Does a left outer join of the values of this stream with the values having the same key from the other stream, as the values arrive.
+     * The values of both streams are retained in per-key indexes as per the given {@link JoinRetention}, and each new value is joined
+     * with the retained values having the same key from the other stream.
+     * <p>
+     * Note: The parallelism of this stream is carried forward to the joined stream.
+     * </p>
+     *
+     * @param otherStream the other stream
+     * @param valueJoiner the {@link ValueJoiner}
+     * @param retention   how long the values are retained for joining
+     * @param <R>         the type of the values resulting from the join
+     * @param <V1>        the type of the values in the other stream
+     * @return the new stream
+     */
+    public <R, V1> PairStream<K, R> leftOuterJoin(PairStream<K, V1> otherStream,
+            ValueJoiner<? super V, ? super V1, ? extends R> valueJoiner, JoinRetention retention) {
+        return partitionByKey()
+                .joinPartition(
+                        otherStream.partitionByKey(),
+                        valueJoiner,
+                        JoinProcessor.JoinType.OUTER,
+                        JoinProcessor.JoinType.INNER,
+                        retention);
     }
 
     /**
@@ -277,7 +335,34 @@ public class PairStream<K, V> extends Stream<Pair<K, V>> {
                         otherStream.partitionByKey(),
                         valueJoiner,
                         JoinProcessor.JoinType.INNER,
-                        JoinProcessor.JoinType.OUTER);
+                        JoinProcessor.JoinType.OUTER,
+                        null);
+    }
+
+    /**
+     * Does a right outer join of the values of this stream with the values having the same key from the other stream, as the values arrive.
+     * The values of both streams are retained in per-key indexes as per the given {@link JoinRetention}, and each new value is joined
+     * with the retained values having the same key from the other stream.
+     * <p>
+     * Note: The parallelism of this stream is carried forward to the joined stream.
+     * </p>
+     *
+     * @param otherStream the other stream
+     * @param valueJoiner the {@link ValueJoiner}
+     * @param retention   how long the values are retained for joining
+     * @param <R>         the type of the values resulting from the join
+     * @param <V1>        the type of the values in the other stream
+     * @return the new stream
+     */
+    public <R, V1> PairStream<K, R> rightOuterJoin(PairStream<K, V1> otherStream,
+            ValueJoiner<? super V, ? super V1, ? extends R> valueJoiner, JoinRetention retention) {
+        return partitionByKey()
+                .joinPartition(
+                        otherStream.partitionByKey(),
+                        valueJoiner,
+                        JoinProcessor.JoinType.INNER,
+                        JoinProcessor.JoinType.OUTER,
+                        retention);
     }
 
     /**
@@ -313,7 +398,34 @@ public class PairStream<K, V> extends Stream<Pair<K, V>> {
                         otherStream.partitionByKey(),
                         valueJoiner,
                         JoinProcessor.JoinType.OUTER,
-                        JoinProcessor.JoinType.OUTER);
+                        JoinProcessor.JoinType.OUTER,
+                        null);
+    }
+
+    /**
+     * Does a full outer join of the values of this stream with the values having the same key from the other stream, as the values arrive.
+     * The values of both streams are retained in per-key indexes as per the given {@link JoinRetention}, and each new value is joined
+     * with the retained values having the same key from the other stream.
+     * <p>
+     * Note: The parallelism of this stream is carried forward to the joined stream.
+     * </p>
+     *
+     * @param otherStream the other stream
+     * @param valueJoiner the {@link ValueJoiner}
+     * @param retention   how long the values are retained for joining
+     * @param <R>         the type of the values resulting from the join
+     * @param <V1>        the type of the values in the other stream
+     * @return the new stream
+     */
+    public <R, V1> PairStream<K, R> fullOuterJoin(PairStream<K, V1> otherStream,
+            ValueJoiner<? super V, ? super V1, ? extends R> valueJoiner, JoinRetention retention) {
+        return partitionByKey()
+                .joinPartition(
+                        otherStream.partitionByKey(),
+                        valueJoiner,
+                        JoinProcessor.JoinType.OUTER,
+                        JoinProcessor.JoinType.OUTER,
+                        retention);
     }
 
     /**
@@ -401,13 +513,19 @@ public class PairStream<K, V> extends Stream<Pair<K, V>> {
     private <R, V1> PairStream<K, R> joinPartition(PairStream<K, V1> otherStream,
                                                    ValueJoiner<? super V, ? super V1, ? extends R> valueJoiner,
                                                    JoinProcessor.JoinType leftType,
-                                                   JoinProcessor.JoinType rightType) {
+                                                   JoinProcessor.JoinType rightType,
+                                                   JoinRetention retention) {
         String leftStream = stream;
         String rightStream = otherStream.stream;
-        Node joinNode = addProcessorNode(
-            new JoinProcessor<>(leftStream, rightStream, valueJoiner, leftType, rightType),
-            KEY_VALUE,
-            true);
+        Processor<?> joinProcessor;
+        if (retention == null) {
+            joinProcessor = new JoinProcessor<>(leftStream, rightStream, valueJoiner, leftType, rightType);
+        } else if (retention.isPersistent()) {
+            joinProcessor = new StatefulKeyedJoinProcessor<>(leftStream, rightStream, valueJoiner, leftType, rightType, retention);
+        } else {
+            joinProcessor = new KeyedJoinProcessor<>(leftStream, rightStream, valueJoiner, leftType, rightType, retention);
+        }
+        Node joinNode = addProcessorNode(joinProcessor, KEY_VALUE, true);
         addNode(otherStream.getNode(), joinNode, joinNode.getParallelism());
         return new PairStream<>(streamBuilder, joinNode);
     }
@@ -458,6 +576,10 @@ public class PairStream<K, V> extends Stream<Pair<K, V>> {
                                 addProcessorNode(new AggregateByKeyProcessor<>(aggregator), KEY_VALUE, true));
     }
 
+    private <A> PairStream<K, A> localAggregatePartition(LocalAggregateByKeyProcessor<K, V, A> processor) {
+        return new PairStream<>(streamBuilder, addProcessorNode(processor, KEY_VALUE, true));
+    }
+
     private <A> PairStream<K, A> combinePartition(CombinerAggregator<? super V, A, ?> aggregator) {
         return new PairStream<>(streamBuilder,
                                 addProcessorNode(new AggregateByKeyProcessor<>(aggregator, true), KEY_VALUE, true));
@@ -480,6 +602,11 @@ public class PairStream<K, V> extends Stream<Pair<K, V>> {
                 if (node.isWindowed()) {
                     return combinePartition(aggregator).partitionBy(KEY).merge(aggregator);
                 }
+                if (streamBuilder.isLocalAggregation()) {
+                    // outside of windows the partial aggregates are flushed based on the number of keys and time
+                    return localAggregatePartition(new LocalAggregateByKeyProcessor<K, V, A>(aggregator))
+                        .partitionBy(KEY).merge(aggregator);
+                }
             } else if (node instanceof WindowNode) {
                 Set<Node> parents = node.getParents();
                 Optional<Node> nonWindowed = parents.stream().filter(p -> !p.isWindowed()).findAny();
@@ -505,6 +632,10 @@ public class PairStream<K, V> extends Stream<Pair<K, V>> {
                 if (node.isWindowed()) {
                     return reducePartition(reducer).partitionBy(KEY).reducePartition(reducer);
                 }
+                if (streamBuilder.isLocalAggregation()) {
+                    return localAggregatePartition(LocalAggregateByKeyProcessor.<K, V>reducing(reducer))
+                        .partitionBy(KEY).reducePartition(reducer);
+                }
             } else if (node instanceof WindowNode) {
                 for (Node p : node.getParents()) {
                     if (p.isWindowed()) {
@@ -42,6 +42,11 @@ class ProcessorBolt extends BaseRichBolt implements StreamBolt {
         delegate.processAndAck(input);
     }
 
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        return delegate.getComponentConfiguration();
+    }
+
     @Override
     public void declareOutputFields(OutputFieldsDeclarer declarer) {
         delegate.declareOutputFields(declarer);
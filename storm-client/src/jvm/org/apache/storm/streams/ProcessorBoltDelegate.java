@@ -21,6 +21,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.apache.storm.Config;
 import org.apache.storm.generated.GlobalStreamId;
 import org.apache.storm.shade.com.google.common.collect.ArrayListMultimap;
 import org.apache.storm.shade.com.google.common.collect.HashBasedTable;
@@ -29,9 +30,11 @@ import org.apache.storm.shade.com.google.common.collect.Table;
 import org.apache.storm.shade.org.jgrapht.DirectedGraph;
 import org.apache.storm.shade.org.jgrapht.graph.DirectedSubgraph;
 import org.apache.storm.shade.org.jgrapht.traverse.TopologicalOrderIterator;
+import org.apache.storm.streams.processors.BufferingProcessor;
 import org.apache.storm.streams.processors.ChainedProcessorContext;
 import org.apache.storm.streams.processors.EmittingProcessorContext;
 import org.apache.storm.streams.processors.ForwardingProcessorContext;
+import org.apache.storm.streams.processors.LocalAggregateByKeyProcessor;
 import org.apache.storm.streams.processors.Processor;
 import org.apache.storm.streams.processors.ProcessorContext;
 import org.apache.storm.task.OutputCollector;
@@ -39,11 +42,14 @@ import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
+import org.apache.storm.utils.ObjectReader;
+import org.apache.storm.utils.TupleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 class ProcessorBoltDelegate implements Serializable {
     private static final Logger LOG = LoggerFactory.getLogger(ProcessorBoltDelegate.class);
+    private static final int BUFFER_FLUSH_TICK_FREQ_SECS = 1;
     private final String id;
     private final DirectedGraph<Node, Edge> graph;
     private final List<ProcessorNode> nodes;
@@ -51,6 +57,7 @@ class ProcessorBoltDelegate implements Serializable {
     private final Set<EmittingProcessorContext> emittingProcessorContexts = new HashSet<>();
     private final Table<ProcessorNode, String, Integer> punctuationState = HashBasedTable.create();
     private final Map<String, Integer> streamToInputTaskCount = new HashMap<>();
+    private final List<BufferingProcessor> bufferingProcessors = new ArrayList<>();
     private Map<String, Object> topoConf;
     private TopologyContext topologyContext;
     private OutputCollector outputCollector;
@@ -106,6 +113,15 @@ class ProcessorBoltDelegate implements Serializable {
                 }
             }
             processorNode.initProcessorContext(processorContext);
+            if (processorNode.getProcessor() instanceof BufferingProcessor) {
+                BufferingProcessor bufferingProcessor = (BufferingProcessor) processorNode.getProcessor();
+                bufferingProcessor.setBufferLimits(
+                    ObjectReader.getInt(topoConf.get(Config.TOPOLOGY_STREAMS_LOCAL_AGGREGATION_MAX_KEYS),
+                                        LocalAggregateByKeyProcessor.DEFAULT_MAX_KEYS),
+                    ObjectReader.getInt(topoConf.get(Config.TOPOLOGY_STREAMS_LOCAL_AGGREGATION_INTERVAL_MS),
+                                        (int) LocalAggregateByKeyProcessor.DEFAULT_FLUSH_INTERVAL_MS));
+                bufferingProcessors.add(bufferingProcessor);
+            }
         }
         if (timestampField != null) {
             for (EmittingProcessorContext ctx : emittingProcessorContexts) {
@@ -117,6 +133,19 @@ class ProcessorBoltDelegate implements Serializable {
         }
     }
 
+    /*
+     * The buffering processors get tick tuples, so that what they buffered is forwarded (and the
+     * input tuples are acked) even when no more tuples arrive.
+     */
+    Map<String, Object> getComponentConfiguration() {
+        for (ProcessorNode node : nodes) {
+            if (node.getProcessor() instanceof BufferingProcessor) {
+                return TupleUtils.putTickFrequencyIntoComponentConfig(null, BUFFER_FLUSH_TICK_FREQ_SECS);
+            }
+        }
+        return null;
+    }
+
     void declareOutputFields(OutputFieldsDeclarer declarer) {
         for (ProcessorNode node : nodes) {
             for (String stream : node.getOutputStreams()) {
@@ -144,32 +173,38 @@ class ProcessorBoltDelegate implements Serializable {
         }
     }
 
-    Pair<Object, String> getValueAndStream(Tuple input) {
-        Object value;
-        String stream;
+    Object getValue(Tuple input) {
         // if tuple arrives from a spout, it can be passed as is
         // otherwise the value is in the first field of the tuple
-        if (input.getSourceComponent().startsWith("spout")) {
-            value = input;
-            stream = input.getSourceGlobalStreamId().get_componentId() + input.getSourceGlobalStreamId().get_streamId();
+        if (isFromSpout(input)) {
+            return input;
         } else if (isPair(input)) {
-            value = Pair.of(input.getValue(0), input.getValue(1));
-            stream = input.getSourceStreamId();
+            return Pair.of(input.getValue(0), input.getValue(1));
         } else {
-            value = input.getValue(0);
-            stream = input.getSourceStreamId();
+            return input.getValue(0);
         }
-        return Pair.of(value, stream);
+    }
+
+    String getStream(Tuple input) {
+        if (isFromSpout(input)) {
+            return input.getSourceComponent() + input.getSourceStreamId();
+        }
+        return input.getSourceStreamId();
     }
 
     void processAndAck(Tuple input) {
+        if (!bufferingProcessors.isEmpty() && TupleUtils.isTick(input)) {
+            for (BufferingProcessor bufferingProcessor : bufferingProcessors) {
+                bufferingProcessor.flushIfDue();
+            }
+            return;
+        }
         RefCountedTuple refCountedTuple = new RefCountedTuple(input);
         setAnchor(refCountedTuple);
         if (isEventTimestamp()) {
             setEventTimestamp(input.getLongByField(getTimestampField()));
         }
-        Pair<Object, String> valueAndStream = getValueAndStream(input);
-        process(valueAndStream.getFirst(), valueAndStream.getSecond());
+        process(getValue(input), getStream(input));
         ack(refCountedTuple);
     }
 
@@ -318,6 +353,10 @@ class ProcessorBoltDelegate implements Serializable {
         }
     }
 
+    private boolean isFromSpout(Tuple input) {
+        return input.getSourceComponent().startsWith("spout");
+    }
+
     private boolean isPair(Tuple input) {
         return input.size() == (timestampField == null ? 2 : 3);
     }
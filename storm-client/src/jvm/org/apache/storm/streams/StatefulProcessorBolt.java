@@ -57,6 +57,11 @@ class StatefulProcessorBolt<K, V> extends BaseStatefulBolt<KeyValueState<K, V>>
         }
     }
 
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        return delegate.getComponentConfiguration();
+    }
+
     @Override
     public void declareOutputFields(OutputFieldsDeclarer declarer) {
         delegate.declareOutputFields(declarer);
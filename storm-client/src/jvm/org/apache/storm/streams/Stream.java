@@ -78,11 +78,20 @@ public class Stream<T> {
 
     /**
      * Returns a stream consisting of the elements of this stream that matches the given filter.
+     * <p>
+     * If this stream is re-partitioned, the filter is applied before the values are sent over the network.
+     * </p>
      *
      * @param predicate the predicate to apply to each element to determine if it should be included
      * @return the new stream
      */
     public Stream<T> filter(Predicate<? super T> predicate) {
+        if (node instanceof PartitionNode) {
+            Node parent = streamBuilder.directParent(node);
+            if (parent instanceof ProcessorNode) {
+                return pushDownFilter(predicate, (PartitionNode) node, parent);
+            }
+        }
         return new Stream<>(streamBuilder, addProcessorNode(new FilterProcessor<>(predicate), VALUE, true));
     }
 
@@ -435,6 +444,23 @@ public class Stream<T> {
             addNode(node, new PartitionNode(stream, node.getOutputFields(), GroupingInfo.fields(fields)), parallelism));
     }
 
+    /*
+     * Filtering does not depend on how the values are partitioned, so a filter that follows a partitioning
+     * is added before it, to run in the bolt of the processor that produces the values.
+     */
+    private Stream<T> pushDownFilter(Predicate<? super T> predicate, PartitionNode partitionNode, Node parent) {
+        String parentStream = partitionNode.getParentStreams(parent).iterator().next();
+        ProcessorNode filterNode = makeProcessorNode(new FilterProcessor<>(predicate), parent.getOutputFields(), true);
+        filterNode.setEmitsPair(parent.emitsPair());
+        addNode(parent, filterNode, parentStream);
+        Node newPartitionNode = addNode(filterNode,
+                                        new PartitionNode(filterNode.getOutputStreams().iterator().next(),
+                                                          filterNode.getOutputFields(), partitionNode.getGroupingInfo()),
+                                        partitionNode.getParallelism());
+        streamBuilder.removeIfLeaf(partitionNode);
+        return new Stream<>(streamBuilder, newPartitionNode);
+    }
+
     private boolean shouldPartition() {
         return node.getParallelism() > 1;
     }
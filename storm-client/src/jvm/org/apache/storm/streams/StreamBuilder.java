@@ -18,12 +18,17 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.storm.annotation.InterfaceStability;
+import org.apache.storm.generated.ComponentCommon;
+import org.apache.storm.generated.GlobalStreamId;
+import org.apache.storm.generated.Grouping;
 import org.apache.storm.generated.StormTopology;
 import org.apache.storm.shade.com.google.common.collect.ArrayListMultimap;
 import org.apache.storm.shade.com.google.common.collect.HashBasedTable;
@@ -34,11 +39,18 @@ import org.apache.storm.shade.org.jgrapht.traverse.TopologicalOrderIterator;
 import org.apache.storm.streams.operations.IdentityFunction;
 import org.apache.storm.streams.operations.mappers.PairValueMapper;
 import org.apache.storm.streams.operations.mappers.TupleValueMapper;
+import org.apache.storm.streams.processors.FilterProcessor;
+import org.apache.storm.streams.processors.FlatMapProcessor;
+import org.apache.storm.streams.processors.FlatMapValuesProcessor;
+import org.apache.storm.streams.processors.KeyedJoinProcessor;
 import org.apache.storm.streams.processors.MapProcessor;
+import org.apache.storm.streams.processors.MapValuesProcessor;
+import org.apache.storm.streams.processors.PaneAggregatingProcessor;
 import org.apache.storm.streams.processors.Processor;
 import org.apache.storm.streams.processors.StateQueryProcessor;
 import org.apache.storm.streams.processors.StatefulProcessor;
 import org.apache.storm.streams.processors.UpdateStateByKeyProcessor;
+import org.apache.storm.streams.windowing.SlidingWindows;
 import org.apache.storm.streams.windowing.Window;
 import org.apache.storm.topology.BoltDeclarer;
 import org.apache.storm.topology.IBasicBolt;
@@ -46,6 +58,7 @@ import org.apache.storm.topology.IComponent;
 import org.apache.storm.topology.IRichBolt;
 import org.apache.storm.topology.IRichSpout;
 import org.apache.storm.topology.TopologyBuilder;
+import org.apache.storm.topology.base.BaseWindowedBolt;
 import org.apache.storm.tuple.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +76,7 @@ public class StreamBuilder {
     private final Map<StreamBolt, BoltDeclarer> streamBolts = new HashMap<>();
     private int statefulProcessorCount = 0;
     private String timestampFieldName = null;
+    private boolean localAggregation = false;
 
     /**
      * Creates a new {@link StreamBuilder}.
@@ -71,6 +85,20 @@ public class StreamBuilder {
         graph = new DefaultDirectedGraph<>(new StreamsEdgeFactory());
     }
 
+    /**
+     * Sets whether the values of streams that are not windowed are aggregated (or reduced) by key within each task before they are
+     * partitioned by key, so that partial aggregates are sent over the network instead of every value. The partial aggregates are
+     * buffered for up to {@link org.apache.storm.Config#TOPOLOGY_STREAMS_LOCAL_AGGREGATION_INTERVAL_MS}, so the aggregates downstream are
+     * updated later and with several values at once. It is off by default and applies to the operations added after it is set.
+     *
+     * @param localAggregation whether to aggregate locally before partitioning
+     * @return this builder
+     */
+    public StreamBuilder setLocalAggregation(boolean localAggregation) {
+        this.localAggregation = localAggregation;
+        return this;
+    }
+
     /**
      * Creates a new {@link Stream} of tuples from the given {@link IRichSpout}.
      *
@@ -156,7 +184,8 @@ public class StreamBuilder {
 
 
     /**
-     * Builds a new {@link StormTopology} for the computation expressed via the stream api.
+     * Builds a new {@link StormTopology} for the computation expressed via the stream api.  Building again, e.g. after {@link #explain()},
+     * returns the same topology with the same component ids.
      *
      * @return the storm topology
      */
@@ -164,6 +193,9 @@ public class StreamBuilder {
         nodeGroupingInfo.clear();
         windowInfo.clear();
         curGroup.clear();
+        streamBolts.clear();
+        statefulProcessorCount = 0;
+        timestampFieldName = null;
         TopologicalOrderIterator<Node, Edge> iterator = new TopologicalOrderIterator<>(graph, queue());
         TopologyBuilder topologyBuilder = new TopologyBuilder();
         while (iterator.hasNext()) {
@@ -188,6 +220,77 @@ public class StreamBuilder {
         return topologyBuilder.createTopology();
     }
 
+    /**
+     * Builds the topology like {@link #build()} and describes its physical plan, that is the spouts and bolts that the computation is
+     * mapped to with their parallelism and inputs, and the processors that run within each bolt in the order the values flow through
+     * them.
+     *
+     * @return the description of the physical plan
+     */
+    public String explain() {
+        StormTopology topology = build();
+        Map<String, String> componentTypes = new HashMap<>();
+        Map<String, List<ProcessorNode>> componentProcessors = new LinkedHashMap<>();
+        TopologicalOrderIterator<Node, Edge> iterator = new TopologicalOrderIterator<>(graph, queue());
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            if (node instanceof SpoutNode) {
+                componentTypes.put(node.getComponentId(), ((SpoutNode) node).getSpout().getClass().getSimpleName());
+            } else if (node instanceof SinkNode) {
+                componentTypes.put(node.getComponentId(), ((SinkNode) node).getBolt().getClass().getSimpleName());
+            }
+            if (node.getComponentId() != null) {
+                List<ProcessorNode> processors = componentProcessors.computeIfAbsent(node.getComponentId(), id -> new ArrayList<>());
+                if (node instanceof ProcessorNode) {
+                    processors.add((ProcessorNode) node);
+                }
+            }
+        }
+        for (StreamBolt bolt : streamBolts.keySet()) {
+            componentTypes.put(bolt.getId(), bolt.getClass().getSimpleName());
+        }
+        Set<String> componentIds = new LinkedHashSet<>(componentProcessors.keySet());
+        componentIds.addAll(topology.get_spouts().keySet());
+        componentIds.addAll(topology.get_bolts().keySet());
+        StringBuilder plan = new StringBuilder();
+        for (String componentId : componentIds) {
+            ComponentCommon common;
+            if (topology.get_spouts().containsKey(componentId)) {
+                common = topology.get_spouts().get(componentId).get_common();
+            } else if (topology.get_bolts().containsKey(componentId)) {
+                common = topology.get_bolts().get(componentId).get_common();
+            } else {
+                continue;
+            }
+            plan.append(componentId)
+                .append(" [").append(componentTypes.getOrDefault(componentId, "internal"))
+                .append(", parallelism ").append(common.get_parallelism_hint()).append("]\n");
+            for (Map.Entry<GlobalStreamId, Grouping> input : common.get_inputs().entrySet()) {
+                String inputStream = input.getKey().get_streamId();
+                if (!inputStream.endsWith(WindowNode.PUNCTUATION)) {
+                    plan.append("  <- ").append(input.getKey().get_componentId()).append(':').append(inputStream)
+                        .append(' ').append(describe(input.getValue())).append('\n');
+                }
+            }
+            for (ProcessorNode processorNode : componentProcessors.getOrDefault(componentId, Collections.emptyList())) {
+                plan.append("  ").append(processorNode.getProcessor().getClass().getSimpleName())
+                    .append(" -> ").append(String.join(", ", processorNode.getOutputStreams())).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static String describe(Grouping grouping) {
+        if (grouping.is_set_fields()) {
+            return grouping.get_fields().isEmpty() ? "global" : "fields " + grouping.get_fields();
+        }
+        return grouping.getSetField().getFieldName();
+    }
+
+    boolean isLocalAggregation() {
+        return localAggregation;
+    }
+
     Node addNode(Node parent, Node child) {
         return addNode(parent, child, parent.getOutputStreams().iterator().next(), parent.getParallelism());
     }
@@ -201,6 +304,13 @@ public class StreamBuilder {
     }
 
     Node addNode(Node parent, Node child, String parentStreamId, int parallelism) {
+        if (!graph.containsVertex(parent)) {
+            // the stream of a node that was removed by removeIfLeaf is used again
+            graph.addVertex(parent);
+            for (Node grandParent : parent.getParents()) {
+                graph.addEdge(grandParent, parent);
+            }
+        }
         graph.addVertex(child);
         graph.addEdge(parent, child);
         child.setParallelism(parallelism);
@@ -230,6 +340,13 @@ public class StreamBuilder {
         return child;
     }
 
+    // removes a node that nothing was added to, so that it does not take part in the build
+    void removeIfLeaf(Node node) {
+        if (graph.outDegreeOf(node) == 0) {
+            graph.removeVertex(node);
+        }
+    }
+
     // insert child in-between parent and its current child nodes
     Node insert(Node parent, Node child) {
         Node newChild = addNode(parent, child);
@@ -315,10 +432,16 @@ public class StreamBuilder {
      */
     private void splitStatefulProcessor(ProcessorNode processorNode, TopologyBuilder topologyBuilder) {
         for (Node parent : StreamUtil.<Node>getParents(graph, processorNode)) {
+            String identityStream = UniqueIdGen.getInstance().getUniqueStreamId();
             ProcessorNode identity =
                 new ProcessorNode(new MapProcessor<>(new IdentityFunction<>()),
-                                  UniqueIdGen.getInstance().getUniqueStreamId(),
+                                  identityStream,
                                   parent.getOutputFields());
+            // a join tells its sides apart by stream, which is now the stream of the identity node
+            if (processorNode.getProcessor() instanceof KeyedJoinProcessor) {
+                ((KeyedJoinProcessor<?, ?, ?, ?>) processorNode.getProcessor())
+                    .replaceStream(parent.getOutputStreams().iterator().next(), identityStream);
+            }
             addNode(parent, identity);
             graph.removeEdge(parent, processorNode);
             processorNode.removeParentStreams(parent);
@@ -370,6 +493,12 @@ public class StreamBuilder {
         return parentNode.iterator().next();
     }
 
+    // the node that immediately precedes the given node in the graph, or null if it does not have exactly one
+    Node directParent(Node curNode) {
+        List<Node> parents = StreamUtil.getParents(graph, curNode);
+        return parents.size() == 1 ? parents.get(0) : null;
+    }
+
     private Set<Node> parentNodes(Node curNode) {
         Set<Node> nodes = new HashSet<>();
         for (Node parent : StreamUtil.<Node>getParents(graph, curNode)) {
@@ -394,7 +523,11 @@ public class StreamBuilder {
     }
 
     private void doProcessCurGroup(TopologyBuilder topologyBuilder, List<ProcessorNode> group) {
-        String boltId = UniqueIdGen.getInstance().getUniqueBoltId();
+        // the group keeps the bolt id of a previous build
+        String boltId = group.get(0).getComponentId();
+        if (boltId == null) {
+            boltId = UniqueIdGen.getInstance().getUniqueBoltId();
+        }
         for (ProcessorNode processorNode : group) {
             processorNode.setComponentId(boltId);
             processorNode.setWindowedParentStreams(getWindowedParentStreams(processorNode));
@@ -519,12 +652,79 @@ public class StreamBuilder {
                                        Window<?, ?> windowParam,
                                        List<ProcessorNode> group) {
         WindowedProcessorBolt bolt = new WindowedProcessorBolt(boltId, graph, group, windowParam);
+        int panesPerWindow = getPanesPerWindow(windowParam);
+        Set<PaneAggregatingProcessor> paneAggregators = new HashSet<>();
+        if (panesPerWindow > 1 && !hasWindowedParent(initialProcessors)
+            && findPaneAggregators(initialProcessors, new HashSet<>(group), paneAggregators)) {
+            LOG.debug("Aggregating windows of bolt {} in {} panes with {}", boltId, panesPerWindow, paneAggregators);
+            paneAggregators.forEach(p -> p.setPanesPerWindow(panesPerWindow));
+            bolt.setPaneMode(true);
+        }
         BoltDeclarer boltDeclarer = topologyBuilder.setBolt(boltId, bolt, getParallelism(group));
         bolt.setStreamToInitialProcessors(wireBolt(group, boltDeclarer, initialProcessors));
         streamBolts.put(bolt, boltDeclarer);
         return bolt;
     }
 
+    /*
+     * Count based sliding windows where the window length is a multiple of the sliding interval can be aggregated in panes of
+     * sliding interval tuples, returns the number of panes per window or 0 if this is not possible.
+     */
+    private int getPanesPerWindow(Window<?, ?> window) {
+        if (!(window instanceof SlidingWindows) || window.getTimestampField() != null
+            || !(window.getWindowLength() instanceof BaseWindowedBolt.Count)
+            || !(window.getSlidingInterval() instanceof BaseWindowedBolt.Count)) {
+            return 0;
+        }
+        int length = ((BaseWindowedBolt.Count) window.getWindowLength()).value;
+        int interval = ((BaseWindowedBolt.Count) window.getSlidingInterval()).value;
+        return length % interval == 0 ? length / interval : 0;
+    }
+
+    /*
+     * Punctuations from an upstream window take up room in a count based window, so the panes would not line up.
+     */
+    private boolean hasWindowedParent(Set<ProcessorNode> initialProcessors) {
+        for (ProcessorNode processorNode : initialProcessors) {
+            for (Node parent : parentNodes(processorNode)) {
+                if (parent.isWindowed()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Windows can be aggregated in panes only if every value in the window reaches a pane aggregating processor within
+     * the bolt, going only through processors that handle each value on its own, and the aggregators declare that they
+     * do not modify the pane accumulators.
+     */
+    private boolean findPaneAggregators(Collection<? extends Node> nodes, Set<ProcessorNode> group,
+                                        Set<PaneAggregatingProcessor> paneAggregators) {
+        for (Node node : nodes) {
+            if (!(node instanceof ProcessorNode) || !group.contains(node)) {
+                return false;
+            }
+            Processor<?> processor = ((ProcessorNode) node).getProcessor();
+            if (processor instanceof PaneAggregatingProcessor && ((PaneAggregatingProcessor) processor).canAggregatePanes()) {
+                paneAggregators.add((PaneAggregatingProcessor) processor);
+            } else if (!isPerValueProcessor(processor)
+                       || !findPaneAggregators(StreamUtil.getChildren(graph, node), group, paneAggregators)) {
+                return false;
+            }
+        }
+        return !nodes.isEmpty();
+    }
+
+    private boolean isPerValueProcessor(Processor<?> processor) {
+        return processor instanceof MapProcessor
+               || processor instanceof MapValuesProcessor
+               || processor instanceof FilterProcessor
+               || processor instanceof FlatMapProcessor
+               || processor instanceof FlatMapValuesProcessor;
+    }
+
     private StatefulProcessorBolt<?, ?> findStatefulProcessorBolt(ProcessorNode updateStateNode) {
         for (StreamBolt bolt : streamBolts.keySet()) {
             if (bolt instanceof StatefulProcessorBolt) {
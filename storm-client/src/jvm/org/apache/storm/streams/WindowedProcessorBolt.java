@@ -38,6 +38,8 @@ class WindowedProcessorBolt extends BaseWindowedBolt implements StreamBolt {
     private static final Logger LOG = LoggerFactory.getLogger(WindowedProcessorBolt.class);
     private final ProcessorBoltDelegate delegate;
     private final Window<?, ?> window;
+    //If the processors only need the tuples that are new in each window, see PaneAggregatingProcessor.
+    private boolean paneMode;
 
     WindowedProcessorBolt(String id, DirectedGraph<Node, Edge> graph,
                           List<ProcessorNode> nodes,
@@ -58,10 +60,10 @@ class WindowedProcessorBolt extends BaseWindowedBolt implements StreamBolt {
         if (delegate.isEventTimestamp()) {
             delegate.setEventTimestamp(inputWindow.getEndTimestamp());
         }
-        for (Tuple tuple : inputWindow.get()) {
-            Pair<Object, String> valueAndStream = delegate.getValueAndStream(tuple);
-            if (!StreamUtil.isPunctuation(valueAndStream.getFirst())) {
-                delegate.process(valueAndStream.getFirst(), valueAndStream.getSecond());
+        for (Tuple tuple : paneMode ? inputWindow.getNew() : inputWindow.get()) {
+            Object value = delegate.getValue(tuple);
+            if (!StreamUtil.isPunctuation(value)) {
+                delegate.process(value, delegate.getStream(tuple));
             }
         }
         for (String stream : delegate.getInitialStreams()) {
@@ -69,6 +71,11 @@ class WindowedProcessorBolt extends BaseWindowedBolt implements StreamBolt {
         }
     }
 
+    @Override
+    public boolean isIncremental() {
+        return paneMode;
+    }
+
     @Override
     public void declareOutputFields(OutputFieldsDeclarer declarer) {
         delegate.declareOutputFields(declarer);
@@ -125,6 +132,10 @@ class WindowedProcessorBolt extends BaseWindowedBolt implements StreamBolt {
         }
     }
 
+    void setPaneMode(boolean paneMode) {
+        this.paneMode = paneMode;
+    }
+
     void setStreamToInitialProcessors(Multimap<String, ProcessorNode> streamToInitialProcessors) {
         delegate.setStreamToInitialProcessors(streamToInitialProcessors);
     }
@@ -89,4 +89,16 @@ public interface CombinerAggregator<T, A, R> extends Operation {
      */
     R result(A accum);
 
+    /**
+     * Whether this aggregator leaves the accumulators it is given untouched.  Count based sliding windows of aggregators that declare
+     * this are aggregated pane by pane, where the accumulator of each pane is merged into every window the pane is part of, instead of
+     * aggregating all of the values again for each window.  Such an aggregator must return a new accumulator from {@link #merge} and must
+     * not modify the accumulators passed to {@link #merge} or {@link #result}.
+     *
+     * @return true if {@link #merge} and {@link #result} never modify their arguments, false by default
+     */
+    default boolean isNonMutating() {
+        return false;
+    }
+
 }
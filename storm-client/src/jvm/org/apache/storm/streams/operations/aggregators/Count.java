@@ -39,4 +39,9 @@ public class Count<T> implements CombinerAggregator<T, Long, Long> {
     public Long result(Long accum) {
         return accum;
     }
+
+    @Override
+    public boolean isNonMutating() {
+        return true;
+    }
 }
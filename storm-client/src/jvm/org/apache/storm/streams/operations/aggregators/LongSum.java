@@ -37,4 +37,9 @@ public class LongSum implements CombinerAggregator<Number, Long, Long> {
     public Long result(Long accum) {
         return accum;
     }
+
+    @Override
+    public boolean isNonMutating() {
+        return true;
+    }
 }
@@ -16,11 +16,14 @@ import java.util.HashMap;
 import java.util.Map;
 import org.apache.storm.streams.Pair;
 import org.apache.storm.streams.operations.CombinerAggregator;
+import org.apache.storm.windowing.PaneAggregator;
 
-public class AggregateByKeyProcessor<K, V, A, R> extends BaseProcessor<Pair<K, V>> implements BatchProcessor {
+public class AggregateByKeyProcessor<K, V, A, R> extends BaseProcessor<Pair<K, V>> implements PaneAggregatingProcessor {
     private final CombinerAggregator<V, A, R> aggregator;
     private final boolean emitAggregate;
     private final Map<K, A> state = new HashMap<>();
+    private int panesPerWindow;
+    private transient PaneAggregator<Map<K, A>> panes;
 
     public AggregateByKeyProcessor(CombinerAggregator<V, A, R> aggregator) {
         this(aggregator, false);
@@ -49,15 +52,52 @@ public class AggregateByKeyProcessor<K, V, A, R> extends BaseProcessor<Pair<K, V
 
     @Override
     public void finish() {
-        for (Map.Entry<K, A> entry : state.entrySet()) {
+        if (panesPerWindow > 0) {
+            finishPane();
+        } else {
+            forward(state);
+        }
+        state.clear();
+    }
+
+    @Override
+    public boolean canAggregatePanes() {
+        return aggregator.isNonMutating();
+    }
+
+    @Override
+    public void setPanesPerWindow(int panesPerWindow) {
+        this.panesPerWindow = panesPerWindow;
+    }
+
+    private void finishPane() {
+        if (panes == null) {
+            panes = new PaneAggregator<>(HashMap::new, this::mergeByKey, this::mergeByKeyInto);
+        }
+        panes.addLast(new HashMap<>(state));
+        if (panes.size() > panesPerWindow) {
+            panes.removeFirst();
+        }
+        forward(panes.getAggregate());
+    }
+
+    private Map<K, A> mergeByKey(Map<K, A> accum1, Map<K, A> accum2) {
+        return mergeByKeyInto(new HashMap<>(accum1), accum2);
+    }
+
+    private Map<K, A> mergeByKeyInto(Map<K, A> accum1, Map<K, A> accum2) {
+        accum2.forEach((key, accumulator) -> accum1.merge(key, accumulator, aggregator::merge));
+        return accum1;
+    }
+
+    private void forward(Map<K, A> accumulators) {
+        for (Map.Entry<K, A> entry : accumulators.entrySet()) {
             if (emitAggregate) {
                 context.forward(Pair.of(entry.getKey(), entry.getValue()));
             } else {
                 context.forward(Pair.of(entry.getKey(), aggregator.result(entry.getValue())));
             }
-
         }
-        state.clear();
     }
 
     @Override
@@ -65,6 +105,7 @@ public class AggregateByKeyProcessor<K, V, A, R> extends BaseProcessor<Pair<K, V
         return "AggregateByKeyProcessor{"
                 + "aggregator=" + aggregator
                 + ", emitAggregate=" + emitAggregate
+                + ", panesPerWindow=" + panesPerWindow
                 + ", state=" + state
                 + "}";
     }
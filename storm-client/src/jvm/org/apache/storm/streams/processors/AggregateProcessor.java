@@ -13,11 +13,15 @@
 package org.apache.storm.streams.processors;
 
 import org.apache.storm.streams.operations.CombinerAggregator;
+import org.apache.storm.windowing.PaneAggregator;
 
-public class AggregateProcessor<T, A, R> extends BaseProcessor<T> implements BatchProcessor {
+public class AggregateProcessor<T, A, R> extends BaseProcessor<T> implements PaneAggregatingProcessor {
     private final CombinerAggregator<T, A, R> aggregator;
     private final boolean emitAggregate;
     private A state;
+    private int panesPerWindow;
+    //An empty pane is kept as null, so that windows without any values are not forwarded.
+    private transient PaneAggregator<A> panes;
 
     public AggregateProcessor(CombinerAggregator<T, A, R> aggregator) {
         this(aggregator, false);
@@ -43,21 +47,60 @@ public class AggregateProcessor<T, A, R> extends BaseProcessor<T> implements Bat
 
     @Override
     public void finish() {
-        if (state != null) {
-            if (emitAggregate) {
-                context.forward(state);
-            } else {
-                context.forward(aggregator.result(state));
-            }
+        if (panesPerWindow > 0) {
+            finishPane();
+        } else if (state != null) {
+            forward(state);
             state = null;
         }
     }
 
+    @Override
+    public boolean canAggregatePanes() {
+        return aggregator.isNonMutating();
+    }
+
+    @Override
+    public void setPanesPerWindow(int panesPerWindow) {
+        this.panesPerWindow = panesPerWindow;
+    }
+
+    private void finishPane() {
+        if (panes == null) {
+            panes = new PaneAggregator<>(() -> null, this::mergeNullable);
+        }
+        panes.addLast(state);
+        state = null;
+        if (panes.size() > panesPerWindow) {
+            panes.removeFirst();
+        }
+        A aggregate = panes.getAggregate();
+        if (aggregate != null) {
+            forward(aggregate);
+        }
+    }
+
+    private A mergeNullable(A accum1, A accum2) {
+        if (accum1 == null) {
+            return accum2;
+        }
+        return accum2 == null ? accum1 : aggregator.merge(accum1, accum2);
+    }
+
+    private void forward(A accumulator) {
+        if (emitAggregate) {
+            context.forward(accumulator);
+        } else {
+            context.forward(aggregator.result(accumulator));
+        }
+    }
+
     @Override
     public String toString() {
         return "AggregateProcessor{"
                 + "aggregator=" + aggregator
                 + ", emitAggregate=" + emitAggregate
+                + ", panesPerWindow=" + panesPerWindow
                 + ", state=" + state
                 + "}";
     }
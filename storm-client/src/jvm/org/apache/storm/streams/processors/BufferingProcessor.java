@@ -0,0 +1,34 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.streams.processors;
+
+/**
+ * Interface for processors that buffer the values they receive outside of a window and forward their results from time to time, like
+ * the local aggregation before a partition by key. The input tuples are acked once the processor forwards
+ * {@link org.apache.storm.streams.WindowNode#PUNCTUATION} after its results, which is not emitted downstream.
+ */
+public interface BufferingProcessor {
+    /**
+     * Sets how much the processor buffers.
+     *
+     * @param maxSize    the maximum number of results to buffer
+     * @param maxDelayMs the maximum time in millis to hold on to the buffered results
+     */
+    void setBufferLimits(int maxSize, long maxDelayMs);
+
+    /**
+     * Forwards the buffered results if they were held for longer than the max delay. This is invoked periodically, so that the results
+     * are forwarded even when no more values arrive.
+     */
+    void flushIfDue();
+}
@@ -48,6 +48,13 @@ public class ChainedProcessorContext implements ProcessorContext {
         }
     }
 
+    @Override
+    public void setAnchorKey(Object key) {
+        for (ProcessorContext context : contexts) {
+            context.setAnchorKey(key);
+        }
+    }
+
     @Override
     public boolean isWindowed() {
         return processorNode.isWindowed();
@@ -16,7 +16,10 @@ import static org.apache.storm.streams.WindowNode.PUNCTUATION;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.storm.streams.Pair;
@@ -42,6 +45,10 @@ public class EmittingProcessorContext implements ProcessorContext {
     private final Fields outputFields;
     private final Values punctuation;
     private final List<RefCountedTuple> anchors = new ArrayList<>();
+    // a buffering processor outside of a window holds on to its input tuples until it forwards the punctuation
+    private final boolean buffering;
+    // the input tuples of a buffering processor by the key they were buffered under
+    private final Map<Object, List<RefCountedTuple>> keyAnchors = new HashMap<>();
     private long eventTimestamp;
     private String timestampField;
 
@@ -52,16 +59,25 @@ public class EmittingProcessorContext implements ProcessorContext {
         outputFields = processorNode.getOutputFields();
         punctuation = new Values(PUNCTUATION);
         punctuationStreamId = StreamUtil.getPunctuationStream(outputStreamId);
+        buffering = processorNode.getProcessor() instanceof BufferingProcessor && !processorNode.isWindowed();
     }
 
     @Override
     public <T> void forward(T input) {
         if (PUNCTUATION.equals(input)) {
-            emit(punctuation, punctuationStreamId);
+            if (!buffering) {
+                emit(punctuation, punctuationStreamId);
+            }
             maybeAck();
         } else if (processorNode.emitsPair()) {
             Pair<?, ?> value = (Pair<?, ?>) input;
-            emit(new Values(value.getFirst(), value.getSecond()), outputStreamId);
+            Values values = new Values(value.getFirst(), value.getSecond());
+            List<RefCountedTuple> inputs = buffering ? keyAnchors.get(value.getFirst()) : null;
+            if (inputs != null) {
+                emit(values, outputStreamId, inputs);
+            } else {
+                emit(values, outputStreamId);
+            }
         } else {
             emit(new Values(input), outputStreamId);
         }
@@ -89,7 +105,7 @@ public class EmittingProcessorContext implements ProcessorContext {
     }
 
     public void setAnchor(RefCountedTuple anchor) {
-        if (processorNode.isWindowed() && processorNode.isBatch()) {
+        if ((processorNode.isWindowed() && processorNode.isBatch()) || buffering) {
             anchor.increment();
             anchors.add(anchor);
         } else {
@@ -108,6 +124,17 @@ public class EmittingProcessorContext implements ProcessorContext {
         }
     }
 
+    @Override
+    public void setAnchorKey(Object key) {
+        if (buffering && !anchors.isEmpty()) {
+            List<RefCountedTuple> inputs = keyAnchors.computeIfAbsent(key, k -> new ArrayList<>());
+            RefCountedTuple current = anchors.get(anchors.size() - 1);
+            if (inputs.isEmpty() || inputs.get(inputs.size() - 1) != current) {
+                inputs.add(current);
+            }
+        }
+    }
+
     public void setEventTimestamp(long timestamp) {
         this.eventTimestamp = timestamp;
     }
@@ -124,13 +151,22 @@ public class EmittingProcessorContext implements ProcessorContext {
             }
             anchors.clear();
         }
+        keyAnchors.clear();
     }
 
-    private Collection<Tuple> tuples(Collection<RefCountedTuple> anchors) {
+    private Collection<Tuple> tuples(List<RefCountedTuple> anchors) {
+        // outside of batches there is a single anchor
+        if (anchors.size() == 1) {
+            return Collections.singletonList(anchors.get(0).tuple());
+        }
         return anchors.stream().map(RefCountedTuple::tuple).collect(Collectors.toList());
     }
 
     private void emit(Values values, String outputStreamId) {
+        emit(values, outputStreamId, anchors);
+    }
+
+    private void emit(Values values, String outputStreamId, List<RefCountedTuple> anchors) {
         if (timestampField != null) {
             values.add(eventTimestamp);
         }
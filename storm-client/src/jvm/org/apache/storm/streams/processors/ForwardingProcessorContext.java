@@ -14,6 +14,7 @@ package org.apache.storm.streams.processors;
 
 import static org.apache.storm.streams.WindowNode.PUNCTUATION;
 
+import java.util.Map;
 import java.util.Set;
 import org.apache.storm.shade.com.google.common.collect.Multimap;
 import org.apache.storm.streams.ProcessorNode;
@@ -28,17 +29,31 @@ public class ForwardingProcessorContext implements ProcessorContext {
     private final ProcessorNode processorNode;
     private final Multimap<String, ProcessorNode> streamToChildren;
     private final Set<String> streams;
+    // the only child and its stream when the processor feeds a single processor, e.g. in a chain of maps and filters
+    private final Processor<Object> singleChild;
+    private final String singleChildStream;
 
+    @SuppressWarnings("unchecked")
     public ForwardingProcessorContext(ProcessorNode processorNode, Multimap<String, ProcessorNode> streamToChildren) {
         this.processorNode = processorNode;
         this.streamToChildren = streamToChildren;
         this.streams = streamToChildren.keySet();
+        if (streamToChildren.size() == 1) {
+            Map.Entry<String, ProcessorNode> child = streamToChildren.entries().iterator().next();
+            singleChild = (Processor<Object>) child.getValue().getProcessor();
+            singleChildStream = child.getKey();
+        } else {
+            singleChild = null;
+            singleChildStream = null;
+        }
     }
 
     @Override
     public <T> void forward(T input) {
         if (PUNCTUATION.equals(input)) {
             finishAllStreams();
+        } else if (singleChild != null) {
+            singleChild.execute(input, singleChildStream);
         } else {
             executeAllStreams(input);
         }
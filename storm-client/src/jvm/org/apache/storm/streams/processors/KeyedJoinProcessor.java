@@ -0,0 +1,235 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.streams.processors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.storm.streams.JoinRetention;
+import org.apache.storm.streams.Pair;
+import org.apache.storm.streams.operations.ValueJoiner;
+
+/**
+ * Provides a streaming equi-join that keeps the values of both streams in per-key indexes, so that each new value is joined only with the
+ * retained values having the same key. The values are retained as per the {@link JoinRetention}, in memory. See {@link
+ * StatefulKeyedJoinProcessor} for keeping them in state.
+ *
+ * <p>With an outer join, a value that does not match any of the retained values from the other stream is forwarded joined with null.
+ */
+public class KeyedJoinProcessor<K, R, V1, V2> extends BaseProcessor<Pair<K, ?>> {
+    private final ValueJoiner<V1, V2, R> valueJoiner;
+    private String leftStream;
+    private String rightStream;
+    private final JoinProcessor.JoinType leftType;
+    private final JoinProcessor.JoinType rightType;
+    private final JoinRetention retention;
+    private final Map<K, JoinRows<V1, V2>> rows = new HashMap<>();
+    // (key, expiry time) of the retained values in the order they expire, for time based retention
+    private final Deque<Pair<K, Long>> expiries = new ArrayDeque<>();
+
+    public KeyedJoinProcessor(String leftStream, String rightStream, ValueJoiner<V1, V2, R> valueJoiner,
+                              JoinProcessor.JoinType leftType, JoinProcessor.JoinType rightType, JoinRetention retention) {
+        this.valueJoiner = valueJoiner;
+        this.leftStream = leftStream;
+        this.rightStream = rightStream;
+        this.leftType = leftType;
+        this.rightType = rightType;
+        this.retention = retention;
+    }
+
+    @Override
+    public void execute(Pair<K, ?> input, String sourceStream) {
+        long now = System.currentTimeMillis();
+        expire(now);
+        K key = input.getFirst();
+        JoinRows<V1, V2> keyRows = getRows(key);
+        if (keyRows == null) {
+            keyRows = new JoinRows<>();
+        }
+        if (sourceStream.equals(leftStream)) {
+            V1 val = (V1) input.getSecond();
+            if (keyRows.rightValues.isEmpty()) {
+                if (leftType == JoinProcessor.JoinType.OUTER) {
+                    context.forward(Pair.of(key, valueJoiner.apply(val, null)));
+                }
+            } else {
+                for (V2 rightVal : keyRows.rightValues) {
+                    context.forward(Pair.of(key, valueJoiner.apply(val, rightVal)));
+                }
+            }
+            add(keyRows.leftValues, keyRows.leftTimestamps, val, now);
+        } else if (sourceStream.equals(rightStream)) {
+            V2 val = (V2) input.getSecond();
+            if (keyRows.leftValues.isEmpty()) {
+                if (rightType == JoinProcessor.JoinType.OUTER) {
+                    context.forward(Pair.of(key, valueJoiner.apply(null, val)));
+                }
+            } else {
+                for (V1 leftVal : keyRows.leftValues) {
+                    context.forward(Pair.of(key, valueJoiner.apply(leftVal, val)));
+                }
+            }
+            add(keyRows.rightValues, keyRows.rightTimestamps, val, now);
+        } else {
+            return;
+        }
+        putRows(key, keyRows);
+        if (retention.getDurationMs() > 0) {
+            expiries.add(Pair.of(key, now + retention.getDurationMs()));
+        }
+    }
+
+    public String getLeftStream() {
+        return leftStream;
+    }
+
+    public String getRightStream() {
+        return rightStream;
+    }
+
+    /**
+     * Replaces a stream of the join, when the values of one of its sides are forwarded on another stream.
+     *
+     * @param stream    the stream that was joined
+     * @param newStream the stream the values arrive on now
+     */
+    public void replaceStream(String stream, String newStream) {
+        if (stream.equals(leftStream)) {
+            leftStream = newStream;
+        }
+        if (stream.equals(rightStream)) {
+            rightStream = newStream;
+        }
+    }
+
+    protected JoinRetention getRetention() {
+        return retention;
+    }
+
+    /**
+     * Returns the values retained for the key, or null if there are none.
+     */
+    protected JoinRows<V1, V2> getRows(K key) {
+        return rows.get(key);
+    }
+
+    protected void putRows(K key, JoinRows<V1, V2> keyRows) {
+        rows.put(key, keyRows);
+    }
+
+    protected void removeRows(K key) {
+        rows.remove(key);
+    }
+
+    /**
+     * Schedules the expiry of values retained for the key, e.g. when they are restored.
+     */
+    protected void addExpiries(K key, JoinRows<V1, V2> keyRows) {
+        List<Long> timestamps = new ArrayList<>(keyRows.leftTimestamps);
+        timestamps.addAll(keyRows.rightTimestamps);
+        for (Long ts : timestamps) {
+            expiries.add(Pair.of(key, ts + retention.getDurationMs()));
+        }
+    }
+
+    /**
+     * Sorts the scheduled expiries, needed after adding them with {@link #addExpiries(Object, JoinRows)}.
+     */
+    protected void sortExpiries() {
+        List<Pair<K, Long>> sorted = new ArrayList<>(expiries);
+        sorted.sort((p1, p2) -> Long.compare(p1.getSecond(), p2.getSecond()));
+        expiries.clear();
+        expiries.addAll(sorted);
+    }
+
+    /*
+     * Drops the values that are older than the retention duration. Each retained
+     * value has an entry in the expiries, so this only looks at the keys that have expired values.
+     */
+    private void expire(long now) {
+        while (!expiries.isEmpty() && expiries.peekFirst().getSecond() <= now) {
+            K key = expiries.pollFirst().getFirst();
+            JoinRows<V1, V2> keyRows = getRows(key);
+            if (keyRows == null) {
+                continue;
+            }
+            long before = now - retention.getDurationMs();
+            boolean removed = removeOlder(keyRows.leftValues, keyRows.leftTimestamps, before);
+            removed |= removeOlder(keyRows.rightValues, keyRows.rightTimestamps, before);
+            if (removed) {
+                if (keyRows.isEmpty()) {
+                    removeRows(key);
+                } else {
+                    putRows(key, keyRows);
+                }
+            }
+        }
+    }
+
+    private <T> void add(List<T> values, List<Long> timestamps, T val, long now) {
+        values.add(val);
+        timestamps.add(now);
+        int count = retention.getCount();
+        if (count > 0 && values.size() > count) {
+            values.subList(0, values.size() - count).clear();
+            timestamps.subList(0, timestamps.size() - count).clear();
+        }
+    }
+
+    private <T> boolean removeOlder(List<T> values, List<Long> timestamps, long before) {
+        int expired = 0;
+        while (expired < timestamps.size() && timestamps.get(expired) <= before) {
+            expired++;
+        }
+        if (expired > 0) {
+            values.subList(0, expired).clear();
+            timestamps.subList(0, expired).clear();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The values retained for a key, from both sides of the join, in the order they arrived.
+     */
+    public static final class JoinRows<V1, V2> {
+        private final List<V1> leftValues = new ArrayList<>();
+        private final List<Long> leftTimestamps = new ArrayList<>();
+        private final List<V2> rightValues = new ArrayList<>();
+        private final List<Long> rightTimestamps = new ArrayList<>();
+
+        boolean isEmpty() {
+            return leftValues.isEmpty() && rightValues.isEmpty();
+        }
+
+        JoinRows<V1, V2> copy() {
+            JoinRows<V1, V2> copy = new JoinRows<>();
+            copy.leftValues.addAll(leftValues);
+            copy.leftTimestamps.addAll(leftTimestamps);
+            copy.rightValues.addAll(rightValues);
+            copy.rightTimestamps.addAll(rightTimestamps);
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return "JoinRows{"
+                   + "leftValues=" + leftValues
+                   + ", rightValues=" + rightValues
+                   + '}';
+        }
+    }
+}
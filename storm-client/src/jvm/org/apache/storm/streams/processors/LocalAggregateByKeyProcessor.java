@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.streams.processors;
+
+import static org.apache.storm.streams.WindowNode.PUNCTUATION;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.storm.streams.Pair;
+import org.apache.storm.streams.operations.CombinerAggregator;
+import org.apache.storm.streams.operations.Reducer;
+
+/**
+ * Aggregates the values by key within a task before they are partitioned by key, so that a partial aggregate per key is sent
+ * downstream instead of every value. The partial aggregates are forwarded when the number of keys reaches the max size or when the
+ * oldest one was held for longer than the max delay, and the input tuples are acked after that.  The partial aggregate of a key is
+ * anchored to the input tuples of that key.
+ */
+public class LocalAggregateByKeyProcessor<K, V, A> extends BaseProcessor<Pair<K, V>> implements BufferingProcessor {
+    public static final int DEFAULT_MAX_KEYS = 10_000;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+    private final CombinerAggregator<? super V, A, ?> aggregator;
+    private final Map<K, A> partials = new HashMap<>();
+    private int maxKeys = DEFAULT_MAX_KEYS;
+    private long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+    private long firstBufferedAt;
+
+    public LocalAggregateByKeyProcessor(CombinerAggregator<? super V, A, ?> aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    /**
+     * Creates a processor that reduces the values by key, the partial results are of the same type as the values.
+     *
+     * @param reducer the reducer
+     * @param <K>     the key type
+     * @param <V>     the value type
+     * @return the processor
+     */
+    public static <K, V> LocalAggregateByKeyProcessor<K, V, V> reducing(Reducer<V> reducer) {
+        return new LocalAggregateByKeyProcessor<>(new ReducingAggregator<>(reducer));
+    }
+
+    @Override
+    public void execute(Pair<K, V> input) {
+        K key = input.getFirst();
+        if (partials.isEmpty()) {
+            firstBufferedAt = System.currentTimeMillis();
+        }
+        A accumulator = partials.get(key);
+        if (accumulator == null) {
+            accumulator = aggregator.init();
+        }
+        partials.put(key, aggregator.apply(accumulator, input.getSecond()));
+        context.setAnchorKey(key);
+        if (partials.size() >= maxKeys) {
+            flush();
+        } else {
+            flushIfDue();
+        }
+    }
+
+    @Override
+    public void setBufferLimits(int maxSize, long maxDelayMs) {
+        maxKeys = maxSize;
+        flushIntervalMs = maxDelayMs;
+    }
+
+    @Override
+    public void flushIfDue() {
+        if (!partials.isEmpty() && System.currentTimeMillis() - firstBufferedAt >= flushIntervalMs) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        for (Map.Entry<K, A> entry : partials.entrySet()) {
+            context.forward(Pair.of(entry.getKey(), entry.getValue()));
+        }
+        partials.clear();
+        // the values of the input tuples are all in the forwarded partial aggregates now
+        context.forward(PUNCTUATION);
+    }
+
+    @Override
+    public String toString() {
+        return "LocalAggregateByKeyProcessor{"
+                + "aggregator=" + aggregator
+                + ", maxKeys=" + maxKeys
+                + ", flushIntervalMs=" + flushIntervalMs
+                + ", partials=" + partials.size()
+                + "}";
+    }
+
+    private static class ReducingAggregator<V> implements CombinerAggregator<V, V, V> {
+        private final Reducer<V> reducer;
+
+        ReducingAggregator(Reducer<V> reducer) {
+            this.reducer = reducer;
+        }
+
+        // null stands for no value yet, the reducer is only applied once there are two values
+        @Override
+        public V init() {
+            return null;
+        }
+
+        @Override
+        public V apply(V accumulator, V value) {
+            return accumulator == null ? value : reducer.apply(accumulator, value);
+        }
+
+        @Override
+        public V merge(V accum1, V accum2) {
+            return accum1 == null ? accum2 : reducer.apply(accum1, accum2);
+        }
+
+        @Override
+        public V result(V accum) {
+            return accum;
+        }
+    }
+}
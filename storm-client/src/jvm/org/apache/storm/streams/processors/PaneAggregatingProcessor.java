@@ -0,0 +1,35 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package org.apache.storm.streams.processors;
+
+/**
+ * A {@link BatchProcessor} that can aggregate sliding windows pane by pane.  In pane mode each batch only has the values that are new
+ * since the previous window, which are aggregated into a pane, and the result of a window is the merge of its last panes.
+ */
+public interface PaneAggregatingProcessor extends BatchProcessor {
+    /**
+     * Whether this processor can aggregate in panes, which needs an aggregator that does not modify the pane accumulators it merges.
+     *
+     * @return true if the processor can be switched to pane mode
+     * @see org.apache.storm.streams.operations.CombinerAggregator#isNonMutating()
+     */
+    boolean canAggregatePanes();
+
+    /**
+     * Switch to pane mode.
+     *
+     * @param panesPerWindow the number of batches that make up a window
+     */
+    void setPanesPerWindow(int panesPerWindow);
+}
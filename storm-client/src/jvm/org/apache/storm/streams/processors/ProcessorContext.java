@@ -51,4 +51,13 @@ public interface ProcessorContext extends Serializable {
      * @return the windowed parent streams
      */
     Set<String> getWindowedParentStreams();
+
+    /**
+     * Tells the context that a {@link BufferingProcessor} buffered the current input under the given key, so that the result it forwards
+     * for the key later on is anchored to the input.  Contexts that do not anchor results ignore this.
+     *
+     * @param key the key
+     */
+    default void setAnchorKey(Object key) {
+    }
 }
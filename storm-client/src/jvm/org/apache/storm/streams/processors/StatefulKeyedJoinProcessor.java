@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.streams.processors;
+
+import java.util.Iterator;
+import java.util.Map;
+import org.apache.storm.state.KeyValueState;
+import org.apache.storm.streams.JoinRetention;
+import org.apache.storm.streams.operations.ValueJoiner;
+
+/**
+ * A {@link KeyedJoinProcessor} that keeps the retained values in a {@link KeyValueState}, so that they survive a restart of the worker.
+ */
+public class StatefulKeyedJoinProcessor<K, R, V1, V2> extends KeyedJoinProcessor<K, R, V1, V2>
+    implements StatefulProcessor<K, KeyedJoinProcessor.JoinRows<V1, V2>> {
+    private KeyValueState<K, JoinRows<V1, V2>> keyValueState;
+
+    public StatefulKeyedJoinProcessor(String leftStream, String rightStream, ValueJoiner<V1, V2, R> valueJoiner,
+                                      JoinProcessor.JoinType leftType, JoinProcessor.JoinType rightType, JoinRetention retention) {
+        super(leftStream, rightStream, valueJoiner, leftType, rightType, retention);
+    }
+
+    @Override
+    public void initState(KeyValueState<K, JoinRows<V1, V2>> keyValueState) {
+        this.keyValueState = keyValueState;
+        if (getRetention().getDurationMs() > 0) {
+            // the restored values expire as per the time they arrived
+            Iterator<Map.Entry<K, JoinRows<V1, V2>>> it = keyValueState.iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, JoinRows<V1, V2>> entry = it.next();
+                addExpiries(entry.getKey(), entry.getValue());
+            }
+            sortExpiries();
+        }
+    }
+
+    /*
+     * The rows are changed in place before they are put back, so this returns a copy. A state like
+     * InMemoryKeyValueState keeps the values it was given, which have to stay as they were for a rollback.
+     */
+    @Override
+    protected JoinRows<V1, V2> getRows(K key) {
+        JoinRows<V1, V2> keyRows = keyValueState.get(key);
+        return keyRows == null ? null : keyRows.copy();
+    }
+
+    @Override
+    protected void putRows(K key, JoinRows<V1, V2> keyRows) {
+        keyValueState.put(key, keyRows);
+    }
+
+    @Override
+    protected void removeRows(K key) {
+        keyValueState.delete(key);
+    }
+}
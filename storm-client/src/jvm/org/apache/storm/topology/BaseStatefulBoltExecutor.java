@@ -123,6 +123,23 @@ public abstract class BaseStatefulBoltExecutor implements IRichBolt {
         return false;
     }
 
+    /**
+     * Returns the txid of the last checkpoint that was handled.
+     */
+    protected long getLastTxid() {
+        return lastTxid;
+    }
+
+    /**
+     * Sub-classes that complete a checkpoint after {@link #handleCheckpoint} returned use this to restore the last txid from before
+     * the checkpoint, when the checkpoint fails.
+     *
+     * @param txid the last txid before the failed checkpoint
+     */
+    protected void resetLastTxid(long txid) {
+        lastTxid = txid;
+    }
+
     protected void declareCheckpointStream(OutputFieldsDeclarer declarer) {
         declarer.declareStream(CHECKPOINT_STREAM_ID, new Fields(CHECKPOINT_FIELD_TXID, CHECKPOINT_FIELD_ACTION));
     }
@@ -42,4 +42,16 @@ public interface IWindowedBolt extends IComponent {
      * @return the timestamp extractor
      */
     TimestampExtractor getTimestampExtractor();
+
+    /**
+     * Return true if the bolt computes its results incrementally, from {@link TupleWindow#getNew()} and {@link TupleWindow#getExpired()}
+     * of each activation, instead of from the whole window in {@link TupleWindow#get()}.  Tuples emitted by an incremental bolt are only
+     * anchored to the new tuples of the window, so an activation costs time in the number of new and expired tuples, not in the size of
+     * the window.
+     *
+     * @return true if the bolt is incremental
+     */
+    default boolean isIncremental() {
+        return false;
+    }
 }
@@ -14,6 +14,7 @@ package org.apache.storm.topology;
 
 import static org.apache.storm.windowing.persistence.WindowState.WindowPartition;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
@@ -26,7 +27,9 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import org.apache.storm.Config;
+import org.apache.storm.state.DefaultStateSerializer;
 import org.apache.storm.state.KeyValueState;
+import org.apache.storm.state.Serializer;
 import org.apache.storm.state.State;
 import org.apache.storm.state.StateFactory;
 import org.apache.storm.task.OutputCollector;
@@ -34,8 +37,10 @@ import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.base.BaseWindowedBolt;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.windowing.DefaultEvictionContext;
+import org.apache.storm.windowing.Event;
 import org.apache.storm.windowing.EventImpl;
 import org.apache.storm.windowing.WindowLifecycleListener;
+import org.apache.storm.windowing.persistence.SerializedWindowPartition;
 import org.apache.storm.windowing.persistence.WindowState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +58,8 @@ public class PersistentWindowedBoltExecutor<T extends State> extends WindowedBol
     private transient boolean stateInitialized;
     private transient boolean prePrepared;
     private transient KeyValueState<String, Optional<?>> windowSystemState;
+    private transient Serializer<Event<Tuple>> eventSerializer;
+    private transient File segmentDir;
 
     public PersistentWindowedBoltExecutor(IStatefulWindowedBolt<T> bolt) {
         super(bolt);
@@ -67,6 +74,7 @@ public class PersistentWindowedBoltExecutor<T extends State> extends WindowedBol
         registrations.add(AtomicInteger.class.getName());
         registrations.add(EventImpl.class.getName());
         registrations.add(WindowPartition.class.getName());
+        registrations.add(SerializedWindowPartition.class.getName());
         registrations.add(DefaultEvictionContext.class.getName());
         topoConf.put(Config.TOPOLOGY_STATE_KRYO_REGISTER, registrations);
         prepare(topoConf, context, collector, getWindowState(topoConf, context), getPartitionState(topoConf, context),
@@ -80,8 +88,14 @@ public class PersistentWindowedBoltExecutor<T extends State> extends WindowedBol
                  KeyValueState<String, Optional<?>> windowSystemState) {
         outputCollector = collector;
         this.windowSystemState = windowSystemState;
+        // the serializer is needed even without a segments dir, to restore partitions that were checkpointed with one
+        eventSerializer = new DefaultStateSerializer<>(topoConf, context);
+        String segmentsDir = (String) topoConf.get(Config.TOPOLOGY_STATE_WINDOW_SEGMENTS_DIR);
+        if (segmentsDir != null) {
+            segmentDir = new File(segmentsDir, context.getThisComponentId() + "-" + context.getThisTaskId());
+        }
         state = new WindowState<>(windowState, partitionState, windowSystemState, this::getState,
-                                  statefulWindowedBolt.maxEventsInMemory());
+                                  statefulWindowedBolt.maxEventsInMemory(), eventSerializer, segmentDir);
         doPrepare(topoConf, context, new NoAckOutputCollector(collector), state, true);
         restoreWindowSystemState();
     }
@@ -19,11 +19,19 @@ import static org.apache.storm.spout.CheckPointState.Action.PREPARE;
 import static org.apache.storm.spout.CheckPointState.Action.ROLLBACK;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.storm.Config;
+import org.apache.storm.shade.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.storm.spout.CheckpointSpout;
 import org.apache.storm.state.State;
 import org.apache.storm.state.StateFactory;
@@ -31,20 +39,31 @@ import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.ObjectReader;
+import org.apache.storm.utils.TupleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Wraps a {@link IStatefulBolt} and manages the state of the bolt.
+ *
+ * <p>With {@link Config#TOPOLOGY_STATE_CHECKPOINT_ASYNC} the state is prepared and committed asynchronously. The bolt keeps executing
+ * tuples while the state is written, and the checkpoint tuple is forwarded and acked once the write completes, which is checked for
+ * whenever a tuple is received.
  */
 public class StatefulBoltExecutor<T extends State> extends BaseStatefulBoltExecutor {
     private static final Logger LOG = LoggerFactory.getLogger(StatefulBoltExecutor.class);
+    private static final int ASYNC_CHECKPOINT_TICK_FREQ_SECS = 1;
+    private static final int CHECKPOINT_SHUTDOWN_TIMEOUT_SECS = 30;
     private final IStatefulBolt<T> bolt;
     private State state;
     private boolean boltInitialized = false;
     private List<Tuple> pendingTuples = new ArrayList<>();
     private List<Tuple> preparedTuples = new ArrayList<>();
     private AckTrackingOutputCollector collector;
+    private ExecutorService checkpointExecutor;
+    private boolean dropTicks = false;
+    private PendingCheckpoint pendingCheckpoint;
 
     public StatefulBoltExecutor(IStatefulBolt<T> bolt) {
         this.bolt = bolt;
@@ -63,11 +82,40 @@ public class StatefulBoltExecutor<T extends State> extends BaseStatefulBoltExecu
         this.collector = new AckTrackingOutputCollector(collector);
         bolt.prepare(topoConf, context, this.collector);
         this.state = state;
+        if (ObjectReader.getBoolean(topoConf.get(Config.TOPOLOGY_STATE_CHECKPOINT_ASYNC), false)) {
+            if (topoConf.get(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS) == null) {
+                LOG.warn("{} needs tick tuples to checkpoint asynchronously, checkpointing synchronously instead",
+                         context.getThisComponentId());
+            } else {
+                checkpointExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("checkpoint-" + context.getThisComponentId() + "-" + context.getThisTaskId())
+                    .setDaemon(true)
+                    .build());
+                // the tick tuples are only passed on when the bolt asked for them
+                dropTicks = enablesTicks(bolt.getComponentConfiguration());
+            }
+        }
     }
 
     @Override
     public void cleanup() {
+        if (checkpointExecutor != null) {
+            checkpointExecutor.shutdownNow();
+            try {
+                // a write that is in progress must finish before the state is closed
+                checkpointExecutor.awaitTermination(CHECKPOINT_SHUTDOWN_TIMEOUT_SECS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         bolt.cleanup();
+        if (state instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) state).close();
+            } catch (Exception e) {
+                LOG.warn("Could not close the state of {}", bolt, e);
+            }
+        }
     }
 
     @Override
@@ -78,16 +126,36 @@ public class StatefulBoltExecutor<T extends State> extends BaseStatefulBoltExecu
 
     @Override
     public Map<String, Object> getComponentConfiguration() {
-        return bolt.getComponentConfiguration();
+        Map<String, Object> conf = bolt.getComponentConfiguration();
+        if (enablesTicks(conf)) {
+            conf = TupleUtils.putTickFrequencyIntoComponentConfig(new HashMap<>(conf), ASYNC_CHECKPOINT_TICK_FREQ_SECS);
+        }
+        return conf;
     }
 
+    /*
+     * Asynchronous checkpoints set in the bolt's own configuration get tick tuples, so that the completed
+     * writes are picked up even when no other tuples arrive.
+     */
+    private static boolean enablesTicks(Map<String, Object> boltConf) {
+        return boltConf != null
+               && ObjectReader.getBoolean(boltConf.get(Config.TOPOLOGY_STATE_CHECKPOINT_ASYNC), false)
+               && boltConf.get(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS) == null;
+    }
 
     @Override
     protected void handleCheckpoint(Tuple checkpointTuple, Action action, long txid) {
         LOG.debug("handleCheckPoint with tuple {}, action {}, txid {}", checkpointTuple, action, txid);
+        // the next action can only be handled once the previous one is written
+        completePendingCheckpoint(true);
         if (action == PREPARE) {
             if (boltInitialized) {
                 bolt.prePrepare(txid);
+                if (checkpointExecutor != null) {
+                    preparedTuples.addAll(collector.ackedTuples());
+                    startPendingCheckpoint(checkpointTuple, action, txid, state.prepareCommitAsync(txid, checkpointExecutor));
+                    return;
+                }
                 state.prepareCommit(txid);
                 preparedTuples.addAll(collector.ackedTuples());
             } else {
@@ -101,6 +169,10 @@ public class StatefulBoltExecutor<T extends State> extends BaseStatefulBoltExecu
             }
         } else if (action == COMMIT) {
             bolt.preCommit(txid);
+            if (checkpointExecutor != null) {
+                startPendingCheckpoint(checkpointTuple, action, txid, state.commitAsync(txid, checkpointExecutor));
+                return;
+            }
             state.commit(txid);
             ack(preparedTuples);
         } else if (action == ROLLBACK) {
@@ -127,12 +199,52 @@ public class StatefulBoltExecutor<T extends State> extends BaseStatefulBoltExecu
                           checkpointTuple, action, txid);
             }
         }
+        forwardCheckpoint(checkpointTuple, action, txid);
+    }
+
+    private void forwardCheckpoint(Tuple checkpointTuple, Action action, long txid) {
         collector.emit(CheckpointSpout.CHECKPOINT_STREAM_ID, checkpointTuple, new Values(txid, action));
         collector.delegate.ack(checkpointTuple);
     }
 
+    private void startPendingCheckpoint(Tuple checkpointTuple, Action action, long txid, CompletableFuture<Void> future) {
+        // the last txid is only advanced after this returns, so it is the one to go back to if the write fails
+        pendingCheckpoint = new PendingCheckpoint(checkpointTuple, action, txid, getLastTxid(), future);
+        // states without an asynchronous write are already done
+        completePendingCheckpoint(false);
+    }
+
+    /*
+     * Forwards the pending checkpoint once its write is done, or fails it if the write failed.
+     * This is always called from the executor thread, since the collector is not thread safe.
+     */
+    private void completePendingCheckpoint(boolean wait) {
+        if (pendingCheckpoint == null || (!wait && !pendingCheckpoint.future.isDone())) {
+            return;
+        }
+        PendingCheckpoint checkpoint = pendingCheckpoint;
+        pendingCheckpoint = null;
+        try {
+            checkpoint.future.join();
+        } catch (CompletionException ex) {
+            LOG.error("Got error while writing the state for action {}, txid {}", checkpoint.action, checkpoint.txid, ex.getCause());
+            resetLastTxid(checkpoint.previousTxid);
+            collector.fail(checkpoint.tuple);
+            collector.reportError(ex.getCause());
+            return;
+        }
+        if (checkpoint.action == COMMIT) {
+            ack(preparedTuples);
+        }
+        forwardCheckpoint(checkpoint.tuple, checkpoint.action, checkpoint.txid);
+    }
+
     @Override
     protected void handleTuple(Tuple input) {
+        completePendingCheckpoint(false);
+        if (dropTicks && TupleUtils.isTick(input)) {
+            return;
+        }
         if (boltInitialized) {
             doExecute(input);
         } else {
@@ -165,6 +277,22 @@ public class StatefulBoltExecutor<T extends State> extends BaseStatefulBoltExecu
         }
     }
 
+    private static class PendingCheckpoint {
+        private final Tuple tuple;
+        private final Action action;
+        private final long txid;
+        private final long previousTxid;
+        private final CompletableFuture<Void> future;
+
+        PendingCheckpoint(Tuple tuple, Action action, long txid, long previousTxid, CompletableFuture<Void> future) {
+            this.tuple = tuple;
+            this.action = action;
+            this.txid = txid;
+            this.previousTxid = previousTxid;
+            this.future = future;
+        }
+    }
+
     private static class AckTrackingOutputCollector extends AnchoringOutputCollector {
         private final OutputCollector delegate;
         private final Queue<Tuple> ackedTuples;
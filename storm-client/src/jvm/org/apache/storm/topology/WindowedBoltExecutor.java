@@ -360,7 +360,7 @@ public class WindowedBoltExecutor implements IRichBolt {
 
             @Override
             public void onActivation(List<Tuple> tuples, List<Tuple> newTuples, List<Tuple> expiredTuples, Long timestamp) {
-                windowedOutputCollector.setContext(tuples);
+                windowedOutputCollector.setContext(bolt.isIncremental() ? newTuples : tuples);
                 boltExecute(tuples, newTuples, expiredTuples, timestamp);
             }
 
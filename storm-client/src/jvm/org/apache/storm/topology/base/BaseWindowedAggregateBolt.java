@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.topology.base;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import org.apache.storm.streams.operations.CombinerAggregator;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.windowing.PaneAggregator;
+import org.apache.storm.windowing.TupleWindow;
+
+/**
+ * A windowed bolt that aggregates the tuples of each window with a {@link CombinerAggregator}.  The tuples of each activation are
+ * aggregated once, into a pane, and the result of a window is got by merging the panes of the window, so sliding windows that overlap
+ * do not aggregate the same tuples over and over again.  The sliding interval should not be longer than the window length, and
+ * {@link CombinerAggregator#merge(Object, Object)} must not modify its arguments since a pane is merged into more than one window.
+ *
+ * <p>Windows based on event time (with a timestamp field or extractor) can expire tuples out of order, for those each window is
+ * aggregated from all of its tuples.
+ *
+ * @param <A> the accumulator type
+ * @param <R> the result type
+ */
+public abstract class BaseWindowedAggregateBolt<A, R> extends BaseWindowedBolt {
+    private final CombinerAggregator<Tuple, A, R> aggregator;
+    //The tuples of each pane, oldest pane first, without the tuples that already expired.
+    private transient ArrayDeque<ArrayDeque<Tuple>> paneTuples;
+    private transient PaneAggregator<A> panes;
+
+    protected BaseWindowedAggregateBolt(CombinerAggregator<Tuple, A, R> aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    /**
+     * Process the result of aggregating a window.
+     *
+     * @param result      the result of aggregating all of the tuples in the window
+     * @param inputWindow the window
+     */
+    public abstract void execute(R result, TupleWindow inputWindow);
+
+    @Override
+    public final void execute(TupleWindow inputWindow) {
+        if (!isIncremental()) {
+            execute(aggregator.result(aggregate(inputWindow.get())), inputWindow);
+            return;
+        }
+        if (panes == null) {
+            paneTuples = new ArrayDeque<>();
+            panes = new PaneAggregator<>(aggregator::init, aggregator::merge);
+        }
+        expire(inputWindow.getExpired());
+        List<Tuple> newTuples = inputWindow.getNew();
+        if (!newTuples.isEmpty()) {
+            paneTuples.addLast(new ArrayDeque<>(newTuples));
+            panes.addLast(aggregate(newTuples));
+        }
+        execute(aggregator.result(panes.getAggregate()), inputWindow);
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return timestampExtractor == null;
+    }
+
+    private void expire(List<Tuple> expired) {
+        boolean frontChanged = false;
+        for (Tuple tuple : expired) {
+            ArrayDeque<Tuple> front = paneTuples.peekFirst();
+            //Tuples expire in the order they arrived, anything else was never part of a pane.
+            if (front == null || front.peekFirst() != tuple) {
+                continue;
+            }
+            front.pollFirst();
+            frontChanged = true;
+            if (front.isEmpty()) {
+                paneTuples.pollFirst();
+                panes.removeFirst();
+                frontChanged = false;
+            }
+        }
+        if (frontChanged) {
+            panes.replaceFirst(aggregate(paneTuples.peekFirst()));
+        }
+    }
+
+    private A aggregate(Iterable<Tuple> tuples) {
+        A accumulator = aggregator.init();
+        for (Tuple tuple : tuples) {
+            accumulator = aggregator.apply(accumulator, tuple);
+        }
+        return accumulator;
+    }
+}
@@ -21,8 +21,8 @@ import org.apache.storm.trident.tuple.TridentTuple;
 public class FilterNull extends BaseFilter {
     @Override
     public boolean isKeep(TridentTuple tuple) {
-        for (Object o : tuple) {
-            if (o == null) {
+        for (int i = 0; i < tuple.size(); i++) {
+            if (tuple.getValue(i) == null) {
                 return false;
             }
         }
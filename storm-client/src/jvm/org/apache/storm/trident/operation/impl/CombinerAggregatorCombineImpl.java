@@ -17,14 +17,19 @@ import org.apache.storm.trident.operation.Aggregator;
 import org.apache.storm.trident.operation.CombinerAggregator;
 import org.apache.storm.trident.operation.TridentCollector;
 import org.apache.storm.trident.operation.TridentOperationContext;
+import org.apache.storm.trident.operation.builtin.Count;
+import org.apache.storm.trident.operation.builtin.Sum;
 import org.apache.storm.trident.tuple.TridentTuple;
 import org.apache.storm.tuple.Values;
 
 public class CombinerAggregatorCombineImpl implements Aggregator<Result> {
     CombinerAggregator agg;
+    // Count and Sum add up longs, which can be done without boxing each partial result
+    boolean sumsLongs;
 
     public CombinerAggregatorCombineImpl(CombinerAggregator agg) {
         this.agg = agg;
+        sumsLongs = agg.getClass() == Count.class || agg.getClass() == Sum.class;
     }
 
     @Override
@@ -34,7 +39,7 @@ public class CombinerAggregatorCombineImpl implements Aggregator<Result> {
 
     @Override
     public Result init(Object batchId, TridentCollector collector) {
-        Result ret = new Result();
+        Result ret = sumsLongs ? new LongSumResult() : new Result();
         ret.obj = agg.zero();
         return ret;
     }
@@ -42,6 +47,9 @@ public class CombinerAggregatorCombineImpl implements Aggregator<Result> {
     @Override
     public void aggregate(Result val, TridentTuple tuple, TridentCollector collector) {
         Object v = tuple.getValue(0);
+        if (val instanceof LongSumResult && ((LongSumResult) val).add(v)) {
+            return;
+        }
         if (val.obj == null) {
             val.obj = v;
         } else {
@@ -51,11 +59,46 @@ public class CombinerAggregatorCombineImpl implements Aggregator<Result> {
 
     @Override
     public void complete(Result val, TridentCollector collector) {
-        collector.emit(new Values(val.obj));
+        if (val instanceof LongSumResult) {
+            collector.emit(new Values(((LongSumResult) val).get()));
+        } else {
+            collector.emit(new Values(val.obj));
+        }
     }
 
     @Override
     public void cleanup() {
 
     }
+
+    private static class LongSumResult extends Result {
+        long sum;
+        boolean summed;
+        boolean summing = true;
+
+        // adds up the values as long as they are integral, after that the aggregator combines them starting from the sum so far
+        boolean add(Object v) {
+            if (summing && (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte)) {
+                sum += ((Number) v).longValue();
+                summed = true;
+                return true;
+            }
+            if (summing) {
+                summing = false;
+                if (summed) {
+                    obj = sum;
+                }
+            }
+            return false;
+        }
+
+        Object get() {
+            return summing && summed ? sum : obj;
+        }
+
+        @Override
+        public String toString() {
+            return "" + get();
+        }
+    }
 }
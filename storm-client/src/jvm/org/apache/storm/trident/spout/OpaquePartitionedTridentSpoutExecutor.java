@@ -203,6 +203,8 @@ public class OpaquePartitionedTridentSpoutExecutor implements ICommitterTridentS
             for (Entry<String, Object> entry : metas.entrySet()) {
                 partitionStates.get(entry.getKey()).rotatingState.overrideState(txid, entry.getValue());
             }
+            // the batch of the next transaction is read from these, so they must be durable before the commit is acked
+            state.flush();
             LOG.debug("Exiting commit method for transaction {}. [{}]", attempt, this);
         }
 
@@ -0,0 +1,256 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.trident.state.map;
+
+import com.codahale.metrics.Gauge;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.storm.shade.com.google.common.cache.Cache;
+import org.apache.storm.shade.com.google.common.cache.CacheBuilder;
+import org.apache.storm.task.IMetricsContext;
+import org.apache.storm.trident.state.OpaqueValue;
+import org.apache.storm.trident.state.TransactionalValue;
+
+/**
+ * Like {@link CachedMap}, but the cache is shared by all the maps in the worker that are built with the same cache name, so the tasks of
+ * a state that run in one worker read each other's hot keys instead of each keeping its own copy.  Layer it over a map that talks to a
+ * database, and the opaque or transactional map over it.
+ *
+ * <p>The cache is bounded by the total weight of the cached values rather than by their count, see {@link Weigher}.  A key that
+ * missed is only admitted once it has been read at least twice recently, as estimated by a small frequency sketch, so keys that are read
+ * once do not push the hot ones out.  Writes go to the delegate first and then to the cache for the keys that are cached or admitted.
+ * When the values are {@link OpaqueValue}s or {@link TransactionalValue}s a cached value is never replaced by one with an older txid, so
+ * a slow read of the database racing with a newer write cannot bring back an old value.
+ *
+ * <p>Use a different cache name for every state, the cache does not know which state a key belongs to.  Nulls are not cached.
+ */
+public class SharedCachedMap<T> implements IBackingMap<T> {
+    private static final ConcurrentMap<String, SharedCache> CACHES = new ConcurrentHashMap<>();
+
+    private final SharedCache cache;
+    private final IBackingMap<T> delegate;
+
+    private SharedCachedMap(SharedCache cache, IBackingMap<T> delegate) {
+        this.cache = cache;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Layers the worker's cache with the given name over the delegate, creating the cache if it does not exist yet.  Every value weighs
+     * one, so the cache holds up to {@code maxWeight} values.
+     */
+    public static <T> SharedCachedMap<T> build(String cacheName, IBackingMap<T> delegate, long maxWeight) {
+        return build(cacheName, delegate, maxWeight, (key, value) -> 1);
+    }
+
+    /**
+     * Layers the worker's cache with the given name over the delegate, creating the cache if it does not exist yet.  The weight bound and
+     * the weigher only apply when the cache is created, later maps with the same name share it as it is.
+     */
+    public static <T> SharedCachedMap<T> build(String cacheName, IBackingMap<T> delegate, long maxWeight, Weigher<? super T> weigher) {
+        SharedCache cache = CACHES.computeIfAbsent(cacheName, name -> new SharedCache(name, maxWeight, weigher));
+        return new SharedCachedMap<>(cache, delegate);
+    }
+
+    /**
+     * Compares the txids of two versions of a value.
+     *
+     * @return true if the update should replace the cached value, which is when it is not older
+     */
+    static boolean isNotOlder(Object cached, Object update) {
+        Long cachedTxid = txid(cached);
+        Long updateTxid = txid(update);
+        return cachedTxid == null || updateTxid == null || updateTxid >= cachedTxid;
+    }
+
+    private static Long txid(Object value) {
+        if (value instanceof OpaqueValue) {
+            return ((OpaqueValue<?>) value).getCurrTxid();
+        } else if (value instanceof TransactionalValue) {
+            return ((TransactionalValue<?>) value).getTxid();
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> multiGet(List<List<Object>> keys) {
+        cache.sketch.increment(keys);
+        Map<List<Object>, Object> cached = cache.values.getAllPresent(keys);
+        List<T> ret = new ArrayList<>(keys.size());
+        if (cached.size() == keys.size()) {
+            for (List<Object> key : keys) {
+                ret.add((T) cached.get(key));
+            }
+            return ret;
+        }
+
+        List<List<Object>> toGet = new ArrayList<>(keys.size() - cached.size());
+        for (List<Object> key : keys) {
+            if (!cached.containsKey(key)) {
+                toGet.add(key);
+            }
+        }
+        List<T> fetchedVals = delegate.multiGet(toGet);
+        int fetched = 0;
+        for (List<Object> key : keys) {
+            Object val = cached.get(key);
+            if (val == null) {
+                val = fetchedVals.get(fetched++);
+                if (val != null && cache.sketch.isFrequent(key)) {
+                    cache.merge(key, val);
+                }
+            }
+            ret.add((T) val);
+        }
+        return ret;
+    }
+
+    @Override
+    public void multiPut(List<List<Object>> keys, List<T> vals) {
+        try {
+            delegate.multiPut(keys, vals);
+        } catch (RuntimeException e) {
+            // some of the values may have been written, so the cached ones can no longer be trusted
+            cache.values.invalidateAll(keys);
+            throw e;
+        }
+        ConcurrentMap<List<Object>, Object> values = cache.values.asMap();
+        for (int i = 0; i < keys.size(); i++) {
+            List<Object> key = keys.get(i);
+            T val = vals.get(i);
+            if (val == null) {
+                values.remove(key);
+            } else if (values.containsKey(key) || cache.sketch.isFrequent(key)) {
+                cache.merge(key, val);
+            }
+        }
+    }
+
+    /**
+     * Registers gauges with the hit ratio, hits, misses, evictions and size of the shared cache.  The numbers are for the whole cache, not
+     * just the calls made through this map.
+     */
+    public void registerMetrics(IMetricsContext metrics) {
+        String prefix = "sharedCache." + cache.name + ".";
+        metrics.registerGauge(prefix + "hitRatio", (Gauge<Double>) () -> cache.values.stats().hitRate());
+        metrics.registerGauge(prefix + "hits", (Gauge<Long>) () -> cache.values.stats().hitCount());
+        metrics.registerGauge(prefix + "misses", (Gauge<Long>) () -> cache.values.stats().missCount());
+        metrics.registerGauge(prefix + "evictions", (Gauge<Long>) () -> cache.values.stats().evictionCount());
+        metrics.registerGauge(prefix + "size", (Gauge<Long>) cache.values::size);
+    }
+
+    /**
+     * Gives the weight of a cached value, as counted against the maximum weight of the cache.
+     */
+    @FunctionalInterface
+    public interface Weigher<T> extends Serializable {
+        int weigh(List<Object> key, T value);
+    }
+
+    private static final class SharedCache {
+        private final String name;
+        private final Cache<List<Object>, Object> values;
+        private final FrequencySketch sketch;
+
+        @SuppressWarnings("unchecked")
+        SharedCache(String name, long maxWeight, Weigher<?> weigher) {
+            Weigher<Object> w = (Weigher<Object>) weigher;
+            this.name = name;
+            this.values = CacheBuilder.newBuilder()
+                                      .maximumWeight(maxWeight)
+                                      .weigher((List<Object> key, Object value) -> w.weigh(key, value))
+                                      .recordStats()
+                                      .build();
+            this.sketch = new FrequencySketch(maxWeight);
+        }
+
+        void merge(List<Object> key, Object val) {
+            values.asMap().merge(key, val, (cached, update) -> isNotOlder(cached, update) ? update : cached);
+        }
+    }
+
+    /**
+     * A count-min sketch of how often the keys were read.  The counts are halved every so often, so that it follows what is read now and
+     * not what was read since the worker started.
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = { 0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F };
+        private static final int MIN_WIDTH = 16;
+        private static final int MAX_WIDTH = 1 << 18;
+        private static final int MAX_COUNT = 15;
+        private static final int ADMIT_COUNT = 2;
+
+        private final int[][] counts;
+        private final int mask;
+        private final int resetAfter;
+        private int additions;
+
+        FrequencySketch(long expectedEntries) {
+            int width = MIN_WIDTH;
+            while (width < expectedEntries && width < MAX_WIDTH) {
+                width <<= 1;
+            }
+            counts = new int[DEPTH][width];
+            mask = width - 1;
+            resetAfter = 10 * width;
+        }
+
+        synchronized void increment(List<List<Object>> keys) {
+            for (List<Object> key : keys) {
+                int hash = key.hashCode();
+                for (int i = 0; i < DEPTH; i++) {
+                    int idx = index(hash, i);
+                    if (counts[i][idx] < MAX_COUNT) {
+                        counts[i][idx]++;
+                    }
+                }
+                if (++additions >= resetAfter) {
+                    halve();
+                }
+            }
+        }
+
+        synchronized int frequency(Object key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, counts[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        boolean isFrequent(Object key) {
+            return frequency(key) >= ADMIT_COUNT;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void halve() {
+            for (int[] row : counts) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.storm.trident.spout.ITridentSpout;
 import org.apache.storm.trident.topology.state.TransactionalState;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.ObjectReader;
 import org.apache.storm.utils.WindowedTimeThrottler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +48,7 @@ public class MasterBatchCoordinator extends BaseRichSpout {
     TreeMap<Long, Integer> attemptIds;
     Long currTransaction;
     int maxTransactionActive;
+    int maxAwaitingCommit;
     List<ITridentSpout.BatchCoordinator> coordinators = new ArrayList();
     List<String> managedSpoutIds;
     List<ITridentSpout> spouts;
@@ -94,6 +96,7 @@ public class MasterBatchCoordinator extends BaseRichSpout {
             maxTransactionActive = active.intValue();
         }
         attemptIds = getStoredCurrAttempts(currTransaction, maxTransactionActive);
+        maxAwaitingCommit = ObjectReader.getInt(conf.get(Config.TOPOLOGY_TRIDENT_BATCH_MAX_AWAITING_COMMIT), Integer.MAX_VALUE);
 
 
         for (int i = 0; i < spouts.size(); i++) {
@@ -133,6 +136,10 @@ public class MasterBatchCoordinator extends BaseRichSpout {
                 for (TransactionalState state : states) {
                     state.setData(CURRENT_TX, currTransaction);
                 }
+                // the next commit must not be issued before a restart is sure to resume after this one
+                for (TransactionalState state : states) {
+                    state.flush();
+                }
                 LOG.debug("Emitted on [stream = {}], [tx_attempt = {}], [tx_status = {}], [{}]", SUCCESS_STREAM_ID, tx, status, this);
             }
             sync();
@@ -172,7 +179,7 @@ public class MasterBatchCoordinator extends BaseRichSpout {
         }
 
         if (active) {
-            if (activeTx.size() < maxTransactionActive) {
+            if (activeTx.size() < maxTransactionActive && getAwaitingCommitCount() < maxAwaitingCommit) {
                 Long curr = currTransaction;
                 for (int i = 0; i < maxTransactionActive; i++) {
                     if (!activeTx.containsKey(curr) && isReady(curr)) {
@@ -204,6 +211,17 @@ public class MasterBatchCoordinator extends BaseRichSpout {
         }
     }
 
+    // the batches that are processed and wait for the commit of the earlier ones
+    private int getAwaitingCommitCount() {
+        int count = 0;
+        for (TransactionStatus status : activeTx.values()) {
+            if (status.status == AttemptStatus.PROCESSED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private boolean isReady(long txid) {
         if (throttler.isThrottled()) {
             return false;
@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.trident.topology.state;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.apache.storm.shade.org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.storm.shade.org.apache.zookeeper.CreateMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ZkTransactionalStateStore} that does not wait for the writes to ZooKeeper.  The writes and deletes are queued and a
+ * background thread sends all the queued ones in a single ZooKeeper transaction, so a path that is written again before its previous
+ * value was sent is written once.  Reads see the queued writes, and {@link #flush()} waits until they are durable.
+ *
+ * <p>Only the attempt ids of the master coordinator and the batch metadata of the spout coordinators are left queued.  The master
+ * coordinator flushes the current transaction before it issues the next commit, and the opaque partitioned emitters flush the
+ * partition metadata before they ack a commit, so a restart never resumes before a committed transaction.  When a worker dies the
+ * queued attempt ids and batch metadata of the uncommitted transactions can be lost, and those transactions are replayed with new
+ * metadata.  Opaque spouts and states allow this, transactional ones do not, so only use this store with opaque spouts.
+ */
+public class BatchingZkTransactionalStateStore extends ZkTransactionalStateStore {
+    private static final Logger LOG = LoggerFactory.getLogger(BatchingZkTransactionalStateStore.class);
+    private static final long RETRY_INTERVAL_MS = 1000;
+    private final Object lock = new Object();
+    // the queued writes by path in the order they were last queued, empty for a delete
+    private Map<String, Optional<byte[]>> pending = new LinkedHashMap<>();
+    // the writes that are being sent
+    private Map<String, Optional<byte[]>> inFlight = Collections.emptyMap();
+    // the paths known to exist, which are set instead of created in the transactions
+    private final Set<String> existing = new HashSet<>();
+    // the number of writes queued so far, and the number of those that are durable
+    private long queuedCount;
+    private long writtenCount;
+    private boolean closed;
+    private Thread writer;
+
+    @Override
+    public void prepare(Map<String, Object> conf, String id, String subroot) {
+        super.prepare(conf, id, subroot);
+        startWriter("transactional-state-writer-" + id + "-" + subroot);
+    }
+
+    void startWriter(String name) {
+        writer = new Thread(this::writeLoop, name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void setData(String path, byte[] data) {
+        enqueue(path, Optional.of(data));
+    }
+
+    @Override
+    public void delete(String path) {
+        enqueue(path, Optional.empty());
+    }
+
+    @Override
+    public byte[] getData(String path) {
+        synchronized (lock) {
+            Optional<byte[]> queued = pending.containsKey(path) ? pending.get(path) : inFlight.get(path);
+            if (queued != null) {
+                return queued.orElse(null);
+            }
+        }
+        return super.getData(path);
+    }
+
+    @Override
+    public List<String> list(String path) {
+        Set<String> children = new LinkedHashSet<>(super.list(path));
+        synchronized (lock) {
+            applyQueued(children, path, inFlight);
+            applyQueued(children, path, pending);
+        }
+        return new ArrayList<>(children);
+    }
+
+    @Override
+    public void flush() {
+        synchronized (lock) {
+            long target = queuedCount;
+            while (writtenCount < target) {
+                if (closed) {
+                    throw new IllegalStateException("The transactional state was closed before its writes were flushed");
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.close();
+    }
+
+    private void enqueue(String path, Optional<byte[]> data) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("The transactional state is closed");
+            }
+            // a path written again moves to the end, so the writes of a transaction keep the order of their latest operations
+            pending.remove(path);
+            pending.put(path, data);
+            queuedCount++;
+            lock.notifyAll();
+        }
+    }
+
+    private static void applyQueued(Set<String> children, String path, Map<String, Optional<byte[]>> queued) {
+        String prefix = path.endsWith("/") ? path : path + "/";
+        for (Map.Entry<String, Optional<byte[]>> entry : queued.entrySet()) {
+            String child = entry.getKey();
+            if (child.startsWith(prefix) && child.indexOf('/', prefix.length()) < 0) {
+                if (entry.getValue().isPresent()) {
+                    children.add(child.substring(prefix.length()));
+                } else {
+                    children.remove(child.substring(prefix.length()));
+                }
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            long sent;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    waitOnLock(0);
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                inFlight = pending;
+                pending = new LinkedHashMap<>();
+                sent = queuedCount;
+            }
+            boolean written = write(inFlight);
+            synchronized (lock) {
+                if (written) {
+                    writtenCount = sent;
+                    lock.notifyAll();
+                } else {
+                    if (closed) {
+                        LOG.error("Dropping {} transactional state writes on close", inFlight.size());
+                        lock.notifyAll();
+                    } else {
+                        // retry the writes that were not queued again since
+                        Map<String, Optional<byte[]>> retry = new LinkedHashMap<>(inFlight);
+                        retry.keySet().removeAll(pending.keySet());
+                        retry.putAll(pending);
+                        pending = retry;
+                        waitOnLock(RETRY_INTERVAL_MS);
+                    }
+                }
+                inFlight = Collections.emptyMap();
+            }
+        }
+    }
+
+    private void waitOnLock(long timeoutMs) {
+        try {
+            lock.wait(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+
+    boolean write(Map<String, Optional<byte[]>> writes) {
+        try {
+            writeInTransaction(writes);
+            return true;
+        } catch (Exception e) {
+            LOG.debug("Transaction of {} writes failed, writing them one by one", writes.size(), e);
+        }
+        // e.g. a path was created or deleted elsewhere
+        try {
+            for (Map.Entry<String, Optional<byte[]>> entry : writes.entrySet()) {
+                if (entry.getValue().isPresent()) {
+                    super.setData(entry.getKey(), entry.getValue().get());
+                    existing.add(entry.getKey());
+                } else {
+                    super.delete(entry.getKey());
+                    existing.remove(entry.getKey());
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to write the transactional state, retrying in {} ms", RETRY_INTERVAL_MS, e);
+            return false;
+        }
+    }
+
+    private void writeInTransaction(Map<String, Optional<byte[]>> writes) throws Exception {
+        List<CuratorOp> ops = new ArrayList<>(writes.size());
+        for (Map.Entry<String, Optional<byte[]>> entry : writes.entrySet()) {
+            String path = entry.getKey();
+            if (!entry.getValue().isPresent()) {
+                ops.add(curator.transactionOp().delete().forPath(path));
+            } else if (existing.contains(path)) {
+                ops.add(curator.transactionOp().setData().forPath(path, entry.getValue().get()));
+            } else {
+                ops.add(curator.transactionOp().create().withMode(CreateMode.PERSISTENT).withACL(zkAcls)
+                               .forPath(path, entry.getValue().get()));
+            }
+        }
+        curator.transaction().forOperations(ops);
+        for (Map.Entry<String, Optional<byte[]>> entry : writes.entrySet()) {
+            if (entry.getValue().isPresent()) {
+                existing.add(entry.getKey());
+            } else {
+                existing.remove(entry.getKey());
+            }
+        }
+    }
+}
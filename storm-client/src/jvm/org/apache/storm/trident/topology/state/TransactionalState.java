@@ -13,65 +13,41 @@
 package org.apache.storm.trident.topology.state;
 
 import java.io.UnsupportedEncodingException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.storm.Config;
-import org.apache.storm.cluster.DaemonType;
 import org.apache.storm.shade.org.apache.curator.framework.CuratorFramework;
 import org.apache.storm.shade.org.apache.curator.framework.api.PathAndBytesable;
 import org.apache.storm.shade.org.apache.curator.framework.api.ProtectACLCreateModePathAndBytesable;
 import org.apache.storm.shade.org.apache.zookeeper.CreateMode;
-import org.apache.storm.shade.org.apache.zookeeper.KeeperException;
 import org.apache.storm.shade.org.apache.zookeeper.data.ACL;
 import org.apache.storm.shade.org.json.simple.JSONValue;
 import org.apache.storm.shade.org.json.simple.parser.ParseException;
-import org.apache.storm.utils.CuratorUtils;
-import org.apache.storm.utils.Utils;
-import org.apache.storm.utils.ZookeeperAuthInfo;
+import org.apache.storm.utils.ReflectionUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Class that contains the logic to extract the transactional state info from zookeeper. All transactional state is kept in zookeeper. This
- * class only contains references to Curator, which is used to get all info from zookeeper.
+ * Class that contains the logic to keep the transactional state info: the current transaction and attempts of the coordinators and the
+ * metadata of the spouts.  The values are kept as JSON in a {@link TransactionalStateStore}, ZooKeeper by default, see
+ * {@link Config#TRANSACTIONAL_STATE_STORE}.
  */
 public class TransactionalState {
     private static final Logger LOG = LoggerFactory.getLogger(TransactionalState.class);
 
-    CuratorFramework curator;
-    List<ACL> zkAcls = null;
+    TransactionalStateStore store;
 
     protected TransactionalState(Map<String, Object> conf, String id, String subroot) {
-        try {
-            conf = new HashMap<>(conf);
-            String transactionalRoot = (String) conf.get(Config.TRANSACTIONAL_ZOOKEEPER_ROOT);
-            String rootDir = transactionalRoot + "/" + id + "/" + subroot;
-            List<String> servers =
-                (List<String>) getWithBackup(conf, Config.TRANSACTIONAL_ZOOKEEPER_SERVERS, Config.STORM_ZOOKEEPER_SERVERS);
-            Object port = getWithBackup(conf, Config.TRANSACTIONAL_ZOOKEEPER_PORT, Config.STORM_ZOOKEEPER_PORT);
-            ZookeeperAuthInfo auth = new ZookeeperAuthInfo(conf);
-            CuratorFramework initter = CuratorUtils.newCuratorStarted(conf, servers, port, auth, DaemonType.WORKER.getDefaultZkAcls(conf));
-            zkAcls = Utils.getWorkerACL(conf);
-            try {
-                TransactionalState.createNode(initter, transactionalRoot, null, null, null);
-            } catch (KeeperException.NodeExistsException e) {
-                //ignore
-            }
-            try {
-                TransactionalState.createNode(initter, rootDir, null, zkAcls, null);
-            } catch (KeeperException.NodeExistsException e) {
-                //ignore
-            }
-            initter.close();
-
-            curator = CuratorUtils.newCuratorStarted(conf, servers, port, rootDir, auth, DaemonType.WORKER.getDefaultZkAcls(conf));
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        String storeClass = (String) conf.get(Config.TRANSACTIONAL_STATE_STORE);
+        if (storeClass == null) {
+            store = new ZkTransactionalStateStore();
+        } else {
+            store = ReflectionUtils.newInstance(storeClass);
         }
+        LOG.debug("Using {} for the {} state of {}", store.getClass().getName(), subroot, id);
+        store.prepare(conf, id, subroot);
     }
 
     public static TransactionalState newUserState(Map<String, Object> conf, String id) {
@@ -119,46 +95,20 @@ public class TransactionalState {
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
-        try {
-            if (curator.checkExists().forPath(path) != null) {
-                curator.setData().forPath(path, ser);
-            } else {
-                TransactionalState.createNode(curator, path, ser, zkAcls,
-                                              CreateMode.PERSISTENT);
-            }
-        } catch (KeeperException.NodeExistsException nne) {
-            LOG.warn("Node {} already created.", path);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        store.setData(path, ser);
     }
 
     public void delete(String path) {
         path = "/" + path;
-        try {
-            curator.delete().forPath(path);
-        } catch (KeeperException.NoNodeException nne) {
-            LOG.warn("Path {} already deleted.", path);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        store.delete(path);
         LOG.debug("Deleted [path = {}]", path);
     }
 
     public List<String> list(String path) {
         path = "/" + path;
-        try {
-            List<String> children;
-            if (curator.checkExists().forPath(path) == null) {
-                children = new ArrayList<>();
-            } else {
-                children = curator.getChildren().forPath(path);
-            }
-            LOG.debug("List [path = {}], [children = {}]", path, children);
-            return children;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        List<String> children = store.list(path);
+        LOG.debug("List [path = {}], [children = {}]", path, children);
+        return children;
     }
 
     public void mkdir(String path) {
@@ -169,13 +119,14 @@ public class TransactionalState {
         path = "/" + path;
         try {
             Object data;
-            if (curator.checkExists().forPath(path) != null) {
+            byte[] ser = store.getData(path);
+            if (ser != null) {
                 // Use parseWithException instead of parse so we can capture deserialization errors in the log.
                 // They are likely to be bugs in the spout code.
                 try {
-                    data = JSONValue.parseWithException(new String(curator.getData().forPath(path), "UTF-8"));
+                    data = JSONValue.parseWithException(new String(ser, "UTF-8"));
                 } catch (ParseException e) {
-                    LOG.warn("Failed to deserialize zookeeper data for path {}", path, e);
+                    LOG.warn("Failed to deserialize transactional state data for path {}", path, e);
                     data = null;
                 }
             } else {
@@ -183,20 +134,19 @@ public class TransactionalState {
             }
             LOG.debug("Get. [path = {}] => [data = {}]", path, data);
             return data;
-        } catch (Exception e) {
+        } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public void close() {
-        curator.close();
+    /**
+     * Waits until the writes and deletes made so far are durable.
+     */
+    public void flush() {
+        store.flush();
     }
 
-    private Object getWithBackup(Map<String, Object> amap, String primary, String backup) {
-        Object ret = amap.get(primary);
-        if (ret == null) {
-            return amap.get(backup);
-        }
-        return ret;
+    public void close() {
+        store.close();
     }
 }
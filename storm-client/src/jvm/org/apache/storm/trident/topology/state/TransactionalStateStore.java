@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.trident.topology.state;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The storage behind a {@link TransactionalState}.  The data is kept under '/' separated paths, which start with a '/', and a path can
+ * both hold data and have children.  The implementation is chosen with {@link org.apache.storm.Config#TRANSACTIONAL_STATE_STORE} and
+ * must have a no-arg constructor.
+ */
+public interface TransactionalStateStore {
+    /**
+     * Opens the store of the given transactional state.
+     *
+     * @param conf    the topology configuration
+     * @param id      the id of the transactional state, e.g. the spout id
+     * @param subroot the kind of state, e.g. "coordinator" or "user"
+     */
+    void prepare(Map<String, Object> conf, String id, String subroot);
+
+    /**
+     * Sets the data of the path, creating it and its parents if needed.
+     */
+    void setData(String path, byte[] data);
+
+    /**
+     * Returns the data of the path, or null if it does not exist.
+     */
+    byte[] getData(String path);
+
+    /**
+     * Deletes the path, which must not have children.  Deleting a path that does not exist is a no-op.
+     */
+    void delete(String path);
+
+    /**
+     * Returns the names of the children of the path, or an empty list if it does not exist.
+     */
+    List<String> list(String path);
+
+    /**
+     * Waits until the writes and deletes made so far are durable.  A store that writes synchronously has nothing to do.
+     */
+    default void flush() {
+    }
+
+    void close();
+}
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.trident.topology.state;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.storm.Config;
+import org.apache.storm.cluster.DaemonType;
+import org.apache.storm.shade.org.apache.curator.framework.CuratorFramework;
+import org.apache.storm.shade.org.apache.zookeeper.CreateMode;
+import org.apache.storm.shade.org.apache.zookeeper.KeeperException;
+import org.apache.storm.shade.org.apache.zookeeper.data.ACL;
+import org.apache.storm.utils.CuratorUtils;
+import org.apache.storm.utils.Utils;
+import org.apache.storm.utils.ZookeeperAuthInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the transactional state in ZooKeeper, under {@code <transactional.zookeeper.root>/<id>/<subroot>}.  This is the default
+ * {@link TransactionalStateStore}.
+ */
+public class ZkTransactionalStateStore implements TransactionalStateStore {
+    private static final Logger LOG = LoggerFactory.getLogger(ZkTransactionalStateStore.class);
+
+    protected CuratorFramework curator;
+    protected List<ACL> zkAcls = null;
+
+    @Override
+    public void prepare(Map<String, Object> conf, String id, String subroot) {
+        try {
+            conf = new HashMap<>(conf);
+            String transactionalRoot = (String) conf.get(Config.TRANSACTIONAL_ZOOKEEPER_ROOT);
+            String rootDir = transactionalRoot + "/" + id + "/" + subroot;
+            List<String> servers =
+                (List<String>) getWithBackup(conf, Config.TRANSACTIONAL_ZOOKEEPER_SERVERS, Config.STORM_ZOOKEEPER_SERVERS);
+            Object port = getWithBackup(conf, Config.TRANSACTIONAL_ZOOKEEPER_PORT, Config.STORM_ZOOKEEPER_PORT);
+            ZookeeperAuthInfo auth = new ZookeeperAuthInfo(conf);
+            CuratorFramework initter = CuratorUtils.newCuratorStarted(conf, servers, port, auth, DaemonType.WORKER.getDefaultZkAcls(conf));
+            zkAcls = Utils.getWorkerACL(conf);
+            try {
+                TransactionalState.createNode(initter, transactionalRoot, null, null, null);
+            } catch (KeeperException.NodeExistsException e) {
+                //ignore
+            }
+            try {
+                TransactionalState.createNode(initter, rootDir, null, zkAcls, null);
+            } catch (KeeperException.NodeExistsException e) {
+                //ignore
+            }
+            initter.close();
+
+            curator = CuratorUtils.newCuratorStarted(conf, servers, port, rootDir, auth, DaemonType.WORKER.getDefaultZkAcls(conf));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // the node usually exists, so it is set right away and only created when that fails
+    @Override
+    public void setData(String path, byte[] data) {
+        try {
+            try {
+                curator.setData().forPath(path, data);
+            } catch (KeeperException.NoNodeException e) {
+                TransactionalState.createNode(curator, path, data, zkAcls, CreateMode.PERSISTENT);
+            }
+        } catch (KeeperException.NodeExistsException nne) {
+            LOG.warn("Node {} already created.", path);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public byte[] getData(String path) {
+        try {
+            return curator.getData().forPath(path);
+        } catch (KeeperException.NoNodeException e) {
+            return null;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void delete(String path) {
+        try {
+            curator.delete().forPath(path);
+        } catch (KeeperException.NoNodeException nne) {
+            LOG.warn("Path {} already deleted.", path);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<String> list(String path) {
+        try {
+            return curator.getChildren().forPath(path);
+        } catch (KeeperException.NoNodeException e) {
+            return new ArrayList<>();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        curator.close();
+    }
+
+    private Object getWithBackup(Map<String, Object> amap, String primary, String backup) {
+        Object ret = amap.get(primary);
+        if (ret == null) {
+            return amap.get(backup);
+        }
+        return ret;
+    }
+}
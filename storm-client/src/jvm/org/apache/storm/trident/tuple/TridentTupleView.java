@@ -15,6 +15,7 @@ package org.apache.storm.trident.tuple;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -31,12 +32,19 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
     private final ValuePointer[] index;
     private final Map<String, ValuePointer> fieldIndex;
     private final List<List<Object>> delegates;
+    private Fields fields;
 
     // index and fieldIndex are precomputed, delegates built up over many operations using persistent data structures
     public TridentTupleView(List delegates, ValuePointer[] index, Map<String, ValuePointer> fieldIndex) {
+        this(delegates, index, fieldIndex, null);
+    }
+
+    // the fields are precomputed by the factories as well, so that they are not built again for each tuple
+    TridentTupleView(List delegates, ValuePointer[] index, Map<String, ValuePointer> fieldIndex, Fields fields) {
         this.delegates = delegates;
         this.index = index;
         this.fieldIndex = fieldIndex;
+        this.fields = fields;
     }
 
     private static List<String> indexToFieldsList(ValuePointer[] index) {
@@ -74,7 +82,10 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
 
     @Override
     public Fields getFields() {
-        return new Fields(indexToFieldsList(index));
+        if (fields == null) {
+            fields = new Fields(indexToFieldsList(index));
+        }
+        return fields;
     }
 
     @Override
@@ -200,6 +211,9 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
         Map<String, ValuePointer> fieldIndex;
         ValuePointer[] index;
         Factory parent;
+        Fields outputFields;
+        // projecting all the fields of the parent in the same order gives back the parent tuple
+        boolean identity;
 
         public ProjectionFactory(Factory parent, Fields projectFields) {
             this.parent = parent;
@@ -212,13 +226,17 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
                 fieldIndex.put(f, parentFieldIndex.get(f));
             }
             index = ValuePointer.buildIndex(projectFields, fieldIndex);
+            outputFields = new Fields(indexToFieldsList(index));
+            identity = index.length > 0 && outputFields.toList().equals(parent.getOutputFields());
         }
 
         public TridentTuple create(TridentTuple parent) {
             if (index.length == 0) {
                 return EMPTY_TUPLE;
+            } else if (identity) {
+                return parent;
             } else {
-                return new TridentTupleView(((TridentTupleView) parent).delegates, index, fieldIndex);
+                return new TridentTupleView(((TridentTupleView) parent).delegates, index, fieldIndex, outputFields);
             }
         }
 
@@ -241,6 +259,7 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
     public static class FreshOutputFactory implements Factory {
         Map<String, ValuePointer> fieldIndex;
         ValuePointer[] index;
+        Fields outputFields;
 
         public FreshOutputFactory(Fields selfFields) {
             fieldIndex = new HashMap<>();
@@ -249,10 +268,11 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
                 fieldIndex.put(field, new ValuePointer(0, i, field));
             }
             index = ValuePointer.buildIndex(selfFields, fieldIndex);
+            outputFields = new Fields(indexToFieldsList(index));
         }
 
         public TridentTuple create(List<Object> selfVals) {
-            return new TridentTupleView(Arrays.asList(selfVals), index, fieldIndex);
+            return new TridentTupleView(Collections.singletonList(selfVals), index, fieldIndex, outputFields);
         }
 
         @Override
@@ -275,6 +295,7 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
         Map<String, ValuePointer> fieldIndex;
         ValuePointer[] index;
         Factory parent;
+        Fields outputFields;
 
         public OperationOutputFactory(Factory parent, Fields selfFields) {
             this.parent = parent;
@@ -296,13 +317,15 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
                 myOrder.add(f);
             }
 
-            index = ValuePointer.buildIndex(new Fields(myOrder), fieldIndex);
+            outputFields = new Fields(myOrder);
+            index = ValuePointer.buildIndex(outputFields, fieldIndex);
         }
 
         public TridentTuple create(TridentTupleView parent, List<Object> selfVals) {
-            List<List<Object>> curr = new ArrayList<>(parent.delegates);
+            List<List<Object>> curr = new ArrayList<>(parent.delegates.size() + 1);
+            curr.addAll(parent.delegates);
             curr.add(selfVals);
-            return new TridentTupleView(curr, index, fieldIndex);
+            return new TridentTupleView(curr, index, fieldIndex, outputFields);
         }
 
         @Override
@@ -324,6 +347,7 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
     public static class RootFactory implements Factory {
         ValuePointer[] index;
         Map<String, ValuePointer> fieldIndex;
+        Fields outputFields;
 
         public RootFactory(Fields inputFields) {
             index = new ValuePointer[inputFields.size()];
@@ -333,10 +357,11 @@ public class TridentTupleView extends AbstractList<Object> implements TridentTup
                 i++;
             }
             fieldIndex = ValuePointer.buildFieldIndex(index);
+            outputFields = new Fields(indexToFieldsList(index));
         }
 
         public TridentTuple create(Tuple parent) {
-            return new TridentTupleView(Arrays.asList(parent.getValues()), index, fieldIndex);
+            return new TridentTupleView(Collections.singletonList(parent.getValues()), index, fieldIndex, outputFields);
         }
 
         @Override
@@ -45,6 +45,7 @@ public class LocalState {
     public static final String LS_ID = "supervisor-id";
     public static final String LS_LOCAL_ASSIGNMENTS = "local-assignments";
     public static final String LS_APPROVED_WORKERS = "approved-workers";
+    public static final String LS_PREWARMED_WORKERS = "prewarmed-workers";
     public static final String LS_TOPO_HISTORY = "topo-hist";
     private VersionedStore versionedStore;
 
@@ -228,6 +229,18 @@ public class LocalState {
         put(LS_APPROVED_WORKERS, new LSApprovedWorkers(approvedWorkers));
     }
 
+    public Map<String, Integer> getPrewarmedWorkers() {
+        LSApprovedWorkers lsPrewarmedWorkers = (LSApprovedWorkers) get(LS_PREWARMED_WORKERS);
+        if (null != lsPrewarmedWorkers) {
+            return lsPrewarmedWorkers.get_approved_workers();
+        }
+        return null;
+    }
+
+    public void setPrewarmedWorkers(Map<String, Integer> prewarmedWorkers) {
+        put(LS_PREWARMED_WORKERS, new LSApprovedWorkers(prewarmedWorkers));
+    }
+
     public LSWorkerHeartbeat getWorkerHeartBeat() {
         return (LSWorkerHeartbeat) get(LS_WORKER_HEARTBEAT);
     }
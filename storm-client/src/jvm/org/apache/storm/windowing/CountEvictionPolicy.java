@@ -73,6 +73,11 @@ public class CountEvictionPolicy<T> implements EvictionPolicy<T, Long> {
                 + '}';
     }
 
+    @Override
+    public boolean isArrivalOrdered() {
+        return true;
+    }
+
     @Override
     public void reset() {
         // NOOP
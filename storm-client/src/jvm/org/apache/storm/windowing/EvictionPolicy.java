@@ -67,6 +67,17 @@ public interface EvictionPolicy<T, S> {
      */
     void restoreState(S state);
 
+    /**
+     * Whether events only ever expire from the head of the queue, and every event from the head up to the first one that is not processed
+     * in the current window is in the window.  If so the {@link WindowManager} can move the boundaries of the window forward as events are
+     * added and expired, instead of scanning all of the events on every activation.
+     *
+     * @return true if the window is always a contiguous run of the events in the order they were added
+     */
+    default boolean isArrivalOrdered() {
+        return false;
+    }
+
     /**
      * The action to be taken when {@link EvictionPolicy#evict(Event)} is invoked.
      */
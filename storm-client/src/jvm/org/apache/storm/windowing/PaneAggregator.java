@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.windowing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Combines the partial aggregates of the panes of a sliding window, where panes are added at the end and removed from the start as the
+ * window slides.  Uses two stacks, so adding and removing panes and getting the aggregate of the whole window takes amortized constant
+ * merges, instead of merging every pane of the window each time it slides.  Merging does not have to be commutative, panes are always
+ * merged oldest first.
+ *
+ * <p>The merge function must not modify its arguments, partial aggregates are merged more than once.  An optional merge into function
+ * may modify and return its first argument, it is only called with an aggregate the pane aggregator owns, to add the newest panes.  So the
+ * aggregate returned by {@link #getAggregate()} may change on the next call to {@link #addLast(Object)}.
+ *
+ * @param <A> the type of the partial aggregates
+ */
+public class PaneAggregator<A> {
+    private final Supplier<A> identity;
+    private final BinaryOperator<A> merge;
+    private final BinaryOperator<A> mergeInto;
+    //The oldest panes, oldest on top, each with the aggregate of itself and the newer panes below it.
+    private final Deque<A> frontPanes = new ArrayDeque<>();
+    private final Deque<A> frontAggregates = new ArrayDeque<>();
+    //The newest panes, oldest first, and their aggregate.
+    private final Deque<A> backPanes = new ArrayDeque<>();
+    private A backAggregate;
+
+    /**
+     * Create a new pane aggregator.
+     *
+     * @param identity supplies the aggregate of no values
+     * @param merge    merges the aggregate of older values with the aggregate of newer values
+     */
+    public PaneAggregator(Supplier<A> identity, BinaryOperator<A> merge) {
+        this(identity, merge, merge);
+    }
+
+    /**
+     * Create a new pane aggregator that adds new panes to the aggregate in place.
+     *
+     * @param identity  supplies the aggregate of no values
+     * @param merge     merges the aggregate of older values with the aggregate of newer values
+     * @param mergeInto merges the aggregate of newer values into the aggregate of older values, and returns it
+     */
+    public PaneAggregator(Supplier<A> identity, BinaryOperator<A> merge, BinaryOperator<A> mergeInto) {
+        this.identity = identity;
+        this.merge = merge;
+        this.mergeInto = mergeInto;
+        this.backAggregate = identity.get();
+    }
+
+    /**
+     * Add the newest pane.
+     *
+     * @param partial the aggregate of the values in the pane
+     */
+    public void addLast(A partial) {
+        backPanes.addLast(partial);
+        backAggregate = mergeInto.apply(backAggregate, partial);
+    }
+
+    /**
+     * Remove the oldest pane.
+     *
+     * @throws java.util.NoSuchElementException if there are no panes
+     */
+    public void removeFirst() {
+        flipIfNeeded();
+        frontPanes.pop();
+        frontAggregates.pop();
+    }
+
+    /**
+     * Replace the aggregate of the oldest pane, e.g. because some of its values expired.
+     *
+     * @param partial the new aggregate of the values in the pane
+     * @throws java.util.NoSuchElementException if there are no panes
+     */
+    public void replaceFirst(A partial) {
+        removeFirst();
+        frontAggregates.push(frontAggregates.isEmpty() ? partial : merge.apply(partial, frontAggregates.peek()));
+        frontPanes.push(partial);
+    }
+
+    /**
+     * Get the aggregate of all of the panes.
+     *
+     * @return the aggregate
+     */
+    public A getAggregate() {
+        if (frontAggregates.isEmpty()) {
+            return backAggregate;
+        }
+        return backPanes.isEmpty() ? frontAggregates.peek() : merge.apply(frontAggregates.peek(), backAggregate);
+    }
+
+    public int size() {
+        return frontPanes.size() + backPanes.size();
+    }
+
+    private void flipIfNeeded() {
+        if (!frontPanes.isEmpty()) {
+            return;
+        }
+        while (!backPanes.isEmpty()) {
+            A partial = backPanes.removeLast();
+            frontAggregates.push(frontAggregates.isEmpty() ? partial : merge.apply(partial, frontAggregates.peek()));
+            frontPanes.push(partial);
+        }
+        backAggregate = identity.get();
+    }
+}
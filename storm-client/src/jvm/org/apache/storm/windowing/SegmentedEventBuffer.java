@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.windowing;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An append only sequence of events, addressed by their absolute position since the buffer was created.  Events are stored in fixed size
+ * segments that are never overwritten, so a range of the buffer can be handed out as a list without copying it, and the list stays valid
+ * after the events are removed from the head of the buffer.
+ *
+ * <p>This class is not thread safe, the {@link WindowManager} only accesses it under its lock.
+ *
+ * @param <E> the type of the elements
+ */
+class SegmentedEventBuffer<E> {
+    private static final int SEGMENT_SIZE = 1024;
+    private final List<Object[]> segments = new ArrayList<>();
+    private long firstSegmentStart = 0;
+    private long head = 0;
+    private long tail = 0;
+
+    void add(E element) {
+        int offset = (int) (tail - firstSegmentStart);
+        if (offset / SEGMENT_SIZE == segments.size()) {
+            segments.add(new Object[SEGMENT_SIZE]);
+        }
+        segments.get(offset / SEGMENT_SIZE)[offset % SEGMENT_SIZE] = element;
+        tail++;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(long position) {
+        if (position < head || position >= tail) {
+            throw new IndexOutOfBoundsException("Position " + position + " is not in [" + head + ", " + tail + ")");
+        }
+        int offset = (int) (position - firstSegmentStart);
+        return (E) segments.get(offset / SEGMENT_SIZE)[offset % SEGMENT_SIZE];
+    }
+
+    E peekFirst() {
+        return head == tail ? null : get(head);
+    }
+
+    E pollFirst() {
+        E first = peekFirst();
+        if (first != null) {
+            head++;
+            if (head - firstSegmentStart == SEGMENT_SIZE) {
+                //The segment is not cleared, lists handed out earlier may still be using it.
+                segments.remove(0);
+                firstSegmentStart += SEGMENT_SIZE;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Get the position of the first element in the buffer.
+     */
+    long getHead() {
+        return head;
+    }
+
+    /**
+     * Get the position the next element is going to be added at.
+     */
+    long getTail() {
+        return tail;
+    }
+
+    /**
+     * Get an immutable view of a range of the buffer, that does not change when elements are added to or removed from the buffer.
+     *
+     * @param from   the position of the first element (inclusive)
+     * @param to     the position of the last element (exclusive)
+     * @param mapper the function to apply to the elements when they are read from the view
+     * @return the view
+     */
+    <R> List<R> view(long from, long to, Function<? super E, ? extends R> mapper) {
+        if (from < head || to > tail || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is not in [" + head + ", " + tail + ")");
+        }
+        if (from == to) {
+            return new ArrayList<>();
+        }
+        final int firstSegment = (int) ((from - firstSegmentStart) / SEGMENT_SIZE);
+        final int lastSegment = (int) ((to - 1 - firstSegmentStart) / SEGMENT_SIZE);
+        final Object[][] viewSegments = segments.subList(firstSegment, lastSegment + 1).toArray(new Object[0][]);
+        final long viewSegmentsStart = firstSegmentStart + (long) firstSegment * SEGMENT_SIZE;
+        final int size = (int) (to - from);
+        return new AbstractList<R>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public R get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index " + index + " size " + size);
+                }
+                int offset = (int) (from + index - viewSegmentsStart);
+                return mapper.apply((E) viewSegments[offset / SEGMENT_SIZE][offset % SEGMENT_SIZE]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
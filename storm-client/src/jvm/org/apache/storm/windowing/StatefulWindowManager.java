@@ -64,6 +64,12 @@ public class StatefulWindowManager<T> extends WindowManager<T> {
         };
     }
 
+    @Override
+    protected boolean supportsIncrementalEvaluation() {
+        //The events are kept in the persistent queue and are iterated lazily from there
+        return false;
+    }
+
     @Override
     protected void compactWindow() {
         // NOOP
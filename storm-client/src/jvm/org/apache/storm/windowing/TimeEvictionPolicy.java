@@ -79,6 +79,11 @@ public class TimeEvictionPolicy<T> implements EvictionPolicy<T, EvictionContext>
         }
     }
 
+    @Override
+    public boolean isArrivalOrdered() {
+        return true;
+    }
+
     @Override
     public void reset() {
         // NOOP
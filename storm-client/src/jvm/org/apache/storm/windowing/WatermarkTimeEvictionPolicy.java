@@ -65,6 +65,12 @@ public class WatermarkTimeEvictionPolicy<T> extends TimeEvictionPolicy<T> {
         }
     }
 
+    @Override
+    public boolean isArrivalOrdered() {
+        //Events may arrive out of order within the lag
+        return false;
+    }
+
     @Override
     public String toString() {
         return "WatermarkTimeEvictionPolicy{"
@@ -55,6 +55,10 @@ public class WindowManager<T> implements TriggerHandler {
     private final Set<Event<T>> prevWindowEvents;
     private final AtomicInteger eventsSinceLastExpiry;
     private final ReentrantLock lock;
+    //The events in the order they were added, when the window can be evaluated incrementally, otherwise null
+    private SegmentedEventBuffer<Event<T>> orderedEvents;
+    //The position in orderedEvents after the last event of the last activated window
+    private long windowEnd;
     protected EvictionPolicy<T, ?> evictionPolicy;
     protected TriggerPolicy<T, ?> triggerPolicy;
 
@@ -81,6 +85,18 @@ public class WindowManager<T> implements TriggerHandler {
 
     public void setEvictionPolicy(EvictionPolicy<T, ?> evictionPolicy) {
         this.evictionPolicy = evictionPolicy;
+        orderedEvents = evictionPolicy.isArrivalOrdered() && supportsIncrementalEvaluation() ? new SegmentedEventBuffer<>() : null;
+        windowEnd = 0;
+    }
+
+    /**
+     * Whether this window manager can keep track of the window incrementally when the eviction policy allows it, instead of scanning the
+     * whole queue on every activation.
+     *
+     * @return true if {@link #onTrigger()} can be evaluated incrementally
+     */
+    protected boolean supportsIncrementalEvaluation() {
+        return true;
     }
 
     public void setTriggerPolicy(TriggerPolicy<T, ?> triggerPolicy) {
@@ -114,7 +130,17 @@ public class WindowManager<T> implements TriggerHandler {
     public void add(Event<T> windowEvent) {
         // watermark events are not added to the queue.
         if (!windowEvent.isWatermark()) {
-            queue.add(windowEvent);
+            if (orderedEvents != null) {
+                try {
+                    lock.lock();
+                    queue.add(windowEvent);
+                    orderedEvents.add(windowEvent);
+                } finally {
+                    lock.unlock();
+                }
+            } else {
+                queue.add(windowEvent);
+            }
         } else {
             LOG.debug("Got watermark event with ts {}", windowEvent.getTimestamp());
         }
@@ -127,6 +153,9 @@ public class WindowManager<T> implements TriggerHandler {
      */
     @Override
     public boolean onTrigger() {
+        if (orderedEvents != null) {
+            return onTriggerIncremental();
+        }
         List<Event<T>> windowEvents = null;
         List<T> expired = null;
         try {
@@ -161,6 +190,41 @@ public class WindowManager<T> implements TriggerHandler {
         return !events.isEmpty();
     }
 
+    /**
+     * Activate the window when it is a contiguous run of the events in the order they were added.  The events that fell out of the window
+     * are expired from the head, and the end of the window moves forward over the events added since the last activation, so this is
+     * O(expired + new) instead of a scan of the whole window.  The lists handed to the listener are views of the events, not copies.
+     */
+    private boolean onTriggerIncremental() {
+        List<T> events;
+        List<T> newEvents;
+        List<T> expired;
+        try {
+            lock.lock();
+            scanEvents(false);
+            long windowStart = orderedEvents.getHead();
+            long newStart = Math.max(windowEnd, windowStart);
+            windowEnd = newStart;
+            while (windowEnd < orderedEvents.getTail() && evictionPolicy.evict(orderedEvents.get(windowEnd)) == PROCESS) {
+                windowEnd++;
+            }
+            events = orderedEvents.view(windowStart, windowEnd, Event::get);
+            newEvents = orderedEvents.view(newStart, windowEnd, Event::get);
+            expired = new ArrayList<>(expiredEvents);
+            expiredEvents.clear();
+        } finally {
+            lock.unlock();
+        }
+        if (!events.isEmpty()) {
+            LOG.debug("invoking windowLifecycleListener onActivation, [{}] events in window.", events.size());
+            windowLifecycleListener.onActivation(events, newEvents, expired, evictionPolicy.getContext().getReferenceTime());
+        } else {
+            LOG.debug("No events in the window, skipping onActivation");
+        }
+        triggerPolicy.reset();
+        return !events.isEmpty();
+    }
+
     public void shutdown() {
         LOG.debug("Shutting down WindowManager");
         if (triggerPolicy != null) {
@@ -205,6 +269,10 @@ public class WindowManager<T> implements TriggerHandler {
                 if (action == EXPIRE) {
                     eventsToExpire.add(windowEvent.get());
                     it.remove();
+                    if (orderedEvents != null) {
+                        //Without a full scan only the head of the queue expires, which is the head of orderedEvents too
+                        orderedEvents.pollFirst();
+                    }
                 } else if (!fullScan || action == STOP) {
                     break;
                 } else if (action == PROCESS) {
@@ -0,0 +1,295 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.windowing.persistence;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoSerializable;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.apache.storm.state.Serializer;
+import org.apache.storm.windowing.Event;
+
+/**
+ * A window partition that keeps its events serialized in an append-only segment outside of the heap.  The segment is a memory mapped
+ * file in a local directory, so the OS can page out the segments of cold partitions to disk.  Only the offsets of the events and the
+ * events that were removed are kept on heap, events are de-serialized as they are iterated.
+ *
+ * <p>When the partition is checkpointed the serialized bytes of the remaining events are copied as they are, the events are not
+ * serialized again.  Removed events keep their space in the segment until the partition is compacted, which happens before it is
+ * checkpointed once at least half of its events were removed.
+ */
+public class SerializedWindowPartition<T> extends WindowState.WindowPartition<T> implements KryoSerializable {
+    private static final int INITIAL_SEGMENT_BYTES = 64 * 1024;
+    //Not final, it is restored when the partition is read from a checkpoint.
+    private long partitionId;
+    private transient Serializer<Event<T>> serializer;
+    private transient File segmentDir;
+    private transient ByteBuffer segment;
+    private transient int[] offsets = new int[16];
+    private transient BitSet removed = new BitSet();
+    private transient volatile int count;
+    private transient int size;
+    //Bumped on every compaction, which moves the events, so open iterators can detect it.
+    private transient int compactions;
+    //Bytes read from a checkpoint, until the partition is attached to a segment directory.
+    private transient byte[] pending;
+
+    public SerializedWindowPartition(long id) {
+        super(id, false);
+        partitionId = id;
+    }
+
+    // for kryo
+    private SerializedWindowPartition() {
+        this(-1);
+    }
+
+    /**
+     * Set up the partition after it was created or read from a checkpoint.
+     *
+     * @param serializer serializes the events
+     * @param segmentDir the directory for the segment file
+     */
+    synchronized void attach(Serializer<Event<T>> serializer, File segmentDir) {
+        this.serializer = serializer;
+        this.segmentDir = segmentDir;
+        if (pending != null) {
+            ByteBuffer in = ByteBuffer.wrap(pending);
+            pending = null;
+            while (in.hasRemaining()) {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                append(bytes);
+            }
+        }
+    }
+
+    @Override
+    synchronized void add(Event<T> event) {
+        append(serializer.serialize(event));
+        setModified();
+    }
+
+    @Override
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Event<T>> iterator() {
+        return new Iterator<Event<T>>() {
+            private final int expectedCompactions = compactions;
+            private int next = nextLive(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                checkForCompaction();
+                return next < count;
+            }
+
+            @Override
+            public Event<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextLive(next + 1);
+                return get(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException("No calls to next() since last call to remove()");
+                }
+                checkForCompaction();
+                SerializedWindowPartition.this.remove(last);
+                last = -1;
+            }
+
+            private void checkForCompaction() {
+                if (compactions != expectedCompactions) {
+                    throw new ConcurrentModificationException("Partition " + getId() + " was compacted while it was iterated");
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized Collection<Event<T>> getEvents() {
+        List<Event<T>> events = new ArrayList<>(size);
+        for (int i = nextLive(0); i < count; i = nextLive(i + 1)) {
+            events.add(get(i));
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    @Override
+    synchronized void compact() {
+        int removedCount = count - size;
+        if (removedCount == 0 || removedCount < size) {
+            return;
+        }
+        final ByteBuffer oldSegment = segment;
+        final int[] oldOffsets = offsets;
+        final BitSet oldRemoved = removed;
+        final int oldCount = count;
+        segment = null;
+        offsets = new int[Math.max(16, size)];
+        removed = new BitSet();
+        count = 0;
+        size = 0;
+        for (int i = oldRemoved.nextClearBit(0); i < oldCount; i = oldRemoved.nextClearBit(i + 1)) {
+            append(bytesAt(oldSegment, oldOffsets[i]));
+        }
+        compactions++;
+    }
+
+    @Override
+    public long getId() {
+        return partitionId;
+    }
+
+    @Override
+    public synchronized void write(Kryo kryo, Output output) {
+        output.writeLong(getId());
+        int bytes = 0;
+        for (int i = nextLive(0); i < count; i = nextLive(i + 1)) {
+            bytes += Integer.BYTES + length(i);
+        }
+        output.writeInt(bytes);
+        for (int i = nextLive(0); i < count; i = nextLive(i + 1)) {
+            byte[] event = bytesAt(i);
+            output.writeInt(event.length);
+            output.writeBytes(event);
+        }
+    }
+
+    @Override
+    public synchronized void read(Kryo kryo, Input input) {
+        partitionId = input.readLong();
+        pending = input.readBytes(input.readInt());
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedWindowPartition{id=" + getId() + ", size=" + size() + '}';
+    }
+
+    private synchronized int nextLive(int from) {
+        int i = removed.nextClearBit(from);
+        return Math.min(i, count);
+    }
+
+    private synchronized Event<T> get(int i) {
+        return serializer.deserialize(bytesAt(i));
+    }
+
+    private synchronized void remove(int i) {
+        if (!removed.get(i)) {
+            removed.set(i);
+            size--;
+            setModified();
+        }
+    }
+
+    private int length(int i) {
+        return segment.getInt(offsets[i]);
+    }
+
+    private byte[] bytesAt(int i) {
+        return bytesAt(segment, offsets[i]);
+    }
+
+    private static byte[] bytesAt(ByteBuffer segment, int offset) {
+        ByteBuffer view = segment.duplicate();
+        view.position(offset + Integer.BYTES);
+        byte[] bytes = new byte[segment.getInt(offset)];
+        view.get(bytes);
+        return bytes;
+    }
+
+    private void append(byte[] bytes) {
+        int offset = count == 0 ? 0 : offsets[count - 1] + Integer.BYTES + length(count - 1);
+        ensureCapacity(offset + Integer.BYTES + bytes.length);
+        segment.putInt(offset, bytes.length);
+        ByteBuffer view = segment.duplicate();
+        view.position(offset + Integer.BYTES);
+        view.put(bytes);
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count++] = offset;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (segment != null && segment.capacity() >= capacity) {
+            return;
+        }
+        int newCapacity = segment == null ? INITIAL_SEGMENT_BYTES : segment.capacity();
+        while (newCapacity < capacity) {
+            newCapacity *= 2;
+        }
+        ByteBuffer newSegment = newSegment(newCapacity);
+        if (segment != null) {
+            ByteBuffer old = segment.duplicate();
+            old.clear();
+            newSegment.put(old);
+        }
+        segment = newSegment;
+    }
+
+    private ByteBuffer newSegment(int capacity) {
+        if (segmentDir == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        try {
+            if (!segmentDir.isDirectory() && !segmentDir.mkdirs() && !segmentDir.isDirectory()) {
+                throw new IOException("Could not create " + segmentDir);
+            }
+            File file = File.createTempFile("window-" + getId() + "-", ".segment", segmentDir);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                //The mapping stays valid after the file is closed and unlinked, and goes away with the buffer.
+                return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            } finally {
+                if (!file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
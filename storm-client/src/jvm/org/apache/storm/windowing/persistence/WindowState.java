@@ -12,6 +12,7 @@
 
 package org.apache.storm.windowing.persistence;
 
+import java.io.File;
 import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -31,6 +32,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import org.apache.storm.shade.com.google.common.collect.ImmutableMap;
 import org.apache.storm.state.KeyValueState;
+import org.apache.storm.state.Serializer;
 import org.apache.storm.windowing.Event;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,17 +59,36 @@ public class WindowState<T> extends AbstractCollection<Event<T>> {
     private volatile WindowPartitionCache<Long, WindowPartition<T>> cache;
     private Supplier<Map<String, Optional<?>>> windowSystemStateSupplier;
     private Set<Long> iteratorPins = new HashSet<>();
+    // if the segment dir is set, new partitions keep their events serialized in segments, see SerializedWindowPartition
+    private final Serializer<Event<T>> eventSerializer;
+    private final File segmentDir;
 
     public WindowState(KeyValueState<Long, WindowPartition<T>> windowPartitionsState,
                        KeyValueState<String, Deque<Long>> partitionIdsState,
                        KeyValueState<String, Optional<?>> windowSystemState,
                        Supplier<Map<String, Optional<?>>> windowSystemStateSupplier,
                        long maxEventsInMemory) {
+        this(windowPartitionsState, partitionIdsState, windowSystemState, windowSystemStateSupplier, maxEventsInMemory, null, null);
+    }
+
+    /**
+     * Creates a {@link WindowState} that keeps the events of new partitions serialized in memory mapped segments under the given
+     * directory. Partitions that were checkpointed that way are restored in direct buffers if the directory is null.
+     */
+    public WindowState(KeyValueState<Long, WindowPartition<T>> windowPartitionsState,
+                       KeyValueState<String, Deque<Long>> partitionIdsState,
+                       KeyValueState<String, Optional<?>> windowSystemState,
+                       Supplier<Map<String, Optional<?>>> windowSystemStateSupplier,
+                       long maxEventsInMemory,
+                       Serializer<Event<T>> eventSerializer,
+                       File segmentDir) {
         this.windowPartitionsState = windowPartitionsState;
         this.partitionIdsState = partitionIdsState;
         this.windowSystemState = windowSystemState;
         this.windowSystemStateSupplier = windowSystemStateSupplier;
         this.maxEventsInMemory = Math.max(MAX_PARTITION_EVENTS * MIN_PARTITIONS, maxEventsInMemory);
+        this.eventSerializer = eventSerializer;
+        this.segmentDir = segmentDir;
         init();
     }
 
@@ -250,7 +271,7 @@ public class WindowState<T> extends AbstractCollection<Event<T>> {
                     // load from state
                     try {
                         windowPartitionsLock.lock(id);
-                        return windowPartitionsState.get(id, new WindowPartition<>(id));
+                        return attach(windowPartitionsState.get(id, newPartition(id)));
                     } finally {
                         windowPartitionsLock.unlock(id);
                     }
@@ -258,6 +279,20 @@ public class WindowState<T> extends AbstractCollection<Event<T>> {
             });
     }
 
+    private WindowPartition<T> newPartition(long id) {
+        return segmentDir == null ? new WindowPartition<>(id) : new SerializedWindowPartition<>(id);
+    }
+
+    private WindowPartition<T> attach(WindowPartition<T> partition) {
+        if (partition instanceof SerializedWindowPartition) {
+            if (eventSerializer == null) {
+                throw new IllegalStateException("No event serializer for serialized window partition " + partition.getId());
+            }
+            ((SerializedWindowPartition<T>) partition).attach(eventSerializer, segmentDir);
+        }
+        return partition;
+    }
+
     private void deletePartition(long pid) {
         LOG.debug("Delete partition: {}", pid);
         try {
@@ -298,6 +333,7 @@ public class WindowState<T> extends AbstractCollection<Event<T>> {
                 } else if (p.isModified()) {
                     LOG.debug("Updating modified partition {}", pid);
                     p.clearModified();
+                    p.compact();
                     windowPartitionsState.put(pid, p);
                 }
             } finally {
@@ -339,13 +375,20 @@ public class WindowState<T> extends AbstractCollection<Event<T>> {
 
     // the window partition that holds the events
     public static class WindowPartition<T> implements Iterable<Event<T>> {
-        private final ConcurrentLinkedQueue<Event<T>> events = new ConcurrentLinkedQueue<>();
-        private final AtomicInteger size = new AtomicInteger();
+        private final ConcurrentLinkedQueue<Event<T>> events;
+        private final AtomicInteger size;
         private final long id;
         private transient volatile boolean modified;
 
         public WindowPartition(long id) {
+            this(id, true);
+        }
+
+        // for sub classes that keep the events themselves
+        WindowPartition(long id, boolean keepEvents) {
             this.id = id;
+            this.events = keepEvents ? new ConcurrentLinkedQueue<>() : null;
+            this.size = keepEvents ? new AtomicInteger() : null;
         }
 
         void add(Event<T> event) {
@@ -368,6 +411,11 @@ public class WindowState<T> extends AbstractCollection<Event<T>> {
             modified = false;
         }
 
+        // drops the space held by removed events, only called when no iteration is in progress
+        void compact() {
+            // the events queue holds no removed events
+        }
+
         boolean isEmpty() {
             return events.isEmpty();
         }
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.streams;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.apache.storm.state.InMemoryKeyValueState;
+import org.apache.storm.streams.processors.JoinProcessor.JoinType;
+import org.apache.storm.streams.processors.KeyedJoinProcessor;
+import org.apache.storm.streams.processors.ProcessorContext;
+import org.apache.storm.streams.processors.StatefulKeyedJoinProcessor;
+import org.apache.storm.topology.base.BaseWindowedBolt.Count;
+import org.apache.storm.topology.base.BaseWindowedBolt.Duration;
+import org.junit.Test;
+
+/**
+ * Test cases for KeyedJoinProcessor and StatefulKeyedJoinProcessor classes
+ */
+public class KeyedJoinProcessorTests {
+    private final ProcessorContext context = mock(ProcessorContext.class);
+
+    @Test
+    public void testValuesAreJoinedWithRetainedValuesOfTheirKey() {
+        KeyedJoinProcessor<String, String, String, String> processor = newProcessor(JoinType.INNER, JoinRetention.of(Count.of(10)));
+        processor.execute(Pair.of("a", "l1"), "left");
+        processor.execute(Pair.of("b", "l2"), "left");
+        processor.execute(Pair.of("a", "r1"), "right");
+        processor.execute(Pair.of("a", "l3"), "left");
+
+        verify(context).forward(Pair.of("a", "l1+r1"));
+        verify(context).forward(Pair.of("a", "l3+r1"));
+        verify(context, never()).forward(Pair.of("a", "l2+r1"));
+        verify(context, never()).forward(Pair.of("b", "l2+null"));
+    }
+
+    @Test
+    public void testOuterJoinForwardsUnmatchedValues() {
+        KeyedJoinProcessor<String, String, String, String> processor = new KeyedJoinProcessor<>(
+            "left", "right", (String v1, String v2) -> v1 + "+" + v2, JoinType.OUTER, JoinType.INNER, JoinRetention.of(Count.of(10)));
+        processor.init(context);
+        processor.execute(Pair.of("a", "l1"), "left");
+        processor.execute(Pair.of("b", "r1"), "right");
+
+        verify(context).forward(Pair.of("a", "l1+null"));
+        verify(context, never()).forward(Pair.of("b", "null+r1"));
+    }
+
+    @Test
+    public void testOnlyTheLastValuesAreRetainedByCount() {
+        KeyedJoinProcessor<String, String, String, String> processor = newProcessor(JoinType.INNER, JoinRetention.of(Count.of(1)));
+        processor.execute(Pair.of("a", "l1"), "left");
+        processor.execute(Pair.of("a", "l2"), "left");
+        processor.execute(Pair.of("a", "r1"), "right");
+
+        verify(context).forward(Pair.of("a", "l2+r1"));
+        verify(context, never()).forward(Pair.of("a", "l1+r1"));
+    }
+
+    @Test
+    public void testValuesExpireAfterTheRetentionDuration() throws Exception {
+        KeyedJoinProcessor<String, String, String, String> processor =
+            newProcessor(JoinType.INNER, JoinRetention.of(Duration.of(20)));
+        processor.execute(Pair.of("a", "l1"), "left");
+        Thread.sleep(50);
+        processor.execute(Pair.of("a", "l2"), "left");
+        processor.execute(Pair.of("a", "r1"), "right");
+
+        verify(context).forward(Pair.of("a", "l2+r1"));
+        verify(context, never()).forward(Pair.of("a", "l1+r1"));
+    }
+
+    @Test
+    public void testRolledBackValuesAreNotJoined() {
+        StatefulKeyedJoinProcessor<String, String, String, String> processor = new StatefulKeyedJoinProcessor<>(
+            "left", "right", (String v1, String v2) -> v1 + "+" + v2, JoinType.INNER, JoinType.INNER,
+            JoinRetention.of(Count.of(10)).persistent());
+        processor.init(context);
+        InMemoryKeyValueState<String, KeyedJoinProcessor.JoinRows<String, String>> state = new InMemoryKeyValueState<>();
+        processor.initState(state);
+
+        processor.execute(Pair.of("a", "l1"), "left");
+        state.prepareCommit(1);
+        state.commit(1);
+        processor.execute(Pair.of("a", "l2"), "left");
+        state.prepareCommit(2);
+        state.rollback();
+        processor.execute(Pair.of("a", "r1"), "right");
+
+        verify(context).forward(Pair.of("a", "l1+r1"));
+        verify(context, never()).forward(Pair.of("a", "l2+r1"));
+    }
+
+    private KeyedJoinProcessor<String, String, String, String> newProcessor(JoinType type, JoinRetention retention) {
+        KeyedJoinProcessor<String, String, String, String> processor = new KeyedJoinProcessor<>(
+            "left", "right", (String v1, String v2) -> v1 + "+" + v2, type, type, retention);
+        processor.init(context);
+        return processor;
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.streams;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.storm.streams.operations.aggregators.Count;
+import org.apache.storm.streams.processors.EmittingProcessorContext;
+import org.apache.storm.streams.processors.LocalAggregateByKeyProcessor;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.tuple.Fields;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.junit.Test;
+
+/**
+ * Test cases for LocalAggregateByKeyProcessor class
+ */
+public class LocalAggregateByKeyProcessorTests {
+
+    @Test
+    public void testPartialsAreAnchoredToTheInputsOfTheirKey() {
+        OutputCollector collector = mock(OutputCollector.class);
+        LocalAggregateByKeyProcessor<String, Integer, Long> processor = new LocalAggregateByKeyProcessor<>(new Count<>());
+        processor.setBufferLimits(2, Long.MAX_VALUE);
+        ProcessorNode node = new ProcessorNode(processor, "s1", new Fields("key", "value"));
+        node.setEmitsPair(true);
+        EmittingProcessorContext context = new EmittingProcessorContext(node, collector, "s1");
+        processor.init(context);
+
+        Tuple first = mock(Tuple.class);
+        Tuple second = mock(Tuple.class);
+        Tuple third = mock(Tuple.class);
+        context.setAnchor(new RefCountedTuple(first));
+        processor.execute(Pair.of("a", 1));
+        context.setAnchor(new RefCountedTuple(second));
+        processor.execute(Pair.of("a", 1));
+        verify(collector, never()).ack(first);
+
+        // the second key fills the buffer
+        context.setAnchor(new RefCountedTuple(third));
+        processor.execute(Pair.of("b", 1));
+        verify(collector).emit("s1", Arrays.asList(first, second), new Values("a", 2L));
+        verify(collector).emit("s1", Collections.singletonList(third), new Values("b", 1L));
+        verify(collector).ack(first);
+        verify(collector).ack(second);
+        verify(collector).ack(third);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.streams;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.storm.generated.ComponentCommon;
+import org.apache.storm.generated.Grouping;
+import org.apache.storm.generated.StormTopology;
+import org.apache.storm.spout.SpoutOutputCollector;
+import org.apache.storm.streams.operations.mappers.ValueMapper;
+import org.apache.storm.streams.processors.KeyedJoinProcessor;
+import org.apache.storm.streams.windowing.TumblingWindows;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.topology.base.BaseRichBolt;
+import org.apache.storm.topology.base.BaseRichSpout;
+import org.apache.storm.topology.base.BaseWindowedBolt.Count;
+import org.apache.storm.tuple.Fields;
+import org.apache.storm.tuple.Tuple;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test cases for StreamBuilder class
+ */
+public class StreamBuilderTests {
+
+    @Before
+    public void setUp() {
+        UniqueIdGen.getInstance().reset();
+    }
+
+    @Test
+    public void testExplainDoesNotChangeTheTopology() {
+        StormTopology expected = newBuilder().build();
+
+        UniqueIdGen.getInstance().reset();
+        StreamBuilder builder = newBuilder();
+        String plan = builder.explain();
+        StormTopology topology = builder.build();
+
+        Assert.assertEquals(components(expected), components(topology));
+        Assert.assertEquals(plan, builder.explain());
+    }
+
+    @Test
+    public void testFilterPushdownDoesNotLeaveGrouping() {
+        StreamBuilder builder = new StreamBuilder();
+        Stream<String> values = builder.newStream(new ValueSpout(), new ValueMapper<String>(0), 2);
+        values.partitionBy(new Fields("value"), 3).filter(v -> !v.isEmpty()).print();
+        values.to(new ValueBolt());
+
+        int fieldsGroupings = 0;
+        for (ComponentCommon common : components(builder.build()).values()) {
+            for (Grouping grouping : common.get_inputs().values()) {
+                if (grouping.is_set_fields() && !grouping.get_fields().isEmpty()) {
+                    fieldsGroupings++;
+                }
+            }
+        }
+        Assert.assertEquals(1, fieldsGroupings);
+    }
+
+    @Test
+    public void testPartitionedStreamCanBeUsedAfterFilterPushdown() {
+        StreamBuilder builder = new StreamBuilder();
+        Stream<String> partitioned = builder.newStream(new ValueSpout(), new ValueMapper<String>(0), 2)
+                                            .partitionBy(new Fields("value"), 3);
+        partitioned.filter(v -> !v.isEmpty()).print();
+        partitioned.print();
+
+        // the spout, the bolt of the filter and the bolts after the two partitionings
+        Assert.assertEquals(4, components(builder.build()).size());
+    }
+
+    @Test
+    public void testStatefulJoinAfterWindowJoinsTheSplitStreams() {
+        StreamBuilder builder = new StreamBuilder();
+        PairStream<String, Integer> left = builder.newStream(new ValueSpout(), new ValueMapper<String>(0))
+                                                  .mapToPair(v -> Pair.of(v, 1))
+                                                  .window(TumblingWindows.of(Count.of(10)));
+        PairStream<String, Integer> right = builder.newStream(new ValueSpout(), new ValueMapper<String>(0))
+                                                   .mapToPair(v -> Pair.of(v, 2))
+                                                   .window(TumblingWindows.of(Count.of(10)));
+        PairStream<String, Integer> joined = left.join(right, (Integer v1, Integer v2) -> v1 + v2,
+                                                       JoinRetention.of(Count.of(1)).persistent());
+        builder.build();
+
+        KeyedJoinProcessor<?, ?, ?, ?> join = (KeyedJoinProcessor<?, ?, ?, ?>) ((ProcessorNode) joined.getNode()).getProcessor();
+        Set<String> parentStreams = new HashSet<>();
+        for (Node parent : joined.getNode().getParents()) {
+            parentStreams.addAll(joined.getNode().getParentStreams(parent));
+        }
+        Assert.assertNotEquals(left.stream, join.getLeftStream());
+        Assert.assertNotEquals(right.stream, join.getRightStream());
+        Assert.assertTrue(parentStreams.contains(join.getLeftStream()));
+        Assert.assertTrue(parentStreams.contains(join.getRightStream()));
+    }
+
+    private static StreamBuilder newBuilder() {
+        StreamBuilder builder = new StreamBuilder();
+        Stream<String> values = builder.newStream(new ValueSpout(), new ValueMapper<String>(0), 2);
+        values.repartition(3).filter(v -> !v.isEmpty()).print();
+        values.mapToPair(v -> Pair.of(v, 1))
+              .window(TumblingWindows.of(Count.of(10)))
+              .updateStateByKey(0, (Integer count, Integer value) -> count + value)
+              .toPairStream()
+              .print();
+        return builder;
+    }
+
+    private static Map<String, ComponentCommon> components(StormTopology topology) {
+        Map<String, ComponentCommon> components = new HashMap<>();
+        topology.get_spouts().forEach((id, spout) -> components.put(id, spout.get_common()));
+        topology.get_bolts().forEach((id, bolt) -> components.put(id, bolt.get_common()));
+        return components;
+    }
+
+    private static class ValueSpout extends BaseRichSpout {
+        @Override
+        public void open(Map<String, Object> conf, TopologyContext context, SpoutOutputCollector collector) {
+        }
+
+        @Override
+        public void nextTuple() {
+        }
+
+        @Override
+        public void declareOutputFields(OutputFieldsDeclarer declarer) {
+            declarer.declare(new Fields("value"));
+        }
+    }
+
+    private static class ValueBolt extends BaseRichBolt {
+        @Override
+        public void prepare(Map<String, Object> topoConf, TopologyContext context, OutputCollector collector) {
+        }
+
+        @Override
+        public void execute(Tuple input) {
+        }
+
+        @Override
+        public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.topology;
+
+import static org.mockito.Mockito.mock;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.storm.Config;
+import org.apache.storm.shade.org.apache.commons.io.FileUtils;
+import org.apache.storm.state.InMemoryKeyValueState;
+import org.apache.storm.state.KeyValueState;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.windowing.persistence.SerializedWindowPartition;
+import org.apache.storm.windowing.persistence.WindowState.WindowPartition;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+/**
+ * Test cases for PersistentWindowedBoltExecutor class
+ */
+public class PersistentWindowedBoltExecutorTests {
+
+    @Test
+    public void testRestoreSerializedPartitionWithSegmentsDir() throws Exception {
+        File segmentsDir = Files.createTempDirectory("window-segments").toFile();
+        try {
+            Map<String, Object> conf = getConf();
+            conf.put(Config.TOPOLOGY_STATE_WINDOW_SEGMENTS_DIR, segmentsDir.getAbsolutePath());
+            assertRestoresSerializedPartition(conf);
+        } finally {
+            FileUtils.deleteDirectory(segmentsDir);
+        }
+    }
+
+    @Test
+    public void testRestoreSerializedPartitionWithoutSegmentsDir() {
+        assertRestoresSerializedPartition(getConf());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertRestoresSerializedPartition(Map<String, Object> conf) {
+        KeyValueState<Long, WindowPartition<Tuple>> windowState = new InMemoryKeyValueState<>();
+        // a partition as it is read back from a checkpoint
+        Kryo kryo = new Kryo();
+        kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        Output output = new Output(1024, -1);
+        kryo.writeClassAndObject(output, new SerializedWindowPartition<Tuple>(0));
+        windowState.put(0L, (WindowPartition<Tuple>) kryo.readClassAndObject(new Input(output.toBytes())));
+
+        PersistentWindowedBoltExecutor<KeyValueState<String, String>> executor =
+            new PersistentWindowedBoltExecutor<>(mock(IStatefulWindowedBolt.class));
+        executor.prepare(conf, mock(TopologyContext.class), mock(OutputCollector.class), windowState,
+                         new InMemoryKeyValueState<>(), new InMemoryKeyValueState<>());
+
+        WindowPartition<Tuple> restored = windowState.get(0L);
+        Assert.assertTrue(restored instanceof SerializedWindowPartition);
+        Assert.assertTrue(restored.getEvents().isEmpty());
+    }
+
+    private static Map<String, Object> getConf() {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(Config.TOPOLOGY_BOLTS_WINDOW_LENGTH_COUNT, 5);
+        conf.put(Config.TOPOLOGY_MESSAGE_TIMEOUT_SECS, 30);
+        conf.put(Config.TOPOLOGY_STATE_CHECKPOINT_INTERVAL, 1000);
+        return conf;
+    }
+}
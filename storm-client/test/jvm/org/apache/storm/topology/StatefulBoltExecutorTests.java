@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.topology;
+
+import static org.apache.storm.spout.CheckPointState.Action.INITSTATE;
+import static org.apache.storm.spout.CheckPointState.Action.PREPARE;
+import static org.apache.storm.spout.CheckpointSpout.CHECKPOINT_FIELD_ACTION;
+import static org.apache.storm.spout.CheckpointSpout.CHECKPOINT_FIELD_TXID;
+import static org.apache.storm.spout.CheckpointSpout.CHECKPOINT_STREAM_ID;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.storm.Config;
+import org.apache.storm.Constants;
+import org.apache.storm.generated.GlobalStreamId;
+import org.apache.storm.generated.Grouping;
+import org.apache.storm.spout.CheckPointState.Action;
+import org.apache.storm.state.KeyValueState;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test cases for the asynchronous checkpoints of the StatefulBoltExecutor class
+ */
+public class StatefulBoltExecutorTests {
+    private static final String CHECKPOINT_COMPONENT = "checkpointspout";
+
+    private IStatefulBolt<KeyValueState<String, String>> bolt;
+    private KeyValueState<String, String> state;
+    private OutputCollector collector;
+    private StatefulBoltExecutor<KeyValueState<String, String>> executor;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        bolt = mock(IStatefulBolt.class);
+        state = mock(KeyValueState.class);
+        collector = mock(OutputCollector.class);
+        Map<String, Object> boltConf = new HashMap<>();
+        boltConf.put(Config.TOPOLOGY_STATE_CHECKPOINT_ASYNC, true);
+        when(bolt.getComponentConfiguration()).thenReturn(boltConf);
+        executor = new StatefulBoltExecutor<>(bolt);
+
+        TopologyContext context = mock(TopologyContext.class);
+        Map<GlobalStreamId, Grouping> sources = new HashMap<>();
+        sources.put(new GlobalStreamId(CHECKPOINT_COMPONENT, CHECKPOINT_STREAM_ID), mock(Grouping.class));
+        when(context.getThisSources()).thenReturn(sources);
+        when(context.getComponentTasks(CHECKPOINT_COMPONENT)).thenReturn(Collections.singletonList(1));
+        when(context.getThisComponentId()).thenReturn("bolt");
+        when(context.getThisTaskId()).thenReturn(2);
+        // the component configuration of the executor is merged into the configuration of the bolt
+        Map<String, Object> topoConf = new HashMap<>(executor.getComponentConfiguration());
+        executor.prepare(topoConf, context, collector, state);
+    }
+
+    @Test
+    public void testEnablesTicksForAsyncCheckpoints() {
+        Assert.assertEquals(1, executor.getComponentConfiguration().get(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS));
+    }
+
+    @Test
+    public void testTickForwardsCompletedCheckpoint() {
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        when(state.prepareCommitAsync(anyLong(), any())).thenReturn(write);
+        executor.execute(checkpoint(INITSTATE, 0));
+        Tuple prepare = checkpoint(PREPARE, 1);
+        executor.execute(prepare);
+        verify(collector, never()).ack(prepare);
+
+        write.complete(null);
+        Tuple tick = tick();
+        executor.execute(tick);
+        verify(collector).emit(CHECKPOINT_STREAM_ID, Collections.singletonList(prepare), new Values(1L, PREPARE));
+        verify(collector).ack(prepare);
+        // the tick tuples were only requested for the checkpoints
+        verify(bolt, never()).execute(tick);
+        Assert.assertEquals(1, executor.getLastTxid());
+    }
+
+    @Test
+    public void testFailedCheckpointRestoresLastTxid() {
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        when(state.prepareCommitAsync(anyLong(), any())).thenReturn(write);
+        executor.execute(checkpoint(INITSTATE, 0));
+        Tuple prepare = checkpoint(PREPARE, 1);
+        executor.execute(prepare);
+
+        write.completeExceptionally(new RuntimeException("write failed"));
+        executor.execute(tick());
+        verify(collector).fail(prepare);
+        verify(collector, never()).ack(prepare);
+        Assert.assertEquals(0, executor.getLastTxid());
+    }
+
+    private static Tuple checkpoint(Action action, long txid) {
+        Tuple tuple = mock(Tuple.class);
+        when(tuple.getSourceComponent()).thenReturn(CHECKPOINT_COMPONENT);
+        when(tuple.getSourceStreamId()).thenReturn(CHECKPOINT_STREAM_ID);
+        when(tuple.getValueByField(CHECKPOINT_FIELD_ACTION)).thenReturn(action);
+        when(tuple.getLongByField(CHECKPOINT_FIELD_TXID)).thenReturn(txid);
+        return tuple;
+    }
+
+    private static Tuple tick() {
+        Tuple tuple = mock(Tuple.class);
+        when(tuple.getSourceComponent()).thenReturn(Constants.SYSTEM_COMPONENT_ID);
+        when(tuple.getSourceStreamId()).thenReturn(Constants.SYSTEM_TICK_STREAM_ID);
+        return tuple;
+    }
+}
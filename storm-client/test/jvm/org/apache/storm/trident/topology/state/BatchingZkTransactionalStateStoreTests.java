@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.trident.topology.state;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Test cases for BatchingZkTransactionalStateStore class
+ */
+public class BatchingZkTransactionalStateStoreTests {
+
+    @Test
+    public void testRewrittenPathsAreCoalescedInTheOrderOfTheirLatestWrite() throws Exception {
+        RecordingStore store = new RecordingStore();
+        store.startWriter("test-writer");
+
+        store.setData("/a", bytes("a1"));
+        store.writing.await(10, TimeUnit.SECONDS);
+        store.setData("/b", bytes("b1"));
+        store.setData("/c", bytes("c1"));
+        store.setData("/b", bytes("b2"));
+        store.delete("/c");
+        store.setData("/d", bytes("d1"));
+        store.setData("/c", bytes("c2"));
+
+        assertArrayEquals(bytes("b2"), store.getData("/b"));
+        assertArrayEquals(bytes("c2"), store.getData("/c"));
+        store.release.countDown();
+        store.flush();
+
+        assertEquals(2, store.batches.size());
+        assertEquals(Arrays.asList("/a"), new ArrayList<>(store.batches.get(0).keySet()));
+        Map<String, Optional<byte[]>> coalesced = store.batches.get(1);
+        assertEquals(Arrays.asList("/b", "/d", "/c"), new ArrayList<>(coalesced.keySet()));
+        assertArrayEquals(bytes("b2"), coalesced.get("/b").get());
+        assertArrayEquals(bytes("c2"), coalesced.get("/c").get());
+    }
+
+    @Test
+    public void testDeleteAfterWriteIsQueuedLast() throws Exception {
+        RecordingStore store = new RecordingStore();
+        store.startWriter("test-writer");
+
+        store.setData("/a", bytes("a1"));
+        store.writing.await(10, TimeUnit.SECONDS);
+        store.setData("/b", bytes("b1"));
+        store.setData("/c", bytes("c1"));
+        store.delete("/b");
+
+        assertNull(store.getData("/b"));
+        store.release.countDown();
+        store.flush();
+
+        Map<String, Optional<byte[]>> coalesced = store.batches.get(1);
+        assertEquals(Arrays.asList("/c", "/b"), new ArrayList<>(coalesced.keySet()));
+        assertEquals(Optional.empty(), coalesced.get("/b"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records the transactions instead of sending them, and holds the first one until released so later writes queue up behind it.
+     */
+    private static class RecordingStore extends BatchingZkTransactionalStateStore {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<Map<String, Optional<byte[]>>> batches = new ArrayList<>();
+
+        @Override
+        boolean write(Map<String, Optional<byte[]>> writes) {
+            batches.add(new LinkedHashMap<>(writes));
+            writing.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+    }
+}
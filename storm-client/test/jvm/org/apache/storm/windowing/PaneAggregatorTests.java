@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.windowing;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for PaneAggregator class
+ */
+public class PaneAggregatorTests {
+
+    @Test
+    public void testSlidingPanesKeepOrder() {
+        PaneAggregator<String> panes = new PaneAggregator<>(() -> "", String::concat);
+        Assert.assertEquals("", panes.getAggregate());
+        String expected = "";
+        for (char pane = 'a'; pane <= 'z'; pane++) {
+            panes.addLast(String.valueOf(pane));
+            expected += pane;
+            if (panes.size() > 3) {
+                panes.removeFirst();
+                expected = expected.substring(1);
+            }
+            Assert.assertEquals(expected, panes.getAggregate());
+        }
+    }
+
+    @Test
+    public void testReplaceFirst() {
+        PaneAggregator<String> panes = new PaneAggregator<>(() -> "", String::concat);
+        panes.addLast("ab");
+        panes.addLast("cd");
+        panes.replaceFirst("b");
+        Assert.assertEquals("bcd", panes.getAggregate());
+        panes.addLast("ef");
+        panes.removeFirst();
+        panes.replaceFirst("d");
+        Assert.assertEquals("def", panes.getAggregate());
+        panes.removeFirst();
+        Assert.assertEquals(1, panes.size());
+        Assert.assertEquals("ef", panes.getAggregate());
+    }
+
+    @Test
+    public void testMergeIntoOnlyModifiesOwnAggregate() {
+        StringBuilder first = new StringBuilder("a");
+        StringBuilder second = new StringBuilder("b");
+        PaneAggregator<StringBuilder> panes = new PaneAggregator<>(StringBuilder::new,
+            (older, newer) -> new StringBuilder(older).append(newer), StringBuilder::append);
+        panes.addLast(first);
+        panes.addLast(second);
+        Assert.assertEquals("ab", panes.getAggregate().toString());
+        panes.removeFirst();
+        panes.addLast(new StringBuilder("c"));
+        Assert.assertEquals("bc", panes.getAggregate().toString());
+        Assert.assertEquals("a", first.toString());
+        Assert.assertEquals("b", second.toString());
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.  The ASF licenses this file to you under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.apache.storm.windowing;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.storm.shade.org.apache.commons.io.FileUtils;
+import org.apache.storm.state.InMemoryKeyValueState;
+import org.apache.storm.state.KeyValueState;
+import org.apache.storm.state.Serializer;
+import org.apache.storm.windowing.persistence.SerializedWindowPartition;
+import org.apache.storm.windowing.persistence.WindowState;
+import org.apache.storm.windowing.persistence.WindowState.WindowPartition;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+/**
+ * Test cases for WindowState with partitions serialized in segments.
+ */
+public class SerializedWindowPartitionTests {
+    private final KryoSerializer<Object> serializer = new KryoSerializer<>();
+    private final KryoSerializer<Event<Integer>> eventSerializer = new KryoSerializer<>();
+    private KeyValueState<Long, WindowPartition<Integer>> partitions;
+    private KeyValueState<String, Deque<Long>> partitionIds;
+    private KeyValueState<String, Optional<?>> systemState;
+    private File segmentDir;
+
+    @Before
+    public void setUp() throws Exception {
+        partitions = new InMemoryKeyValueState<>();
+        partitionIds = new InMemoryKeyValueState<>();
+        systemState = new InMemoryKeyValueState<>();
+        segmentDir = Files.createTempDirectory("window-segments").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(segmentDir);
+    }
+
+    @Test
+    public void testCheckpointAndRestoreWithSegmentsDir() {
+        WindowState<Integer> state = newWindowState(segmentDir);
+        addEvents(state, 10);
+        checkpoint(state, 1);
+
+        WindowState<Integer> restored = restore(segmentDir);
+        Assert.assertEquals(range(0, 10), values(restored));
+        Assert.assertTrue(partitions.get(0L) instanceof SerializedWindowPartition);
+    }
+
+    @Test
+    public void testRestoreWithoutSegmentsDir() {
+        WindowState<Integer> state = newWindowState(segmentDir);
+        addEvents(state, 10);
+        checkpoint(state, 1);
+
+        WindowState<Integer> restored = restore(null);
+        Assert.assertEquals(range(0, 10), values(restored));
+        restored.add(new EventImpl<>(10, 10));
+        Assert.assertEquals(range(0, 11), values(restored));
+    }
+
+    @Test
+    public void testIterationWithRemovals() {
+        WindowState<Integer> state = newWindowState(segmentDir);
+        addEvents(state, 10);
+        checkpoint(state, 1);
+        WindowPartition<Integer> partition = partitions.get(0L);
+
+        for (Iterator<Event<Integer>> it = state.iterator(); it.hasNext(); ) {
+            if (it.next().get() < 6) {
+                it.remove();
+            }
+        }
+        Assert.assertEquals(range(6, 10), values(state));
+        Assert.assertEquals(4, partition.size());
+
+        // more than half of the events are removed, so the checkpoint compacts the partition
+        Iterator<Event<Integer>> open = partition.iterator();
+        checkpoint(state, 2);
+        try {
+            open.hasNext();
+            Assert.fail("Iterating a partition that was compacted since should fail");
+        } catch (ConcurrentModificationException e) {
+            //expected
+        }
+        Assert.assertEquals(range(6, 10), values(state));
+        state.add(new EventImpl<>(10, 10));
+        Assert.assertEquals(range(6, 11), values(state));
+
+        checkpoint(state, 3);
+        Assert.assertEquals(range(6, 11), values(restore(segmentDir)));
+    }
+
+    @Test
+    public void testGetEvents() {
+        WindowState<Integer> state = newWindowState(segmentDir);
+        addEvents(state, 5);
+        Iterator<Event<Integer>> it = state.iterator();
+        it.next();
+        it.remove();
+        checkpoint(state, 1);
+
+        WindowPartition<Integer> partition = partitions.get(0L);
+        Assert.assertTrue(partition instanceof SerializedWindowPartition);
+        Assert.assertEquals(range(1, 5), values(partition.getEvents()));
+        try {
+            partition.getEvents().clear();
+            Assert.fail("The events of a partition should not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+    }
+
+    private WindowState<Integer> newWindowState(File dir) {
+        return new WindowState<>(partitions, partitionIds, systemState, HashMap::new, 0, eventSerializer, dir);
+    }
+
+    private void checkpoint(WindowState<Integer> state, long txid) {
+        state.prepareCommit(txid);
+        state.commit(txid);
+    }
+
+    /**
+     * Restores a window state from copies of the checkpointed state, serialized the way state backends serialize them.
+     */
+    private WindowState<Integer> restore(File dir) {
+        partitions = copy(partitions);
+        partitionIds = copy(partitionIds);
+        systemState = copy(systemState);
+        return newWindowState(dir);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> KeyValueState<K, V> copy(KeyValueState<K, V> state) {
+        KeyValueState<K, V> copy = new InMemoryKeyValueState<>();
+        for (Map.Entry<K, V> entry : state) {
+            copy.put(entry.getKey(), (V) serializer.deserialize(serializer.serialize(entry.getValue())));
+        }
+        return copy;
+    }
+
+    private static void addEvents(WindowState<Integer> state, int count) {
+        for (int i = 0; i < count; i++) {
+            state.add(new EventImpl<>(i, i));
+        }
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    private static List<Integer> values(Iterable<Event<Integer>> events) {
+        List<Integer> values = new ArrayList<>();
+        for (Event<Integer> event : events) {
+            values.add(event.get());
+        }
+        return values;
+    }
+
+    /**
+     * Serializes with kryo the way state backends do, without the registrations of the default state serializer.
+     */
+    private static class KryoSerializer<T> implements Serializer<T> {
+        private final Kryo kryo = new Kryo();
+
+        KryoSerializer() {
+            kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        }
+
+        @Override
+        public byte[] serialize(T obj) {
+            Output output = new Output(1024, -1);
+            kryo.writeClassAndObject(output, obj);
+            return output.toBytes();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T deserialize(byte[] b) {
+            return (T) kryo.readClassAndObject(new Input(b));
+        }
+    }
+}
@@ -135,4 +135,39 @@ public class WindowManagerTests {
         }
     }
 
+    public static class TestIncrementalActivation {
+        @Test
+        public void testActivationDeltas() {
+            List<List<String>> activatedEvents = new ArrayList<>();
+            List<List<String>> activatedNewEvents = new ArrayList<>();
+            List<List<String>> activatedExpiredEvents = new ArrayList<>();
+            WindowLifecycleListener<String> listener = mock(WindowLifecycleListener.class);
+            doAnswer((mockedInstance) -> {
+                activatedEvents.add(mockedInstance.getArgument(0));
+                activatedNewEvents.add(mockedInstance.getArgument(1));
+                activatedExpiredEvents.add(mockedInstance.getArgument(2));
+                return null;
+            }).when(listener).onActivation(anyList(), anyList(), anyList(), any());
+            WindowManager<String> windowManager = new WindowManager<>(listener);
+            CountEvictionPolicy<String> evictionPolicy = new CountEvictionPolicy<>(3);
+            CountTriggerPolicy<String> triggerPolicy = new CountTriggerPolicy<>(TRIGGER_WINDOW, windowManager, evictionPolicy);
+            windowManager.setEvictionPolicy(evictionPolicy);
+            windowManager.setTriggerPolicy(triggerPolicy);
+            triggerPolicy.start();
+
+            for (String event : Arrays.asList("a", "b", "c", "d", "e")) {
+                windowManager.add(event);
+            }
+
+            Assert.assertEquals(5, activatedEvents.size());
+            Assert.assertEquals(Arrays.asList("c", "d", "e"), activatedEvents.get(4));
+            Assert.assertEquals(Collections.singletonList("e"), activatedNewEvents.get(4));
+            Assert.assertEquals(Collections.singletonList("b"), activatedExpiredEvents.get(4));
+            /* windows handed out earlier must not change when the window moves on */
+            Assert.assertEquals(Collections.singletonList("a"), activatedEvents.get(0));
+            Assert.assertEquals(Arrays.asList("a", "b", "c"), activatedEvents.get(2));
+            windowManager.shutdown();
+        }
+    }
+
 }
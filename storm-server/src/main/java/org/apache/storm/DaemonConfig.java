@@ -861,6 +861,33 @@ public class DaemonConfig implements Validated {
     @NotNull
     public static final String SUPERVISOR_WORKER_START_TIMEOUT_SECS = "supervisor.worker.start.timeout.secs";
 
+    /**
+     * If set to true the supervisor keeps a second worker JVM pre-started for each running worker, with the same command line but parked
+     * before the worker main runs.  When the worker has to be relaunched on the same slot, e.g. after a crash, the parked JVM is released
+     * instead of forking a new one, so JVM start up and class loading are not part of the relaunch.  A parked JVM is only started if its
+     * on heap memory fits in what is left of {@link #SUPERVISOR_WORKER_PREWARM_MEMORY_MB}.  It is only used when workers are not run as the
+     * topology user, resources are not isolated, and no version specific worker classpath is configured.
+     */
+    @IsBoolean
+    public static final String SUPERVISOR_WORKER_PREWARM_ENABLED = "supervisor.worker.prewarm.enabled";
+
+    /**
+     * The memory in MB the supervisor sets aside for parked worker JVMs when {@link #SUPERVISOR_WORKER_PREWARM_ENABLED} is set.  It is
+     * taken off the memory capacity the supervisor reports to nimbus, so the scheduler does not hand it out to workers.
+     */
+    @IsInteger
+    @IsPositiveNumber(includeZero = true)
+    public static final String SUPERVISOR_WORKER_PREWARM_MEMORY_MB = "supervisor.worker.prewarm.memory.mb";
+
+    /**
+     * If set to true the supervisor trains an application class data sharing archive for each topology jar, in the background the first
+     * time a worker of the topology is launched, and launches later workers with it.  This cuts the class loading part of worker start up
+     * and lets workers on the same host share the metaspace of the archived classes.  Training needs the worker JVM to be java 13 or later.
+     * It is only used when workers are not run as the topology user.
+     */
+    @IsBoolean
+    public static final String SUPERVISOR_WORKER_CDS_ENABLED = "supervisor.worker.cds.enabled";
+
     /**
      * Whether or not the supervisor should launch workers assigned to it. Defaults to true -- and you should probably never change this
      * value. This configuration is used in the Storm unit tests.
@@ -1029,6 +1056,13 @@ public class DaemonConfig implements Validated {
     @IsInteger
     public static final String NIMBUS_CODE_SYNC_FREQ_SECS = "nimbus.code.sync.freq.secs";
 
+    /**
+     * How many blobs a non leader nimbus downloads from the leader in parallel when syncing its local blob store.
+     */
+    @IsInteger
+    @IsPositiveNumber
+    public static final String NIMBUS_BLOBSTORE_SYNC_THREADS = "nimbus.blobstore.sync.threads";
+
     /**
      * The plugin to be used for resource isolation.
      */
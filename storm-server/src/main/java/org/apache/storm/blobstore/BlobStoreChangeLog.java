@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.storm.blobstore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.storm.shade.org.apache.curator.framework.CuratorFramework;
+import org.apache.storm.shade.org.apache.zookeeper.CreateMode;
+import org.apache.storm.shade.org.apache.zookeeper.KeeperException;
+import org.apache.storm.shade.org.apache.zookeeper.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A log of blob mutations kept in zookeeper.  The leader nimbus appends an entry every time a blob is created, updated or deleted, and
+ * the other nimbodes only read the entries they have not seen yet, instead of listing and comparing the sequence numbers of every key
+ * on each sync.  Only the most recent entries are kept, a reader that fell behind further than that has to fall back to a full sync.
+ */
+public class BlobStoreChangeLog {
+    private static final Logger LOG = LoggerFactory.getLogger(BlobStoreChangeLog.class);
+    private static final String CHANGELOG_SUBTREE = "/blobstore-changelog";
+    private static final String ENTRY_PREFIX = "change-";
+    private static final int RETAINED_ENTRIES = 1000;
+    private static final int TRIM_EVERY = 100;
+
+    private final CuratorFramework zkClient;
+    private final AtomicInteger publishedSinceTrim = new AtomicInteger();
+
+    public BlobStoreChangeLog(CuratorFramework zkClient) {
+        this.zkClient = zkClient;
+    }
+
+    public enum Op {
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * The entries read from the log since a given position.
+     */
+    public static class Changes {
+        private final Map<String, Op> changes;
+        private final long nextPosition;
+        private final boolean complete;
+
+        Changes(Map<String, Op> changes, long nextPosition, boolean complete) {
+            this.changes = changes;
+            this.nextPosition = nextPosition;
+            this.complete = complete;
+        }
+
+        /**
+         * Get the changed keys in the order they last changed, with the last operation on each.
+         */
+        public Map<String, Op> getChanges() {
+            return changes;
+        }
+
+        /**
+         * Get the position to read from next time.
+         */
+        public long getNextPosition() {
+            return nextPosition;
+        }
+
+        /**
+         * Get whether all of the entries since the requested position were still in the log.  If not the reader missed changes.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    /**
+     * Append a mutation of a blob to the log.  Failures are only logged, readers still do a full sync now and then.
+     *
+     * @param key the key of the blob
+     * @param op  what happened to the blob
+     */
+    public void publish(String key, Op op) {
+        try {
+            byte[] entry = (op.name() + ":" + key).getBytes(StandardCharsets.UTF_8);
+            String path = zkClient.create()
+                                  .creatingParentsIfNeeded()
+                                  .withMode(CreateMode.PERSISTENT_SEQUENTIAL)
+                                  .forPath(CHANGELOG_SUBTREE + "/" + ENTRY_PREFIX, entry);
+            LOG.debug("Published {} of {} as {}", op, key, path);
+            if (publishedSinceTrim.incrementAndGet() >= TRIM_EVERY) {
+                publishedSinceTrim.set(0);
+                trim();
+            }
+        } catch (Exception e) {
+            LOG.warn("Could not publish {} of blob {} to the change log", op, key, e);
+        }
+    }
+
+    /**
+     * Read the entries from a position in the log on.
+     *
+     * @param position the position of the first entry not applied yet, or a negative number if nothing was read yet
+     * @param watcher  called once when the next entry is appended, may be null
+     * @return the changes since the position
+     * @throws Exception on any error talking to zookeeper
+     */
+    public Changes readFrom(long position, Watcher watcher) throws Exception {
+        List<String> children;
+        try {
+            children = watcher == null
+                ? zkClient.getChildren().forPath(CHANGELOG_SUBTREE)
+                : zkClient.getChildren().usingWatcher(watcher).forPath(CHANGELOG_SUBTREE);
+        } catch (KeeperException.NoNodeException e) {
+            //Nothing was ever published
+            try {
+                zkClient.create().creatingParentsIfNeeded().forPath(CHANGELOG_SUBTREE);
+            } catch (KeeperException.NodeExistsException ignored) {
+                //Created by the leader at the same time
+            }
+            return readFrom(position, watcher);
+        }
+        List<Long> sequences = new ArrayList<>(children.size());
+        for (String child : children) {
+            sequences.add(parseSequence(child));
+        }
+        Collections.sort(sequences);
+
+        //A first read only establishes the position, the caller has to do a full sync anyways.  Entries are only ever trimmed from the
+        //start of the log, so nothing was missed as long as the oldest entry left is not after the position.
+        boolean complete = position >= 0 && (sequences.isEmpty() || sequences.get(0) <= position);
+        Map<String, Op> changes = new LinkedHashMap<>();
+        long nextPosition = Math.max(position, 0);
+        for (long seq : sequences) {
+            if (seq < position) {
+                continue;
+            }
+            nextPosition = seq + 1;
+            if (position < 0) {
+                continue;
+            }
+            String entry;
+            try {
+                entry = new String(zkClient.getData().forPath(entryPath(seq)), StandardCharsets.UTF_8);
+            } catch (KeeperException.NoNodeException e) {
+                //Trimmed while we were reading it
+                complete = false;
+                continue;
+            }
+            int split = entry.indexOf(':');
+            String key = entry.substring(split + 1);
+            //Only the last operation on a key matters, but it has to be applied after the others that came before it
+            changes.remove(key);
+            changes.put(key, Op.valueOf(entry.substring(0, split)));
+        }
+        return new Changes(changes, nextPosition, complete);
+    }
+
+    private void trim() throws Exception {
+        //The sequence numbers are not contiguous, deleting entries moves them forward too
+        List<String> children = new ArrayList<>(zkClient.getChildren().forPath(CHANGELOG_SUBTREE));
+        Collections.sort(children);
+        for (String child : children.subList(0, Math.max(0, children.size() - RETAINED_ENTRIES))) {
+            try {
+                zkClient.delete().forPath(CHANGELOG_SUBTREE + "/" + child);
+            } catch (KeeperException.NoNodeException e) {
+                //Trimmed by a previous leader at the same time
+            }
+        }
+    }
+
+    private static String entryPath(long seq) {
+        return CHANGELOG_SUBTREE + "/" + ENTRY_PREFIX + String.format("%010d", seq);
+    }
+
+    private static long parseSequence(String child) {
+        return Long.parseLong(child.substring(ENTRY_PREFIX.length()));
+    }
+}
@@ -28,11 +28,14 @@ import java.io.InputStream;
 import java.nio.file.NoSuchFileException;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.security.auth.Subject;
 import org.apache.storm.Config;
 import org.apache.storm.DaemonConfig;
@@ -48,10 +51,13 @@ import org.apache.storm.generated.SettableBlobMeta;
 import org.apache.storm.nimbus.ILeaderElector;
 import org.apache.storm.nimbus.NimbusInfo;
 import org.apache.storm.shade.com.google.common.annotations.VisibleForTesting;
+import org.apache.storm.shade.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.storm.shade.org.apache.curator.framework.CuratorFramework;
 import org.apache.storm.shade.org.apache.zookeeper.KeeperException;
+import org.apache.storm.shade.org.apache.zookeeper.Watcher;
 import org.apache.storm.utils.ConfigUtils;
 import org.apache.storm.utils.ObjectReader;
+import org.apache.storm.utils.Time;
 import org.apache.storm.utils.Utils;
 import org.apache.storm.utils.WrappedKeyAlreadyExistsException;
 import org.apache.storm.utils.WrappedKeyNotFoundException;
@@ -82,6 +88,7 @@ public class LocalFsBlobStore extends BlobStore {
     private static final String DATA_PREFIX = "data_";
     private static final String META_PREFIX = "meta_";
     private static final String BLOBSTORE_SUBTREE = "/blobstore/";
+    private static final int FULL_SYNC_EVERY_N_SYNC_PERIODS = 10;
     private final int allPermissions = READ | WRITE | ADMIN;
     protected BlobStoreAclHandler aclHandler;
     private NimbusInfo nimbusInfo;
@@ -91,6 +98,13 @@ public class LocalFsBlobStore extends BlobStore {
     private IStormClusterState stormClusterState;
     private Timer timer;
     private ILeaderElector leaderElector;
+    private BlobStoreChangeLog changeLog;
+    private final Watcher changeLogWatcher = event -> requestBlobSync();
+    private ExecutorService syncExecutor;
+    //Only used from the timer thread
+    private long changeLogPosition = -1;
+    private long lastFullSyncMs = 0;
+    private Set<String> retryKeys = new HashSet<>();
 
     @Override
     public void prepare(Map<String, Object> conf, String overrideBase, NimbusInfo nimbusInfo, ILeaderElector leaderElector) {
@@ -114,6 +128,7 @@ public class LocalFsBlobStore extends BlobStore {
         }
         timer = new Timer("BLOB-STORE-TIMER", true);
         this.leaderElector = leaderElector;
+        changeLog = new BlobStoreChangeLog(zkClient);
     }
 
     /**
@@ -148,46 +163,104 @@ public class LocalFsBlobStore extends BlobStore {
     }
 
 
+    /**
+     * Sync the blobs of a non leader nimbus with the leader.  Normally only the keys that were published to the {@link BlobStoreChangeLog}
+     * since the last sync are synced, all of the keys are only compared if changes were missed, and every so often in case the leader
+     * failed to publish something.  Always runs on the timer thread.
+     */
     private void blobSync() throws Exception {
         if ("distributed".equals(conf.get(Config.STORM_CLUSTER_MODE))) {
             if (!this.leaderElector.isLeader()) {
-                IStormClusterState state = stormClusterState;
-                NimbusInfo nimbusInfo = this.nimbusInfo;
-                BlobStore store = this;
-                Set<String> allKeys = new HashSet<>();
-                for (Iterator<String> it = store.listKeys(); it.hasNext();) {
-                    allKeys.add(it.next());
+                BlobStoreChangeLog.Changes changes = changeLog.readFrom(changeLogPosition, changeLogWatcher);
+                long fullSyncIntervalMs = FULL_SYNC_EVERY_N_SYNC_PERIODS * 1000L
+                    * ObjectReader.getInt(conf.get(DaemonConfig.NIMBUS_CODE_SYNC_FREQ_SECS));
+                if (!changes.isComplete() || Time.currentTimeMillis() - lastFullSyncMs >= fullSyncIntervalMs) {
+                    fullBlobSync();
+                    lastFullSyncMs = Time.currentTimeMillis();
+                    retryKeys = new HashSet<>();
+                } else if (!changes.getChanges().isEmpty() || !retryKeys.isEmpty()) {
+                    Map<String, BlobStoreChangeLog.Op> toSync = new LinkedHashMap<>();
+                    for (String key : retryKeys) {
+                        toSync.put(key, BlobStoreChangeLog.Op.UPDATE);
+                    }
+                    toSync.putAll(changes.getChanges());
+                    LOG.debug("blob-sync changed keys {}", toSync);
+                    retryKeys = newSynchronizer(new HashSet<>()).syncChangedBlobs(toSync);
                 }
-                Set<String> zkKeys = new HashSet<>(state.blobstore(() -> {
+                changeLogPosition = changes.getNextPosition();
+            } else {
+                //If we ever lose leadership we cannot trust the position anymore
+                changeLogPosition = -1;
+            }
+        } //else local (NOOP)
+    }
+
+    private void fullBlobSync() throws Exception {
+        IStormClusterState state = stormClusterState;
+        Set<String> zkKeys = new HashSet<>(state.blobstore(this::requestBlobSync));
+        LocalFsBlobStoreSynchronizer sync = newSynchronizer(zkKeys);
+        LOG.debug("blob-sync blob-store-keys {} zookeeper-keys {}", sync.getBlobStoreKeySet(), zkKeys);
+        sync.syncBlobs();
+    }
+
+    private LocalFsBlobStoreSynchronizer newSynchronizer(Set<String> zkKeys) {
+        Set<String> allKeys = new HashSet<>();
+        for (Iterator<String> it = listKeys(); it.hasNext();) {
+            allKeys.add(it.next());
+        }
+        LocalFsBlobStoreSynchronizer sync = new LocalFsBlobStoreSynchronizer(this, conf);
+        sync.setNimbusInfo(nimbusInfo);
+        sync.setBlobStoreKeySet(allKeys);
+        sync.setZookeeperKeySet(zkKeys);
+        sync.setZkClient(zkClient);
+        sync.setExecutor(syncExecutor);
+        return sync;
+    }
+
+    private void requestBlobSync() {
+        try {
+            this.timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
                     try {
-                        this.blobSync();
+                        blobSync();
                     } catch (Exception e) {
-                        throw new RuntimeException(e);
+                        LOG.warn("Could not sync blobs", e);
                     }
-                }));
-                LOG.debug("blob-sync blob-store-keys {} zookeeper-keys {}", allKeys, zkKeys);
-                LocalFsBlobStoreSynchronizer sync = new LocalFsBlobStoreSynchronizer(store, conf);
-                sync.setNimbusInfo(nimbusInfo);
-                sync.setBlobStoreKeySet(allKeys);
-                sync.setZookeeperKeySet(zkKeys);
-                sync.setZkClient(zkClient);
-                sync.syncBlobs();
-            } //else leader (NOOP)
-        } //else local (NOOP)
+                }
+            }, 0);
+        } catch (IllegalStateException e) {
+            //Shutting down
+        }
+    }
+
+    private boolean isLeader() {
+        try {
+            return "distributed".equals(conf.get(Config.STORM_CLUSTER_MODE)) && leaderElector != null && leaderElector.isLeader();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Let the other nimbodes know that a blob was updated, if this is the leader.  Called once the new version of the blob is stored.
+     *
+     * @param key the key of the blob
+     */
+    public void publishBlobUpdate(String key) {
+        if (isLeader()) {
+            changeLog.publish(key, BlobStoreChangeLog.Op.UPDATE);
+        }
     }
 
 
     @Override
     public  void startSyncBlobs() throws KeyNotFoundException, AuthorizationException {
         //register call back for blob-store
-        this.stormClusterState.blobstore(() -> {
-            try {
-                blobSync();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        });
+        this.stormClusterState.blobstore(this::requestBlobSync);
         setupBlobstore();
+        syncExecutor = Executors.newFixedThreadPool(ObjectReader.getInt(conf.get(DaemonConfig.NIMBUS_BLOBSTORE_SYNC_THREADS), 4),
+            new ThreadFactoryBuilder().setNameFormat("BLOB-STORE-SYNC-%d").setDaemon(true).build());
 
         //Schedule nimbus code sync thread to sync code from other nimbuses.
         this.timer.scheduleAtFixedRate(new TimerTask() {
@@ -221,7 +294,13 @@ public class LocalFsBlobStore extends BlobStore {
             outputStream.close();
             outputStream = null;
             this.stormClusterState.setupBlob(key, this.nimbusInfo, getVersionForKey(key, this.nimbusInfo, zkClient));
-            return new BlobStoreFileOutputStream(fbs.write(DATA_PREFIX + key, true));
+            return new BlobStoreFileOutputStream(fbs.write(DATA_PREFIX + key, true)) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    publishBlobUpdate(key);
+                }
+            };
         } catch (IOException e) {
             throw new RuntimeException(e);
         } catch (KeyNotFoundException e) {
@@ -362,6 +441,9 @@ public class LocalFsBlobStore extends BlobStore {
         }
         this.stormClusterState.removeBlobstoreKey(key);
         this.stormClusterState.removeKeyVersion(key);
+        if (isLeader()) {
+            changeLog.publish(key, BlobStoreChangeLog.Op.DELETE);
+        }
     }
 
     private void checkPermission(String key, Subject who, int mask) throws KeyNotFoundException, AuthorizationException {
@@ -414,6 +496,9 @@ public class LocalFsBlobStore extends BlobStore {
         if (timer != null) {
             timer.cancel();;
         }
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
         stormClusterState.disconnect();
     }
 
@@ -21,8 +21,12 @@ package org.apache.storm.blobstore;
 
 import java.nio.channels.ClosedByInterruptException;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import org.apache.storm.generated.KeyNotFoundException;
 import org.apache.storm.nimbus.NimbusInfo;
 import org.apache.storm.shade.org.apache.curator.framework.CuratorFramework;
@@ -43,6 +47,7 @@ public class LocalFsBlobStoreSynchronizer {
     private Set<String> blobStoreKeySet = new HashSet<String>();
     private Set<String> zookeeperKeySet = new HashSet<String>();
     private NimbusInfo nimbusInfo;
+    private Executor executor;
 
     public LocalFsBlobStoreSynchronizer(BlobStore blobStore, Map<String, Object> conf) {
         this.blobStore = blobStore;
@@ -57,6 +62,13 @@ public class LocalFsBlobStoreSynchronizer {
         this.zkClient = zkClient;
     }
 
+    /**
+     * Set the executor blobs are downloaded on in parallel.  If not set they are downloaded one at a time.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
     public Set<String> getBlobStoreKeySet() {
         Set<String> keySet = new HashSet<String>();
         keySet.addAll(blobStoreKeySet);
@@ -86,20 +98,11 @@ public class LocalFsBlobStoreSynchronizer {
             LOG.debug("Key set Blobstore-> Zookeeper-> DownloadSet {}-> {}-> {}", getBlobStoreKeySet(), getZookeeperKeySet(),
                       keySetToDownload);
 
+            Map<String, BlobStoreChangeLog.Op> downloads = new LinkedHashMap<>();
             for (String key : keySetToDownload) {
-                try {
-                    Set<NimbusInfo> nimbusInfoSet = BlobStoreUtils.getNimbodesWithLatestSequenceNumberOfBlob(zkClient, key);
-                    // Removing self so as not to create a deadlock where a nimbus is trying to download a missing blob
-                    // from itself
-                    nimbusInfoSet.remove(this.nimbusInfo);
-                    LOG.debug("syncBlobs, key: {}, nimbusInfoSet: {}", key, nimbusInfoSet);
-                    if (BlobStoreUtils.downloadMissingBlob(conf, blobStore, key, nimbusInfoSet)) {
-                        BlobStoreUtils.createStateInZookeeper(conf, key, nimbusInfo);
-                    }
-                } catch (KeyNotFoundException e) {
-                    LOG.debug("Detected deletion for the key {} while downloading - skipping download", key);
-                }
+                downloads.put(key, BlobStoreChangeLog.Op.UPDATE);
             }
+            applyInParallel(downloads);
         } catch (InterruptedException | ClosedByInterruptException exp) {
             LOG.error("Interrupt Exception {}", exp);
         } catch (Exception exp) {
@@ -107,6 +110,78 @@ public class LocalFsBlobStoreSynchronizer {
         }
     }
 
+    /**
+     * Apply the changes read from the {@link BlobStoreChangeLog}, instead of comparing every key.
+     *
+     * @param changes the changed keys with the last operation on each
+     * @return the keys that could not be synced and should be tried again
+     * @throws InterruptedException if interrupted while waiting for the changes to be applied
+     */
+    public synchronized Set<String> syncChangedBlobs(Map<String, BlobStoreChangeLog.Op> changes) throws InterruptedException {
+        LOG.debug("Sync changed blobs {}", changes);
+        return applyInParallel(changes);
+    }
+
+    private Set<String> applyInParallel(Map<String, BlobStoreChangeLog.Op> changes) throws InterruptedException {
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        if (changes.isEmpty()) {
+            return failed;
+        }
+        CountDownLatch done = new CountDownLatch(changes.size());
+        for (Map.Entry<String, BlobStoreChangeLog.Op> change : changes.entrySet()) {
+            Runnable apply = () -> {
+                try {
+                    if (!apply(change.getKey(), change.getValue())) {
+                        failed.add(change.getKey());
+                    }
+                } catch (Exception e) {
+                    LOG.warn("Could not sync blob {}", change.getKey(), e);
+                    failed.add(change.getKey());
+                } finally {
+                    done.countDown();
+                }
+            };
+            if (executor == null) {
+                apply.run();
+            } else {
+                executor.execute(apply);
+            }
+        }
+        done.await();
+        return failed;
+    }
+
+    private boolean apply(String key, BlobStoreChangeLog.Op op) throws Exception {
+        if (op == BlobStoreChangeLog.Op.DELETE) {
+            if (blobStoreKeySet.contains(key)) {
+                try {
+                    blobStore.deleteBlob(key, BlobStoreUtils.getNimbusSubject());
+                } catch (KeyNotFoundException e) {
+                    //Already gone
+                }
+            }
+            return true;
+        }
+        if (blobStoreKeySet.contains(key)) {
+            BlobStoreUtils.updateKeyForBlobStore(conf, blobStore, zkClient, key, nimbusInfo);
+            return true;
+        }
+        try {
+            Set<NimbusInfo> nimbusInfoSet = BlobStoreUtils.getNimbodesWithLatestSequenceNumberOfBlob(zkClient, key);
+            // Removing self so as not to create a deadlock where a nimbus is trying to download a missing blob
+            // from itself
+            nimbusInfoSet.remove(this.nimbusInfo);
+            LOG.debug("syncBlobs, key: {}, nimbusInfoSet: {}", key, nimbusInfoSet);
+            if (!BlobStoreUtils.downloadMissingBlob(conf, blobStore, key, nimbusInfoSet)) {
+                return false;
+            }
+            BlobStoreUtils.createStateInZookeeper(conf, key, nimbusInfo);
+        } catch (KeyNotFoundException e) {
+            LOG.debug("Detected deletion for the key {} while downloading - skipping download", key);
+        }
+        return true;
+    }
+
     public void deleteKeySetFromBlobStoreNotOnZookeeper(Set<String> keySetBlobStore, Set<String> keySetZookeeper) throws Exception {
         if (keySetBlobStore.removeAll(keySetZookeeper)
             || (keySetZookeeper.isEmpty() && !keySetBlobStore.isEmpty())) {
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
@@ -240,6 +241,22 @@ public class DRPC implements AutoCloseable {
         }
     }
 
+    /**
+     * Execute a request without blocking the calling thread. The returned future completes when a result is returned, the request
+     * fails, or it times out. Cancelling the future releases the request on the server.
+     * @param functionName the function to execute
+     * @param funcArgs the arguments to the function
+     * @return a future holding the result of the request
+     * @throws AuthorizationException if the caller is not allowed to execute the function
+     */
+    public CompletableFuture<String> executeAsync(String functionName, String funcArgs) throws AuthorizationException {
+        FutureOutstandingRequest req = execute(functionName, funcArgs, FutureOutstandingRequest.FACTORY);
+        String id = req.getRequest().get_request_id();
+        CompletableFuture<String> future = req.getFuture();
+        future.whenComplete((result, e) -> cleanup(id));
+        return future;
+    }
+
     @Override
     public void close() {
         timer.cancel();
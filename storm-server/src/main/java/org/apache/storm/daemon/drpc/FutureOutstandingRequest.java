@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.storm.daemon.drpc;
+
+import java.util.concurrent.CompletableFuture;
+import org.apache.storm.generated.DRPCExecutionException;
+import org.apache.storm.generated.DRPCRequest;
+
+/**
+ * An outstanding request that completes a {@link CompletableFuture} instead of parking the calling thread.
+ */
+public class FutureOutstandingRequest extends OutstandingRequest {
+    public static final RequestFactory<FutureOutstandingRequest> FACTORY = FutureOutstandingRequest::new;
+    private final CompletableFuture<String> future = new CompletableFuture<>();
+
+    public FutureOutstandingRequest(String function, DRPCRequest req) {
+        super(function, req);
+    }
+
+    public CompletableFuture<String> getFuture() {
+        return future;
+    }
+
+    @Override
+    public void returnResult(String result) {
+        future.complete(result);
+    }
+
+    @Override
+    public void fail(DRPCExecutionException e) {
+        future.completeExceptionally(e);
+    }
+}
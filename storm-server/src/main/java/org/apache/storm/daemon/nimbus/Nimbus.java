@@ -4030,6 +4030,7 @@ public class Nimbus implements Iface, Shutdownable, DaemonCommon {
             NimbusInfo ni = nimbusHostPortInfo;
             if (store instanceof LocalFsBlobStore) {
                 state.setupBlob(key, ni, getVersionForKey(key, ni, zkClient));
+                ((LocalFsBlobStore) store).publishBlobUpdate(key);
             }
             LOG.debug("Created state in zookeeper {} {} {}", state, store, ni);
         } catch (Exception e) {
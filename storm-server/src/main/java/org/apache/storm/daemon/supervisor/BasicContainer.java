@@ -66,8 +66,13 @@ import org.slf4j.LoggerFactory;
  */
 public class BasicContainer extends Container {
     static final TopoMetaLruCache TOPO_META_CACHE = new TopoMetaLruCache();
+    static final WorkerCdsArchives CDS_ARCHIVES = new WorkerCdsArchives();
     private static final Logger LOG = LoggerFactory.getLogger(BasicContainer.class);
     private static final Joiner CPJ = Joiner.on(File.pathSeparator).skipNulls();
+    private static final String PREWARMED_WORKER_MAIN = "org.apache.storm.daemon.worker.PrewarmedWorker";
+    private static final String PREWARM_RELEASE_FILE = "prewarm-release";
+    private static final String PREWARM_ARTIFACTS_PREFIX = "prewarm-";
+    private static final String WORKER_LOG_FILE = "worker.log";
     protected final LocalState localState;
     protected final String profileCmd;
     protected final String stormHome = System.getProperty(ConfigUtils.STORM_HOME);
@@ -79,6 +84,12 @@ public class BasicContainer extends Container {
     protected volatile boolean exitedEarly = false;
     protected volatile long memoryLimitMb;
     protected volatile long memoryLimitExceededStart = -1;
+    protected final boolean prewarmEnabled;
+    protected final long prewarmMemoryMb;
+    protected final boolean cdsEnabled;
+    //A worker JVM started ahead of time for this container's assignment, that has not been released yet
+    protected volatile String prewarmedWorkerId = null;
+    protected volatile boolean prewarmedWorkerExited = false;
 
     /**
      * Create a new BasicContainer.
@@ -181,6 +192,19 @@ public class BasicContainer extends Container {
             WorkerResources resources = assignment.get_resources();
             memoryLimitMb = calculateMemoryLimit(resources, getMemOnHeap(resources));
         }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> versionClasspaths = (Map<String, String>) conf.get(Config.SUPERVISOR_WORKER_VERSION_CLASSPATH_MAP);
+        prewarmEnabled = ObjectReader.getBoolean(conf.get(DaemonConfig.SUPERVISOR_WORKER_PREWARM_ENABLED), false)
+            && !runAsUser
+            && (resourceIsolationManager == null || !resourceIsolationManager.isResourceManaged())
+            && (versionClasspaths == null || versionClasspaths.isEmpty());
+        prewarmMemoryMb = ObjectReader.getInt(conf.get(DaemonConfig.SUPERVISOR_WORKER_PREWARM_MEMORY_MB), 0);
+        if (!type.isOnlyKillable()) {
+            //Parked workers from before a supervisor restart are bound to an assignment we can no longer vouch for
+            cleanUpStalePrewarmedWorkers();
+        }
+        cdsEnabled = ObjectReader.getBoolean(conf.get(DaemonConfig.SUPERVISOR_WORKER_CDS_ENABLED), false) && !runAsUser;
     }
 
     private static void removeWorkersOn(Map<String, Integer> workerToPort, int port) {
@@ -208,10 +232,19 @@ public class BasicContainer extends Container {
      * up and running. We will lose track of the process.
      */
     protected void createNewWorkerId() {
+        approveWorkerId(Utils.uuid());
+    }
+
+    /**
+     * Make the given worker id the id of this container and record it in the local state.
+     *
+     * @param newWorkerId the id of the worker that is going to run in this container
+     */
+    private void approveWorkerId(String newWorkerId) {
         type.assertFull();
         assert (workerId == null);
         synchronized (localState) {
-            workerId = Utils.uuid();
+            workerId = newWorkerId;
             Map<String, Integer> workerToPort = localState.getApprovedWorkers();
             if (workerToPort == null) {
                 workerToPort = new HashMap<>(1);
@@ -245,11 +278,196 @@ public class BasicContainer extends Container {
         type.assertFull();
         //We are launching it now...
         type = ContainerType.LAUNCH;
+        if (releasePrewarmedWorker()) {
+            return;
+        }
         createNewWorkerId();
         setup();
         launch();
     }
 
+    @Override
+    public void cleanUp() throws IOException {
+        cleanUpPrewarmedWorker();
+        super.cleanUp();
+    }
+
+    @Override
+    public void cleanUpPrewarmedWorker() throws IOException {
+        String id = prewarmedWorkerId;
+        prewarmedWorkerId = null;
+        if (id != null) {
+            deletePrewarmedWorker(id);
+        }
+    }
+
+    private void cleanUpStalePrewarmedWorkers() throws IOException {
+        List<String> stale = new ArrayList<>();
+        synchronized (localState) {
+            Map<String, Integer> prewarmedToPort = localState.getPrewarmedWorkers();
+            if (prewarmedToPort != null) {
+                for (Entry<String, Integer> entry : prewarmedToPort.entrySet()) {
+                    if (port == entry.getValue()) {
+                        stale.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        for (String id : stale) {
+            deletePrewarmedWorker(id);
+        }
+    }
+
+    /**
+     * Record a parked worker in the local state, so it can be found and cleaned up if the supervisor restarts before it is released.
+     *
+     * @param id the id of the parked worker
+     */
+    private void recordPrewarmedWorker(String id) {
+        synchronized (localState) {
+            Map<String, Integer> prewarmedToPort = localState.getPrewarmedWorkers();
+            if (prewarmedToPort == null) {
+                prewarmedToPort = new HashMap<>(1);
+            }
+            prewarmedToPort.put(id, port);
+            localState.setPrewarmedWorkers(prewarmedToPort);
+        }
+    }
+
+    /**
+     * Forget about a parked worker, because it was released or removed, and give back the memory reserved for it.
+     *
+     * @param id the id of the parked worker
+     */
+    private void forgetPrewarmedWorker(String id) {
+        containerMemoryTracker.releasePrewarmMemoryMb(port);
+        synchronized (localState) {
+            Map<String, Integer> prewarmedToPort = localState.getPrewarmedWorkers();
+            if (prewarmedToPort != null && prewarmedToPort.remove(id) != null) {
+                localState.setPrewarmedWorkers(prewarmedToPort);
+            }
+        }
+    }
+
+    private void deletePrewarmedWorker(String id) throws IOException {
+        LOG.info("Removing pre-started worker {} on port {}", id, port);
+        forgetPrewarmedWorker(id);
+        String user = getWorkerUser();
+        if (!resourceIsolationManager.areAllProcessesDead(user, id)) {
+            resourceIsolationManager.forceKill(user, id);
+        }
+        //If the JVM has not registered its pid yet it exits on its own once its directories are gone.
+        ops.deleteIfExists(new File(ConfigUtils.workerHeartbeatsRoot(conf, id)), user, id);
+        ops.deleteIfExists(new File(ConfigUtils.workerPidsRoot(conf, id)), user, id);
+        ops.deleteIfExists(new File(ConfigUtils.workerTmpRoot(conf, id)), user, id);
+        ops.deleteIfExists(new File(ConfigUtils.workerRoot(conf, id)), user, id);
+        if (topologyId != null) {
+            ops.deleteIfExists(prewarmArtifactsDir(id), user, id);
+        }
+    }
+
+    /**
+     * Start a worker JVM for the current assignment that waits to be released, so a later relaunch can skip JVM start up.
+     *
+     * @param numaId the numa zone the worker is bound to, or null
+     */
+    private void launchPrewarmedWorker(String numaId) {
+        if (childoptsUsePort()) {
+            LOG.info("Not pre-starting a worker on port {}, its childopts use the port, which the live worker still holds", port);
+            return;
+        }
+        long memOnHeap = getMemOnHeap(assignment.get_resources());
+        if (!containerMemoryTracker.reservePrewarmMemoryMb(port, memOnHeap, prewarmMemoryMb)) {
+            LOG.info("Not pre-starting a worker on port {}, {} MB does not fit in the {} MB set aside for pre-started workers",
+                     port, memOnHeap, prewarmMemoryMb);
+            return;
+        }
+        String id = Utils.uuid();
+        recordPrewarmedWorker(id);
+        try {
+            ops.forceMkdir(new File(ConfigUtils.workerPidsRoot(conf, id)));
+            ops.forceMkdir(new File(ConfigUtils.workerTmpRoot(conf, id)));
+            ops.forceMkdir(new File(ConfigUtils.workerHeartbeatsRoot(conf, id)));
+            //Until it is released the worker keeps its logs, gc log and heap dumps apart from the live worker on this port
+            File artifacts = prewarmArtifactsDir(id);
+            ops.forceMkdir(artifacts);
+            ops.setupWorkerArtifactsDir(assignment.get_owner(), artifacts);
+            if (!symlinksDisabled) {
+                ops.createSymlink(new File(ConfigUtils.workerArtifactsSymlink(conf, id)), artifacts);
+            }
+            prewarmedWorkerExited = false;
+            prewarmedWorkerId = id;
+            launchWorkerProcess(id, numaId, prewarmReleaseFile(id));
+        } catch (IOException e) {
+            LOG.warn("Could not pre-start a worker on port {}, the next relaunch will start a new JVM", port, e);
+            prewarmedWorkerId = null;
+            try {
+                deletePrewarmedWorker(id);
+            } catch (IOException ex) {
+                LOG.warn("Could not clean up pre-started worker {}", id, ex);
+            }
+        }
+    }
+
+    /**
+     * Adopt the pre-started worker, if there is a live one, as the worker for this container and let it run.
+     *
+     * @return true if a pre-started worker was released, false if a new one needs to be launched
+     * @throws IOException on any error
+     */
+    private boolean releasePrewarmedWorker() throws IOException {
+        String id = prewarmedWorkerId;
+        if (id == null) {
+            return false;
+        }
+        prewarmedWorkerId = null;
+        if (prewarmedWorkerExited) {
+            LOG.warn("Pre-started worker {} on port {} is no longer running", id, port);
+            deletePrewarmedWorker(id);
+            return false;
+        }
+        LOG.info("Releasing pre-started worker with assignment {} for this supervisor {} on port {} with id {}",
+                 assignment, supervisorId, port, id);
+        exitedEarly = false;
+        forgetPrewarmedWorker(id);
+        approveWorkerId(id);
+        setup();
+        ops.dump(new File(prewarmReleaseFile(id)), "");
+        launchPrewarmedWorker(SupervisorUtils.getNumaIdForPort(port, conf));
+        return true;
+    }
+
+    private File prewarmArtifactsDir(String id) {
+        return new File(ConfigUtils.workerArtifactsRoot(conf, topologyId, port), PREWARM_ARTIFACTS_PREFIX + id);
+    }
+
+    /**
+     * Check if any of the worker childopts are derived from the port, like a JMX port, which a pre-started worker could not bind while the
+     * live worker still runs.
+     */
+    private boolean childoptsUsePort() {
+        List<Object> childopts = new ArrayList<>();
+        childopts.add(conf.get(Config.WORKER_CHILDOPTS));
+        childopts.add(topoConf.get(Config.TOPOLOGY_WORKER_CHILDOPTS));
+        childopts.add(Utils.OR(topoConf.get(Config.TOPOLOGY_WORKER_GC_CHILDOPTS), conf.get(Config.WORKER_GC_CHILDOPTS)));
+        childopts.add(topoConf.get(Config.TOPOLOGY_WORKER_LOGWRITER_CHILDOPTS));
+        if (ObjectReader.getBoolean(conf.get(DaemonConfig.WORKER_PROFILER_ENABLED), false)) {
+            childopts.add(conf.get(DaemonConfig.WORKER_PROFILER_CHILDOPTS));
+        }
+        for (Object opts : childopts) {
+            for (String opt : opts instanceof List ? ObjectReader.getStrings(opts) : Collections.singletonList(String.valueOf(opts))) {
+                if (opt.contains("%ID%") || opt.contains("%WORKER-PORT%")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String prewarmReleaseFile(String id) {
+        return ConfigUtils.workerRoot(conf, id) + File.separator + PREWARM_RELEASE_FILE;
+    }
+
     @Override
     public boolean didMainProcessExit() {
         return exitedEarly;
@@ -434,11 +652,11 @@ public class BasicContainer extends Container {
         return CPJ.join(workercp);
     }
 
-    private String substituteChildOptsInternal(String string, int memOnheap, int memOffheap) {
+    private String substituteChildOptsInternal(String string, int memOnheap, int memOffheap, String forWorkerId) {
         if (StringUtils.isNotBlank(string)) {
             String p = String.valueOf(port);
             string = string.replace("%ID%", p);
-            string = string.replace("%WORKER-ID%", workerId);
+            string = string.replace("%WORKER-ID%", forWorkerId);
             string = string.replace("%TOPOLOGY-ID%", topologyId);
             string = string.replace("%WORKER-PORT%", p);
             if (memOnheap > 0) {
@@ -459,9 +677,13 @@ public class BasicContainer extends Container {
     }
 
     protected List<String> substituteChildopts(Object value, int memOnheap, int memOffHeap) {
+        return substituteChildopts(value, memOnheap, memOffHeap, workerId);
+    }
+
+    protected List<String> substituteChildopts(Object value, int memOnheap, int memOffHeap, String forWorkerId) {
         List<String> rets = new ArrayList<>();
         if (value instanceof String) {
-            String string = substituteChildOptsInternal((String) value, memOnheap, memOffHeap);
+            String string = substituteChildOptsInternal((String) value, memOnheap, memOffHeap, forWorkerId);
             if (StringUtils.isNotBlank(string)) {
                 String[] strings = string.split("\\s+");
                 for (String s : strings) {
@@ -474,7 +696,7 @@ public class BasicContainer extends Container {
             @SuppressWarnings("unchecked")
             List<String> objects = (List<String>) value;
             for (String object : objects) {
-                String str = substituteChildOptsInternal(object, memOnheap, memOffHeap);
+                String str = substituteChildOptsInternal(object, memOnheap, memOffHeap, forWorkerId);
                 if (StringUtils.isNotBlank(str)) {
                     rets.add(str);
                 }
@@ -523,19 +745,22 @@ public class BasicContainer extends Container {
      * Get a set of java properties that are common to both the log writer and the worker processes. These are mostly system properties that
      * are used by logging.
      *
+     * @param forWorkerId the id of the worker the options are for
+     * @param prewarm     if the worker is pre-started, which logs to its own directory until it is released
      * @return a list of command line options
      */
-    private List<String> getCommonParams() {
+    private List<String> getCommonParams(String forWorkerId, boolean prewarm) {
         final String workersArtifacts = ConfigUtils.workerArtifactsRoot(conf);
         String stormLogDir = ConfigUtils.getLogDir();
         
         List<String> commonParams = new ArrayList<>();
         commonParams.add("-Dlogging.sensitivity=" + OR((String) topoConf.get(Config.TOPOLOGY_LOGGING_SENSITIVITY), "S3"));
-        commonParams.add("-Dlogfile.name=worker.log");
+        //PrewarmedWorker switches back to the worker's own log once it is released
+        commonParams.add("-Dlogfile.name=" + (prewarm ? PREWARM_ARTIFACTS_PREFIX + forWorkerId + "/" : "") + WORKER_LOG_FILE);
         commonParams.add("-Dstorm.home=" + OR(stormHome, ""));
         commonParams.add("-Dworkers.artifacts=" + workersArtifacts);
         commonParams.add("-Dstorm.id=" + topologyId);
-        commonParams.add("-Dworker.id=" + workerId);
+        commonParams.add("-Dworker.id=" + forWorkerId);
         commonParams.add("-Dworker.port=" + port);
         commonParams.add("-Dstorm.log.dir=" + stormLogDir);
         commonParams.add("-DLog4jContextSelector=org.apache.logging.log4j.core.selector.BasicContextSelector");
@@ -567,11 +792,11 @@ public class BasicContainer extends Container {
         return memOffheap;
     }
 
-    private List<String> getWorkerProfilerChildOpts(int memOnheap, int memOffheap) {
+    private List<String> getWorkerProfilerChildOpts(int memOnheap, int memOffheap, String forWorkerId) {
         List<String> workerProfilerChildopts = new ArrayList<>();
         if (ObjectReader.getBoolean(conf.get(DaemonConfig.WORKER_PROFILER_ENABLED), false)) {
             workerProfilerChildopts = substituteChildopts(
-                    conf.get(DaemonConfig.WORKER_PROFILER_CHILDOPTS), memOnheap, memOffheap
+                    conf.get(DaemonConfig.WORKER_PROFILER_CHILDOPTS), memOnheap, memOffheap, forWorkerId
             );
         }
         return workerProfilerChildopts;
@@ -594,16 +819,19 @@ public class BasicContainer extends Container {
      * @param memOnheap the on heap memory for the worker
      * @param stormRoot the root dist dir for the topology
      * @param jlp       java library path for the topology
+     * @param forWorkerId the id of the worker the command is for
+     * @param releaseFile if not null the worker is started parked, and only runs once this file exists
      * @return the command to run
      *
      * @throws IOException on any error.
      */
     private List<String> mkLaunchCommand(final int memOnheap, final int memOffheap, final String stormRoot,
-                                         final String jlp, final String numaId) throws IOException {
+                                         final String jlp, final String numaId, final String forWorkerId,
+                                         final String releaseFile) throws IOException {
         final String javaCmd = javaCmd("java");
         final String stormOptions = ConfigUtils.concatIfNotNull(System.getProperty("storm.options"));
         final String topoConfFile = ConfigUtils.concatIfNotNull(System.getProperty("storm.conf.file"));
-        final String workerTmpDir = ConfigUtils.workerTmpRoot(conf, workerId);
+        final String workerTmpDir = ConfigUtils.workerTmpRoot(conf, forWorkerId);
         String topoVersionString = getStormVersionFor(conf, topologyId, ops, stormRoot);
         if (topoVersionString == null) {
             topoVersionString = (String) conf.getOrDefault(Config.SUPERVISOR_WORKER_DEFAULT_VERSION, VersionInfo.getVersion());
@@ -611,7 +839,7 @@ public class BasicContainer extends Container {
         final SimpleVersion topoVersion = new SimpleVersion(topoVersionString);
 
         List<String> classPathParams = getClassPathParams(stormRoot, topoVersion);
-        List<String> commonParams = getCommonParams();
+        List<String> commonParams = getCommonParams(forWorkerId, releaseFile != null);
 
         String log4jConfigurationFile = getWorkerLoggingConfigFile();
         String workerLog4jConfig = log4jConfigurationFile;
@@ -625,7 +853,7 @@ public class BasicContainer extends Container {
             //Log Writer Command...
             commandList.add(javaCmd);
             commandList.addAll(classPathParams);
-            commandList.addAll(substituteChildopts(topoConf.get(Config.TOPOLOGY_WORKER_LOGWRITER_CHILDOPTS)));
+            commandList.addAll(substituteChildopts(topoConf.get(Config.TOPOLOGY_WORKER_LOGWRITER_CHILDOPTS), -1, -1, forWorkerId));
             commandList.addAll(commonParams);
             commandList.add("-Dlog4j.configurationFile=" + log4jConfigurationFile);
             commandList.add(logWriter); //The LogWriter in turn launches the actual worker.
@@ -636,17 +864,31 @@ public class BasicContainer extends Container {
         commandList.add("-server");
         commandList.addAll(commonParams);
         commandList.add("-Dlog4j.configurationFile=" + workerLog4jConfig);
-        commandList.addAll(substituteChildopts(conf.get(Config.WORKER_CHILDOPTS), memOnheap, memOffheap));
-        commandList.addAll(substituteChildopts(topoConf.get(Config.TOPOLOGY_WORKER_CHILDOPTS), memOnheap, memOffheap));
+        commandList.addAll(substituteChildopts(conf.get(Config.WORKER_CHILDOPTS), memOnheap, memOffheap, forWorkerId));
+        commandList.addAll(substituteChildopts(topoConf.get(Config.TOPOLOGY_WORKER_CHILDOPTS), memOnheap, memOffheap, forWorkerId));
         commandList.addAll(substituteChildopts(Utils.OR(
             topoConf.get(Config.TOPOLOGY_WORKER_GC_CHILDOPTS),
-            conf.get(Config.WORKER_GC_CHILDOPTS)), memOnheap, memOffheap));
-        commandList.addAll(getWorkerProfilerChildOpts(memOnheap, memOffheap));
+            conf.get(Config.WORKER_GC_CHILDOPTS)), memOnheap, memOffheap, forWorkerId));
+        commandList.addAll(getWorkerProfilerChildOpts(memOnheap, memOffheap, forWorkerId));
         commandList.add("-Djava.library.path=" + jlp);
         commandList.add("-Dstorm.conf.file=" + topoConfFile);
         commandList.add("-Dstorm.options=" + stormOptions);
         commandList.add("-Djava.io.tmpdir=" + workerTmpDir);
+        if (cdsEnabled) {
+            String archive = CDS_ARCHIVES.getArchive(javaCmd, stormRoot, ConfigUtils.supervisorStormJarPath(stormRoot),
+                                                     classPathParams.get(1), getWorkerMain(topoVersion));
+            if (archive != null) {
+                commandList.add("-XX:SharedArchiveFile=" + archive);
+                commandList.add("-Xshare:auto");
+            }
+        }
         commandList.addAll(classPathParams);
+        if (releaseFile != null) {
+            commandList.add(PREWARMED_WORKER_MAIN);
+            commandList.add(ConfigUtils.workerPidsRoot(conf, forWorkerId));
+            commandList.add(releaseFile);
+            commandList.add(ConfigUtils.supervisorStormJarPath(stormRoot));
+        }
         commandList.add(getWorkerMain(topoVersion));
         commandList.add(topologyId);
         String supervisorId = this.supervisorId;
@@ -662,7 +904,7 @@ public class BasicContainer extends Container {
         }
 
         commandList.add(String.valueOf(port));
-        commandList.add(workerId);
+        commandList.add(forWorkerId);
 
         return commandList;
     }
@@ -816,8 +1058,32 @@ public class BasicContainer extends Container {
 
         final WorkerResources resources = assignment.get_resources();
         final int memOnHeap = getMemOnHeap(resources);
-        final int memOffHeap = getMemOffHeap(resources);
         memoryLimitMb = calculateMemoryLimit(resources, memOnHeap);
+
+        if (resourceIsolationManager.isResourceManaged()) {
+            final int cpu = (int) Math.ceil(resources.get_cpu());
+            //Save the memory limit so we can enforce it less strictly
+            resourceIsolationManager.reserveResourcesForWorker(workerId, (int) memoryLimitMb, cpu, numaId);
+        }
+
+        launchWorkerProcess(workerId, numaId, null);
+        if (prewarmEnabled) {
+            launchPrewarmedWorker(numaId);
+        }
+    }
+
+    /**
+     * Launch a worker process for the current assignment.
+     *
+     * @param forWorkerId the id of the worker to launch
+     * @param numaId      the numa zone to bind the worker to, or null
+     * @param releaseFile if not null the worker is pre-started, and waits for this file before running
+     * @throws IOException on any error
+     */
+    private void launchWorkerProcess(String forWorkerId, String numaId, String releaseFile) throws IOException {
+        final WorkerResources resources = assignment.get_resources();
+        final int memOnHeap = getMemOnHeap(resources);
+        final int memOffHeap = getMemOffHeap(resources);
         final String stormRoot = ConfigUtils.supervisorStormDistRoot(conf, topologyId);
         String jlp = javaLibraryPath(stormRoot, conf);
 
@@ -835,21 +1101,15 @@ public class BasicContainer extends Container {
 
         topEnvironment.put("LD_LIBRARY_PATH", jlp);
 
-        if (resourceIsolationManager.isResourceManaged()) {
-            final int cpu = (int) Math.ceil(resources.get_cpu());
-            //Save the memory limit so we can enforce it less strictly
-            resourceIsolationManager.reserveResourcesForWorker(workerId, (int) memoryLimitMb, cpu, numaId);
-        }
-
-        List<String> commandList = mkLaunchCommand(memOnHeap, memOffHeap, stormRoot, jlp, numaId);
+        List<String> commandList = mkLaunchCommand(memOnHeap, memOffHeap, stormRoot, jlp, numaId, forWorkerId, releaseFile);
 
-        LOG.info("Launching worker with command: {}. ", ServerUtils.shellCmd(commandList));
+        LOG.info("Launching {}worker with command: {}. ", releaseFile == null ? "" : "pre-started ", ServerUtils.shellCmd(commandList));
 
-        String workerDir = ConfigUtils.workerRoot(conf, workerId);
+        String workerDir = ConfigUtils.workerRoot(conf, forWorkerId);
 
-        String logPrefix = "Worker Process " + workerId;
-        ProcessExitCallback processExitCallback = new ProcessExitCallback(logPrefix);
-        resourceIsolationManager.launchWorkerProcess(getWorkerUser(), topologyId, topoConf, port, workerId,
+        String logPrefix = "Worker Process " + forWorkerId;
+        ProcessExitCallback processExitCallback = new ProcessExitCallback(logPrefix, forWorkerId);
+        resourceIsolationManager.launchWorkerProcess(getWorkerUser(), topologyId, topoConf, port, forWorkerId,
             commandList, topEnvironment, logPrefix, processExitCallback, new File(workerDir));
     }
 
@@ -943,15 +1203,22 @@ public class BasicContainer extends Container {
 
     private class ProcessExitCallback implements ExitCodeCallback {
         private final String logPrefix;
+        private final String processWorkerId;
 
-        ProcessExitCallback(String logPrefix) {
+        ProcessExitCallback(String logPrefix, String processWorkerId) {
             this.logPrefix = logPrefix;
+            this.processWorkerId = processWorkerId;
         }
 
         @Override
         public void call(int exitCode) {
             LOG.info("{} exited with code: {}", logPrefix, exitCode);
-            exitedEarly = true;
+            if (processWorkerId.equals(workerId)) {
+                exitedEarly = true;
+            } else if (processWorkerId.equals(prewarmedWorkerId)) {
+                //A pre-started worker that was never released, the running worker is not affected.
+                prewarmedWorkerExited = true;
+            }
         }
     }
 }
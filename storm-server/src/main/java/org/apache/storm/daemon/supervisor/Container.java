@@ -477,6 +477,16 @@ public abstract class Container implements Killable {
         workerId = null;
     }
 
+    /**
+     * Kill and clean up any worker process that was started ahead of time for this container but has not been used yet. This is needed
+     * when the assignment or the blobs it was started with are no longer valid. By default there is nothing to clean up.
+     *
+     * @throws IOException on any error
+     */
+    public void cleanUpPrewarmedWorker() throws IOException {
+        //NOOP
+    }
+
     /**
      * Check if the container is over its memory limit AND needs to be killed. This does not necessarily mean that it just went over the
      * limit.
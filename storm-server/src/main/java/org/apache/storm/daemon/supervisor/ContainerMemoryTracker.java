@@ -24,6 +24,7 @@ public class ContainerMemoryTracker {
 
     private final ConcurrentHashMap<Integer, TopoAndMemory> usedMemory = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, TopoAndMemory> reservedMemory = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Long> prewarmReservedMemory = new ConcurrentHashMap<>();
 
     public ContainerMemoryTracker(StormMetricsRegistry metricsRegistry) {
         metricsRegistry.registerGauge(
@@ -46,6 +47,9 @@ public class ContainerMemoryTracker {
                 }
                 return ret;
             });
+        metricsRegistry.registerGauge(
+            "supervisor:current-prewarm-reserved-memory-mb",
+            () -> (int) getPrewarmReservedMemoryMb());
     }
 
     /**
@@ -138,6 +142,41 @@ public class ContainerMemoryTracker {
         reservedMemory.put(port, new TopoAndMemory(topologyId, reservedMemoryMb));
     }
 
+    /**
+     * Reserves memory for a parked worker JVM on the given port, if it fits in the budget for parked JVMs.
+     *
+     * @param port The worker port
+     * @param memoryMb The memory the parked JVM may use
+     * @param budgetMb The memory set aside for all parked JVMs on this supervisor
+     * @return true if the memory was reserved, false if the budget does not allow it
+     */
+    public synchronized boolean reservePrewarmMemoryMb(int port, long memoryMb, long budgetMb) {
+        long othersMb = getPrewarmReservedMemoryMb() - prewarmReservedMemory.getOrDefault(port, 0L);
+        if (othersMb + memoryMb > budgetMb) {
+            return false;
+        }
+        prewarmReservedMemory.put(port, memoryMb);
+        return true;
+    }
+
+    /**
+     * Releases the memory reserved for a parked worker JVM on the given port.
+     *
+     * @param port The worker port
+     */
+    public synchronized void releasePrewarmMemoryMb(int port) {
+        prewarmReservedMemory.remove(port);
+    }
+
+    /**
+     * Gets the memory reserved for parked worker JVMs across all ports on this supervisor.
+     *
+     * @return The memory reserved for parked worker JVMs
+     */
+    public long getPrewarmReservedMemoryMb() {
+        return prewarmReservedMemory.values().stream().mapToLong(Long::longValue).sum();
+    }
+
     private static class TopoAndMemory {
 
         public final String topoId;
@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -58,6 +59,8 @@ public class ReadClusterState implements Runnable, AutoCloseable {
     private final Map<String, Object> superConf;
     private final IStormClusterState stormClusterState;
     private final Map<Integer, Slot> slots = new HashMap<>();
+    //The last assignment handed to each slot, so only changes are dispatched
+    private final Map<Integer, LocalAssignment> dispatchedAssignments = new HashMap<>();
     private final AtomicInteger readRetry = new AtomicInteger(0);
     private final String assignmentId;
     private final int supervisorPort;
@@ -181,7 +184,13 @@ public class ReadClusterState implements Runnable, AutoCloseable {
                     slots.put(port, slot);
                     slot.start();
                 }
-                slot.setNewAssignment(allAssignments.get(port));
+                LocalAssignment assignment = allAssignments.get(port);
+                if (!dispatchedAssignments.containsKey(port)
+                    || !Objects.equals(dispatchedAssignments.get(port), assignment)) {
+                    LOG.debug("Dispatching assignment {} to slot {}", assignment, port);
+                    slot.setNewAssignment(assignment);
+                    dispatchedAssignments.put(port, assignment);
+                }
                 slot.addProfilerActions(filtered.get(port));
             }
 
@@ -295,6 +304,7 @@ public class ReadClusterState implements Runnable, AutoCloseable {
     }
 
     public synchronized void shutdownAllWorkers(BiConsumer<Slot, Long> onWarnTimeout, UniFunc<Slot> onErrorTimeout) {
+        dispatchedAssignments.clear();
         for (Slot slot : slots.values()) {
             LOG.info("Setting {} assignment to null", slot);
             slot.setNewAssignment(null);
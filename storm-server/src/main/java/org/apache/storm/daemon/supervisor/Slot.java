@@ -24,6 +24,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -248,6 +249,8 @@ public class Slot extends Thread implements AutoCloseable, BlobChangingCallback
                 break;
 
             case BLOB_CHANGED:
+                //A worker started ahead of time would still see the old blobs
+                dynamicState.container.cleanUpPrewarmedWorker();
                 next = dynamicState.withState(MachineState.KILL_BLOB_UPDATE);
                 break;
 
@@ -670,7 +673,7 @@ public class Slot extends Thread implements AutoCloseable, BlobChangingCallback
             //Kill the container and restart it
             return killContainerFor(KillReason.BLOB_CHANGED, dynamicState, staticState);
         }
-        Time.sleep(1000);
+        waitForEvent(staticState, 1000);
         return dynamicState;
     }
 
@@ -784,7 +787,7 @@ public class Slot extends Thread implements AutoCloseable, BlobChangingCallback
 
         dynamicState.container.processMetrics(staticState.metricsExec, staticState.metricsProcessor);
 
-        Time.sleep(staticState.monitorFreqMs);
+        waitForEvent(staticState, staticState.monitorFreqMs);
         return dynamicState;
     }
 
@@ -808,10 +811,29 @@ public class Slot extends Thread implements AutoCloseable, BlobChangingCallback
         }
         //Drop the change notifications we are not running anything right now
         dynamicState = drainAllChangingBlobs(dynamicState);
-        Time.sleep(1000);
+        waitForEvent(staticState, 1000);
         return dynamicState;
     }
 
+    /**
+     * Park the slot until something it may need to react to happens (a new assignment, a changing blob, new profiler actions)
+     * or until timeoutMs passes, whichever comes first.  The timeout keeps the periodic checks, like heartbeats, going.
+     * @param staticState static data
+     * @param timeoutMs the maximum amount of time to wait
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void waitForEvent(StaticState staticState, long timeoutMs) throws InterruptedException {
+        if (Time.isSimulating()) {
+            //Simulated time does not know about the wakeup, so keep the fixed sleep.
+            Time.sleep(timeoutMs);
+            return;
+        }
+        if (staticState.wakeup.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            //Collapse any other events that came in while we were waiting into this single wakeup.
+            staticState.wakeup.drainPermits();
+        }
+    }
+
     MachineState getMachineState() {
         return dynamicState.state;
     }
@@ -848,6 +870,14 @@ public class Slot extends Thread implements AutoCloseable, BlobChangingCallback
         this.newAssignment.set(newAssignment == null
                 ? null
                 : new TimerDecoratedAssignment(newAssignment, staticState.slotMetrics.workerLaunchDuration));
+        wakeup();
+    }
+
+    /**
+     * Wake up the state machine so it can react to a change right away instead of waiting for its next periodic check.
+     */
+    public void wakeup() {
+        staticState.wakeup.release();
     }
 
     @Override
@@ -859,6 +889,7 @@ public class Slot extends Thread implements AutoCloseable, BlobChangingCallback
         } catch (InterruptedException e) {
             throw new RuntimeException("This should not have happened, but it did (the queue is unbounded)", e);
         }
+        wakeup();
     }
 
     public void addProfilerActions(Set<TopoProfileAction> actions) {
@@ -866,8 +897,11 @@ public class Slot extends Thread implements AutoCloseable, BlobChangingCallback
             while (true) {
                 Set<TopoProfileAction> orig = profiling.get();
                 Set<TopoProfileAction> newActions = new HashSet<>(orig);
-                newActions.addAll(actions);
+                if (!newActions.addAll(actions)) {
+                    return;
+                }
                 if (profiling.compareAndSet(orig, newActions)) {
+                    wakeup();
                     return;
                 }
             }
@@ -1058,6 +1092,7 @@ public class Slot extends Thread implements AutoCloseable, BlobChangingCallback
         public final OnlyLatestExecutor<Integer> metricsExec;
         public final WorkerMetricsProcessor metricsProcessor;
         public final SlotMetrics slotMetrics;
+        public final Semaphore wakeup = new Semaphore(0);
 
         StaticState(AsyncLocalizer localizer, long hbTimeoutMs, long firstHbTimeoutMs,
                     long killSleepMs, long monitorFreqMs,
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.storm.daemon.supervisor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.storm.shade.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.storm.utils.ServerUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds and caches application class data sharing (AppCDS) archives for topology workers.  An archive is specific to the topology jar,
+ * the worker classpath and the JVM, so it is named after a hash of all three and stored in the topology's dist dir, next to the jar the
+ * localizer downloaded.  It goes away together with the rest of the localized topology.
+ *
+ * <p>Archives are trained in the background by running {@code WorkerClassPreloader} with {@code -XX:ArchiveClassesAtExit}, which needs a
+ * java 13 or later JVM.  Until an archive is ready, or if training fails, workers are launched without one.
+ */
+class WorkerCdsArchives {
+    private static final Logger LOG = LoggerFactory.getLogger(WorkerCdsArchives.class);
+    private static final String PRELOADER_MAIN = "org.apache.storm.daemon.worker.WorkerClassPreloader";
+    private static final long TRAINING_TIMEOUT_MINS = 5;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    //The archives that could not be trained, they are forgotten once their dist dir is gone
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+    //Jar path to its hash, entries are dropped once the jar is gone
+    private final ConcurrentHashMap<String, JarHash> jarHashes = new ConcurrentHashMap<>();
+    private final ExecutorService trainer = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat("CDS Archive Trainer").setDaemon(true).build());
+
+    /**
+     * Get the archive to launch a worker with.  If there is none yet it is trained in the background for the next launch.  This never
+     * reads the topology jar, the jar is hashed in the background too.
+     *
+     * @param javaCmd         the java command the worker is launched with
+     * @param stormRoot       the dist dir of the topology
+     * @param stormJar        the topology jar
+     * @param workerClassPath the classpath of the worker
+     * @param workerMain      the main class of the worker
+     * @return the path of the archive, or null if it is not ready
+     */
+    String getArchive(String javaCmd, String stormRoot, String stormJar, String workerClassPath, String workerMain) {
+        File jar = new File(stormJar);
+        JarHash jarHash = jarHashes.get(jar.getAbsolutePath());
+        if (jarHash != null && jarHash.isFor(jar)) {
+            File archive = archive(javaCmd, stormRoot, jarHash.hash, workerClassPath);
+            if (archive.exists()) {
+                return archive.getAbsolutePath();
+            }
+            if (failed.contains(archive.getAbsolutePath())) {
+                return null;
+            }
+        }
+        if (pending.add(stormRoot)) {
+            trainer.submit(() -> {
+                try {
+                    forgetRemovedTopologies();
+                    File archive = archive(javaCmd, stormRoot, hashJar(jar), workerClassPath);
+                    if (!archive.exists() && !failed.contains(archive.getAbsolutePath())
+                        && !train(javaCmd, archive, workerClassPath, workerMain, stormJar)) {
+                        failed.add(archive.getAbsolutePath());
+                    }
+                } catch (IOException e) {
+                    LOG.warn("Could not hash {}, launching without a CDS archive", stormJar, e);
+                } finally {
+                    pending.remove(stormRoot);
+                }
+            });
+        }
+        return null;
+    }
+
+    private void forgetRemovedTopologies() {
+        jarHashes.keySet().removeIf(path -> !new File(path).exists());
+        failed.removeIf(path -> !new File(path).getParentFile().exists());
+    }
+
+    private boolean train(String javaCmd, File archive, String workerClassPath, String workerMain, String stormJar) {
+        File tmpArchive = new File(archive.getPath() + ".tmp");
+        File trainingLog = new File(archive.getPath() + ".log");
+        List<String> command = new ArrayList<>();
+        command.add(javaCmd);
+        command.add("-XX:ArchiveClassesAtExit=" + tmpArchive.getAbsolutePath());
+        command.add("-cp");
+        command.add(workerClassPath);
+        command.add(PRELOADER_MAIN);
+        command.add(workerMain);
+        command.add(stormJar);
+        LOG.info("Training CDS archive {} with command: {}", archive, ServerUtils.shellCmd(command));
+        try {
+            Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(trainingLog)
+                .start();
+            if (!process.waitFor(TRAINING_TIMEOUT_MINS, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                LOG.warn("Training CDS archive {} timed out, see {}", archive, trainingLog);
+                return false;
+            }
+            if (process.exitValue() != 0 || !tmpArchive.exists()) {
+                LOG.warn("Training CDS archive {} failed with exit code {}, see {}", archive, process.exitValue(), trainingLog);
+                return false;
+            }
+            Files.move(tmpArchive.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            LOG.info("CDS archive {} is ready", archive);
+            return true;
+        } catch (IOException e) {
+            LOG.warn("Could not train CDS archive {}", archive, e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            tmpArchive.delete();
+        }
+    }
+
+    private String hashJar(File jar) throws IOException {
+        JarHash jarHash = jarHashes.get(jar.getAbsolutePath());
+        if (jarHash != null && jarHash.isFor(jar)) {
+            return jarHash.hash;
+        }
+        long lastModified = jar.lastModified();
+        long length = jar.length();
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(jar.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = toHex(digest.digest());
+        jarHashes.put(jar.getAbsolutePath(), new JarHash(hash, lastModified, length));
+        return hash;
+    }
+
+    private static File archive(String javaCmd, String stormRoot, String jarHash, String workerClassPath) {
+        MessageDigest digest = sha256();
+        digest.update(jarHash.getBytes(StandardCharsets.UTF_8));
+        digest.update(javaCmd.getBytes(StandardCharsets.UTF_8));
+        digest.update(workerClassPath.getBytes(StandardCharsets.UTF_8));
+        return new File(stormRoot, "cds-" + toHex(digest.digest()) + ".jsa");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static class JarHash {
+        private final String hash;
+        private final long lastModified;
+        private final long length;
+
+        private JarHash(String hash, long lastModified, long length) {
+            this.hash = hash;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        private boolean isFor(File jar) {
+            return jar.lastModified() == lastModified && jar.length() == length;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.collections.ListUtils;
 import org.apache.storm.Config;
+import org.apache.storm.Constants;
 import org.apache.storm.DaemonConfig;
 import org.apache.storm.ServerConstants;
 import org.apache.storm.cluster.IStormClusterState;
@@ -153,8 +154,15 @@ public class SupervisorHeartbeat implements Runnable {
             ret.put(stringNumberEntry.getKey(), stringNumberEntry.getValue().doubleValue());
         }
 
-        LOG.debug(NormalizedResources.RESOURCE_NAME_NORMALIZER.normalizedResourceMap(ret).toString());
-        return NormalizedResources.RESOURCE_NAME_NORMALIZER.normalizedResourceMap(ret);
+        Map<String, Double> normalized = NormalizedResources.RESOURCE_NAME_NORMALIZER.normalizedResourceMap(ret);
+        if (ObjectReader.getBoolean(conf.get(DaemonConfig.SUPERVISOR_WORKER_PREWARM_ENABLED), false)) {
+            // Memory set aside for parked worker JVMs is not available to the scheduler
+            int prewarmMemoryMb = ObjectReader.getInt(conf.get(DaemonConfig.SUPERVISOR_WORKER_PREWARM_MEMORY_MB), 0);
+            normalized.computeIfPresent(Constants.COMMON_TOTAL_MEMORY_RESOURCE_NAME,
+                (name, capacity) -> Math.max(0.0, capacity - prewarmMemoryMb));
+        }
+        LOG.debug(normalized.toString());
+        return normalized;
     }
 
     @Override
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.storm.daemon.drpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.storm.generated.DRPCExceptionType;
+import org.apache.storm.generated.DRPCExecutionException;
+import org.apache.storm.generated.DRPCRequest;
+import org.apache.storm.metric.StormMetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+public class DRPCTest {
+
+    @Test
+    public void testExecuteAsyncCompletesWithResult() throws Exception {
+        try (DRPC server = new DRPC(new StormMetricsRegistry(), null, 100_000)) {
+            CompletableFuture<String> future = server.executeAsync("testing", "test");
+            assertFalse(future.isDone());
+
+            DRPCRequest request = server.fetchRequest("testing");
+            assertEquals("test", request.get_func_args());
+            server.returnResult(request.get_request_id(), "tested");
+
+            assertEquals("tested", future.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testExecuteAsyncFails() throws Exception {
+        try (DRPC server = new DRPC(new StormMetricsRegistry(), null, 100_000)) {
+            CompletableFuture<String> future = server.executeAsync("testing", "test");
+
+            DRPCRequest request = server.fetchRequest("testing");
+            server.failRequest(request.get_request_id(), null);
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof DRPCExecutionException);
+            assertEquals(DRPCExceptionType.FAILED_REQUEST, ((DRPCExecutionException) e.getCause()).get_type());
+        }
+    }
+
+    @Test
+    public void testExecuteAsyncTimesOut() throws Exception {
+        try (DRPC server = new DRPC(new StormMetricsRegistry(), null, 100)) {
+            CompletableFuture<String> future = server.executeAsync("testing", "test");
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertEquals(DRPCExceptionType.SERVER_TIMEOUT, ((DRPCExecutionException) e.getCause()).get_type());
+            // the timed out request is no longer handed out
+            assertEquals("", server.fetchRequest("testing").get_request_id());
+        }
+    }
+
+    @Test
+    public void testCancelledExecuteAsyncIsNotFetched() throws Exception {
+        try (DRPC server = new DRPC(new StormMetricsRegistry(), null, 100_000)) {
+            CompletableFuture<String> future = server.executeAsync("testing", "test");
+            future.cancel(true);
+
+            assertEquals("", server.fetchRequest("testing").get_request_id());
+        }
+    }
+
+    @Test
+    public void testResultAfterCancelIsIgnored() throws Exception {
+        try (DRPC server = new DRPC(new StormMetricsRegistry(), null, 100_000)) {
+            CompletableFuture<String> future = server.executeAsync("testing", "test");
+            DRPCRequest request = server.fetchRequest("testing");
+            future.cancel(true);
+
+            server.returnResult(request.get_request_id(), "tested");
+            assertThrows(CancellationException.class, future::join);
+        }
+    }
+}
@@ -21,14 +21,20 @@ package org.apache.storm.daemon.drpc.webapp;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ConnectionCallback;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 
 import org.apache.storm.daemon.drpc.DRPC;
+import org.apache.storm.generated.AuthorizationException;
 import org.apache.storm.metric.StormMetricsRegistry;
 
 @Path("/drpc/")
@@ -48,23 +54,47 @@ public class DRPCResource {
     //TODO move populateContext to a filter...
     @POST
     @Path("/{func}") 
-    public String post(@PathParam("func") String func, String args, @Context HttpServletRequest request) throws Exception {
-        meterHttpRequests.mark();
-        return responseDuration.time(() -> drpc.executeBlocking(func, args));
+    public void post(@PathParam("func") String func, String args, @Context HttpServletRequest request,
+                     @Suspended AsyncResponse response) throws Exception {
+        execute(func, args, response);
     }
     
     @GET
     @Path("/{func}/{args}") 
-    public String get(@PathParam("func") String func, @PathParam("args") String args,
-                      @Context HttpServletRequest request) throws Exception {
-        meterHttpRequests.mark();
-        return responseDuration.time(() -> drpc.executeBlocking(func, args));
+    public void get(@PathParam("func") String func, @PathParam("args") String args,
+                    @Context HttpServletRequest request, @Suspended AsyncResponse response) throws Exception {
+        execute(func, args, response);
     }
     
     @GET
     @Path("/{func}") 
-    public String get(@PathParam("func") String func, @Context HttpServletRequest request) throws Exception {
+    public void get(@PathParam("func") String func, @Context HttpServletRequest request,
+                    @Suspended AsyncResponse response) throws Exception {
+        execute(func, "", response);
+    }
+
+    /**
+     * Submit the request and suspend the HTTP exchange until the result comes back, so the Jetty thread is released
+     * while the topology is working on it.
+     */
+    private void execute(String func, String args, AsyncResponse response) throws AuthorizationException {
         meterHttpRequests.mark();
-        return responseDuration.time(() -> drpc.executeBlocking(func, ""));
+        Timer.Context timer = responseDuration.time();
+        CompletableFuture<String> result;
+        try {
+            result = drpc.executeAsync(func, args);
+        } catch (AuthorizationException e) {
+            timer.stop();
+            throw e;
+        }
+        response.register((ConnectionCallback) disconnected -> result.cancel(false));
+        result.whenComplete((ret, e) -> {
+            timer.stop();
+            if (e == null) {
+                response.resume(ret);
+            } else {
+                response.resume(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
     }
 }